@@ -0,0 +1,65 @@
+package edu.escuelaing.arem.ASE.app.benchmark;
+
+import edu.escuelaing.arem.ASE.app.http.AsyncLog;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Costo para el hilo que atiende la petición de escribir una línea de log:
+ * {@link AsyncLog} (encolar en el buffer) frente a {@code String.format} +
+ * {@code println} sobre un PrintStream sincronizado, como hacía
+ * ClientHandler. Ambos escriben a un stream que descarta los bytes.
+ *
+ * java -jar benchmarks/target/benchmarks.jar AsyncLogBenchmark -t 4 -prof gc
+ *
+ * @author jgamb
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AsyncLogBenchmark {
+
+    private PrintStream sink;
+    private AsyncLog log;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        sink = new PrintStream(OutputStream.nullOutputStream(), true);
+        log = new AsyncLog.Builder().withConsole(sink, sink).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        log.close();
+        System.out.println("\nEventos descartados: " + log.getDropped() + " de "
+                + (log.getWritten() + log.getDropped()));
+    }
+
+    @Benchmark
+    public void asyncLog() {
+        log.info("Client-1234", "Respuesta enviada exitosamente");
+    }
+
+    @Benchmark
+    public void formatAndPrintln() {
+        sink.println(String.format("[%s][%s] INFO: %s", Thread.currentThread().getName(), "Client-1234",
+                "Respuesta enviada exitosamente"));
+    }
+}
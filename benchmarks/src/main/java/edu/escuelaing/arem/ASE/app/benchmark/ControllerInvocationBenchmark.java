@@ -0,0 +1,93 @@
+package edu.escuelaing.arem.ASE.app.benchmark;
+
+import edu.escuelaing.arem.ASE.app.Controller.GreetingController;
+import edu.escuelaing.arem.ASE.app.Controller.MathController;
+import edu.escuelaing.arem.ASE.app.annotation.RequestParam;
+import edu.escuelaing.arem.ASE.app.http.ControllerMethod;
+import edu.escuelaing.arem.ASE.app.http.Request;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compara la invocación reflexiva de controladores (getParameters +
+ * anotaciones + Method.invoke en cada petición, como hacía loadComponents)
+ * con {@link ControllerMethod}, que resuelve el plan de parámetros al
+ * registrar y llama al método con una clase generada por LambdaMetafactory.
+ *
+ * java -jar benchmarks/target/benchmarks.jar ControllerInvocationBenchmark -prof gc
+ *
+ * @author jgamb
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ControllerInvocationBenchmark {
+
+    private Method addMethod;
+    private Method helloMethod;
+    private ControllerMethod boundAdd;
+    private ControllerMethod boundHello;
+    private Request addRequest;
+    private Request helloRequest;
+
+    @Setup
+    public void setup() throws Exception {
+        addMethod = MathController.class.getMethod("add", String.class, String.class);
+        helloMethod = GreetingController.class.getMethod("sayHello", String.class);
+        boundAdd = ControllerMethod.bind(addMethod);
+        boundHello = ControllerMethod.bind(helloMethod);
+        addRequest = new Request.Builder().withMethod("GET").withUri(new URI("/add?a=5&b=3")).build();
+        helloRequest = new Request.Builder().withMethod("GET").withUri(new URI("/hello?name=Jorge")).build();
+    }
+
+    @Benchmark
+    public Object reflectiveAdd() throws Exception {
+        return invokeReflectively(addMethod, addRequest);
+    }
+
+    @Benchmark
+    public Object boundAdd() throws Throwable {
+        return boundAdd.invoke(addRequest);
+    }
+
+    @Benchmark
+    public Object reflectiveSayHello() throws Exception {
+        return invokeReflectively(helloMethod, helloRequest);
+    }
+
+    @Benchmark
+    public Object boundSayHello() throws Throwable {
+        return boundHello.invoke(helloRequest);
+    }
+
+    /**
+     * Camino anterior, tal como se ejecutaba dentro de la lambda de cada ruta.
+     */
+    private static Object invokeReflectively(Method m, Request req) throws Exception {
+        Parameter[] parameters = m.getParameters();
+        Object[] methodArgs = new Object[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            Parameter param = parameters[i];
+            if (param.isAnnotationPresent(RequestParam.class)) {
+                String paramName = param.getAnnotation(RequestParam.class).value();
+                methodArgs[i] = req.getQueryParam(paramName);
+            }
+        }
+        return m.invoke(null, methodArgs);
+    }
+}
@@ -0,0 +1,148 @@
+package edu.escuelaing.arem.ASE.app.benchmark;
+
+import edu.escuelaing.arem.ASE.app.http.HttpServer;
+import edu.escuelaing.arem.ASE.app.http.Request;
+import edu.escuelaing.arem.ASE.app.http.RequestParser;
+import edu.escuelaing.arem.ASE.app.http.Response;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Camino completo de {@link HttpServer#handleRequest(Request)} para una
+ * petición ya parseada: búsqueda de la ruta, invocación del controlador
+ * registrado por loadComponents, respuesta de un archivo estático y 404.
+ * Incluye el registro de métricas, igual que en el servidor.
+ *
+ * Los estáticos se sirven desde el classpath (caché de respuestas
+ * pre-serializadas) o desde un directorio en disco ({@code -p staticSource=disk}).
+ *
+ * La configuración del servidor es global (rutas, directorio de estáticos),
+ * así que se prepara una sola vez por trial en {@link Server}, compartido por
+ * todos los hilos; cada hilo solo tiene sus propias peticiones parseadas.
+ *
+ * java -jar benchmarks/target/benchmarks.jar DispatchBenchmark -prof gc
+ *
+ * @author jgamb
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+
+    /**
+     * Estado global del servidor, configurado antes de que empiece cualquier
+     * hilo y restaurado cuando terminan todos.
+     */
+    @State(Scope.Benchmark)
+    public static class Server {
+
+        @Param({"classpath", "disk"})
+        public String staticSource;
+
+        private Path staticDir;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            HttpServer.loadComponents(new String[0]);
+            HttpServer.get("/bench/hello", (req, res) -> new Response.Builder()
+                    .withContentType("text/plain")
+                    .withBody("Hola " + req.getQueryParam("name"))
+                    .build());
+            if ("disk".equals(staticSource)) {
+                staticDir = Files.createTempDirectory("dispatch-bench");
+                try (InputStream in = HttpServer.class.getResourceAsStream("/index.html")) {
+                    Files.copy(in, staticDir.resolve("index.html"));
+                }
+                HttpServer.staticFilesRoot(staticDir.toString());
+            } else {
+                HttpServer.staticFilesRoot(null);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            HttpServer.staticFilesRoot(null);
+            if (staticDir != null) {
+                Files.deleteIfExists(staticDir.resolve("index.html"));
+                Files.deleteIfExists(staticDir);
+            }
+        }
+    }
+
+    private RequestParser controllerHead;
+    private RequestParser lambdaHead;
+    private RequestParser staticHead;
+    private RequestParser notFoundHead;
+
+    /**
+     * Recibe el {@link Server} para que JMH lo configure antes que las
+     * peticiones de cada hilo.
+     */
+    @Setup(Level.Trial)
+    public void setup(Server server) {
+        controllerHead = parse("/add?a=5&b=3");
+        lambdaHead = parse("/bench/hello?name=Jorge");
+        staticHead = parse("/index.html");
+        notFoundHead = parse("/no/existe.html");
+    }
+
+    private static RequestParser parse(String target) {
+        RequestParser parser = new RequestParser();
+        parser.buffer().put(("GET " + target + " HTTP/1.1\r\nHost: localhost\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII));
+        if (parser.parse() != RequestParser.Status.COMPLETE) {
+            throw new IllegalStateException("Petición de prueba inválida: " + target);
+        }
+        return parser;
+    }
+
+    private static Response handle(RequestParser head) {
+        return HttpServer.handleRequest(new Request.Builder().withHead(head).build());
+    }
+
+    /**
+     * Controlador anotado (MathController.add) registrado por loadComponents.
+     */
+    @Benchmark
+    public Response controller() {
+        return handle(controllerHead);
+    }
+
+    /**
+     * Ruta registrada con una lambda.
+     */
+    @Benchmark
+    public Response lambdaRoute() {
+        return handle(lambdaHead);
+    }
+
+    @Benchmark
+    public Response staticFile() {
+        return handle(staticHead);
+    }
+
+    @Benchmark
+    public Response notFound() {
+        return handle(notFoundHead);
+    }
+}
@@ -0,0 +1,59 @@
+package edu.escuelaing.arem.ASE.app.benchmark;
+
+import edu.escuelaing.arem.ASE.app.http.HttpMetrics;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Costo de registrar una petición en {@link HttpMetrics} (búsqueda de la
+ * serie + histograma con franjas), comparado con un histograma protegido por
+ * un lock. Con varios hilos ({@code -t}) se ve la contención.
+ *
+ * java -jar benchmarks/target/benchmarks.jar HttpMetricsBenchmark -t 4 -prof gc
+ *
+ * @author jgamb
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpMetricsBenchmark {
+
+    private HttpMetrics metrics;
+    private final long[] lockedBuckets = new long[64];
+    private long lockedSum;
+
+    @Setup
+    public void setup() {
+        metrics = new HttpMetrics();
+        metrics.record("/app/hello", "GET", 200, 1);
+    }
+
+    @Benchmark
+    public void record() {
+        metrics.record("/app/hello", "GET", 200, System.nanoTime() & 0xFFFFF);
+    }
+
+    /**
+     * Referencia: un contador por potencia de dos bajo synchronized.
+     */
+    @Benchmark
+    public void recordLocked() {
+        long value = System.nanoTime() & 0xFFFFF;
+        synchronized (this) {
+            lockedBuckets[63 - Long.numberOfLeadingZeros(value | 1)]++;
+            lockedSum += value;
+        }
+    }
+}
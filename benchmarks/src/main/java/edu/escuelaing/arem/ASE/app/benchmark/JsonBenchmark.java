@@ -0,0 +1,79 @@
+package edu.escuelaing.arem.ASE.app.benchmark;
+
+import edu.escuelaing.arem.ASE.app.http.Json;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compara la búsqueda de un campo con {@link Json} (tokenizador sobre los
+ * bytes del cuerpo) con el camino anterior de Request.getJsonValue: decodificar
+ * el cuerpo a String y compilar un Pattern en cada llamada.
+ *
+ * El campo buscado está al final de un cuerpo típico de alta de usuario, así
+ * que ambos recorren casi todo el documento.
+ *
+ * java -jar benchmarks/target/benchmarks.jar JsonBenchmark -prof gc
+ *
+ * @author jgamb
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+    private static final String BODY = "{\"email\": \"ana.perez@example.com\", \"age\": 31, \"active\": true,"
+            + " \"address\": {\"street\": \"Calle 13 # 45-67\", \"city\": \"Bogotá\", \"zip\": \"110111\"},"
+            + " \"roles\": [\"admin\", \"editor\", \"viewer\"],"
+            + " \"preferences\": {\"theme\": \"dark\", \"language\": \"es\", \"notifications\": [\"email\", \"sms\"]},"
+            + " \"name\": \"Ana Pérez\"}";
+
+    private byte[] body;
+
+    @Setup
+    public void setup() {
+        body = BODY.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Camino anterior: String del cuerpo + Pattern compilado por llamada.
+     */
+    @Benchmark
+    public String regexLookup() {
+        String text = new String(body, StandardCharsets.UTF_8);
+        Pattern regex = Pattern.compile("\"name\"\\s*:\\s*\"([^\"]+)\"");
+        Matcher matcher = regex.matcher(text);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    /**
+     * Tokenizador sobre los bytes: salta los demás campos sin decodificarlos
+     * y solo crea el String del valor encontrado.
+     */
+    @Benchmark
+    public String jsonLookup() {
+        return Json.parse(body).get("name").asString();
+    }
+
+    /**
+     * Ruta anidada, que el camino con regex no soporta.
+     */
+    @Benchmark
+    public String jsonNestedLookup() {
+        return Json.parse(body).path("address.city").asString();
+    }
+}
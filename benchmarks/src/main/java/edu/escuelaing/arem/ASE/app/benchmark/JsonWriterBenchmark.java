@@ -0,0 +1,80 @@
+package edu.escuelaing.arem.ASE.app.benchmark;
+
+import edu.escuelaing.arem.ASE.app.http.JsonWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compara armar el cuerpo JSON de una respuesta por concatenación (sin
+ * escapar, como hacían los handlers de App) con {@link JsonWriter}, que
+ * escribe UTF-8 directamente en un buffer reutilizado por hilo.
+ *
+ * java -jar benchmarks/target/benchmarks.jar JsonWriterBenchmark -prof gc
+ *
+ * @author jgamb
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonWriterBenchmark {
+
+    public record User(String id, String name, int age, List<String> roles) {
+
+    }
+
+    private final String name = "Ana Pérez";
+    private final User user = new User("5f1c2a7e-3b7d-4c1e-9a51-0f6f3d2a8b44", "Ana Pérez", 31,
+            List.of("admin", "editor"));
+
+    /**
+     * Camino anterior: concatenación + getBytes, sin escapar el nombre.
+     */
+    @Benchmark
+    public byte[] concatMessage() {
+        return ("{\"message\": \"Hola " + name + " fuiste registrado exitosamente!\"}")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] writerMessage() {
+        return JsonWriter.toJson(Map.of("message", "Hola " + name + " fuiste registrado exitosamente!"));
+    }
+
+    /**
+     * Objeto con varios campos armado a mano.
+     */
+    @Benchmark
+    public byte[] concatRecord() {
+        StringBuilder roles = new StringBuilder();
+        for (String role : user.roles()) {
+            if (roles.length() > 0) {
+                roles.append(',');
+            }
+            roles.append('"').append(role).append('"');
+        }
+        return ("{\"id\":\"" + user.id() + "\",\"name\":\"" + user.name() + "\",\"age\":" + user.age()
+                + ",\"roles\":[" + roles + "]}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * El mismo objeto serializado como record.
+     */
+    @Benchmark
+    public byte[] writerRecord() {
+        return JsonWriter.toJson(user);
+    }
+}
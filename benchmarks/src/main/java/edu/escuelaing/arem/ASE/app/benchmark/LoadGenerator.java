@@ -0,0 +1,578 @@
+package edu.escuelaing.arem.ASE.app.benchmark;
+
+import edu.escuelaing.arem.ASE.app.App;
+import edu.escuelaing.arem.ASE.app.http.HttpServer;
+import edu.escuelaing.arem.ASE.app.http.JsonWriter;
+import edu.escuelaing.arem.ASE.app.http.LatencyHistogram;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Generador de carga HTTP de punta a punta contra el servidor, sin
+ * herramientas externas.
+ *
+ * Dos modos:
+ * <ul>
+ * <li><b>closed</b>: N conexiones keep-alive; cada una envía la siguiente
+ * petición apenas recibe la respuesta. Mide la capacidad máxima.</li>
+ * <li><b>open</b>: tasa constante ({@code --rate} peticiones por segundo)
+ * repartida entre las N conexiones. Cada petición tiene una hora de envío
+ * programada y su latencia se mide desde esa hora, no desde que se pudo
+ * enviar: si el servidor se detiene, las peticiones que debieron salir
+ * durante la pausa cuentan su espera (corrección de coordinated omission,
+ * como wrk2). El tiempo de servicio (desde el envío real) se reporta
+ * aparte.</li>
+ * </ul>
+ *
+ * El resultado es un JSON en la salida estándar (o en {@code --out}) con el
+ * throughput, los percentiles p50/p90/p99/p99.9 y los errores, en total y por
+ * ruta. Con {@code --embedded} arranca la aplicación en el mismo proceso.
+ *
+ * java -cp benchmarks/target/benchmarks.jar edu.escuelaing.arem.ASE.app.benchmark.LoadGenerator \
+ *     --embedded --mode=open --rate=2000 --connections=16 --duration=10 \
+ *     --route="GET /app/hello?name=Andres" --route="GET /index.html"
+ *
+ * @author jgamb
+ */
+public final class LoadGenerator {
+
+    private static final String USAGE = """
+            Uso: LoadGenerator [opciones]
+              --mode=closed|open     closed: N conexiones sin pausa; open: tasa constante (default closed)
+              --rate=R               peticiones por segundo en modo open
+              --connections=N        conexiones keep-alive (default 8)
+              --duration=S           segundos medidos (default 10)
+              --warmup=S             segundos de calentamiento sin medir (default 2)
+              --host=H --port=P      servidor (default localhost:35000)
+              --route="M /ruta [cuerpo]"  ruta a probar, repetible (default "GET /app/hello?name=Andres");
+                                     con cuerpo se envía como application/json
+              --timeout=MS           timeout de conexión y lectura (default 5000)
+              --embedded             arranca la aplicación en este proceso
+              --out=archivo          escribe el JSON en un archivo en lugar de la salida estándar
+            """;
+
+    /**
+     * Percentiles de una serie, en milisegundos.
+     */
+    public record LatencySummary(double mean, double p50, double p90, double p99, double p999, double max) {
+
+        static LatencySummary of(LatencyHistogram.Snapshot snapshot) {
+            long count = snapshot.getCount();
+            return new LatencySummary(
+                    count == 0 ? 0 : millis((double) snapshot.getSum() / count),
+                    millis(snapshot.getValueAtQuantile(0.5)),
+                    millis(snapshot.getValueAtQuantile(0.9)),
+                    millis(snapshot.getValueAtQuantile(0.99)),
+                    millis(snapshot.getValueAtQuantile(0.999)),
+                    millis(snapshot.getMax()));
+        }
+
+        private static double millis(double nanos) {
+            return Math.round(nanos / 1000.0) / 1000.0;
+        }
+    }
+
+    /**
+     * Resultado de una ruta. latencyMillis se mide desde la hora programada
+     * (corregida) y serviceTimeMillis desde el envío real; en modo closed son
+     * iguales.
+     */
+    public record RouteReport(String method, String path, long requests, double throughput, long ioErrors,
+            long statusErrors, Map<String, Long> statuses, LatencySummary latencyMillis,
+            LatencySummary serviceTimeMillis) {
+    }
+
+    /**
+     * Resultado completo de una corrida. El throughput se calcula sobre
+     * elapsedSeconds, que incluye la espera de las últimas respuestas;
+     * missedRequests son las peticiones programadas (modo open) que no se
+     * alcanzaron a enviar antes del final porque el servidor iba atrasado.
+     */
+    public record Report(String mode, String target, int connections, Double targetRate, double durationSeconds,
+            double warmupSeconds, double elapsedSeconds, long requests, long ioErrors, long statusErrors,
+            long missedRequests, double throughput,
+            LatencySummary latencyMillis, LatencySummary serviceTimeMillis, List<RouteReport> routes) {
+    }
+
+    // ==================== CONFIGURACIÓN ====================
+    private String mode = "closed";
+    private double rate;
+    private int connections = 8;
+    private double durationSeconds = 10;
+    private double warmupSeconds = 2;
+    private String host = "localhost";
+    private int port = 35000;
+    private int timeoutMillis = 5000;
+    private boolean embedded;
+    private String out;
+    private final List<Route> routes = new ArrayList<>();
+    private final LongAdder missed = new LongAdder();
+    private final LongAccumulator lastDone = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+    public static void main(String[] args) throws Exception {
+        LoadGenerator generator = new LoadGenerator();
+        try {
+            generator.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+            return;
+        }
+        PrintStream stdout = System.out;
+        if (generator.embedded) {
+            // Los mensajes del servidor van a stderr para no mezclarse con el JSON
+            System.setOut(System.err);
+            generator.startEmbedded();
+        }
+        Report report = generator.run();
+        byte[] json = JsonWriter.toJson(report);
+        if (generator.out != null) {
+            try (OutputStream file = new FileOutputStream(generator.out)) {
+                file.write(json);
+                file.write('\n');
+            }
+        } else {
+            stdout.write(json);
+            stdout.println();
+            stdout.flush();
+        }
+        generator.printSummary(report);
+        System.exit(report.requests() > 0 ? 0 : 1);
+    }
+
+    private void parse(String[] args) {
+        for (String arg : args) {
+            if (arg.equals("--embedded")) {
+                embedded = true;
+                continue;
+            }
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Opción inválida: " + arg);
+            }
+            String name = arg.substring(2, eq);
+            String value = arg.substring(eq + 1);
+            try {
+                switch (name) {
+                    case "mode" -> mode = value.toLowerCase(Locale.ROOT);
+                    case "rate" -> rate = Double.parseDouble(value);
+                    case "connections" -> connections = Integer.parseInt(value);
+                    case "duration" -> durationSeconds = Double.parseDouble(value);
+                    case "warmup" -> warmupSeconds = Double.parseDouble(value);
+                    case "host" -> host = value;
+                    case "port" -> port = Integer.parseInt(value);
+                    case "timeout" -> timeoutMillis = Integer.parseInt(value);
+                    case "route" -> routes.add(Route.parse(value));
+                    case "out" -> out = value;
+                    default -> throw new IllegalArgumentException("Opción desconocida: " + arg);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Valor inválido: " + arg);
+            }
+        }
+        if (!mode.equals("open") && !mode.equals("closed")) {
+            throw new IllegalArgumentException("Modo inválido: " + mode);
+        }
+        if (mode.equals("open") && rate <= 0) {
+            throw new IllegalArgumentException("El modo open requiere --rate mayor que 0");
+        }
+        if (connections < 1 || durationSeconds <= 0 || warmupSeconds < 0 || timeoutMillis < 1) {
+            throw new IllegalArgumentException("connections, duration y timeout deben ser positivos");
+        }
+        if (routes.isEmpty()) {
+            routes.add(Route.parse("GET /app/hello?name=Andres"));
+        }
+    }
+
+    /**
+     * Arranca App en un hilo daemon y espera a que acepte conexiones.
+     */
+    private void startEmbedded() throws InterruptedException {
+        if (System.getProperty("http.logLevel") == null) {
+            System.setProperty("http.logLevel", "error");
+        }
+        HttpServer.port = port;
+        Thread server = new Thread(() -> {
+            try {
+                App.main(new String[0]);
+            } catch (Exception e) {
+                System.err.println("No se pudo iniciar el servidor: " + e.getMessage());
+            }
+        }, "embedded-server");
+        server.setDaemon(true);
+        server.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (true) {
+            try (Socket probe = new Socket()) {
+                probe.connect(new InetSocketAddress(host, port), 500);
+                return;
+            } catch (IOException e) {
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("El servidor no aceptó conexiones en " + host + ":" + port);
+                }
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    // ==================== EJECUCIÓN ====================
+    private Report run() throws InterruptedException {
+        for (Route route : routes) {
+            route.encode(host, port);
+        }
+        long warmupNanos = (long) (warmupSeconds * 1e9);
+        long durationNanos = (long) (durationSeconds * 1e9);
+        // Margen para conectar todos los workers antes del primer envío
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200);
+        long measureStart = start + warmupNanos;
+        long end = measureStart + durationNanos;
+
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            Worker worker = new Worker(i, start, measureStart, end);
+            Thread thread = new Thread(worker, "load-" + i);
+            workers.add(thread);
+            thread.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return report(measureStart, durationNanos);
+    }
+
+    private Report report(long measureStart, long durationNanos) {
+        long last = lastDone.get();
+        double seconds = Math.max(durationNanos, last == Long.MIN_VALUE ? 0 : last - measureStart) / 1e9;
+        LatencyHistogram.Snapshot latency = LatencyHistogram.Snapshot.empty();
+        LatencyHistogram.Snapshot service = LatencyHistogram.Snapshot.empty();
+        List<RouteReport> routeReports = new ArrayList<>();
+        long requests = 0;
+        long ioErrors = 0;
+        long statusErrors = 0;
+        for (Route route : routes) {
+            LatencyHistogram.Snapshot routeLatency = route.latency.snapshot();
+            LatencyHistogram.Snapshot routeService = route.serviceTime.snapshot();
+            latency.add(routeLatency);
+            service.add(routeService);
+            Map<String, Long> statuses = new LinkedHashMap<>();
+            long routeStatusErrors = 0;
+            for (int status = 0; status < route.statuses.length(); status++) {
+                long count = route.statuses.get(status);
+                if (count > 0) {
+                    statuses.put(String.valueOf(status), count);
+                    if (status >= 400) {
+                        routeStatusErrors += count;
+                    }
+                }
+            }
+            long routeRequests = routeLatency.getCount();
+            routeReports.add(new RouteReport(route.method, route.path, routeRequests, round(routeRequests / seconds),
+                    route.ioErrors.sum(), routeStatusErrors, statuses, LatencySummary.of(routeLatency),
+                    LatencySummary.of(routeService)));
+            requests += routeRequests;
+            ioErrors += route.ioErrors.sum();
+            statusErrors += routeStatusErrors;
+        }
+        return new Report(mode, host + ":" + port, connections, mode.equals("open") ? rate : null,
+                durationSeconds, warmupSeconds, Math.round(seconds * 1000) / 1000.0, requests, ioErrors, statusErrors,
+                missed.sum(), round(requests / seconds),
+                LatencySummary.of(latency), LatencySummary.of(service), routeReports);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    private void printSummary(Report report) {
+        System.err.printf(Locale.ROOT,
+                "%s %s, %d conexiones: %d peticiones, %.1f req/s, errores io=%d estado=%d, sin enviar=%d%n",
+                report.mode(), report.target(), report.connections(), report.requests(), report.throughput(),
+                report.ioErrors(), report.statusErrors(), report.missedRequests());
+        for (RouteReport route : report.routes()) {
+            LatencySummary l = route.latencyMillis();
+            System.err.printf(Locale.ROOT, "  %-6s %-40s %8d  p50=%.3f p99=%.3f p99.9=%.3f max=%.3f ms%n",
+                    route.method(), route.path(), route.requests(), l.p50(), l.p99(), l.p999(), l.max());
+        }
+    }
+
+    /**
+     * Una conexión: envía peticiones en ronda por las rutas hasta el final de
+     * la corrida.
+     */
+    private final class Worker implements Runnable {
+
+        private final int index;
+        private final long start;
+        private final long measureStart;
+        private final long end;
+        private final ClientConnection connection = new ClientConnection();
+
+        Worker(int index, long start, long measureStart, long end) {
+            this.index = index;
+            this.start = start;
+            this.measureStart = measureStart;
+            this.end = end;
+        }
+
+        @Override
+        public void run() {
+            boolean open = mode.equals("open");
+            // En modo open cada conexión envía cada `interval` ns, desfasada
+            // respecto de las demás para repartir la tasa de forma pareja
+            long interval = open ? (long) (connections * 1e9 / rate) : 0;
+            long intended = open ? start + interval * index / connections : start;
+            int next = index % routes.size();
+            waitUntil(start);
+            while (true) {
+                long now = System.nanoTime();
+                if (open) {
+                    if (intended - end >= 0) {
+                        break;
+                    }
+                    if (now - end >= 0) {
+                        // El servidor no alcanzó la tasa: lo que quedó
+                        // programado en la ventana medida no se envía
+                        for (; intended - end < 0; intended += interval) {
+                            if (intended - measureStart >= 0) {
+                                missed.increment();
+                            }
+                        }
+                        break;
+                    }
+                    waitUntil(intended);
+                } else if (now - end >= 0) {
+                    break;
+                }
+                Route route = routes.get(next);
+                next = (next + 1) % routes.size();
+                long sent = System.nanoTime();
+                long scheduled = open ? intended : sent;
+                int status;
+                try {
+                    status = connection.exchange(route);
+                } catch (IOException e) {
+                    connection.close();
+                    if (scheduled - measureStart >= 0) {
+                        route.ioErrors.increment();
+                    }
+                    if (!open) {
+                        // Evita un bucle de reintentos sin pausa si el servidor no está
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+                    }
+                    intended += interval;
+                    continue;
+                }
+                long done = System.nanoTime();
+                if (scheduled - measureStart >= 0) {
+                    lastDone.accumulate(done);
+                    route.latency.record(done - scheduled);
+                    route.serviceTime.record(done - sent);
+                    route.statuses.incrementAndGet(Math.min(status, route.statuses.length() - 1));
+                }
+                intended += interval;
+            }
+            connection.close();
+        }
+
+        private static void waitUntil(long deadline) {
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(remaining);
+            }
+        }
+    }
+
+    /**
+     * Ruta a probar y sus contadores.
+     */
+    private static final class Route {
+
+        final String method;
+        final String path;
+        final String body;
+        byte[] request;
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LatencyHistogram serviceTime = new LatencyHistogram();
+        final AtomicLongArray statuses = new AtomicLongArray(600);
+        final LongAdder ioErrors = new LongAdder();
+
+        private Route(String method, String path, String body) {
+            this.method = method;
+            this.path = path;
+            this.body = body;
+        }
+
+        static Route parse(String spec) {
+            String[] parts = spec.trim().split(" ", 3);
+            if (parts.length < 2 || !parts[1].startsWith("/")) {
+                throw new IllegalArgumentException("Ruta inválida (se espera \"METODO /ruta [cuerpo]\"): " + spec);
+            }
+            return new Route(parts[0].toUpperCase(Locale.ROOT), parts[1], parts.length > 2 ? parts[2] : null);
+        }
+
+        void encode(String host, int port) {
+            StringBuilder head = new StringBuilder()
+                    .append(method).append(' ').append(path).append(" HTTP/1.1\r\n")
+                    .append("Host: ").append(host).append(':').append(port).append("\r\n")
+                    .append("User-Agent: arep-loadgen\r\n");
+            byte[] bodyBytes = body != null ? body.getBytes(StandardCharsets.UTF_8) : new byte[0];
+            if (body != null) {
+                head.append("Content-Type: application/json\r\n")
+                        .append("Content-Length: ").append(bodyBytes.length).append("\r\n");
+            }
+            head.append("\r\n");
+            byte[] headBytes = head.toString().getBytes(StandardCharsets.UTF_8);
+            request = new byte[headBytes.length + bodyBytes.length];
+            System.arraycopy(headBytes, 0, request, 0, headBytes.length);
+            System.arraycopy(bodyBytes, 0, request, headBytes.length, bodyBytes.length);
+        }
+    }
+
+    /**
+     * Conexión HTTP/1.1 keep-alive mínima: escribe la petición y consume la
+     * respuesta completa (Content-Length o chunked). Se reconecta si el
+     * servidor cierra.
+     */
+    private final class ClientConnection {
+
+        private Socket socket;
+        private InputStream in;
+        private OutputStream output;
+        private final byte[] line = new byte[8192];
+        private final byte[] skip = new byte[16 * 1024];
+
+        int exchange(Route route) throws IOException {
+            if (socket == null) {
+                socket = new Socket();
+                socket.setTcpNoDelay(true);
+                socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+                socket.setSoTimeout(timeoutMillis);
+                in = new BufferedInputStream(socket.getInputStream(), 16 * 1024);
+                output = new BufferedOutputStream(socket.getOutputStream());
+            }
+            output.write(route.request);
+            output.flush();
+
+            String statusLine = readLine();
+            if (statusLine.length() < 12 || !statusLine.startsWith("HTTP/1.")) {
+                throw new IOException("Respuesta inválida: " + statusLine);
+            }
+            int status = Integer.parseInt(statusLine.substring(9, 12));
+            long contentLength = -1;
+            boolean chunked = false;
+            boolean close = statusLine.startsWith("HTTP/1.0");
+            String header;
+            while (!(header = readLine()).isEmpty()) {
+                int colon = header.indexOf(':');
+                if (colon < 0) {
+                    continue;
+                }
+                String name = header.substring(0, colon).trim();
+                String value = header.substring(colon + 1).trim();
+                if (name.equalsIgnoreCase("Content-Length")) {
+                    contentLength = Long.parseLong(value);
+                } else if (name.equalsIgnoreCase("Transfer-Encoding")) {
+                    chunked = value.toLowerCase(Locale.ROOT).contains("chunked");
+                } else if (name.equalsIgnoreCase("Connection")) {
+                    close = value.equalsIgnoreCase("close");
+                }
+            }
+            boolean noBody = route.method.equals("HEAD") || status == 204 || status == 304 || status < 200;
+            if (!noBody) {
+                if (chunked) {
+                    skipChunked();
+                } else if (contentLength >= 0) {
+                    skipFully(contentLength);
+                } else {
+                    // Sin longitud: el cuerpo termina al cerrar la conexión
+                    while (in.read(skip) >= 0) {
+                        // descartar
+                    }
+                    close = true;
+                }
+            }
+            if (close) {
+                close();
+            }
+            return status;
+        }
+
+        private void skipChunked() throws IOException {
+            while (true) {
+                String sizeLine = readLine();
+                int semicolon = sizeLine.indexOf(';');
+                long size = Long.parseLong((semicolon >= 0 ? sizeLine.substring(0, semicolon) : sizeLine).trim(), 16);
+                if (size == 0) {
+                    while (!readLine().isEmpty()) {
+                        // trailers
+                    }
+                    return;
+                }
+                skipFully(size);
+                readLine();
+            }
+        }
+
+        private void skipFully(long length) throws IOException {
+            while (length > 0) {
+                int read = in.read(skip, 0, (int) Math.min(skip.length, length));
+                if (read < 0) {
+                    throw new EOFException("Cuerpo incompleto");
+                }
+                length -= read;
+            }
+        }
+
+        private String readLine() throws IOException {
+            int length = 0;
+            while (true) {
+                int b = in.read();
+                if (b < 0) {
+                    throw new EOFException("Conexión cerrada por el servidor");
+                }
+                if (b == '\n') {
+                    break;
+                }
+                if (length == line.length) {
+                    throw new IOException("Línea demasiado larga");
+                }
+                line[length++] = (byte) b;
+            }
+            if (length > 0 && line[length - 1] == '\r') {
+                length--;
+            }
+            return new String(line, 0, length, StandardCharsets.ISO_8859_1);
+        }
+
+        void close() {
+            if (socket != null) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // ya no se usa
+                }
+                socket = null;
+            }
+        }
+    }
+}
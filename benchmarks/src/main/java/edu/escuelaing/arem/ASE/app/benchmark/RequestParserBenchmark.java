@@ -0,0 +1,100 @@
+package edu.escuelaing.arem.ASE.app.benchmark;
+
+import edu.escuelaing.arem.ASE.app.http.RequestParser;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compara el parser de bytes ({@link RequestParser}) con el camino anterior
+ * basado en BufferedReader + readLine + split + new URI + toLowerCase.
+ *
+ * Ejecutar con el profiler de GC para ver la tasa de asignación por petición
+ * (gc.alloc.rate.norm):
+ *
+ * java -jar benchmarks/target/benchmarks.jar RequestParserBenchmark -prof gc
+ *
+ * @author jgamb
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestParserBenchmark {
+
+    private static final String GET_REQUEST = "GET /add?a=5&b=3 HTTP/1.1\r\n"
+            + "Host: localhost:35000\r\n"
+            + "User-Agent: Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36\r\n"
+            + "Accept: application/json, text/plain, */*\r\n"
+            + "Accept-Encoding: gzip, deflate, br\r\n"
+            + "Accept-Language: es-CO,es;q=0.9,en;q=0.8\r\n"
+            + "Connection: keep-alive\r\n"
+            + "\r\n";
+
+    private byte[] rawRequest;
+    private RequestParser parser;
+
+    @Setup
+    public void setup() {
+        rawRequest = GET_REQUEST.getBytes(StandardCharsets.US_ASCII);
+        parser = new RequestParser();
+    }
+
+    /**
+     * Parser de bytes reutilizado entre peticiones, como en una conexión
+     * keep-alive: método, ruta y un header se leen sin copiar el resto.
+     */
+    @Benchmark
+    public void byteParser(Blackhole bh) {
+        parser.buffer().put(rawRequest);
+        bh.consume(parser.parse());
+        bh.consume(parser.method());
+        bh.consume(parser.path());
+        bh.consume(parser.headerEquals("connection", "close"));
+        parser.next();
+    }
+
+    /**
+     * Camino anterior: un lector de caracteres por conexión, Strings por línea,
+     * split del request line, URI y un HashMap con nombres en minúsculas.
+     */
+    @Benchmark
+    public void legacyReaderParser(Blackhole bh) throws IOException, URISyntaxException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(rawRequest)));
+        String[] requestParts = in.readLine().split(" ");
+        String method = requestParts[0].toUpperCase();
+        URI uri = new URI(requestParts[1]);
+
+        Map<String, String> headers = new HashMap<>();
+        String line;
+        while ((line = in.readLine()) != null && !line.isEmpty()) {
+            if (line.contains(":")) {
+                String[] parts = line.split(":", 2);
+                headers.put(parts[0].trim().toLowerCase(), parts[1].trim());
+            }
+        }
+        bh.consume(method);
+        bh.consume(uri.getPath());
+        bh.consume("close".equalsIgnoreCase(headers.get("connection")));
+    }
+}
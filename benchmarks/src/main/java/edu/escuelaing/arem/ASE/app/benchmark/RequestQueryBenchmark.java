@@ -0,0 +1,87 @@
+package edu.escuelaing.arem.ASE.app.benchmark;
+
+import edu.escuelaing.arem.ASE.app.http.Request;
+import edu.escuelaing.arem.ASE.app.http.RequestParser;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Lectura de parámetros de query con {@link Request#getQueryParam(String)}
+ * sobre una petición recién parseada, comparada con el camino anterior
+ * (URI + split del query + URLDecoder + HashMap).
+ *
+ * Cada operación crea la Request, como hace el servidor en cada petición, así
+ * que el parseo perezoso de la query cuenta en el resultado.
+ *
+ * java -jar benchmarks/target/benchmarks.jar RequestQueryBenchmark -prof gc
+ *
+ * @author jgamb
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestQueryBenchmark {
+
+    private static final String TARGET = "/app/search?a=5&b=3&name=Jorge%20G%C3%B3mez&page=2";
+    private static final String RAW_REQUEST = "GET " + TARGET + " HTTP/1.1\r\n"
+            + "Host: localhost:35000\r\n"
+            + "Accept: application/json\r\n"
+            + "\r\n";
+
+    private RequestParser parser;
+
+    @Setup
+    public void setup() {
+        parser = new RequestParser();
+        parser.buffer().put(RAW_REQUEST.getBytes(StandardCharsets.US_ASCII));
+        if (parser.parse() != RequestParser.Status.COMPLETE) {
+            throw new IllegalStateException("Petición de prueba inválida");
+        }
+    }
+
+    @Benchmark
+    public void getQueryParam(Blackhole bh) {
+        Request request = new Request.Builder().withHead(parser).build();
+        bh.consume(request.getQueryParam("a"));
+        bh.consume(request.getQueryParam("b"));
+        bh.consume(request.getQueryParam("name"));
+        bh.consume(request.getQueryParam("missing"));
+    }
+
+    /**
+     * Camino anterior: URI por petición y un mapa con todos los parámetros.
+     */
+    @Benchmark
+    public void legacySplit(Blackhole bh) throws URISyntaxException {
+        URI uri = new URI(TARGET);
+        Map<String, String> params = new HashMap<>();
+        for (String pair : uri.getRawQuery().split("&")) {
+            String[] keyValue = pair.split("=", 2);
+            params.put(URLDecoder.decode(keyValue[0], StandardCharsets.UTF_8),
+                    keyValue.length > 1 ? URLDecoder.decode(keyValue[1], StandardCharsets.UTF_8) : "");
+        }
+        bh.consume(params.get("a"));
+        bh.consume(params.get("b"));
+        bh.consume(params.get("name"));
+        bh.consume(params.get("missing"));
+    }
+}
@@ -0,0 +1,85 @@
+package edu.escuelaing.arem.ASE.app.benchmark;
+
+import edu.escuelaing.arem.ASE.app.http.Response;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serialización de respuestas con {@link Response#toBytes()}: cabecera
+ * (incluida la línea Date) más cuerpo, para un texto corto, un cuerpo de
+ * 16 KB y un objeto convertido a JSON con withJson.
+ *
+ * Los motores no usan toBytes (escriben cabecera y cuerpo por separado sin
+ * copiarlo), así que la diferencia entre "text" y "largeBody" es el costo de
+ * la copia que ellos evitan.
+ *
+ * java -jar benchmarks/target/benchmarks.jar ResponseSerializationBenchmark -prof gc
+ *
+ * @author jgamb
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+
+    private byte[] largeBody;
+    private Map<String, Object> jsonValue;
+
+    @Setup
+    public void setup() {
+        largeBody = new byte[16 * 1024];
+        List<Map<String, Object>> users = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Map<String, Object> user = new LinkedHashMap<>();
+            user.put("id", "user-" + i);
+            user.put("name", "Usuario " + i);
+            user.put("active", i % 2 == 0);
+            users.add(user);
+        }
+        jsonValue = new LinkedHashMap<>();
+        jsonValue.put("count", users.size());
+        jsonValue.put("users", users);
+    }
+
+    @Benchmark
+    public byte[] text() {
+        return new Response.Builder()
+                .withContentType("text/plain")
+                .withBody("Hola Jorge")
+                .build()
+                .toBytes();
+    }
+
+    @Benchmark
+    public byte[] largeBody() {
+        return new Response.Builder()
+                .withContentType("application/octet-stream")
+                .withBodyBytes(largeBody)
+                .build()
+                .toBytes();
+    }
+
+    @Benchmark
+    public byte[] json() {
+        return new Response.Builder()
+                .withJson(jsonValue)
+                .build()
+                .toBytes();
+    }
+}
@@ -0,0 +1,72 @@
+package edu.escuelaing.arem.ASE.app.benchmark;
+
+import edu.escuelaing.arem.ASE.app.http.Request;
+import edu.escuelaing.arem.ASE.app.http.Response;
+import edu.escuelaing.arem.ASE.app.http.Router;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Búsqueda de rutas en {@link Router} (el árbol radix que reemplazó al mapa
+ * de servicios) con 10 y 1000 rutas registradas: una ruta fija, una con
+ * variable de ruta y una ruta que no existe.
+ *
+ * java -jar benchmarks/target/benchmarks.jar RouterBenchmark -prof gc
+ *
+ * @author jgamb
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouterBenchmark {
+
+    @Param({"10", "1000"})
+    public int routes;
+
+    private Router router;
+    private String staticPath;
+    private String paramPath;
+
+    @Setup
+    public void setup() {
+        BiFunction<Request, Response, Response> handler = (req, res) -> res;
+        router = new Router();
+        for (int i = 0; i < routes; i++) {
+            router.add("GET", "/app/page" + i, handler);
+            router.add("GET", "/api/v1/resource" + i + "/items/{id}", handler);
+        }
+        staticPath = "/app/page" + routes / 2;
+        paramPath = "/api/v1/resource" + routes / 2 + "/items/42";
+    }
+
+    @Benchmark
+    public Router.Match matchStatic() {
+        return router.match(staticPath);
+    }
+
+    @Benchmark
+    public void matchWithParam(Blackhole bh) {
+        Router.Match match = router.match(paramPath);
+        bh.consume(match.param("id"));
+    }
+
+    @Benchmark
+    public Router.Match miss() {
+        return router.match("/api/v1/unknown/items/42");
+    }
+}
@@ -0,0 +1,39 @@
+package edu.escuelaing.arem.ASE.app.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Punto de entrada para grabar líneas base: acepta las mismas opciones que
+ * {@code org.openjdk.jmh.Main}, pero siempre agrega el profiler de GC (para
+ * que cada resultado traiga {@code gc.alloc.rate.norm}) y guarda el resultado
+ * en JSON si no se indicó otro formato.
+ *
+ * java -cp benchmarks/target/benchmarks.jar edu.escuelaing.arem.ASE.app.benchmark.Runner -rff baseline.json
+ *
+ * @author jgamb
+ */
+public final class Runner {
+
+    private Runner() {
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(cli);
+        boolean hasGc = cli.getProfilers().stream()
+                .anyMatch(p -> p.getKlass().equals("gc") || p.getKlass().equals(GCProfiler.class.getName()));
+        if (!hasGc) {
+            options.addProfiler(GCProfiler.class);
+        }
+        if (!cli.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        new org.openjdk.jmh.runner.Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,131 @@
+package edu.escuelaing.arem.ASE.app.benchmark;
+
+import edu.escuelaing.arem.ASE.app.http.UserRegistry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.SplittableRandom;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latencia de buscar un usuario por nombre según el tamaño del registro: el
+ * índice de {@link UserRegistry} frente al recorrido de
+ * ConcurrentHashMap.containsValue que hacía GET /app/hello. También mide el
+ * alta y baja de un usuario, que actualiza el índice bajo el lock del nombre.
+ *
+ * {@code names=unique} da un nombre distinto a cada usuario; con
+ * {@code names=skewed} los nombres siguen una distribución sesgada (unos pocos
+ * nombres compartidos por muchos usuarios), y las búsquedas y altas usan la
+ * misma distribución, así que caen sobre todo en los nombres más repetidos.
+ *
+ * Con 10^7 usuarios el registro necesita unos 3 GB de heap; para una corrida
+ * rápida se pueden limitar los tamaños:
+ *
+ * java -jar benchmarks/target/benchmarks.jar UserRegistryBenchmark -p size=1000,1000000
+ *
+ * @author jgamb
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class UserRegistryBenchmark {
+
+    private static final int LOOKUPS = 1024;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"unique", "skewed"})
+    public String names;
+
+    private UserRegistry registry;
+    private ConcurrentHashMap<String, String> legacy;
+    private String[] lookups;
+    private int next;
+
+    @Setup
+    public void setup() {
+        registry = new UserRegistry();
+        legacy = new ConcurrentHashMap<>(size * 2);
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < size; i++) {
+            String id = "id" + i;
+            String name = "user" + nameIndex(i, random);
+            registry.put(id, name);
+            legacy.put(id, name);
+        }
+        // Nombres existentes en posiciones aleatorias, para no medir siempre
+        // la misma entrada ya en caché
+        random = new SplittableRandom(42);
+        lookups = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            lookups[i] = "user" + nameIndex(random.nextInt(size), random);
+        }
+    }
+
+    /**
+     * Con la distribución sesgada, u^4 concentra los valores cerca de cero
+     * sobre size/10 nombres posibles: el 1% de los nombres cubre cerca de un
+     * tercio de los usuarios y la mitad de ellos usa el 6% de los nombres.
+     */
+    private int nameIndex(int i, SplittableRandom random) {
+        if (names.equals("unique")) {
+            return i;
+        }
+        double u = random.nextDouble();
+        return (int) (u * u * u * u * (size / 10 + 1));
+    }
+
+    private String nextName() {
+        next = (next + 1) & (LOOKUPS - 1);
+        return lookups[next];
+    }
+
+    @Benchmark
+    public boolean indexContainsName() {
+        return registry.containsName(nextName());
+    }
+
+    @Benchmark
+    public boolean indexContainsMissingName() {
+        return registry.containsName("nadie");
+    }
+
+    @Benchmark
+    public Set<String> indexIdsByName() {
+        return registry.getIdsByName(nextName());
+    }
+
+    /**
+     * Alta seguida de la baja del mismo ID, para que el registro no crezca
+     * durante la medición; con nombres repetidos el costo no debe depender
+     * de cuántos usuarios ya tienen ese nombre.
+     */
+    @Benchmark
+    public String indexPutAndRemove() {
+        registry.put("nuevo", nextName());
+        return registry.remove("nuevo");
+    }
+
+    /**
+     * Camino anterior: recorre los valores hasta encontrar el nombre (en
+     * promedio la mitad del mapa).
+     */
+    @Benchmark
+    public boolean scanContainsValue() {
+        return legacy.containsValue(nextName());
+    }
+}
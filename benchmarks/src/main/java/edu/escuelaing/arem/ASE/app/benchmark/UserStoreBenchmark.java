@@ -0,0 +1,118 @@
+package edu.escuelaing.arem.ASE.app.benchmark;
+
+import edu.escuelaing.arem.ASE.app.http.UserRegistry;
+import edu.escuelaing.arem.ASE.app.http.UserStore;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latencia de registrar un usuario según la persistencia: solo en memoria,
+ * {@link UserStore} con commit asíncrono (vuelve al encolar) y con commit
+ * síncrono (espera al force() compartido). Con varios hilos el commit
+ * síncrono agrupa más registros por force(); al final de cada corrida se
+ * imprime cuántos registros cubrió cada commit en promedio.
+ *
+ * java -jar benchmarks/target/benchmarks.jar UserStoreBenchmark -t 1
+ * java -jar benchmarks/target/benchmarks.jar UserStoreBenchmark -t 16
+ *
+ * @author jgamb
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserStoreBenchmark {
+
+    @Param({"memory", "async", "sync"})
+    public String mode;
+
+    private Path directory;
+    private UserRegistry registry;
+    private UserStore store;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        registry = new UserRegistry();
+        if (!"memory".equals(mode)) {
+            directory = Files.createTempDirectory("user-store-bench");
+            store = UserStore.builder()
+                    .withDirectory(directory)
+                    .withRegistry(registry)
+                    .withSyncCommit("sync".equals(mode))
+                    .build();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (store != null) {
+            store.close();
+            System.out.printf("%n%s: %d registros en %d commits (%.1f por commit)%n", mode,
+                    store.getLoggedRecords(), store.getCommitCount(),
+                    (double) store.getLoggedRecords() / Math.max(1, store.getCommitCount()));
+            deleteRecursively(directory);
+        }
+    }
+
+    /**
+     * IDs propios de cada hilo; se reutilizan para que el registro no crezca
+     * sin límite durante la corrida y el GC no domine la medición.
+     */
+    @State(Scope.Thread)
+    public static class Ids {
+
+        private static final int COUNT = 4096;
+        private static int threads;
+
+        private final String[] ids = new String[COUNT];
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            int thread;
+            synchronized (Ids.class) {
+                thread = threads++;
+            }
+            for (int i = 0; i < COUNT; i++) {
+                ids[i] = "t" + thread + "-" + i;
+            }
+        }
+
+        String next() {
+            return ids[next++ & (COUNT - 1)];
+        }
+    }
+
+    @Benchmark
+    public String register(Ids ids) {
+        String id = ids.next();
+        return store != null ? store.put(id, "user") : registry.put(id, "user");
+    }
+
+    static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
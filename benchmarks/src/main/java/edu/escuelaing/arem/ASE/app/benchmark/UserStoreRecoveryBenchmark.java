@@ -0,0 +1,74 @@
+package edu.escuelaing.arem.ASE.app.benchmark;
+
+import edu.escuelaing.arem.ASE.app.http.UserStore;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Tiempo de abrir un {@link UserStore} con {@code users} usuarios guardados:
+ * reaplicando todo el log o cargando un snapshot (sin log posterior).
+ *
+ * java -jar benchmarks/target/benchmarks.jar UserStoreRecoveryBenchmark
+ *
+ * @author jgamb
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class UserStoreRecoveryBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int users;
+
+    @Param({"log", "snapshot"})
+    public String source;
+
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("user-store-recovery");
+        try (UserStore store = UserStore.builder()
+                .withDirectory(directory)
+                .withSyncCommit(false)
+                .withSnapshotEvery(0)
+                .build()) {
+            for (int i = 0; i < users; i++) {
+                store.add("user" + i);
+            }
+            if ("snapshot".equals(source)) {
+                store.snapshot();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        UserStoreBenchmark.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public int recover() throws IOException {
+        try (UserStore store = UserStore.builder().withDirectory(directory).withSnapshotEvery(0).build()) {
+            return store.getRegistry().size();
+        }
+    }
+}
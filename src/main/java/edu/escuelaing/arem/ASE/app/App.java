@@ -1,7 +1,16 @@
 package edu.escuelaing.arem.ASE.app;
 
+import edu.escuelaing.arem.ASE.app.http.Json;
+import edu.escuelaing.arem.ASE.app.http.JsonException;
+import edu.escuelaing.arem.ASE.app.http.JsonStreamReader;
+import edu.escuelaing.arem.ASE.app.http.PayloadTooLargeException;
+import edu.escuelaing.arem.ASE.app.http.Request;
 import edu.escuelaing.arem.ASE.app.http.Response;
 import edu.escuelaing.arem.ASE.app.http.HttpServer;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Clase principal de la aplicación que configura e inicia el servidor HTTP.
@@ -17,6 +26,33 @@ import edu.escuelaing.arem.ASE.app.http.HttpServer;
  */
 public class App {
 
+    // Registro masivo: tamaño de lote por defecto y máximo, errores
+    // reportados por lote y lotes detallados en la respuesta
+    static final int DEFAULT_BATCH_SIZE = 1000;
+    static final int MAX_BATCH_SIZE = 10000;
+    private static final int MAX_ERRORS_PER_BATCH = 10;
+    static final int MAX_REPORTED_BATCHES = 100;
+
+    /**
+     * Resultado de un lote del registro masivo.
+     */
+    record BatchResult(long batch, long firstRecord, int accepted, int rejected, List<RecordError> errors) {
+    }
+
+    /**
+     * Documento rechazado (número desde 1 dentro del cuerpo).
+     */
+    record RecordError(long record, String error) {
+    }
+
+    /**
+     * Resultado completo del registro masivo. Los totales cubren todos los
+     * lotes; {@code batches} detalla solo los primeros
+     * {@value #MAX_REPORTED_BATCHES}.
+     */
+    record BulkResult(long accepted, long rejected, long batchCount, List<BatchResult> batches, String error) {
+    }
+
     /**
      * Método principal que inicia la aplicación.
      * 
@@ -38,14 +74,14 @@ public class App {
             String name = req.getQueryParam("name");
 
             if (name != null && !name.isEmpty()) {
-                boolean userExists = HttpServer.getUsers().containsValue(name);
+                boolean userExists = HttpServer.getUserRegistry().containsName(name);
                 String message = userExists
                         ? "Hola " + name
                         : "No estás registrado en el sistema.";
 
                 return new Response.Builder() // Crear nueva instancia del Builder
                         .withStatus(200)
-                        .withBody("{\"message\": \"" + message + "\"}")
+                        .withJson(Map.of("message", message))
                         .build();
             } else {
                 return new Response.Builder() // Crear nueva instancia del Builder
@@ -75,41 +111,164 @@ public class App {
 
         // Endpoint POST /app/hello - Registra un usuario si se envía un JSON válido con
         // el campo "name"
-        HttpServer.post("/app/hello", (req, res) -> {
-            if (!req.hasBody()) {
-                return new Response.Builder()
-                        .withStatus(400)
-                        .withBody("{\"error\": \"Cuerpo de la petición requerido\"}")
-                        .build();
-            }
+        HttpServer.post("/app/hello", (req, res) -> registerUser(req));
 
-            if (req.isJson()) {
-                String name = req.getJsonValue("name");
+        // Endpoint POST /app/users/bulk - Registra usuarios en lotes desde un
+        // cuerpo NDJSON o un arreglo JSON leído en streaming
+        HttpServer.post("/app/users/bulk", (req, res) -> bulkRegister(req));
 
-                if (name != null && !name.isEmpty()) {
-                    HttpServer.addUser(name);
+        try {
+            HttpServer.startServer(args);
+        } catch (Exception e) {
+            System.err.println("Error al iniciar el servidor: " + e.getMessage());
+        }
+    }
 
-                    return new Response.Builder()
-                            .withStatus(200)
-                            .withBody("{\"message\": \"Hola " + name + " fuiste registrado exitosamente!\"}")
-                            .build();
-                } else {
-                    return new Response.Builder()
-                            .withStatus(400)
-                            .withBody("{\"error\": \"Nombre de usuario requerido en el campo 'name'\"}")
-                            .build();
-                }
+    /**
+     * Registra el usuario del campo "name" de un cuerpo JSON. Solo acepta un
+     * string: números, booleanos, objetos y arreglos se rechazan con 400.
+     *
+     * @param req Petición con el cuerpo JSON
+     * @return 200 con el saludo, o 400 si falta el cuerpo o el nombre
+     */
+    static Response registerUser(Request req) {
+        if (!req.hasBody()) {
+            return new Response.Builder()
+                    .withStatus(400)
+                    .withBody("{\"error\": \"Cuerpo de la petición requerido\"}")
+                    .build();
+        }
+
+        if (req.isJson()) {
+            String name = req.getJsonValue("name");
+
+            if (name != null && !name.isEmpty()) {
+                HttpServer.addUser(name);
+
+                return new Response.Builder()
+                        .withStatus(200)
+                        .withJson(Map.of("message", "Hola " + name + " fuiste registrado exitosamente!"))
+                        .build();
             } else {
                 return new Response.Builder()
                         .withStatus(400)
-                        .withBody("{\"error\": \"Content-Type debe ser application/json\"}")
+                        .withBody("{\"error\": \"Nombre de usuario requerido en el campo 'name'\"}")
                         .build();
             }
-        });
+        } else {
+            return new Response.Builder()
+                    .withStatus(400)
+                    .withBody("{\"error\": \"Content-Type debe ser application/json\"}")
+                    .build();
+        }
+    }
+
+    /**
+     * Registra usuarios desde un cuerpo con un documento por usuario: NDJSON
+     * (una línea por documento) o un arreglo JSON. Cada documento es un
+     * String con el nombre o un objeto con el campo "name".
+     *
+     * El cuerpo se lee en streaming: los nombres se acumulan hasta completar
+     * un lote ({@code ?batch=}, 1000 por defecto) y el lote se registra de una
+     * vez con {@link HttpServer#addUsers}, así que en memoria solo está el
+     * lote actual (y el detalle de los primeros lotes de la respuesta). Los
+     * lotes registrados no se deshacen si un documento posterior rompe el
+     * arreglo o la lectura del cuerpo falla; en ese caso la respuesta es 400
+     * (413 si el cuerpo superó el máximo) e informa lo que ya quedó
+     * registrado.
+     */
+    static Response bulkRegister(Request req) {
+        String contentType = req.getContentType();
+        if (!req.isJson() && (contentType == null || !contentType.toLowerCase().contains("application/x-ndjson"))) {
+            return new Response.Builder()
+                    .withStatus(415)
+                    .withJson(Map.of("error", "Content-Type debe ser application/json o application/x-ndjson"))
+                    .build();
+        }
+        int batchSize;
         try {
-            HttpServer.startServer(args);
-        } catch (Exception e) {
-            System.err.println("Error al iniciar el servidor: " + e.getMessage());
+            String batch = req.getQueryParam("batch");
+            batchSize = batch != null ? Integer.parseInt(batch) : DEFAULT_BATCH_SIZE;
+        } catch (NumberFormatException e) {
+            batchSize = -1;
+        }
+        if (batchSize < 1 || batchSize > MAX_BATCH_SIZE) {
+            return new Response.Builder()
+                    .withStatus(400)
+                    .withJson(Map.of("error", "El parámetro batch debe estar entre 1 y " + MAX_BATCH_SIZE))
+                    .build();
+        }
+
+        List<BatchResult> batches = new ArrayList<>();
+        long batchCount = 0;
+        List<String> names = new ArrayList<>(batchSize);
+        List<RecordError> errors = new ArrayList<>();
+        long accepted = 0;
+        long rejected = 0;
+        int batchRejected = 0;
+        long batchStart = 1;
+        String failure = null;
+        int failureStatus = 400;
+        JsonStreamReader reader = new JsonStreamReader(req.getBodyStream());
+        try {
+            Json record;
+            while ((record = reader.next()) != null) {
+                String name = null;
+                String error;
+                try {
+                    Json value = record.isObject() ? record.get("name") : record;
+                    name = value.isString() ? value.asString() : null;
+                    error = name == null || name.isBlank() ? "se esperaba un nombre o un objeto con \"name\"" : null;
+                } catch (JsonException e) {
+                    error = e.getMessage();
+                }
+                if (error == null) {
+                    names.add(name);
+                } else {
+                    batchRejected++;
+                    if (errors.size() < MAX_ERRORS_PER_BATCH) {
+                        errors.add(new RecordError(reader.getRecordCount(), error));
+                    }
+                }
+                if (names.size() + batchRejected == batchSize) {
+                    BatchResult batch = commitBatch(++batchCount, batchStart, names, batchRejected, errors);
+                    if (batches.size() < MAX_REPORTED_BATCHES) {
+                        batches.add(batch);
+                    }
+                    accepted += names.size();
+                    rejected += batchRejected;
+                    batchStart = reader.getRecordCount() + 1;
+                    names.clear();
+                    errors = new ArrayList<>();
+                    batchRejected = 0;
+                }
+            }
+        } catch (JsonException e) {
+            failure = e.getMessage();
+        } catch (IOException e) {
+            // Los documentos leídos completos antes del error sí se registran
+            failure = "Error leyendo el cuerpo: " + e.getMessage();
+            failureStatus = e instanceof PayloadTooLargeException ? 413 : 400;
         }
+        if (!names.isEmpty() || batchRejected > 0) {
+            BatchResult batch = commitBatch(++batchCount, batchStart, names, batchRejected, errors);
+            if (batches.size() < MAX_REPORTED_BATCHES) {
+                batches.add(batch);
+            }
+            accepted += names.size();
+            rejected += batchRejected;
+        }
+        HttpServer.getLog().info(null, "Registro masivo: " + accepted + " usuarios registrados, " + rejected
+                + " rechazados en " + batchCount + " lotes");
+        return new Response.Builder()
+                .withStatus(failure == null ? 200 : failureStatus)
+                .withJson(new BulkResult(accepted, rejected, batchCount, batches, failure))
+                .build();
+    }
+
+    private static BatchResult commitBatch(long number, long firstRecord, List<String> names, int rejected,
+            List<RecordError> errors) {
+        HttpServer.addUsers(names);
+        return new BatchResult(number, firstRecord, names.size(), rejected, errors);
     }
 }
@@ -7,6 +7,8 @@ package edu.escuelaing.arem.ASE.app.Controller;
 import edu.escuelaing.arem.ASE.app.annotation.GetMapping;
 import edu.escuelaing.arem.ASE.app.annotation.RequestParam;
 import edu.escuelaing.arem.ASE.app.annotation.RestController;
+import edu.escuelaing.arem.ASE.app.http.Response;
+import java.util.Map;
 
 /**
  * Controlador que maneja operaciones matemáticas básicas.
@@ -39,4 +41,33 @@ public class MathController {
         }
     }
 
+    /**
+     * Resultado de una división entera; se serializa como JSON.
+     */
+    public record Division(int dividend, int divisor, int quotient, int remainder) {
+
+    }
+
+    /**
+     * Endpoint que devuelve un objeto GET /divide?a=7&b=2 ->
+     * {"dividend":7,"divisor":2,"quotient":3,"remainder":1}
+     *
+     * @param a
+     * @param b
+     * @return la división, o una respuesta 400 si los parámetros no son válidos
+     */
+    @GetMapping("/divide")
+    public static Object divide(@RequestParam("a") String a, @RequestParam("b") String b) {
+        try {
+            int numA = Integer.parseInt(a);
+            int numB = Integer.parseInt(b);
+            if (numB == 0) {
+                return new Response.Builder().withStatus(400).withJson(Map.of("error", "Division by zero")).build();
+            }
+            return new Division(numA, numB, numA / numB, numA % numB);
+        } catch (NumberFormatException e) {
+            return new Response.Builder().withStatus(400).withJson(Map.of("error", "Invalid numbers")).build();
+        }
+    }
+
 }
@@ -0,0 +1,567 @@
+package edu.escuelaing.arem.ASE.app.http;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Log asíncrono del servidor: mensajes de diagnóstico y access log.
+ *
+ * Los hilos que atienden peticiones no escriben: dejan el evento en un buffer
+ * circular acotado y siguen. Un único hilo ({@code async-log}) vacía el buffer
+ * por lotes, da formato a los eventos y hace una escritura por lote en la
+ * consola y en el archivo del access log. Si el buffer está lleno el evento se
+ * descarta y se cuenta en {@link #getDropped()}: el log nunca frena a los
+ * workers.
+ *
+ * El buffer es una cola de múltiples productores sin locks: cada productor
+ * reserva una posición con un CAS y publica el evento con el número de
+ * secuencia de la celda (al estilo de la cola acotada de Vyukov). Las celdas
+ * se reutilizan, así que registrar un evento no crea objetos.
+ *
+ * El nivel se resuelve al construir el log; {@link #isDebugEnabled()} es la
+ * lectura de un campo. El access log rota por tamaño: {@code access.log} pasa a
+ * {@code access.log.1}, este a {@code access.log.2} y así hasta el número de
+ * archivos configurado.
+ *
+ * @author jgamb
+ * @version 1.0
+ * @since 3.0
+ */
+public final class AsyncLog implements AutoCloseable {
+
+    /**
+     * Niveles de los mensajes de diagnóstico, del más al menos importante.
+     */
+    public enum Level {
+        ERROR, INFO, DEBUG;
+
+        /**
+         * Convierte un nombre de nivel sin distinguir mayúsculas.
+         *
+         * @param name Nombre del nivel
+         * @return El nivel, INFO si el nombre no es válido
+         */
+        public static Level fromString(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                return INFO;
+            }
+        }
+    }
+
+    public static final int DEFAULT_CAPACITY = 8192;
+    public static final long DEFAULT_ACCESS_LOG_BYTES = 10L * 1024 * 1024;
+    public static final int DEFAULT_ACCESS_LOG_FILES = 5;
+
+    // Tipos de evento
+    private static final byte ACCESS = 0;
+    private static final byte MESSAGE = 1;
+    // Espera máxima del escritor cuando no hay eventos
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final DateTimeFormatter SECOND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    private final Level level;
+    private final boolean debugEnabled;
+    private final boolean infoEnabled;
+    private final PrintStream out;
+    private final PrintStream err;
+    private final Path accessLog;
+    private final long accessLogBytes;
+    private final int accessLogFiles;
+
+    // Buffer circular: la celda i está libre para la posición p cuando su
+    // secuencia vale p y publicada cuando vale p + 1
+    private final Entry[] entries;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+    // Posición hasta la que el escritor ya escribió todo
+    private volatile long written;
+    private final LongAdder dropped = new LongAdder();
+
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    // Estado del hilo escritor
+    private final StringBuilder outBatch = new StringBuilder(8 * 1024);
+    private final StringBuilder errBatch = new StringBuilder(1024);
+    private final StringBuilder accessBatch = new StringBuilder(16 * 1024);
+    private FileChannel accessChannel;
+    private long accessSize;
+    private long cachedSecond = Long.MIN_VALUE;
+    private String cachedSecondText;
+
+    private AsyncLog(Builder builder) throws IOException {
+        this.level = builder.level;
+        this.debugEnabled = level == Level.DEBUG;
+        this.infoEnabled = level != Level.ERROR;
+        this.out = builder.out;
+        this.err = builder.err;
+        this.accessLog = builder.accessLog;
+        this.accessLogBytes = builder.accessLogBytes;
+        this.accessLogFiles = builder.accessLogFiles;
+
+        int capacity = Integer.highestOneBit(Math.max(2, builder.capacity) * 2 - 1);
+        this.entries = new Entry[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            entries[i] = new Entry();
+            sequences.set(i, i);
+        }
+        this.mask = capacity - 1;
+
+        if (accessLog != null) {
+            Path parent = accessLog.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            openAccessLog();
+        }
+
+        writer = new Thread(this::drainLoop, "async-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public boolean isDebugEnabled() {
+        return debugEnabled;
+    }
+
+    public boolean isInfoEnabled() {
+        return infoEnabled;
+    }
+
+    /**
+     * Indica si hay un access log configurado.
+     */
+    public boolean isAccessLogEnabled() {
+        return accessLog != null;
+    }
+
+    /**
+     * Eventos descartados porque el buffer estaba lleno.
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Eventos ya escritos por el hilo del log.
+     */
+    public long getWritten() {
+        return written;
+    }
+
+    // ==================== PRODUCTORES ====================
+    /**
+     * Registra un mensaje de diagnóstico.
+     *
+     * @param level Nivel del mensaje
+     * @param source Origen (por ejemplo, el ID del cliente) o null
+     * @param message Texto del mensaje
+     */
+    public void log(Level level, String source, String message) {
+        if (level.ordinal() > this.level.ordinal()) {
+            return;
+        }
+        long position = claim();
+        if (position < 0) {
+            return;
+        }
+        Entry entry = entries[(int) position & mask];
+        entry.type = MESSAGE;
+        entry.level = level;
+        entry.time = System.currentTimeMillis();
+        entry.thread = Thread.currentThread().getName();
+        entry.source = source;
+        entry.message = message;
+        publish(position);
+    }
+
+    public void info(String source, String message) {
+        if (infoEnabled) {
+            log(Level.INFO, source, message);
+        }
+    }
+
+    public void error(String source, String message) {
+        log(Level.ERROR, source, message);
+    }
+
+    public void debug(String source, String message) {
+        if (debugEnabled) {
+            log(Level.DEBUG, source, message);
+        }
+    }
+
+    /**
+     * Registra una petición atendida en el access log (si está configurado).
+     *
+     * @param req Petición atendida
+     * @param status Código de estado de la respuesta
+     * @param bytes Bytes del cuerpo de la respuesta, -1 si no se conocen
+     * @param nanos Tiempo que tomó atenderla
+     */
+    public void access(Request req, int status, long bytes, long nanos) {
+        if (accessLog == null) {
+            return;
+        }
+        long position = claim();
+        if (position < 0) {
+            return;
+        }
+        // Se copian los valores: el parser de la petición se reutiliza en la
+        // siguiente petición de la conexión
+        Entry entry = entries[(int) position & mask];
+        entry.type = ACCESS;
+        entry.time = System.currentTimeMillis();
+        entry.source = req.getRemoteAddress();
+        entry.method = req.getMethod();
+        entry.path = req.getPath();
+        entry.query = req.getRawQuery();
+        entry.status = status;
+        entry.bytes = bytes;
+        entry.nanos = nanos;
+        publish(position);
+    }
+
+    private long claim() {
+        while (true) {
+            long position = tail.get();
+            long sequence = sequences.get((int) position & mask);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    return position;
+                }
+            } else if (sequence < position) {
+                // La celda todavía guarda un evento sin escribir: lleno
+                dropped.increment();
+                return -1;
+            }
+        }
+    }
+
+    private void publish(long position) {
+        sequences.set((int) position & mask, position + 1);
+    }
+
+    /**
+     * Espera a que se escriban los eventos registrados hasta ahora.
+     *
+     * @param timeout Espera máxima
+     * @param unit Unidad de la espera
+     * @return true si se escribieron todos antes del plazo
+     */
+    public boolean flush(long timeout, TimeUnit unit) {
+        long target = tail.get();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (written < target) {
+            if (!writer.isAlive() || System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return true;
+    }
+
+    /**
+     * Escribe lo pendiente y detiene el hilo del log. Los eventos registrados
+     * después se descartan en silencio.
+     */
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        flush(5, TimeUnit.SECONDS);
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ==================== HILO ESCRITOR ====================
+    private void drainLoop() {
+        try {
+            while (running) {
+                if (drain() == 0) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+            }
+            drain();
+        } finally {
+            closeAccessLog();
+        }
+    }
+
+    /**
+     * Da formato a todos los eventos publicados y los escribe en un lote.
+     *
+     * @return Número de eventos escritos
+     */
+    private int drain() {
+        int count = 0;
+        while (true) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            Entry entry = entries[index];
+            if (entry.type == ACCESS) {
+                formatAccess(entry);
+            } else {
+                formatMessage(entry);
+            }
+            entry.clear();
+            sequences.set(index, head + mask + 1);
+            head++;
+            count++;
+        }
+        if (count > 0) {
+            writeBatches();
+            written = head;
+        }
+        return count;
+    }
+
+    private void formatMessage(Entry entry) {
+        StringBuilder sb = entry.level == Level.ERROR ? errBatch : outBatch;
+        sb.append('[').append(entry.thread).append(']');
+        if (entry.source != null) {
+            sb.append('[').append(entry.source).append(']');
+        }
+        sb.append(' ').append(entry.level).append(": ").append(entry.message).append('\n');
+    }
+
+    /**
+     * Formato compacto, una línea por petición:
+     * {@code 2026-01-31T12:00:00.123Z 127.0.0.1 GET /ruta?q=1 200 512 0.418}
+     * (bytes del cuerpo o "-", y milisegundos).
+     */
+    private void formatAccess(Entry entry) {
+        StringBuilder sb = accessBatch;
+        appendTimestamp(sb, entry.time);
+        sb.append(' ').append(entry.source != null ? entry.source : "-")
+                .append(' ').append(entry.method)
+                .append(' ').append(entry.path);
+        if (entry.query != null) {
+            sb.append('?').append(entry.query);
+        }
+        sb.append(' ').append(entry.status).append(' ');
+        if (entry.bytes >= 0) {
+            sb.append(entry.bytes);
+        } else {
+            sb.append('-');
+        }
+        long micros = entry.nanos / 1000;
+        sb.append(' ').append(micros / 1000).append('.');
+        long fraction = micros % 1000;
+        if (fraction < 100) {
+            sb.append(fraction < 10 ? "00" : "0");
+        }
+        sb.append(fraction).append('\n');
+    }
+
+    private void appendTimestamp(StringBuilder sb, long millis) {
+        long second = Math.floorDiv(millis, 1000);
+        if (second != cachedSecond) {
+            cachedSecond = second;
+            cachedSecondText = LocalDateTime.ofEpochSecond(second, 0, ZoneOffset.UTC).format(SECOND_FORMAT);
+        }
+        int fraction = Math.floorMod(millis, 1000);
+        sb.append(cachedSecondText).append('.');
+        if (fraction < 100) {
+            sb.append(fraction < 10 ? "00" : "0");
+        }
+        sb.append(fraction).append('Z');
+    }
+
+    private void writeBatches() {
+        if (outBatch.length() > 0) {
+            out.print(outBatch);
+            out.flush();
+            outBatch.setLength(0);
+        }
+        if (errBatch.length() > 0) {
+            err.print(errBatch);
+            err.flush();
+            errBatch.setLength(0);
+        }
+        if (accessBatch.length() > 0) {
+            byte[] bytes = accessBatch.toString().getBytes(StandardCharsets.UTF_8);
+            accessBatch.setLength(0);
+            try {
+                writeAccess(bytes);
+            } catch (IOException e) {
+                err.println("No se pudo escribir el access log: " + e.getMessage());
+            }
+        }
+    }
+
+    private void writeAccess(byte[] bytes) throws IOException {
+        if (accessChannel == null) {
+            openAccessLog();
+        }
+        if (accessSize > 0 && accessSize + bytes.length > accessLogBytes) {
+            rotate();
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            accessChannel.write(buffer);
+        }
+        accessSize += bytes.length;
+    }
+
+    private void openAccessLog() throws IOException {
+        accessChannel = FileChannel.open(accessLog,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        accessSize = accessChannel.size();
+    }
+
+    private void rotate() throws IOException {
+        closeAccessLog();
+        String name = accessLog.getFileName().toString();
+        Files.deleteIfExists(accessLog.resolveSibling(name + "." + accessLogFiles));
+        for (int i = accessLogFiles - 1; i >= 1; i--) {
+            Path source = accessLog.resolveSibling(name + "." + i);
+            if (Files.exists(source)) {
+                Files.move(source, accessLog.resolveSibling(name + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(accessLog, accessLog.resolveSibling(name + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        openAccessLog();
+    }
+
+    private void closeAccessLog() {
+        if (accessChannel != null) {
+            try {
+                accessChannel.close();
+            } catch (IOException e) {
+                err.println("Error cerrando el access log: " + e.getMessage());
+            }
+            accessChannel = null;
+        }
+    }
+
+    /**
+     * Celda del buffer. Los campos se escriben antes de publicar la secuencia y
+     * se leen después de verla, así que no necesitan ser volatile.
+     */
+    private static final class Entry {
+
+        byte type;
+        Level level;
+        long time;
+        String thread;
+        String source;
+        String message;
+        String method;
+        String path;
+        String query;
+        int status;
+        long bytes;
+        long nanos;
+
+        void clear() {
+            thread = null;
+            source = null;
+            message = null;
+            method = null;
+            path = null;
+            query = null;
+        }
+    }
+
+    /**
+     * Builder del log. Métodos: withLevel, withCapacity, withConsole,
+     * withAccessLog, build.
+     */
+    public static class Builder {
+
+        private Level level = Level.INFO;
+        private int capacity = DEFAULT_CAPACITY;
+        private PrintStream out = System.out;
+        private PrintStream err = System.err;
+        private Path accessLog;
+        private long accessLogBytes = DEFAULT_ACCESS_LOG_BYTES;
+        private int accessLogFiles = DEFAULT_ACCESS_LOG_FILES;
+
+        public Builder withLevel(Level level) {
+            this.level = level;
+            return this;
+        }
+
+        /**
+         * Número de eventos que caben en el buffer (se redondea a una
+         * potencia de dos).
+         */
+        public Builder withCapacity(int capacity) {
+            if (capacity <= 0 || capacity > 1 << 24) {
+                throw new IllegalArgumentException("Capacidad inválida: " + capacity);
+            }
+            this.capacity = capacity;
+            return this;
+        }
+
+        /**
+         * Streams para los mensajes (INFO y DEBUG a out, ERROR a err).
+         */
+        public Builder withConsole(PrintStream out, PrintStream err) {
+            this.out = out;
+            this.err = err;
+            return this;
+        }
+
+        /**
+         * Activa el access log.
+         *
+         * @param file Archivo actual del log
+         * @param maxBytes Tamaño a partir del cual se rota
+         * @param maxFiles Archivos rotados que se conservan
+         */
+        public Builder withAccessLog(Path file, long maxBytes, int maxFiles) {
+            if (maxBytes <= 0 || maxFiles < 1) {
+                throw new IllegalArgumentException("Rotación inválida: " + maxBytes + " bytes, " + maxFiles + " archivos");
+            }
+            this.accessLog = file;
+            this.accessLogBytes = maxBytes;
+            this.accessLogFiles = maxFiles;
+            return this;
+        }
+
+        /**
+         * Crea el log y arranca su hilo.
+         *
+         * @throws IOException Si no se puede abrir el access log
+         */
+        public AsyncLog build() throws IOException {
+            return new AsyncLog(this);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package edu.escuelaing.arem.ASE.app.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Stream que recibe un cuerpo en streaming y lo escribe con el framing que
+ * anunció la cabecera: bloques chunked, longitud fija o sin delimitar (el
+ * cuerpo termina al cerrar la conexión, para clientes HTTP/1.0).
+ *
+ * Las escrituras pequeñas se acumulan en un buffer de {@link #CHUNK_SIZE}
+ * bytes que se envía como un solo bloque (cabecera del chunk, datos y CRLF en
+ * una escritura); las grandes se escriben directamente sin copiarlas.
+ * {@link #finish()} envía lo pendiente y, si es chunked, el bloque final.
+ *
+ * @author jgamb
+ * @version 1.0
+ * @since 3.0
+ */
+final class BodyOutputStream extends OutputStream {
+
+    static final int CHUNK_SIZE = 8192;
+
+    // Espacio reservado al inicio del buffer para "<tamaño hex>\r\n"
+    private static final int PREFIX = 10;
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LAST_CHUNK = {'0', '\r', '\n', '\r', '\n'};
+
+    private final OutputStream out;
+    private final boolean chunked;
+    private final long expectedLength;
+    private final byte[] buffer;
+    private int count;
+    private long written;
+    private boolean finished;
+
+    private BodyOutputStream(OutputStream out, boolean chunked, long expectedLength) {
+        this.out = out;
+        this.chunked = chunked;
+        this.expectedLength = expectedLength;
+        this.buffer = new byte[PREFIX + CHUNK_SIZE + CRLF.length];
+    }
+
+    /**
+     * Stream para una respuesta según su cabecera.
+     */
+    static BodyOutputStream forResponse(Response response, OutputStream out) {
+        return new BodyOutputStream(out, response.isChunked(), response.getStreamLength());
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        checkLength(1);
+        if (count == CHUNK_SIZE) {
+            emit();
+        }
+        buffer[PREFIX + count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return;
+        }
+        checkLength(len);
+        if (len >= CHUNK_SIZE) {
+            emit();
+            if (chunked) {
+                out.write(chunkHeader(len));
+                out.write(b, off, len);
+                out.write(CRLF);
+            } else {
+                out.write(b, off, len);
+            }
+            return;
+        }
+        if (count + len > CHUNK_SIZE) {
+            emit();
+        }
+        System.arraycopy(b, off, buffer, PREFIX + count, len);
+        count += len;
+    }
+
+    /**
+     * Envía lo acumulado como un bloque y vacía el stream subyacente.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        emit();
+        out.flush();
+    }
+
+    /**
+     * Equivale a {@link #finish()}; no cierra el stream subyacente.
+     */
+    @Override
+    public void close() throws IOException {
+        finish();
+    }
+
+    /**
+     * Termina el cuerpo: envía lo pendiente y el bloque final.
+     *
+     * @throws IOException Si con longitud fija se escribieron menos bytes de
+     * los anunciados
+     */
+    void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        emit();
+        HttpServer.getMetrics().addBytesOut(written);
+        if (chunked) {
+            out.write(LAST_CHUNK);
+        } else if (expectedLength >= 0 && written != expectedLength) {
+            throw new IOException("El cuerpo tiene " + written + " bytes y se anunciaron " + expectedLength);
+        }
+    }
+
+    private void emit() throws IOException {
+        if (count == 0) {
+            return;
+        }
+        if (chunked) {
+            int start = PREFIX - 2;
+            buffer[start] = '\r';
+            buffer[start + 1] = '\n';
+            for (int n = count; n > 0 || start == PREFIX - 2; n >>>= 4) {
+                buffer[--start] = HEX[n & 0xF];
+            }
+            buffer[PREFIX + count] = '\r';
+            buffer[PREFIX + count + 1] = '\n';
+            out.write(buffer, start, PREFIX + count + 2 - start);
+        } else {
+            out.write(buffer, PREFIX, count);
+        }
+        count = 0;
+    }
+
+    private static byte[] chunkHeader(int length) {
+        String header = Integer.toHexString(length) + "\r\n";
+        return header.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private void checkLength(int len) throws IOException {
+        written += len;
+        if (expectedLength >= 0 && written > expectedLength) {
+            throw new IOException("El cuerpo supera los " + expectedLength + " bytes anunciados");
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (finished) {
+            throw new IOException("El cuerpo ya terminó");
+        }
+    }
+}
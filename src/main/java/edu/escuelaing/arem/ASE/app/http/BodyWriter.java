@@ -0,0 +1,34 @@
+package edu.escuelaing.arem.ASE.app.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Cuerpo de respuesta generado en streaming.
+ *
+ * El servidor llama a {@link #writeTo(OutputStream)} después de enviar la
+ * cabecera, así que el cliente empieza a recibir datos antes de que el handler
+ * termine y el cuerpo nunca se guarda completo en memoria. Si la longitud no
+ * se conoce de antemano la respuesta se envía con
+ * {@code Transfer-Encoding: chunked}; cada {@code flush()} envía lo escrito
+ * hasta ese momento.
+ *
+ * El stream no debe cerrarse ni usarse después de que writeTo retorne. Si
+ * writeTo lanza una excepción con la cabecera ya enviada, la conexión se
+ * cierra para que el cliente no tome la respuesta como completa.
+ *
+ * @author jgamb
+ * @version 1.0
+ * @since 3.0
+ */
+@FunctionalInterface
+public interface BodyWriter {
+
+    /**
+     * Escribe el cuerpo de la respuesta.
+     *
+     * @param out Stream hacia el cliente
+     * @throws IOException Si el cliente se desconecta o falla la generación
+     */
+    void writeTo(OutputStream out) throws IOException;
+}
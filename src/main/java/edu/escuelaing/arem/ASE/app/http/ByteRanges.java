@@ -0,0 +1,262 @@
+package edu.escuelaing.arem.ASE.app.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Peticiones parciales (Range / If-Range) sobre recursos estáticos.
+ *
+ * Un rango produce un 206 cuyo cuerpo es una copia de ese tramo de los bytes
+ * en caché o una {@link FileRegion} del archivo (enviada con transferTo);
+ * varios rangos producen un cuerpo multipart/byteranges con solo los tramos
+ * pedidos. Sobre un archivo en disco las partes se envían en streaming desde
+ * el archivo, así que nunca se carga el archivo (ni los tramos) para
+ * responder; solo los recursos que ya están en caché se copian en memoria.
+ *
+ * @author jgamb
+ * @version 1.0
+ * @since 3.0
+ */
+final class ByteRanges {
+
+    // Más rangos que esto se ignoran y se responde el recurso completo, para
+    // que una petición no obligue a generar miles de partes
+    static final int MAX_RANGES = 16;
+
+    private static final String BOUNDARY = "arep-" + Long.toHexString(ThreadLocalRandom.current().nextLong());
+
+    private ByteRanges() {
+    }
+
+    /**
+     * Interpreta un header Range en bytes.
+     *
+     * @param header Valor del header (ej: "bytes=0-99,-500")
+     * @param size Tamaño del recurso
+     * @return pares [inicio, fin] inclusivos de los rangos satisfacibles (vacío
+     * si ninguno lo es), o null si el header es inválido y debe ignorarse
+     */
+    static long[] parse(String header, long size) {
+        if (header.length() < 6 || !header.regionMatches(true, 0, "bytes=", 0, 6)) {
+            return null;
+        }
+        String[] specs = header.substring(6).split(",");
+        if (specs.length > MAX_RANGES) {
+            return null;
+        }
+        long[] ranges = new long[specs.length * 2];
+        int count = 0;
+        try {
+            for (String raw : specs) {
+                String spec = raw.trim();
+                int dash = spec.indexOf('-');
+                if (dash < 0) {
+                    return null;
+                }
+                String first = spec.substring(0, dash).trim();
+                String last = spec.substring(dash + 1).trim();
+                long start;
+                long end;
+                if (first.isEmpty()) {
+                    // Sufijo: los últimos N bytes
+                    long suffix = parseNumber(last);
+                    if (suffix == 0 || size == 0) {
+                        continue;
+                    }
+                    start = Math.max(0, size - suffix);
+                    end = size - 1;
+                } else {
+                    start = parseNumber(first);
+                    end = last.isEmpty() ? size - 1 : parseNumber(last);
+                    if (end < start) {
+                        return null;
+                    }
+                    if (start >= size) {
+                        continue;
+                    }
+                    end = Math.min(end, size - 1);
+                }
+                ranges[count++] = start;
+                ranges[count++] = end;
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (count > 2) {
+            // Rangos que suman más que el recurso (solapados o repetidos) se
+            // ignoran: servirían para multiplicar el tamaño de la respuesta
+            long total = 0;
+            for (int i = 0; i < count; i += 2) {
+                total += ranges[i + 1] - ranges[i] + 1;
+            }
+            if (total > size) {
+                return null;
+            }
+        }
+        return Arrays.copyOf(ranges, count);
+    }
+
+    private static long parseNumber(String value) {
+        if (value.isEmpty()) {
+            throw new NumberFormatException("Valor vacío");
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) < '0' || value.charAt(i) > '9') {
+                throw new NumberFormatException(value);
+            }
+        }
+        return Long.parseLong(value);
+    }
+
+    /**
+     * Evalúa If-Range: sin el header se aplica el rango; con un ETag debe
+     * coincidir de forma fuerte y con una fecha debe ser exactamente la de
+     * Last-Modified. Si no coincide se responde el recurso completo.
+     */
+    static boolean ifRangeMatches(Request req, String etag, long lastModifiedSeconds) {
+        String ifRange = req.getHeader(Headers.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        String value = ifRange.trim();
+        if (value.startsWith("\"") || value.startsWith("W/")) {
+            return value.equals(etag);
+        }
+        try {
+            return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toEpochSecond() == lastModifiedSeconds;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Genera la respuesta 206 o 416 para los rangos pedidos. Exactamente uno
+     * de body o file debe ser distinto de null.
+     *
+     * @param ranges Resultado de {@link #parse(String, long)}
+     * @param size Tamaño total del recurso
+     * @param contentType Content-Type del recurso
+     * @param validators Headers ETag/Last-Modified/Cache-Control ya formateados
+     * @param body Contenido en memoria del recurso
+     * @param file Archivo del recurso (región completa)
+     */
+    static Response respond(long[] ranges, long size, String contentType, String validators,
+            byte[] body, FileRegion file) {
+        if (ranges.length == 0) {
+            String head = "HTTP/1.1 416 Range Not Satisfiable\r\n"
+                    + "Content-Range: bytes */" + size + "\r\n"
+                    + "Content-Length: 0\r\n";
+            return Response.preEncoded(416, head.getBytes(StandardCharsets.US_ASCII), new byte[0]);
+        }
+
+        if (ranges.length == 2) {
+            long start = ranges[0];
+            long length = ranges[1] - start + 1;
+            byte[] head = ("HTTP/1.1 206 Partial Content\r\n"
+                    + "Content-Type: " + contentType + "\r\n"
+                    + "Content-Range: bytes " + start + "-" + ranges[1] + "/" + size + "\r\n"
+                    + "Content-Length: " + length + "\r\n"
+                    + "Accept-Ranges: bytes\r\n"
+                    + validators).getBytes(StandardCharsets.US_ASCII);
+            if (file != null) {
+                return Response.preEncodedFile(206, head, new FileRegion(file.path(), file.offset() + start, length));
+            }
+            return Response.preEncoded(206, head, Arrays.copyOfRange(body, (int) start, (int) (start + length)));
+        }
+
+        if (file != null) {
+            return streamMultipart(ranges, size, contentType, validators, file);
+        }
+
+        // Varios rangos de un recurso en memoria (acotado por el tamaño
+        // máximo de entrada de la caché): multipart/byteranges en un arreglo
+        ByteArrayOutputStream multipart = new ByteArrayOutputStream();
+        try {
+            for (int i = 0; i < ranges.length; i += 2) {
+                long start = ranges[i];
+                int length = (int) (ranges[i + 1] - start + 1);
+                multipart.write(partHead(contentType, start, ranges[i + 1], size));
+                multipart.write(body, (int) start, length);
+                multipart.write('\r');
+                multipart.write('\n');
+            }
+            multipart.write(("--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] parts = multipart.toByteArray();
+        byte[] head = ("HTTP/1.1 206 Partial Content\r\n"
+                + "Content-Type: multipart/byteranges; boundary=" + BOUNDARY + "\r\n"
+                + "Content-Length: " + parts.length + "\r\n"
+                + "Accept-Ranges: bytes\r\n"
+                + validators).getBytes(StandardCharsets.US_ASCII);
+        return Response.preEncoded(206, head, parts);
+    }
+
+    /**
+     * Respuesta multipart/byteranges de un archivo en disco. El cuerpo se
+     * genera en streaming: cabecera de cada parte y luego su tramo leído del
+     * archivo en bloques, con Content-Length calculado de antemano.
+     */
+    private static Response streamMultipart(long[] ranges, long size, String contentType, String validators,
+            FileRegion file) {
+        byte[][] partHeads = new byte[ranges.length / 2][];
+        long length = 0;
+        for (int i = 0; i < ranges.length; i += 2) {
+            partHeads[i / 2] = partHead(contentType, ranges[i], ranges[i + 1], size);
+            length += partHeads[i / 2].length + (ranges[i + 1] - ranges[i] + 1) + 2;
+        }
+        byte[] closing = ("--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        length += closing.length;
+
+        Response.Builder builder = new Response.Builder()
+                .withStatus(206)
+                .withContentType("multipart/byteranges; boundary=" + BOUNDARY)
+                .addHeader("Accept-Ranges", "bytes")
+                .withBodyWriter(out -> {
+                    WritableByteChannel target = Channels.newChannel(out);
+                    try (FileChannel channel = file.open()) {
+                        for (int i = 0; i < ranges.length; i += 2) {
+                            out.write(partHeads[i / 2]);
+                            long position = file.offset() + ranges[i];
+                            long remaining = ranges[i + 1] - ranges[i] + 1;
+                            while (remaining > 0) {
+                                long sent = channel.transferTo(position, remaining, target);
+                                if (sent <= 0 && position >= channel.size()) {
+                                    throw new IOException("Archivo truncado durante el envío: " + file.path());
+                                }
+                                position += sent;
+                                remaining -= sent;
+                            }
+                            out.write('\r');
+                            out.write('\n');
+                        }
+                        out.write(closing);
+                    }
+                }, length);
+        for (String line : validators.split("\r\n")) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                builder.addHeader(line.substring(0, colon), line.substring(colon + 1).trim());
+            }
+        }
+        return builder.build();
+    }
+
+    private static byte[] partHead(String contentType, long start, long end, long size) {
+        return ("--" + BOUNDARY + "\r\n"
+                + "Content-Type: " + contentType + "\r\n"
+                + "Content-Range: bytes " + start + "-" + end + "/" + size + "\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII);
+    }
+}
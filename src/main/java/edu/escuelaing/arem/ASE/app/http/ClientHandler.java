@@ -2,7 +2,11 @@ package edu.escuelaing.arem.ASE.app.http;
 
 import java.io.*;
 import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Manejador de clientes para el servidor HTTP multihilo.
@@ -18,8 +22,14 @@ import java.nio.charset.StandardCharsets;
  */
 public class ClientHandler implements Runnable {
     
+    // Cuerpos desde este tamaño (el del BufferedOutputStream) se escriben
+    // directamente al canal junto con la cabecera
+    private static final int DIRECT_WRITE_THRESHOLD = 8192;
+
     private final Socket clientSocket;
     private final String clientId;
+    private final String remoteAddress;
+    private final AsyncLog log = HttpServer.getLog();
     
     /**
      * Constructor que inicializa el manejador de cliente.
@@ -29,173 +39,310 @@ public class ClientHandler implements Runnable {
     public ClientHandler(Socket clientSocket) {
         this.clientSocket = clientSocket;
         this.clientId = generateClientId();
+        InetAddress address = clientSocket.getInetAddress();
+        this.remoteAddress = address != null ? address.getHostAddress() : null;
     }
     
     /**
      * Método principal que se ejecuta cuando el hilo inicia.
      * 
      * Maneja el ciclo completo de procesamiento del cliente:
-     * 1. Procesa la petición HTTP
-     * 2. Genera la respuesta apropiada 
+     * 1. Procesa las peticiones HTTP de la conexión
+     * 2. Genera las respuestas apropiadas
      * 3. Cierra la conexión limpiamente
      * 4. Maneja errores y logging
      */
     @Override
     public void run() {
-        String threadName = Thread.currentThread().getName();
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
         
-        logInfo(threadName, "Iniciando procesamiento de cliente: " + 
-            clientSocket.getInetAddress().getHostAddress() + ":" + clientSocket.getPort());
+        if (log.isDebugEnabled()) {
+            logDebug("Iniciando procesamiento de cliente: " + remoteAddress + ":" + clientSocket.getPort());
+        }
         
         try {
             handleClient(clientSocket);
             
         } catch (Exception e) {
-            logError(threadName, "Error procesando cliente: " + e.getMessage());
+            logError("Error procesando cliente: " + e.getMessage());
             // Opcional: enviar respuesta de error 500 si aún es posible
             sendErrorResponse(500, "Internal Server Error");
             
         } finally {
-            closeClientConnection(threadName);
+            closeClientConnection();
             
-            long processingTime = System.currentTimeMillis() - startTime;
-            logInfo(threadName, "Cliente desconectado - Tiempo de procesamiento: " + processingTime + "ms");
+            if (log.isDebugEnabled()) {
+                long processingTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+                logDebug("Cliente desconectado - Tiempo de procesamiento: " + processingTime + "ms");
+            }
         }
     }
     
     /**
      * Maneja la conexión HTTP del cliente.
      * 
-     * Lee la petición HTTP línea por línea, extrae el método y URI,
-     * y delega el procesamiento al método apropiado del HttpServer.
+     * Atiende peticiones sucesivas sobre la misma conexión (HTTP/1.1
+     * keep-alive) hasta que el cliente pida "Connection: close", se alcance
+     * el máximo de peticiones por conexión o expire el tiempo de inactividad.
+     * Las peticiones encadenadas (pipelining) se responden en orden y sus
+     * respuestas se envían juntas mientras queden peticiones en el buffer.
+     * 
+     * Los bytes se leen directamente del socket a un {@link RequestParser}
+     * que se reutiliza para todas las peticiones de la conexión.
      * 
      * @param clientSocket Socket de conexión con el cliente
      * @throws IOException Si ocurre un error de E/S
      * @throws URISyntaxException Si la URI es inválida
      */
     public void handleClient(Socket clientSocket) throws IOException, URISyntaxException {
-        String threadName = Thread.currentThread().getName();
-        
-        try (OutputStream out = clientSocket.getOutputStream(); 
-             BufferedReader in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()))) {
+        try (OutputStream out = new BufferedOutputStream(clientSocket.getOutputStream()); 
+             InputStream in = HttpServer.getMetrics().countBytesIn(clientSocket.getInputStream())) {
 
-            String inputLine;
-            boolean isFirstLine = true;
-            byte[] responseBytes = createBadRequestResponse();
-            
-            // Timeout para evitar conexiones colgadas
+            // Timeout para evitar conexiones colgadas en la primera petición
             clientSocket.setSoTimeout(30000); // 30 segundos
             
-            while ((inputLine = in.readLine()) != null) {
-                logDebug(threadName, "Received: " + inputLine);
+            RequestParser parser = new RequestParser();
+            ResponseWriter writer = new ResponseWriter();
+            int requestsHandled = 0;
+            boolean keepAlive = true;
+            
+            while (keepAlive) {
+                RequestParser.Status status;
+                try {
+                    status = readHead(parser, in);
+                } catch (SocketTimeoutException e) {
+                    if (requestsHandled == 0 || parser.pendingBytes() > 0) {
+                        throw e;
+                    }
+                    if (log.isDebugEnabled()) {
+                        logDebug("Conexión inactiva, cerrando tras " + requestsHandled + " peticiones");
+                    }
+                    break;
+                }
+                
+                if (status == null) {
+                    break; // el cliente cerró la conexión
+                }
+
+                requestsHandled++;
+                Response response = processRequest(parser, status, in, out, requestsHandled);
+                keepAlive = !"close".equalsIgnoreCase(response.getHeader("Connection"));
 
-                if (isFirstLine) {
-                    responseBytes = processFirstLine(inputLine, in, threadName);
-                    isFirstLine = false;
+                writeResponse(response, writer, out, clientSocket);
+                if (keepAlive) {
+                    parser.next();
                 }
                 
-                // Si no hay más datos disponibles, salir del bucle
-                if (!in.ready()) {
-                    break;
+                // Con pipelining se agrupan las respuestas mientras haya más
+                // peticiones esperando en el buffer
+                if (!keepAlive || (parser.pendingBytes() == 0 && in.available() == 0)) {
+                    out.flush();
                 }
+                
+                // Cada petición queda en el access log; esto es solo diagnóstico
+                logDebug("Respuesta enviada exitosamente");
+                
+                // Entre peticiones aplica el timeout de inactividad de keep-alive
+                clientSocket.setSoTimeout(HttpServer.KEEP_ALIVE_TIMEOUT_MS);
             }
-
-            // Enviar respuesta al cliente
-            out.write(responseBytes);
             out.flush();
             
-            logInfo(threadName, "Respuesta enviada exitosamente");
-            
         } catch (SocketTimeoutException e) {
-            logError(threadName, "Timeout del cliente: " + e.getMessage());
+            logError("Timeout del cliente: " + e.getMessage());
             throw new IOException("Client timeout", e);
         }
     }
     
     /**
-     * Procesa la primera línea de la petición HTTP (request line).
+     * Escribe la respuesta. La cabecera se codifica en el buffer de la
+     * conexión y el cuerpo se escribe desde su propio arreglo, sin
+     * concatenarlos. Los cuerpos pequeños pasan por el BufferedOutputStream
+     * para agrupar las respuestas con pipelining; los grandes y los archivos
+     * vacían ese buffer y salen con una escritura agrupada (y transferTo para
+     * el archivo) directamente al canal del socket. Un cuerpo en streaming
+     * se escribe con su framing a medida que el handler lo genera.
+     */
+    private static void writeResponse(Response response, ResponseWriter writer, OutputStream out, Socket socket)
+            throws IOException {
+        ByteBuffer[] buffers = writer.encode(response);
+        ByteBuffer head = buffers[0];
+        ByteBuffer body = buffers[1];
+        FileRegion file = response.getFileRegion();
+        SocketChannel channel = socket.getChannel();
+        // Se cuenta como enviado lo que se escribió sin error; el cuerpo en
+        // streaming lo cuenta BodyOutputStream
+        HttpMetrics metrics = HttpServer.getMetrics();
+        long headAndBody = head.remaining() + body.remaining();
+
+        if (response.isStreaming()) {
+            out.write(head.array(), head.arrayOffset() + head.position(), head.remaining());
+            metrics.addBytesOut(headAndBody);
+            try {
+                ResponseWriter.writeBody(response, out);
+            } catch (IOException | RuntimeException e) {
+                // La cabecera ya salió: cerrar sin el bloque final para que el
+                // cliente no tome el cuerpo como completo
+                socket.close();
+                throw e;
+            }
+            return;
+        }
+        if (channel != null && (file != null || body.remaining() >= DIRECT_WRITE_THRESHOLD)) {
+            out.flush();
+            ResponseWriter.writeFully(buffers, channel);
+            metrics.addBytesOut(headAndBody);
+            if (file != null) {
+                file.transferTo(channel);
+                metrics.addBytesOut(file.length());
+            }
+            return;
+        }
+        out.write(head.array(), head.arrayOffset() + head.position(), head.remaining());
+        if (body.hasRemaining()) {
+            // BufferedOutputStream escribe directo los arreglos más grandes que su buffer
+            out.write(body.array(), body.arrayOffset() + body.position(), body.remaining());
+        }
+        metrics.addBytesOut(headAndBody);
+        if (file != null) {
+            out.flush();
+            file.transferTo(Channels.newChannel(socket.getOutputStream()));
+            metrics.addBytesOut(file.length());
+        }
+    }
+
+    /**
+     * Lee del socket hasta completar la línea de petición y los headers.
+     * 
+     * @return el estado final del parseo, o null si el cliente cerró la
+     *         conexión antes de enviar una petición completa
+     */
+    private RequestParser.Status readHead(RequestParser parser, InputStream in) throws IOException {
+        RequestParser.Status status = parser.parse();
+        while (status == RequestParser.Status.INCOMPLETE) {
+            if (parser.readFrom(in) < 0) {
+                return null;
+            }
+            status = parser.parse();
+        }
+        return status;
+    }
+    
+    /**
+     * Procesa una petición cuya línea de petición y headers ya se parsearon.
      * 
-     * Ejemplo: "GET /index.html HTTP/1.1"
-     * Extrae el método HTTP y la URI, luego delega el procesamiento.
+     * Los cuerpos pequeños se leen completos según Content-Length; los grandes
+     * y los chunked se entregan al handler en streaming. Delega el
+     * procesamiento y decide si la conexión se mantiene abierta.
      * 
-     * @param requestLine Primera línea de la petición HTTP
-     * @param in BufferedReader para leer el resto de la petición
-     * @param threadName Nombre del hilo para logging
-     * @return Array de bytes con la respuesta HTTP completa
+     * @param parser Parser con la petición actual
+     * @param status Resultado del parseo de la cabecera
+     * @param in Stream del socket para leer el resto del cuerpo
+     * @param out Stream de respuesta (para "100 Continue")
+     * @param requestNumber Número de la petición dentro de la conexión
+     * @return Respuesta HTTP con el header Connection ya definido
      */
-    private byte[] processFirstLine(String requestLine, BufferedReader in, String threadName) {
+    private Response processRequest(RequestParser parser, RequestParser.Status status, InputStream in,
+            OutputStream out, int requestNumber) {
         try {
-            // Validar formato de la línea de petición
-            if (requestLine == null || requestLine.trim().isEmpty()) {
-                logError(threadName, "Línea de petición vacía");
-                return createBadRequestResponse();
+            if (status == RequestParser.Status.TOO_LARGE) {
+                logError("Headers demasiado grandes");
+                return HttpServer.createHeadersTooLargeResponse();
             }
-            
-            String[] requestParts = requestLine.split(" ");
-            
-            // Validar que tenga al menos método y URI
-            if (requestParts.length < 2) {
-                logError(threadName, "Formato de petición inválido: " + requestLine);
+            if (status == RequestParser.Status.INVALID) {
+                logError("Formato de petición inválido");
                 return createBadRequestResponse();
             }
             
-            String method = requestParts[0].toUpperCase();
-            String uriString = requestParts[1];
-            
-            // Validar URI
-            URI requestUri;
-            try {
-                requestUri = new URI(uriString);
-            } catch (URISyntaxException e) {
-                logError(threadName, "URI inválida: " + uriString);
-                return createBadRequestResponse();
+            if (log.isDebugEnabled()) {
+                logDebug("Procesando: " + parser.method() + " " + parser.path());
             }
-            
-            logInfo(threadName, "Procesando: " + method + " " + requestUri.getPath());
-            
-            // Delegar según el método HTTP
-            return switch (method) {
-                case "GET" -> {
-                    logDebug(threadName, "Delegando a handleGetRequest");
-                    yield HttpServer.handleGetRequest(requestUri);
-                }
-                case "POST" -> {
-                    logDebug(threadName, "Delegando a handlePostRequest");
-                    yield HttpServer.handlePostRequest(requestUri, in);
-                }
-                case "HEAD" -> {
-                    // HEAD es como GET pero sin body
-                    logDebug(threadName, "Procesando HEAD request");
-                    byte[] getResponse = HttpServer.handleGetRequest(requestUri);
-                    yield removeBodyFromResponse(getResponse);
-                }
-                case "OPTIONS" -> {
-                    logDebug(threadName, "Procesando OPTIONS request");
-                    yield createOptionsResponse();
-                }
-                default -> {
-                    logError(threadName, "Método HTTP no soportado: " + method);
-                    yield createMethodNotAllowedResponse(method);
+
+            Response rejected = HttpServer.checkRequestBody(parser);
+            if (rejected != null) {
+                logError("Cuerpo rechazado: " + rejected.getStatus());
+                return rejected;
+            }
+            boolean expectContinue = HttpServer.expectsContinue(parser);
+            long contentLength = Math.max(parser.contentLength(), 0);
+            if (parser.isChunked() || contentLength > RequestBodyStream.BUFFERED_BODY_LIMIT) {
+                return processStreamingRequest(parser, in, out, expectContinue, requestNumber);
+            }
+
+            // Cuerpo pequeño: se lee completo según Content-Length
+            if (expectContinue && !parser.isBodyComplete()) {
+                writeContinue(out);
+            }
+            parser.ensureCapacity(parser.bodyOffset() + (int) contentLength);
+            while (!parser.isBodyComplete()) {
+                if (parser.readFrom(in) < 0) {
+                    logError("Cuerpo incompleto");
+                    return createBadRequestResponse();
                 }
-            };
-            
+            }
+
+            Request request = new Request.Builder()
+                    .withHead(parser)
+                    .withRemoteAddress(remoteAddress)
+                    .withBodyBytes(parser.array(), parser.bodyOffset(), (int) contentLength)
+                    .build();
+
+            logDebug("Delegando a HttpServer.handleRequest");
+            Response response = HttpServer.handleRequest(request);
+            HttpServer.applyConnectionHeader(response, request, requestNumber);
+            return response;
+
         } catch (Exception e) {
-            logError(threadName, "Error procesando primera línea: " + e.getMessage());
+            logError("Error procesando petición: " + e.getMessage());
             return createInternalServerErrorResponse();
         }
     }
     
+    /**
+     * Atiende una petición cuyo cuerpo el handler lee directamente del socket.
+     * Al terminar se descarta lo que el handler no leyó; si no se puede (o el
+     * cliente esperaba "100 Continue" y el cuerpo nunca se pidió) la conexión
+     * se cierra tras la respuesta.
+     */
+    private Response processStreamingRequest(RequestParser parser, InputStream in, OutputStream out,
+            boolean expectContinue, int requestNumber) {
+        RequestBodyStream body = new RequestBodyStream(parser, p -> p.readFrom(in), HttpServer.MAX_BODY_SIZE,
+                expectContinue ? () -> writeContinue(out) : null);
+        Request request = new Request.Builder()
+                .withHead(parser)
+                .withRemoteAddress(remoteAddress)
+                .withBodyStream(body)
+                .build();
+
+        Response response;
+        try {
+            response = HttpServer.handleRequest(request);
+        } catch (RuntimeException e) {
+            response = body.isLimitExceeded() ? null : createInternalServerErrorResponse();
+        }
+        if (body.isLimitExceeded()) {
+            response = HttpServer.payloadTooLarge(response);
+        } else if (!body.finishForReuse()) {
+            response.setHeader("Connection", "close");
+        }
+        HttpServer.applyConnectionHeader(response, request, requestNumber);
+        return response;
+    }
+
+    private static void writeContinue(OutputStream out) throws IOException {
+        out.write(ResponseWriter.CONTINUE);
+        out.flush();
+    }
+
     /**
      * Cierra la conexión del cliente de forma segura.
      */
-    private void closeClientConnection(String threadName) {
+    private void closeClientConnection() {
         try {
             if (clientSocket != null && !clientSocket.isClosed()) {
                 clientSocket.close();
             }
         } catch (IOException e) {
-            logError(threadName, "Error cerrando socket del cliente: " + e.getMessage());
+            logError("Error cerrando socket del cliente: " + e.getMessage());
         }
     }
     
@@ -212,57 +359,18 @@ public class ClientHandler implements Runnable {
             }
         } catch (IOException e) {
             // No se puede hacer nada más, ya estamos en manejo de errores
-            System.err.println("No se pudo enviar respuesta de error: " + e.getMessage());
+            logError("No se pudo enviar respuesta de error: " + e.getMessage());
         }
     }
     
     // ==================== MÉTODOS DE RESPUESTAS HTTP ====================
     
-    private byte[] createBadRequestResponse() {
-        return ("HTTP/1.1 400 Bad Request\r\n" +
-               "Content-Type: application/json\r\n" +
-               "Connection: close\r\n\r\n" +
-               "{\"error\": \"Bad Request\", \"message\": \"Invalid HTTP request format\"}")
-               .getBytes(StandardCharsets.UTF_8);
+    private Response createBadRequestResponse() {
+        return HttpServer.createBadRequestResponse();
     }
     
-    private byte[] createMethodNotAllowedResponse(String method) {
-        return ("HTTP/1.1 405 Method Not Allowed\r\n" +
-                "Content-Type: application/json\r\n" +
-                "Allow: GET, POST, HEAD, OPTIONS\r\n" +
-                "Connection: close\r\n\r\n" +
-                "{\"error\": \"Method Not Allowed\", \"method\": \"" + method + "\"}")
-                .getBytes(StandardCharsets.UTF_8);
-    }
-    
-    private byte[] createInternalServerErrorResponse() {
-        return ("HTTP/1.1 500 Internal Server Error\r\n" +
-               "Content-Type: application/json\r\n" +
-               "Connection: close\r\n\r\n" +
-               "{\"error\": \"Internal Server Error\"}")
-               .getBytes(StandardCharsets.UTF_8);
-    }
-    
-    private byte[] createOptionsResponse() {
-        return ("HTTP/1.1 200 OK\r\n" +
-               "Allow: GET, POST, HEAD, OPTIONS\r\n" +
-               "Access-Control-Allow-Origin: *\r\n" +
-               "Access-Control-Allow-Methods: GET, POST, HEAD, OPTIONS\r\n" +
-               "Access-Control-Allow-Headers: Content-Type\r\n" +
-               "Connection: close\r\n\r\n")
-               .getBytes(StandardCharsets.UTF_8);
-    }
-    
-    /**
-     * Remueve el body de una respuesta HTTP (para peticiones HEAD).
-     */
-    private byte[] removeBodyFromResponse(byte[] response) {
-        String responseStr = new String(response, StandardCharsets.UTF_8);
-        int bodyStart = responseStr.indexOf("\r\n\r\n");
-        if (bodyStart != -1) {
-            return (responseStr.substring(0, bodyStart + 4)).getBytes(StandardCharsets.UTF_8);
-        }
-        return response;
+    private Response createInternalServerErrorResponse() {
+        return HttpServer.createInternalServerErrorResponse();
     }
     
     // ==================== MÉTODOS DE UTILIDAD ====================
@@ -288,27 +396,14 @@ public class ClientHandler implements Runnable {
     }
     
     // ==================== MÉTODOS DE LOGGING ====================
-    
-    private void logInfo(String threadName, String message) {
-        System.out.println(String.format("[%s][%s] INFO: %s", threadName, clientId, message));
-    }
-    
-    private void logError(String threadName, String message) {
-        System.err.println(String.format("[%s][%s] ERROR: %s", threadName, clientId, message));
-    }
-    
-    private void logDebug(String threadName, String message) {
-        // Solo mostrar logs de debug si está habilitado
-        if (isDebugEnabled()) {
-            System.out.println(String.format("[%s][%s] DEBUG: %s", threadName, clientId, message));
-        }
+    // Los mensajes van al log asíncrono del servidor, que agrega el nombre
+    // del hilo; el nivel se resolvió al crear el log
+
+    private void logError(String message) {
+        log.error(clientId, message);
     }
     
-    /**
-     * Determina si el logging de debug está habilitado.
-     * Puede ser configurado via system property: -Dhttp.debug=true
-     */
-    private boolean isDebugEnabled() {
-        return Boolean.getBoolean("http.debug");
+    private void logDebug(String message) {
+        log.debug(clientId, message);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,63 @@
+package edu.escuelaing.arem.ASE.app.http;
+
+/**
+ * Índice de controladores generado en tiempo de compilación por
+ * {@code ControllerIndexProcessor}.
+ *
+ * Permite registrar las rutas al arrancar sin recorrer el classpath ni cargar
+ * cada clase para buscar @RestController. Si la clase generada no existe (por
+ * ejemplo al compilar sin el procesador), {@link #load()} devuelve null y
+ * HttpServer vuelve al escaneo.
+ *
+ * @author jgamb
+ * @version 1.0
+ * @since 3.0
+ */
+interface ControllerIndex {
+
+    String GENERATED_CLASS = "edu.escuelaing.arem.ASE.app.http.GeneratedControllerIndex";
+
+    /**
+     * Registra los controladores y rutas del índice.
+     */
+    void register(Registrar registrar);
+
+    /**
+     * Receptor de las entradas del índice.
+     */
+    interface Registrar {
+
+        /**
+         * Inicio de las rutas de un controlador.
+         */
+        void controller(String className);
+
+        /**
+         * Ruta GET cuyo handler ya fue generado sin reflexión.
+         */
+        void get(String mapping, ControllerMethod handler);
+
+        /**
+         * Ruta GET que debe enlazarse con reflexión, por nombre de clase y
+         * método.
+         */
+        void reflective(String mapping, String className, String methodName);
+    }
+
+    /**
+     * Carga el índice generado.
+     *
+     * @return El índice, o null si no fue generado
+     */
+    static ControllerIndex load() {
+        try {
+            Class<?> type = Class.forName(GENERATED_CLASS, true, ControllerIndex.class.getClassLoader());
+            return (ControllerIndex) type.getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            System.err.println("Índice de controladores inválido: " + e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package edu.escuelaing.arem.ASE.app.http;
+
+import edu.escuelaing.arem.ASE.app.annotation.RequestParam;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.util.function.BiFunction;
+
+/**
+ * Handler para un método anotado con @GetMapping, resuelto una sola vez al
+ * registrarlo.
+ *
+ * El plan de enlace (nombre del query param para cada argumento) se calcula a
+ * partir de las anotaciones al crear el handler. La invocación no usa
+ * Method.invoke: para métodos estáticos de hasta tres parámetros se genera con
+ * LambdaMetafactory una clase que llama al método directamente (el JIT puede
+ * inlinearla); el resto usa un MethodHandle con los argumentos en un arreglo.
+ *
+ * @author jgamb
+ * @version 1.0
+ * @since 3.0
+ */
+public final class ControllerMethod implements BiFunction<Request, Response, Response> {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final int MAX_DIRECT_ARITY = 3;
+
+    private final Class<?> declaringClass;
+    private final String methodName;
+    private final Class<?>[] parameterTypes;
+    // Nombre del query param de cada argumento (null si no tiene @RequestParam)
+    private final String[] parameterNames;
+    // Primer parámetro sin @RequestParam (la petición se rechaza con 400)
+    private final String unsupportedParam;
+    private final Invoker invoker;
+    // Los handlers del índice generado resuelven el Method solo si se pide
+    private volatile Method method;
+
+    private ControllerMethod(Class<?> declaringClass, String methodName, Class<?>[] parameterTypes,
+            String[] parameterNames, String unsupportedParam, Invoker invoker, Method method) {
+        this.declaringClass = declaringClass;
+        this.methodName = methodName;
+        this.parameterTypes = parameterTypes;
+        this.parameterNames = parameterNames;
+        this.unsupportedParam = unsupportedParam;
+        this.invoker = invoker;
+        this.method = method;
+    }
+
+    /**
+     * Calcula el plan de enlace y genera el invocador de un método.
+     *
+     * @param method Método del controlador (estático)
+     * @return Handler listo para registrarse con {@link HttpServer#get}
+     * @throws IllegalArgumentException Si el método no es estático o no es
+     * accesible
+     */
+    public static ControllerMethod bind(Method method) {
+        if (!Modifier.isStatic(method.getModifiers())) {
+            throw new IllegalArgumentException("El método del controlador debe ser estático: " + method);
+        }
+        Parameter[] parameters = method.getParameters();
+        String[] names = new String[parameters.length];
+        String unsupported = null;
+        for (int i = 0; i < parameters.length; i++) {
+            RequestParam annotation = parameters[i].getAnnotation(RequestParam.class);
+            if (annotation != null) {
+                names[i] = annotation.value();
+            } else if (unsupported == null) {
+                unsupported = parameters[i].getName();
+            }
+        }
+        try {
+            return new ControllerMethod(method.getDeclaringClass(), method.getName(), method.getParameterTypes(),
+                    names, unsupported, createInvoker(method, names), method);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalArgumentException("No se puede enlazar " + method, e);
+        }
+    }
+
+    /**
+     * Handler de una ruta del índice generado en compilación: el invocador
+     * llama al método directamente, sin reflexión ni LambdaMetafactory.
+     *
+     * @param declaringClass Clase del controlador (no se inicializa aquí)
+     * @param methodName Nombre del método
+     * @param parameterTypes Tipos de los parámetros
+     * @param parameterNames Query param de cada parámetro
+     * @param invoker Llamada generada al método
+     */
+    static ControllerMethod generated(Class<?> declaringClass, String methodName, Class<?>[] parameterTypes,
+            String[] parameterNames, Invoker invoker) {
+        return new ControllerMethod(declaringClass, methodName, parameterTypes, parameterNames, null, invoker, null);
+    }
+
+    @Override
+    public Response apply(Request req, Response res) {
+        if (unsupportedParam != null) {
+            return new Response.Builder()
+                    .withStatus(400)
+                    .withBody("Parámetro no soportado: " + unsupportedParam)
+                    .build();
+        }
+        try {
+            return toResponse(invoker.invoke(req));
+        } catch (Error e) {
+            // OutOfMemoryError, StackOverflowError...: no se convierten en 500
+            throw e;
+        } catch (Throwable e) {
+            // Invoker declara Throwable (MethodHandle.invoke); aquí solo
+            // llegan excepciones del controlador
+            return new Response.Builder()
+                    .withStatus(500)
+                    .withBody("Error interno del servidor: " + e.getMessage())
+                    .build();
+        }
+    }
+
+    /**
+     * Convierte el valor devuelto por un controlador en respuesta: una
+     * Response se usa tal cual, un String es el cuerpo sin cambios y cualquier
+     * otro objeto (records, mapas, listas, números...) se serializa como JSON.
+     */
+    static Response toResponse(Object result) {
+        if (result instanceof Response response) {
+            return response;
+        }
+        if (result == null || result instanceof CharSequence) {
+            return new Response.Builder()
+                    .withStatus(200)
+                    .withBody(result != null ? result.toString() : "")
+                    .build();
+        }
+        return new Response.Builder()
+                .withStatus(200)
+                .withJson(result)
+                .build();
+    }
+
+    /**
+     * Invoca el método con los parámetros de la petición y devuelve su
+     * resultado sin convertirlo en respuesta.
+     */
+    public Object invoke(Request req) throws Throwable {
+        return invoker.invoke(req);
+    }
+
+    /**
+     * Método del controlador que atiende la ruta.
+     *
+     * @throws IllegalStateException Si el método del índice generado ya no
+     * existe en la clase
+     */
+    public Method getMethod() {
+        Method resolved = method;
+        if (resolved == null) {
+            try {
+                resolved = declaringClass.getDeclaredMethod(methodName, parameterTypes);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException("Método no encontrado: " + methodName, e);
+            }
+            method = resolved;
+        }
+        return resolved;
+    }
+
+    /**
+     * Nombre del query param de cada argumento, en orden; null para los
+     * parámetros sin @RequestParam.
+     */
+    public String[] getParameterNames() {
+        return parameterNames.clone();
+    }
+
+    // ==================== GENERACIÓN DEL INVOCADOR ====================
+    /**
+     * Llamada ya enlazada: lee los parámetros de la petición y ejecuta el método.
+     */
+    @FunctionalInterface
+    interface Invoker {
+
+        Object invoke(Request req) throws Throwable;
+    }
+
+    @FunctionalInterface
+    interface Call0 {
+
+        Object call();
+    }
+
+    @FunctionalInterface
+    interface Call1 {
+
+        Object call(String a);
+    }
+
+    @FunctionalInterface
+    interface Call2 {
+
+        Object call(String a, String b);
+    }
+
+    @FunctionalInterface
+    interface Call3 {
+
+        Object call(String a, String b, String c);
+    }
+
+    private static Invoker createInvoker(Method method, String[] names) throws Throwable {
+        MethodHandle target = LOOKUP.unreflect(method);
+        if (isDirectCandidate(method)) {
+            try {
+                return createDirectInvoker(target, names);
+            } catch (LambdaConversionException e) {
+                // Clase no visible desde este paquete (el handle se obtuvo con
+                // setAccessible): se usa el MethodHandle genérico
+            }
+        }
+
+        // Caso general: MethodHandle con los argumentos en un Object[]
+        MethodHandle spread = target
+                .asSpreader(Object[].class, names.length)
+                .asType(MethodType.methodType(Object.class, Object[].class));
+        return req -> {
+            Object[] args = new Object[names.length];
+            for (int i = 0; i < names.length; i++) {
+                args[i] = names[i] != null ? req.getQueryParam(names[i]) : null;
+            }
+            return (Object) spread.invokeExact(args);
+        };
+    }
+
+    /**
+     * Genera con LambdaMetafactory una implementación de CallN que invoca el
+     * método directamente.
+     */
+    private static Invoker createDirectInvoker(MethodHandle target, String[] names) throws Throwable {
+        switch (names.length) {
+            case 0: {
+                Call0 call = (Call0) metafactory(Call0.class, target);
+                return req -> call.call();
+            }
+            case 1: {
+                Call1 call = (Call1) metafactory(Call1.class, target);
+                String a = names[0];
+                return req -> call.call(req.getQueryParam(a));
+            }
+            case 2: {
+                Call2 call = (Call2) metafactory(Call2.class, target);
+                String a = names[0];
+                String b = names[1];
+                return req -> call.call(req.getQueryParam(a), req.getQueryParam(b));
+            }
+            default: {
+                Call3 call = (Call3) metafactory(Call3.class, target);
+                String a = names[0];
+                String b = names[1];
+                String c = names[2];
+                return req -> call.call(req.getQueryParam(a), req.getQueryParam(b), req.getQueryParam(c));
+            }
+        }
+    }
+
+    /**
+     * Solo los métodos de hasta tres parámetros que aceptan String y devuelven
+     * un valor se convierten en una llamada directa.
+     */
+    private static boolean isDirectCandidate(Method method) {
+        if (method.getParameterCount() > MAX_DIRECT_ARITY || method.getReturnType() == void.class) {
+            return false;
+        }
+        for (Class<?> type : method.getParameterTypes()) {
+            if (!type.isAssignableFrom(String.class)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Object metafactory(Class<?> functionalInterface, MethodHandle target) throws Throwable {
+        Method sam = functionalInterface.getDeclaredMethods()[0];
+        MethodType samType = MethodType.methodType(sam.getReturnType(), sam.getParameterTypes());
+        CallSite site = LambdaMetafactory.metafactory(LOOKUP, sam.getName(),
+                MethodType.methodType(functionalInterface), samType, target, samType);
+        return site.getTarget().invoke();
+    }
+}
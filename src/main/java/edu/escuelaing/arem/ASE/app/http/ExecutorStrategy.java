@@ -0,0 +1,83 @@
+package edu.escuelaing.arem.ASE.app.http;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Estrategias de ejecución disponibles para los handlers del servidor.
+ *
+ * - FIXED: pool fijo de hilos de plataforma (comportamiento original, 50 hilos).
+ * - VIRTUAL: un hilo virtual (JDK 21) por tarea, sin cola ni límite de hilos.
+ *
+ * Se selecciona al iniciar con -Dhttp.executor=fixed|virtual (o la variable
+ * de entorno HTTP_EXECUTOR).
+ *
+ * @author jgamb
+ * @version 1.0
+ * @since 3.0
+ */
+public enum ExecutorStrategy {
+
+    FIXED,
+    VIRTUAL;
+
+    // Contadores para el modo virtual, donde no existe un ThreadPoolExecutor
+    // que exponga hilos activos y tareas completadas
+    private static final AtomicInteger virtualActive = new AtomicInteger();
+    private static final LongAdder virtualCompleted = new LongAdder();
+
+    /**
+     * Crea el ExecutorService correspondiente a la estrategia.
+     *
+     * @param maxThreads Tamaño del pool (solo aplica a FIXED)
+     * @return ExecutorService listo para recibir tareas
+     */
+    public ExecutorService create(int maxThreads) {
+        if (this == VIRTUAL) {
+            // Equivalente a Executors.newVirtualThreadPerTaskExecutor(), pero con
+            // una fábrica que lleva la cuenta de tareas activas y completadas
+            ThreadFactory virtualFactory = Thread.ofVirtual().name("virtual-worker-", 0).factory();
+            ThreadFactory countingFactory = task -> virtualFactory.newThread(() -> {
+                virtualActive.incrementAndGet();
+                try {
+                    task.run();
+                } finally {
+                    virtualActive.decrementAndGet();
+                    virtualCompleted.increment();
+                }
+            });
+            return Executors.newThreadPerTaskExecutor(countingFactory);
+        }
+        return Executors.newFixedThreadPool(maxThreads);
+    }
+
+    /**
+     * Número de tareas que se están ejecutando en hilos virtuales.
+     */
+    static int getVirtualActiveCount() {
+        return virtualActive.get();
+    }
+
+    /**
+     * Número de tareas completadas en hilos virtuales.
+     */
+    static long getVirtualCompletedCount() {
+        return virtualCompleted.sum();
+    }
+
+    /**
+     * Convierte el valor de configuración en una estrategia.
+     *
+     * @param value "fixed" o "virtual" (sin distinguir mayúsculas)
+     * @return La estrategia correspondiente, FIXED si el valor no es válido
+     */
+    public static ExecutorStrategy fromString(String value) {
+        if (value != null && value.trim().equalsIgnoreCase("virtual")) {
+            return VIRTUAL;
+        }
+        return FIXED;
+    }
+}
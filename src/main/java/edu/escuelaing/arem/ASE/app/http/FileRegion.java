@@ -0,0 +1,88 @@
+package edu.escuelaing.arem.ASE.app.http;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Porción de un archivo en disco usada como cuerpo de una respuesta.
+ *
+ * Los motores de red la envían con {@link FileChannel#transferTo}, que sobre
+ * un SocketChannel en Linux usa sendfile: los bytes van del page cache al
+ * socket sin pasar por el heap de Java.
+ *
+ * @author jgamb
+ * @version 1.0
+ * @since 3.0
+ */
+final class FileRegion {
+
+    private final Path path;
+    private final long offset;
+    private final long length;
+
+    FileRegion(Path path, long offset, long length) {
+        this.path = path;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long offset() {
+        return offset;
+    }
+
+    long length() {
+        return length;
+    }
+
+    FileChannel open() throws IOException {
+        return FileChannel.open(path, StandardOpenOption.READ);
+    }
+
+    /**
+     * Envía la región completa a un canal bloqueante.
+     *
+     * @param target Canal de salida (idealmente el SocketChannel del cliente)
+     * @throws IOException Si el archivo se truncó o falla la escritura
+     */
+    void transferTo(WritableByteChannel target) throws IOException {
+        try (FileChannel file = open()) {
+            long position = offset;
+            long remaining = length;
+            while (remaining > 0) {
+                long sent = file.transferTo(position, remaining, target);
+                if (sent <= 0 && position >= file.size()) {
+                    throw new IOException("Archivo truncado durante el envío: " + path);
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    /**
+     * Lee la región a memoria. Solo para los caminos que necesitan la
+     * respuesta completa en un byte[] (por ejemplo {@link Response#toBytes()}).
+     */
+    byte[] readAllBytes() throws IOException {
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IOException("Región demasiado grande para un arreglo: " + length);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        try (FileChannel file = open()) {
+            while (buffer.hasRemaining()) {
+                if (file.read(buffer, offset + buffer.position()) < 0) {
+                    throw new IOException("Archivo truncado durante la lectura: " + path);
+                }
+            }
+        }
+        return buffer.array();
+    }
+}
@@ -0,0 +1,385 @@
+package edu.escuelaing.arem.ASE.app.http;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Headers de una petición, sin distinguir mayúsculas en los nombres.
+ *
+ * Si la petición se leyó de la red, los headers son una vista sobre los bytes
+ * del {@link RequestParser}: no se copian ni se pasan a minúsculas, y los
+ * nombres se comparan en ASCII sin distinguir mayúsculas directamente sobre el
+ * buffer. Los nombres conocidos (Content-Type, Host, ...) se reconocen al
+ * parsear y se representan con las constantes de esta clase, así que buscar
+ * con una constante empieza por una comparación de identidad y
+ * {@link #name(int)} no crea un String nuevo.
+ *
+ * La clase es inmutable; {@link #asMap()} devuelve una vista de solo lectura
+ * sin copiar las entradas.
+ *
+ * @author jgamb
+ * @version 1.0
+ * @since 3.0
+ */
+public final class Headers {
+
+    public static final String ACCEPT = "Accept";
+    public static final String ACCEPT_ENCODING = "Accept-Encoding";
+    public static final String ACCEPT_LANGUAGE = "Accept-Language";
+    public static final String AUTHORIZATION = "Authorization";
+    public static final String CACHE_CONTROL = "Cache-Control";
+    public static final String CONNECTION = "Connection";
+    public static final String CONTENT_ENCODING = "Content-Encoding";
+    public static final String CONTENT_LENGTH = "Content-Length";
+    public static final String CONTENT_TYPE = "Content-Type";
+    public static final String COOKIE = "Cookie";
+    public static final String EXPECT = "Expect";
+    public static final String HOST = "Host";
+    public static final String IF_MODIFIED_SINCE = "If-Modified-Since";
+    public static final String IF_NONE_MATCH = "If-None-Match";
+    public static final String IF_RANGE = "If-Range";
+    public static final String ORIGIN = "Origin";
+    public static final String RANGE = "Range";
+    public static final String REFERER = "Referer";
+    public static final String TRANSFER_ENCODING = "Transfer-Encoding";
+    public static final String UPGRADE = "Upgrade";
+    public static final String USER_AGENT = "User-Agent";
+
+    private static final String[] KNOWN = {
+        ACCEPT, ACCEPT_ENCODING, ACCEPT_LANGUAGE, AUTHORIZATION, CACHE_CONTROL, CONNECTION,
+        CONTENT_ENCODING, CONTENT_LENGTH, CONTENT_TYPE, COOKIE, EXPECT, HOST, IF_MODIFIED_SINCE,
+        IF_NONE_MATCH, IF_RANGE, ORIGIN, RANGE, REFERER, TRANSFER_ENCODING, UPGRADE, USER_AGENT
+    };
+    // Nombres conocidos agrupados por longitud: se comparan solo los candidatos
+    // que tienen la misma longitud que el nombre recibido
+    private static final String[][] KNOWN_BY_LENGTH = new String[32][];
+
+    static {
+        for (String name : KNOWN) {
+            String[] bucket = KNOWN_BY_LENGTH[name.length()];
+            bucket = bucket == null ? new String[1] : Arrays.copyOf(bucket, bucket.length + 1);
+            bucket[bucket.length - 1] = name;
+            KNOWN_BY_LENGTH[name.length()] = bucket;
+        }
+    }
+
+    static final Headers EMPTY = new Headers(null, new String[0], new String[0], 0);
+
+    // Vista sobre los bytes de la petición (null si se construyó con Builder)
+    private final RequestParser parser;
+    private final String[] names;
+    private final String[] values;
+    private final int count;
+    private Map<String, String> map;
+
+    private Headers(RequestParser parser, String[] names, String[] values, int count) {
+        this.parser = parser;
+        this.names = names;
+        this.values = values;
+        this.count = count;
+    }
+
+    /**
+     * Vista sobre los headers ya parseados de una petición.
+     */
+    static Headers of(RequestParser parser) {
+        return new Headers(parser, null, null, parser.headerCount());
+    }
+
+    /**
+     * Copia los headers de un mapa (nombres tal como vienen).
+     */
+    public static Headers of(Map<String, String> headers) {
+        Builder builder = new Builder();
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            builder.set(entry.getKey(), entry.getValue());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Nombre conocido equivalente a los bytes dados (sin distinguir
+     * mayúsculas), o null si no es uno de los conocidos.
+     */
+    static String knownName(byte[] data, int from, int to) {
+        int length = to - from;
+        if (length >= KNOWN_BY_LENGTH.length || KNOWN_BY_LENGTH[length] == null) {
+            return null;
+        }
+        for (String candidate : KNOWN_BY_LENGTH[length]) {
+            if (RequestParser.equalsIgnoreCase(data, from, to, candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Nombre conocido equivalente al dado, o el mismo nombre si no lo es.
+     */
+    static String canonicalName(String name) {
+        int length = name.length();
+        if (length < KNOWN_BY_LENGTH.length && KNOWN_BY_LENGTH[length] != null) {
+            for (String candidate : KNOWN_BY_LENGTH[length]) {
+                if (equalsIgnoreCase(candidate, name)) {
+                    return candidate;
+                }
+            }
+        }
+        return name;
+    }
+
+    /**
+     * Posición del primer header con ese nombre, o -1.
+     */
+    public int indexOf(String name) {
+        if (parser != null) {
+            return parser.indexOfHeader(name);
+        }
+        for (int i = 0; i < count; i++) {
+            if (names[i] == name || equalsIgnoreCase(names[i], name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Valor del primer header con ese nombre (sin distinguir mayúsculas).
+     *
+     * @return El valor o null si no existe
+     */
+    public String get(String name) {
+        int index = indexOf(name);
+        return index < 0 ? null : value(index);
+    }
+
+    /**
+     * Valores de todos los headers con ese nombre, en orden.
+     */
+    public List<String> getAll(String name) {
+        List<String> all = new ArrayList<>(1);
+        for (int i = 0; i < count; i++) {
+            if (nameEquals(i, name)) {
+                all.add(value(i));
+            }
+        }
+        return Collections.unmodifiableList(all);
+    }
+
+    public boolean contains(String name) {
+        return indexOf(name) >= 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Nombre del header en la posición indicada: la constante de esta clase
+     * si es un header conocido o el nombre tal como se recibió.
+     */
+    public String name(int index) {
+        checkIndex(index);
+        return parser != null ? parser.headerName(index) : names[index];
+    }
+
+    public String value(int index) {
+        checkIndex(index);
+        return parser != null ? parser.headerValue(index) : values[index];
+    }
+
+    /**
+     * Vista de solo lectura como mapa. Las búsquedas no distinguen mayúsculas
+     * y, si un header se repite, el mapa contiene su primer valor.
+     */
+    public Map<String, String> asMap() {
+        if (map == null) {
+            map = new MapView();
+        }
+        return map;
+    }
+
+    private boolean nameEquals(int index, String name) {
+        if (parser != null) {
+            return parser.headerNameEquals(index, name);
+        }
+        return names[index] == name || equalsIgnoreCase(names[index], name);
+    }
+
+    /**
+     * Indica si el header de esa posición es la primera aparición de su
+     * nombre.
+     */
+    private boolean isFirst(int index) {
+        String name = name(index);
+        for (int i = 0; i < index; i++) {
+            if (nameEquals(i, name)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException(index);
+        }
+    }
+
+    static boolean equalsIgnoreCase(String a, String b) {
+        if (a.length() != b.length()) {
+            return false;
+        }
+        for (int i = 0; i < a.length(); i++) {
+            char x = a.charAt(i);
+            char y = b.charAt(i);
+            if (x != y && toLower(x) != toLower(y)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static char toLower(char c) {
+        return (c >= 'A' && c <= 'Z') ? (char) (c + 32) : c;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < count; i++) {
+            sb.append(i > 0 ? ", " : "").append(name(i)).append('=').append(value(i));
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Mapa respaldado por los headers, sin copiarlos.
+     */
+    private final class MapView extends AbstractMap<String, String> {
+
+        private Set<Map.Entry<String, String>> entries;
+
+        @Override
+        public String get(Object key) {
+            return key instanceof String ? Headers.this.get((String) key) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String && contains((String) key);
+        }
+
+        @Override
+        public Set<Map.Entry<String, String>> entrySet() {
+            if (entries == null) {
+                entries = new AbstractSet<>() {
+                    @Override
+                    public Iterator<Map.Entry<String, String>> iterator() {
+                        return new Iterator<>() {
+                            private int next = advance(0);
+
+                            private int advance(int from) {
+                                int i = from;
+                                while (i < count && !isFirst(i)) {
+                                    i++;
+                                }
+                                return i;
+                            }
+
+                            @Override
+                            public boolean hasNext() {
+                                return next < count;
+                            }
+
+                            @Override
+                            public Map.Entry<String, String> next() {
+                                if (next >= count) {
+                                    throw new NoSuchElementException();
+                                }
+                                int index = next;
+                                next = advance(index + 1);
+                                return new AbstractMap.SimpleImmutableEntry<>(name(index), value(index));
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        int distinct = 0;
+                        for (int i = 0; i < count; i++) {
+                            if (isFirst(i)) {
+                                distinct++;
+                            }
+                        }
+                        return distinct;
+                    }
+                };
+            }
+            return entries;
+        }
+    }
+
+    /**
+     * Construye headers para peticiones creadas en código (pruebas, caminos
+     * heredados). Los nombres conocidos se reemplazan por sus constantes.
+     */
+    public static final class Builder {
+
+        private String[] names = new String[8];
+        private String[] values = new String[8];
+        private int count;
+
+        /**
+         * Agrega un header, aunque ya exista otro con el mismo nombre.
+         */
+        public Builder add(String name, String value) {
+            if (count == names.length) {
+                names = Arrays.copyOf(names, count * 2);
+                values = Arrays.copyOf(values, count * 2);
+            }
+            names[count] = canonicalName(name);
+            values[count] = value;
+            count++;
+            return this;
+        }
+
+        /**
+         * Agrega un header o reemplaza el valor de los que tengan ese nombre.
+         */
+        public Builder set(String name, String value) {
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                if (!equalsIgnoreCase(names[i], name)) {
+                    names[kept] = names[i];
+                    values[kept] = values[i];
+                    kept++;
+                }
+            }
+            for (int i = kept; i < count; i++) {
+                names[i] = null;
+                values[i] = null;
+            }
+            count = kept;
+            return add(name, value);
+        }
+
+        public Headers build() {
+            return count == 0 ? EMPTY
+                    : new Headers(null, Arrays.copyOf(names, count), Arrays.copyOf(values, count), count);
+        }
+    }
+}
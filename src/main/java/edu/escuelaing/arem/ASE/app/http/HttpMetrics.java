@@ -0,0 +1,320 @@
+package edu.escuelaing.arem.ASE.app.http;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas del servidor: peticiones y latencias por ruta, método y código de
+ * estado, peticiones en curso y bytes recibidos y enviados.
+ *
+ * Cada combinación de ruta, método y estado tiene su propio
+ * {@link LatencyHistogram}; la ruta es el patrón registrado
+ * ({@code /users/{id}}), no la URL, para que el número de series quede
+ * acotado. Las peticiones que no coinciden con ninguna ruta se agrupan como
+ * {@code (static)} (GET y HEAD) o {@code (unmatched)}. En el camino de cada
+ * petición no hay locks: las series se buscan en un ConcurrentHashMap y un
+ * arreglo atómico, y los contadores son LongAdder o histogramas con franjas.
+ *
+ * {@link #writePrometheus(StringBuilder)} genera el formato de texto de
+ * Prometheus (versión 0.0.4).
+ *
+ * @author jgamb
+ * @version 1.0
+ * @since 3.0
+ */
+public final class HttpMetrics {
+
+    private static final String[] METHODS = {"GET", "HEAD", "POST", "PUT", "DELETE", "PATCH", "OPTIONS", "OTHER"};
+    private static final int MIN_STATUS = 100;
+    private static final int STATUS_RANGE = 500;
+    // Límites (en segundos) de los buckets que se exportan a Prometheus; el
+    // histograma interno es mucho más fino
+    private static final double[] EXPORTED_BOUNDS = {
+        0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+    private static final String[] EXPORTED_LABELS = new String[EXPORTED_BOUNDS.length];
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    static {
+        for (int i = 0; i < EXPORTED_BOUNDS.length; i++) {
+            EXPORTED_LABELS[i] = ",le=\"" + BigDecimal.valueOf(EXPORTED_BOUNDS[i]).stripTrailingZeros().toPlainString() + "\"";
+        }
+    }
+
+    private final ConcurrentHashMap<String, RouteSeries> routes = new ConcurrentHashMap<>();
+    private final LongAdder inFlight = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+
+    /**
+     * Marca el inicio de una petición (cuenta como en curso).
+     */
+    public void requestStarted() {
+        inFlight.increment();
+    }
+
+    /**
+     * Registra una petición terminada y deja de contarla como en curso.
+     *
+     * @param req Petición atendida (de ella salen la ruta y el método)
+     * @param status Código de estado de la respuesta
+     * @param nanos Tiempo que tomó atenderla
+     */
+    public void requestCompleted(Request req, int status, long nanos) {
+        inFlight.decrement();
+        String method = req.getMethod();
+        String route = req.getRoutePattern();
+        if (route == null) {
+            route = "GET".equals(method) || "HEAD".equals(method) ? "(static)" : "(unmatched)";
+        }
+        record(route, method, status, nanos);
+    }
+
+    /**
+     * Registra la latencia de una petición.
+     */
+    public void record(String route, String method, int status, long nanos) {
+        RouteSeries series = routes.get(route);
+        if (series == null) {
+            series = routes.computeIfAbsent(route, r -> new RouteSeries());
+        }
+        series.histogram(methodIndex(method), status).record(nanos);
+    }
+
+    public void addBytesIn(long bytes) {
+        bytesIn.add(bytes);
+    }
+
+    public void addBytesOut(long bytes) {
+        bytesOut.add(bytes);
+    }
+
+    /**
+     * Stream que suma a los bytes recibidos todo lo que se lee de él.
+     */
+    public InputStream countBytesIn(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    bytesIn.increment();
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = super.read(buffer, offset, length);
+                if (read > 0) {
+                    bytesIn.add(read);
+                }
+                return read;
+            }
+        };
+    }
+
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    /**
+     * Número de peticiones de una ruta, método y estado.
+     */
+    public long getRequestCount(String route, String method, int status) {
+        LatencyHistogram histogram = find(route, method, status);
+        return histogram != null ? histogram.snapshot().getCount() : 0;
+    }
+
+    /**
+     * Latencias de una ruta y método, con todos los códigos de estado juntos.
+     */
+    public LatencyHistogram.Snapshot getLatency(String route, String method) {
+        LatencyHistogram.Snapshot total = LatencyHistogram.Snapshot.empty();
+        RouteSeries series = routes.get(route);
+        if (series != null) {
+            int m = methodIndex(method);
+            for (int s = 0; s < STATUS_RANGE; s++) {
+                LatencyHistogram histogram = series.histograms.get(m * STATUS_RANGE + s);
+                if (histogram != null) {
+                    total.add(histogram.snapshot());
+                }
+            }
+        }
+        return total;
+    }
+
+    private LatencyHistogram find(String route, String method, int status) {
+        RouteSeries series = routes.get(route);
+        return series != null ? series.histograms.get(methodIndex(method) * STATUS_RANGE + statusIndex(status)) : null;
+    }
+
+    // ==================== PROMETHEUS ====================
+    /**
+     * Escribe las métricas en el formato de texto de Prometheus.
+     */
+    public void writePrometheus(StringBuilder out) {
+        // Una sola lectura de cada histograma para que todas las líneas de una
+        // serie sean coherentes entre sí
+        Map<String, LatencyHistogram.Snapshot[]> snapshots = new TreeMap<>();
+        routes.forEach((route, series) -> {
+            LatencyHistogram.Snapshot[] perSeries = new LatencyHistogram.Snapshot[METHODS.length * STATUS_RANGE];
+            for (int i = 0; i < perSeries.length; i++) {
+                LatencyHistogram histogram = series.histograms.get(i);
+                if (histogram != null) {
+                    perSeries[i] = histogram.snapshot();
+                }
+            }
+            snapshots.put(route, perSeries);
+        });
+
+        header(out, "http_requests_total", "counter", "Peticiones atendidas por ruta, método y estado.");
+        forEachSeries(snapshots, (labels, snapshot) -> sample(out, "http_requests_total", labels, snapshot.getCount()));
+
+        header(out, "http_request_duration_seconds", "histogram",
+                "Tiempo para generar la respuesta, por ruta, método y estado.");
+        forEachSeries(snapshots, (labels, snapshot) -> {
+            for (int i = 0; i < EXPORTED_BOUNDS.length; i++) {
+                long count = snapshot.getCountAtOrBelow((long) (EXPORTED_BOUNDS[i] * 1e9));
+                sample(out, "http_request_duration_seconds_bucket", labels + EXPORTED_LABELS[i], count);
+            }
+            sample(out, "http_request_duration_seconds_bucket", labels + ",le=\"+Inf\"", snapshot.getCount());
+            sample(out, "http_request_duration_seconds_sum", labels, snapshot.getSum() / 1e9);
+            sample(out, "http_request_duration_seconds_count", labels, snapshot.getCount());
+        });
+
+        header(out, "http_request_duration_quantile_seconds", "gauge",
+                "Percentiles de latencia desde el inicio, por ruta y método (todos los estados).");
+        snapshots.forEach((route, perSeries) -> {
+            for (int m = 0; m < METHODS.length; m++) {
+                LatencyHistogram.Snapshot merged = null;
+                for (int s = 0; s < STATUS_RANGE; s++) {
+                    LatencyHistogram.Snapshot snapshot = perSeries[m * STATUS_RANGE + s];
+                    if (snapshot != null) {
+                        if (merged == null) {
+                            merged = LatencyHistogram.Snapshot.empty();
+                        }
+                        merged.add(snapshot);
+                    }
+                }
+                if (merged == null) {
+                    continue;
+                }
+                String labels = "route=\"" + escape(route) + "\",method=\"" + METHODS[m] + "\"";
+                for (double quantile : QUANTILES) {
+                    sample(out, "http_request_duration_quantile_seconds", labels + ",quantile=\"" + quantile + "\"",
+                            merged.getValueAtQuantile(quantile) / 1e9);
+                }
+            }
+        });
+
+        gauge(out, "http_requests_in_flight", "Peticiones en curso.", getInFlight());
+        counter(out, "http_received_bytes_total", "Bytes leídos de los clientes.", getBytesIn());
+        counter(out, "http_sent_bytes_total", "Bytes de respuesta enviados a los clientes.", getBytesOut());
+    }
+
+    private interface SeriesConsumer {
+
+        void accept(String labels, LatencyHistogram.Snapshot snapshot);
+    }
+
+    private static void forEachSeries(Map<String, LatencyHistogram.Snapshot[]> snapshots, SeriesConsumer consumer) {
+        snapshots.forEach((route, perSeries) -> {
+            for (int i = 0; i < perSeries.length; i++) {
+                if (perSeries[i] != null) {
+                    consumer.accept("route=\"" + escape(route) + "\",method=\"" + METHODS[i / STATUS_RANGE]
+                            + "\",status=\"" + (MIN_STATUS + i % STATUS_RANGE) + "\"", perSeries[i]);
+                }
+            }
+        });
+    }
+
+    /**
+     * Escribe una métrica de tipo gauge sin etiquetas.
+     */
+    public static void gauge(StringBuilder out, String name, String help, double value) {
+        header(out, name, "gauge", help);
+        sample(out, name, null, value);
+    }
+
+    /**
+     * Escribe una métrica de tipo counter sin etiquetas.
+     */
+    public static void counter(StringBuilder out, String name, String help, double value) {
+        header(out, name, "counter", help);
+        sample(out, name, null, value);
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (labels != null) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ');
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static int methodIndex(String method) {
+        for (int i = 0; i < METHODS.length - 1; i++) {
+            if (METHODS[i].equals(method)) {
+                return i;
+            }
+        }
+        return METHODS.length - 1;
+    }
+
+    private static int statusIndex(int status) {
+        return status >= MIN_STATUS && status < MIN_STATUS + STATUS_RANGE ? status - MIN_STATUS : 500 - MIN_STATUS;
+    }
+
+    /**
+     * Histogramas de una ruta, indexados por método y estado; se crean la
+     * primera vez que se usan.
+     */
+    private static final class RouteSeries {
+
+        private final AtomicReferenceArray<LatencyHistogram> histograms =
+                new AtomicReferenceArray<>(METHODS.length * STATUS_RANGE);
+
+        LatencyHistogram histogram(int method, int status) {
+            int index = method * STATUS_RANGE + statusIndex(status);
+            LatencyHistogram histogram = histograms.get(index);
+            if (histogram == null) {
+                LatencyHistogram created = new LatencyHistogram();
+                histogram = histograms.compareAndExchange(index, null, created);
+                if (histogram == null) {
+                    histogram = created;
+                }
+            }
+            return histogram;
+        }
+    }
+}
@@ -5,26 +5,26 @@ package edu.escuelaing.arem.ASE.app.http;
  * @author jgamb
  */
 import edu.escuelaing.arem.ASE.app.annotation.GetMapping;
-import edu.escuelaing.arem.ASE.app.annotation.RequestParam;
 import edu.escuelaing.arem.ASE.app.annotation.RestController;
 import java.net.*;
 import java.io.*;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.lang.reflect.Parameter;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
 import java.nio.file.Files;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
@@ -55,17 +55,50 @@ public class HttpServer {
     private static ServerSocket serverSocket = null;
 
     // Estructuras de datos thread-safe
-    private static final ConcurrentHashMap<String, String> users = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<String, BiFunction<Request, Response, Response>> getServices = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<String, BiFunction<Request, Response, Response>> postServices = new ConcurrentHashMap<>();
+    private static final UserRegistry users = new UserRegistry();
+    // Métricas de peticiones, expuestas en formato Prometheus
+    private static final HttpMetrics metrics = new HttpMetrics();
+    // Log asíncrono de diagnóstico y access log; se reemplaza al abrir el
+    // access log (http.accessLog)
+    private static volatile AsyncLog log = createConsoleLog();
+    // Persistencia del registro (null: solo en memoria, sin http.dataDir)
+    private static volatile UserStore userStore;
+    // Rutas registradas: árbol radix inmutable que se reemplaza en cada registro
+    private static final Router router = new Router();
 
     private static String staticFilesDirectory = "";
+    // Raíz en disco para archivos estáticos (null: se usan recursos del classpath)
+    private static volatile Path staticFilesRoot;
+    private static volatile Path staticFilesRealRoot;
+
+    // Caché de respuestas estáticas pre-serializadas, acotada en bytes (LRU)
+    private static final StaticFileCache staticCache = new StaticFileCache(Long.parseLong(
+            getConfig("http.staticCacheBytes", "HTTP_STATIC_CACHE_BYTES", String.valueOf(32L * 1024 * 1024))));
+    // Last-Modified para recursos cuyo origen no informa fecha de modificación
+    private static final long STARTUP_TIME = System.currentTimeMillis();
 
     // Pool de hilos para manejo concurrente de clientes
     private static ExecutorService threadPool;
     private static final int MAX_THREADS = 50; // Número máximo de hilos concurrentes
+    private static ExecutorStrategy executorStrategy = ExecutorStrategy.FIXED;
+
+    // Conexiones persistentes: tiempo máximo de inactividad entre peticiones y
+    // número máximo de peticiones atendidas por conexión
+    static final int KEEP_ALIVE_TIMEOUT_MS = Integer.parseInt(
+            getConfig("http.keepAliveTimeout", "HTTP_KEEP_ALIVE_TIMEOUT", "15000"));
+    static final int MAX_KEEP_ALIVE_REQUESTS = Integer.parseInt(
+            getConfig("http.maxKeepAliveRequests", "HTTP_MAX_KEEP_ALIVE_REQUESTS", "100"));
+
+    // Tamaño máximo del cuerpo de una petición; los mayores se responden con 413
+    static final long MAX_BODY_SIZE = Long.parseLong(
+            getConfig("http.maxBodySize", "HTTP_MAX_BODY_SIZE", String.valueOf(10L * 1024 * 1024)));
     private static volatile boolean serverRunning = true;
 
+    // Motor de red seleccionable al iniciar: "blocking" (ServerSocket +
+    // ClientHandler) o "nio" (reactor con Selector y event loops)
+    private static String engine = "blocking";
+    private static NioServer nioServer;
+
     /**
      * Método principal que inicia el servidor HTTP multihilo.
      *
@@ -90,11 +123,38 @@ public class HttpServer {
         } else {
             System.out.println("No se encontró variable de entorno PORT, usando puerto por defecto: " + port);
         }
-        loadInitialData();
+        String dataDir = getConfig("http.dataDir", "HTTP_DATA_DIR", "");
+        if (!dataDir.isEmpty()) {
+            openUserStore(Paths.get(dataDir));
+        }
+        // Con almacén persistente, los datos iniciales solo se siembran la
+        // primera vez
+        if (userStore == null || users.size() == 0) {
+            loadInitialData();
+        }
         loadComponents(args);
 
-        // Inicializar el pool de hilos
-        threadPool = Executors.newFixedThreadPool(MAX_THREADS);
+        String accessLog = getConfig("http.accessLog", "HTTP_ACCESS_LOG", "");
+        if (!accessLog.isEmpty()) {
+            openAccessLog(Paths.get(accessLog));
+        }
+
+        String metricsPath = getConfig("http.metricsPath", "HTTP_METRICS_PATH", "/metrics");
+        if (!metricsPath.isEmpty() && router.match(metricsPath) == null) {
+            get(metricsPath, (req, res) -> new Response.Builder()
+                    .withContentType("text/plain; version=0.0.4; charset=utf-8")
+                    .withBody(renderMetrics())
+                    .build());
+        }
+
+        String staticRoot = getConfig("http.staticRoot", "HTTP_STATIC_ROOT", "");
+        if (!staticRoot.isEmpty()) {
+            staticFilesRoot(staticRoot);
+        }
+
+        // Inicializar el pool de hilos según la estrategia configurada
+        executorStrategy = ExecutorStrategy.fromString(getConfig("http.executor", "HTTP_EXECUTOR", "fixed"));
+        threadPool = executorStrategy.create(MAX_THREADS);
 
         // Agregar shutdown hook para cerrar el pool de hilos correctamente
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
@@ -102,12 +162,31 @@ public class HttpServer {
             shutdownServer();
         }));
 
+        engine = getConfig("http.engine", "HTTP_ENGINE", "blocking").toLowerCase();
+
         try {
-            serverSocket = new ServerSocket(port);
+            if ("nio".equals(engine)) {
+                int eventLoops = Integer.parseInt(getConfig("http.eventLoops", "HTTP_EVENT_LOOPS",
+                        String.valueOf(Runtime.getRuntime().availableProcessors())));
+                nioServer = new NioServer(port, eventLoops, threadPool);
+
+                System.out.println("Servidor NIO escuchando en el puerto " + port
+                        + " con " + eventLoops + " event loops");
+                System.out.println(describeExecutor());
+
+                nioServer.run();
+                return;
+            }
+
+            // El ServerSocket se obtiene de un ServerSocketChannel para que los
+            // sockets aceptados tengan canal y los archivos se envíen con
+            // transferTo directamente al socket
+            serverSocket = ServerSocketChannel.open().socket();
+            serverSocket.bind(new InetSocketAddress(port));
             serverSocket.setSoTimeout(1000); // evita bloqueo indefinido en accept()
 
             System.out.println("Servidor multihilo escuchando en el puerto " + port);
-            System.out.println("Pool de hilos inicializado con " + MAX_THREADS + " hilos");
+            System.out.println(describeExecutor());
 
             runServer();
 
@@ -124,6 +203,10 @@ public class HttpServer {
     public static void shutdownServer() {
         serverRunning = false;
 
+        if (nioServer != null) {
+            nioServer.stop();
+        }
+
         if (serverSocket != null && !serverSocket.isClosed()) {
             try {
                 serverSocket.close();
@@ -143,16 +226,27 @@ public class HttpServer {
                 Thread.currentThread().interrupt();
             }
         }
+
+        closeUserStore();
+        log.flush(5, TimeUnit.SECONDS);
         System.out.println("Servidor cerrado correctamente");
     }
 
     /**
      * Carga y registra automáticamente todos los controladores anotados con
-     *
-     * @RestController. Usa reflexión para encontrar métodos anotados con
-     * @GetMapping y registrarlos.
+     * {@code @RestController}. Usa el índice generado en compilación por
+     * ControllerIndexProcessor; si no existe, busca por reflexión los métodos
+     * anotados con {@code @GetMapping} recorriendo el classpath.
      */
     public static void loadComponents(String args[]) {
+        // Índice generado en compilación: evita recorrer el classpath
+        ControllerIndex index = ControllerIndex.load();
+        if (index != null) {
+            loadComponents(index);
+            return;
+        }
+
+        System.out.println("Índice de controladores no disponible, escaneando el classpath");
         try {
             // Buscar todas las clases anotadas con @RestController
             Set<Class<?>> controllers = findRestControllers("edu.escuelaing.arem.ASE.app");
@@ -162,43 +256,7 @@ public class HttpServer {
                 Method[] methods = c.getDeclaredMethods();
                 for (Method m : methods) {
                     if (m.isAnnotationPresent(GetMapping.class)) {
-                        String mapping = m.getAnnotation(GetMapping.class).value();
-                        System.out.println("Registrando endpoint GET: " + mapping + " -> " + m.getName());
-
-                        get(mapping, (req, res) -> {
-                            try {
-                                Parameter[] parameters = m.getParameters();
-                                Object[] methodArgs = new Object[parameters.length];
-
-                                // Procesar parámetros anotados con @RequestParam
-                                for (int i = 0; i < parameters.length; i++) {
-                                    Parameter param = parameters[i];
-
-                                    if (param.isAnnotationPresent(RequestParam.class)) {
-                                        String paramName = param.getAnnotation(RequestParam.class).value();
-                                        String paramValue = req.getQueryParam(paramName);
-                                        methodArgs[i] = paramValue;
-                                    } else {
-                                        return new Response.Builder()
-                                                .withStatus(400)
-                                                .withBody("Parámetro no soportado: " + param.getName())
-                                                .build();
-                                    }
-                                }
-
-                                Object result = m.invoke(null, methodArgs);
-                                return new Response.Builder()
-                                        .withStatus(200)
-                                        .withBody(result != null ? result.toString() : "")
-                                        .build();
-
-                            } catch (IllegalAccessException | InvocationTargetException e) {
-                                return new Response.Builder()
-                                        .withStatus(500)
-                                        .withBody("Error interno del servidor: " + e.getMessage())
-                                        .build();
-                            }
-                        });
+                        registerGetMapping(m.getAnnotation(GetMapping.class).value(), m);
                     }
                 }
             }
@@ -207,6 +265,54 @@ public class HttpServer {
         }
     }
 
+    /**
+     * Registra las rutas de un índice de controladores. Solo se cargan (sin
+     * inicializar) las clases de los controladores que aparecen en él.
+     */
+    static void loadComponents(ControllerIndex index) {
+        index.register(new ControllerIndex.Registrar() {
+            @Override
+            public void controller(String className) {
+                System.out.println("Cargando controlador: " + className);
+            }
+
+            @Override
+            public void get(String mapping, ControllerMethod handler) {
+                System.out.println("Registrando endpoint GET: " + mapping + " (índice generado)");
+                try {
+                    HttpServer.get(mapping, handler);
+                } catch (IllegalArgumentException e) {
+                    System.err.println("No se pudo registrar " + mapping + ": " + e.getMessage());
+                }
+            }
+
+            @Override
+            public void reflective(String mapping, String className, String methodName) {
+                try {
+                    for (Method m : Class.forName(className).getDeclaredMethods()) {
+                        GetMapping annotation = m.getAnnotation(GetMapping.class);
+                        if (m.getName().equals(methodName) && annotation != null && annotation.value().equals(mapping)) {
+                            registerGetMapping(mapping, m);
+                        }
+                    }
+                } catch (ClassNotFoundException e) {
+                    System.err.println("No se pudo registrar " + mapping + ": clase no encontrada " + className);
+                }
+            }
+        });
+    }
+
+    private static void registerGetMapping(String mapping, Method m) {
+        System.out.println("Registrando endpoint GET: " + mapping + " -> " + m.getName());
+
+        // Plan de parámetros e invocador calculados una sola vez
+        try {
+            get(mapping, ControllerMethod.bind(m));
+        } catch (IllegalArgumentException e) {
+            System.err.println("No se pudo registrar " + mapping + ": " + e.getMessage());
+        }
+    }
+
     /**
      * Carga datos iniciales de usuarios en el sistema.
      */
@@ -225,22 +331,87 @@ public class HttpServer {
      * @return String con el ID único generado para el usuario
      */
     public static String addUser(String name) {
-        String id = UUID.randomUUID().toString();
-        users.put(id, name);
-        System.out.println("Usuario registrado: " + name + " con ID: " + id);
+        UserStore store = userStore;
+        String id = store != null ? store.add(name) : users.add(name);
+        AsyncLog current = log;
+        if (current.isInfoEnabled()) {
+            current.info(null, "Usuario registrado: " + name + " con ID: " + id);
+        }
         return id;
     }
 
+    /**
+     * Registra varios usuarios de una vez. Con almacén persistente el lote
+     * comparte un solo force(); no se imprime una línea por usuario.
+     *
+     * @param names Nombres a registrar
+     * @return Los IDs generados, en el mismo orden que los nombres
+     */
+    public static List<String> addUsers(List<String> names) {
+        UserStore store = userStore;
+        if (store != null) {
+            return store.addAll(names);
+        }
+        List<String> ids = new ArrayList<>(names.size());
+        for (String name : names) {
+            ids.add(users.add(name));
+        }
+        return ids;
+    }
+
+    /**
+     * Activa la persistencia del registro de usuarios en un directorio:
+     * recupera en memoria lo que haya guardado y, desde ahí, cada alta pasa
+     * por el log antes de responder.
+     *
+     * @param directory Directorio del log y los snapshots
+     * @throws IOException Si el directorio no se puede usar o está corrupto
+     */
+    public static synchronized void openUserStore(Path directory) throws IOException {
+        if (userStore != null) {
+            throw new IllegalStateException("El almacén de usuarios ya está abierto");
+        }
+        UserStore store = UserStore.builder()
+                .withDirectory(directory)
+                .withRegistry(users)
+                .withSyncCommit(Boolean.parseBoolean(getConfig("http.dataSync", "HTTP_DATA_SYNC", "true")))
+                .withSnapshotEvery(Long.parseLong(getConfig("http.snapshotEvery", "HTTP_SNAPSHOT_EVERY", "100000")))
+                .build();
+        userStore = store;
+        System.out.println("Usuarios recuperados de " + directory + ": " + users.size()
+                + " (" + store.getRecoveredRecords() + " registros del log en "
+                + TimeUnit.NANOSECONDS.toMillis(store.getRecoveryNanos()) + " ms)");
+    }
+
+    /**
+     * Escribe lo pendiente del registro de usuarios y cierra su almacén, si
+     * hay uno abierto.
+     */
+    public static synchronized void closeUserStore() {
+        UserStore store = userStore;
+        if (store == null) {
+            return;
+        }
+        userStore = null;
+        try {
+            store.close();
+        } catch (IOException e) {
+            System.err.println("Error cerrando el almacén de usuarios: " + e.getMessage());
+        }
+    }
+
     /**
      * Ejecuta el bucle principal del servidor multihilo.
      */
     public static void runServer() {
         while (serverRunning) {
             try {
-                ThreadPoolExecutor executor = (ThreadPoolExecutor) threadPool;
-                System.out.println("Esperando conexiones... (Hilos activos: "
-                        + executor.getActiveCount() + "/" + MAX_THREADS
-                        + ", Cola: " + executor.getQueue().size() + ")");
+                AsyncLog current = log;
+                if (current.isDebugEnabled()) {
+                    current.debug(null, "Esperando conexiones... (Hilos activos: "
+                            + getActiveCount() + "/" + (executorStrategy == ExecutorStrategy.VIRTUAL ? "∞" : MAX_THREADS)
+                            + ", Cola: " + getQueueSize() + ")");
+                }
 
                 Socket clientSocket = serverSocket.accept();
                 threadPool.submit(new ClientHandler(clientSocket));
@@ -249,89 +420,284 @@ public class HttpServer {
                 // timeout esperado, revisa si seguimos corriendo
             } catch (IOException e) {
                 if (serverRunning) {
-                    System.err.println("Error al aceptar cliente: " + e.getMessage());
+                    log.error(null, "Error al aceptar cliente: " + e.getMessage());
                 }
             }
         }
         shutdownServer(); // cuando sales del bucle, cierras todo
     }
 
+    /**
+     * Procesa una petición HTTP ya leída y genera la respuesta.
+     *
+     * Es el punto de entrada común de ambos motores de red (bloqueante y NIO),
+     * de modo que los dos responden exactamente igual a la misma petición. El
+     * motor decide después el header Connection y serializa la respuesta.
+     *
+     * @param req Petición con método, ruta, headers y cuerpo
+     * @return Respuesta HTTP lista para serializar
+     */
+    public static Response handleRequest(Request req) {
+        long start = System.nanoTime();
+        metrics.requestStarted();
+        Response response = null;
+        try {
+            response = respond(req);
+            return response;
+        } finally {
+            long nanos = System.nanoTime() - start;
+            int status = response != null ? response.getStatus() : 500;
+            metrics.requestCompleted(req, status, nanos);
+            log.access(req, status, response != null ? bodyLength(response) : -1, nanos);
+        }
+    }
+
+    /**
+     * Bytes del cuerpo que se enviarán, -1 si se genera en streaming.
+     */
+    private static long bodyLength(Response response) {
+        if (response.isBodyOmitted()) {
+            return 0;
+        }
+        if (response.isStreaming()) {
+            return -1;
+        }
+        FileRegion file = response.getFileRegion();
+        if (file != null) {
+            return file.length();
+        }
+        byte[] body = response.getBodyBytes();
+        return body != null ? body.length : 0;
+    }
+
+    private static Response respond(Request req) {
+        String method = req.getMethod();
+        Router.Match match = router.match(req.getPath());
+        if (match != null) {
+            return dispatch(match, method, req);
+        }
+        return switch (method) {
+            case "GET" ->
+                serveStatic(req);
+            case "POST" ->
+                createPostNotFoundResponse();
+            case "HEAD" -> {
+                // HEAD es como GET pero sin body
+                Response response = serveStatic(req);
+                response.setOmitBody(true);
+                yield response;
+            }
+            case "OPTIONS" ->
+                createOptionsResponse();
+            default ->
+                createMethodNotAllowedResponse(method);
+        };
+    }
+
+    /**
+     * Ejecuta el handler de una ruta registrada según el método. HEAD usa el
+     * handler de GET sin cuerpo y OPTIONS se responde con los métodos de la
+     * ruta; cualquier otro método sin handler recibe 405 con su Allow.
+     */
+    private static Response dispatch(Router.Match match, String method, Request req) {
+        Router.Route route = match.route();
+        BiFunction<Request, Response, Response> handler = route.handler(method);
+        if (handler == null) {
+            return "OPTIONS".equals(method)
+                    ? createOptionsResponse(route.allow())
+                    : createMethodNotAllowedResponse(method, route.allow());
+        }
+        req.setRouteMatch(match);
+        Response response = handler.apply(req, new Response.Builder().build());
+        if ("HEAD".equals(method)) {
+            response.setOmitBody(true);
+        }
+        return response;
+    }
+
     /**
      * Maneja las peticiones HTTP GET usando estructuras thread-safe.
      */
     public static byte[] handleGetRequest(URI uriReq) {
-        String path = uriReq.getPath();
+        return handleRequest(new Request.Builder().withUri(uriReq).withMethod("GET").build()).toBytes();
+    }
 
-        // Verificar si es un servicio registrado
-        BiFunction<Request, Response, Response> service = getServices.get(path);
+    /**
+     * Variante en streaming de {@link #handleGetRequest(URI)}: escribe la
+     * respuesta en el stream a medida que el handler genera el cuerpo, sin
+     * acumularla en un byte[].
+     */
+    public static void handleGetRequest(URI uriReq, OutputStream out) throws IOException {
+        writeResponse(new Request.Builder().withUri(uriReq).withMethod("GET").build(), out);
+    }
 
-        if (service != null) {
-            Response res = new Response.Builder().build();
-            Request req = new Request.Builder().withUri(uriReq).build();
-            Response response = service.apply(req, res);
-            return response.toBytes();
+    /**
+     * Atiende una petición y escribe la respuesta completa (cabecera y
+     * cuerpo, en memoria, en streaming o desde un archivo) en el stream.
+     *
+     * @param req Petición a atender
+     * @param out Stream de salida; no se cierra
+     */
+    public static void writeResponse(Request req, OutputStream out) throws IOException {
+        Response response = handleRequest(req);
+        out.write(response.getHeaderBytes());
+        FileRegion file = response.getFileRegion();
+        if (response.isStreaming()) {
+            ResponseWriter.writeBody(response, out);
+        } else if (file != null) {
+            file.transferTo(Channels.newChannel(out));
+        } else if (!response.isBodyOmitted() && response.getBodyBytes() != null) {
+            out.write(response.getBodyBytes());
         }
+        out.flush();
+    }
 
-        // Manejar archivos estáticos
+    private static Response serveStatic(Request req) {
+        String path = req.getPath();
         try {
-            return handleStaticFile(path);
+            return handleStaticFile(req, path);
         } catch (IOException e) {
-            Response res = new Response.Builder()
+            return new Response.Builder()
                     .withStatus(500)
                     .withBody("500 - Server Error: " + e.getMessage())
                     .build();
-            return res.toBytes();
         }
     }
 
-    // Nuevo método para manejar archivos estáticos sin usar File
-    private static byte[] handleStaticFile(String requestPath) throws IOException {
-        String decoded = java.net.URLDecoder.decode(requestPath, StandardCharsets.UTF_8.name());
-
-        if (decoded.equals("/") || decoded.isEmpty()) {
-            decoded = "/index.html";
+    /**
+     * Sirve un archivo estático del classpath o, si se configuró una raíz con
+     * {@link #staticFilesRoot(String)}, de un directorio en disco. Las
+     * respuestas exitosas se guardan pre-serializadas en la caché; un acierto
+     * responde directamente (o con 304 si los validadores condicionales de la
+     * petición coinciden) sin decodificar la ruta ni volver a leer el recurso.
+     */
+    private static Response handleStaticFile(Request req, String requestPath) throws IOException {
+        StaticFileCache.Entry cached = staticCache.get(requestPath);
+        if (cached != null) {
+            if (!cached.isStale()) {
+                return cached.toResponse(req);
+            }
+            staticCache.invalidate(requestPath);
         }
 
-        // Normalizar la ruta del recurso
-        String resourcePath = (staticFilesDirectory + decoded).replaceFirst("^/", "");
+        String decoded = java.net.URLDecoder.decode(requestPath, StandardCharsets.UTF_8.name());
 
-        // Validación básica de seguridad
-        if (resourcePath.contains("..") || resourcePath.contains("~")) {
+        // Normalizar la ruta: cualquier ".." que salga de la raíz se rechaza
+        Path relative = normalizeStaticPath(decoded);
+        if (relative == null) {
             Response res = new Response.Builder()
                     .withStatus(403)
                     .withBody("{\"error\": \"Forbidden - Invalid path\"}")
                     .build();
-            return res.toBytes();
+            return res;
         }
 
-        // Obtener el recurso como InputStream
-        InputStream resourceStream = HttpServer.class.getClassLoader().getResourceAsStream(resourcePath);
+        Path root = staticFilesRoot;
+        if (root != null) {
+            return serveFromDirectory(req, requestPath, root, relative);
+        }
 
-        if (resourceStream == null) {
-            Response res = new Response.Builder()
-                    .withStatus(404)
-                    .withBody("{\"error\": \"File not found\"}")
-                    .build();
-            return res.toBytes();
+        String resourceName = toResourceName(relative);
+        String resourcePath = (staticFilesDirectory + "/" + resourceName).substring(1);
+
+        // Obtener el recurso y su fecha de modificación
+        URL resourceUrl = HttpServer.class.getClassLoader().getResource(resourcePath);
+
+        if (resourceUrl == null) {
+            return createNotFoundResponse();
         }
+        staticCache.recordMiss();
 
-        try {
+        URLConnection connection = resourceUrl.openConnection();
+        long lastModified = connection.getLastModified();
+        try (InputStream resourceStream = connection.getInputStream()) {
             // Leer el contenido completo del archivo
             byte[] fileBytes = readAllBytes(resourceStream);
 
             // Determinar el Content-Type basado en la extensión
             String contentType = determineContentType(resourcePath);
 
-            Response res = new Response.Builder()
-                    .withContentType(contentType)
-                    .withBodyBytes(fileBytes)
+            StaticFileCache.Entry entry = staticCache.put(requestPath, contentType, fileBytes,
+                    lastModified > 0 ? lastModified : STARTUP_TIME);
+            return entry.toResponse(req);
+        }
+    }
+
+    /**
+     * Sirve un archivo de la raíz en disco. Los archivos pequeños pasan por la
+     * caché; los que no caben en ella se envían con FileChannel.transferTo sin
+     * cargarse en el heap.
+     */
+    private static Response serveFromDirectory(Request req, String requestPath, Path root, Path relative)
+            throws IOException {
+        Path file = root.resolve(relative).normalize();
+        if (Files.isDirectory(file)) {
+            file = file.resolve("index.html");
+        }
+        if (!file.startsWith(root) || !Files.isRegularFile(file)) {
+            return createNotFoundResponse();
+        }
+
+        // Un enlace simbólico no puede apuntar fuera de la raíz
+        Path real = file.toRealPath();
+        if (!real.startsWith(staticFilesRealRoot)) {
+            return new Response.Builder()
+                    .withStatus(403)
+                    .withBody("{\"error\": \"Forbidden - Invalid path\"}")
                     .build();
+        }
 
-            return res.toBytes();
+        staticCache.recordMiss();
+        BasicFileAttributes attributes = Files.readAttributes(real, BasicFileAttributes.class);
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String contentType = determineContentType(real.getFileName().toString());
 
-        } finally {
-            resourceStream.close();
+        if (staticCache.canStore(attributes.size())) {
+            byte[] fileBytes = Files.readAllBytes(real);
+            return staticCache.put(requestPath, contentType, fileBytes, lastModified, real).toResponse(req);
+        }
+        return StaticFileCache.fileResponse(req, real, contentType, attributes.size(), lastModified);
+    }
+
+    /**
+     * Convierte la ruta pedida en una ruta relativa normalizada. Devuelve null
+     * si, tras resolver "." y "..", la ruta sale de la raíz o no es válida.
+     */
+    static Path normalizeStaticPath(String decodedPath) {
+        int start = 0;
+        while (start < decodedPath.length() && decodedPath.charAt(start) == '/') {
+            start++;
+        }
+        try {
+            Path relative = Paths.get(decodedPath.substring(start)).normalize();
+            if (relative.isAbsolute() || relative.startsWith("..")) {
+                return null;
+            }
+            return relative.toString().isEmpty() ? Paths.get("index.html") : relative;
+        } catch (InvalidPathException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Nombre de recurso del classpath (siempre con '/') para una ruta relativa.
+     */
+    private static String toResourceName(Path relative) {
+        StringBuilder name = new StringBuilder();
+        for (Path element : relative) {
+            if (name.length() > 0) {
+                name.append('/');
+            }
+            name.append(element);
         }
+        return name.toString();
+    }
+
+    private static Response createNotFoundResponse() {
+        return new Response.Builder()
+                .withStatus(404)
+                .withBody("{\"error\": \"File not found\"}")
+                .build();
     }
 
     private static byte[] readAllBytes(InputStream inputStream) throws IOException {
@@ -387,57 +753,32 @@ public class HttpServer {
      */
     public static byte[] handlePostRequest(URI uriReq, BufferedReader in) {
         try {
-            Map<String, String> headers = new HashMap<>();
-            String line;
-            int contentLength = 0;
-
-            // Leer headers
-            while ((line = in.readLine()) != null && !line.isEmpty()) {
-                if (line.contains(":")) {
-                    String[] parts = line.split(":", 2);
-                    String headerName = parts[0].trim().toLowerCase();
-                    String headerValue = parts[1].trim();
-                    headers.put(headerName, headerValue);
-
-                    if (headerName.equals("content-length")) {
-                        contentLength = Integer.parseInt(headerValue);
-                    }
-                }
+            Headers headers = readHeaders(in);
+            String lengthHeader = headers.get(Headers.CONTENT_LENGTH);
+            if (lengthHeader != null && Long.parseLong(lengthHeader) > MAX_BODY_SIZE) {
+                return createPayloadTooLargeResponse().toBytes();
             }
-
-            String body = "";
-            if (contentLength > 0) {
-                char[] bodyChars = new char[contentLength];
-                in.read(bodyChars, 0, contentLength);
-                body = new String(bodyChars);
+            if (headers.contains(Headers.TRANSFER_ENCODING)) {
+                // Sobre un lector de caracteres no se puede decodificar chunked
+                // con exactitud de bytes; los motores de red sí lo soportan
+                return new Response.Builder()
+                        .withStatus(411)
+                        .withBody("{\"error\": \"Length Required\"}")
+                        .build().toBytes();
             }
-
+            String body = readBody(in, headers);
             Request req = new Request.Builder()
                     .withUri(uriReq)
+                    .withMethod("POST")
                     .withBody(body)
                     .withHeaders(headers)
                     .build();
-
-            String path = uriReq.getPath();
-
-            // Acceso directo - ConcurrentHashMap es thread-safe
-            BiFunction<Request, Response, Response> service = postServices.get(path);
-
-            if (service != null) {
-                Response res = new Response.Builder().build();
-                Response response = service.apply(req, res);
-                return response.toBytes();
-            }
-
-            return new Response.Builder()
-                    .withStatus(404)
-                    .withBody("{\"error\": \"Endpoint POST not found\"}")
-                    .build().toBytes();
+            return handleRequest(req).toBytes();
 
         } catch (IOException e) {
             return new Response.Builder()
                     .withStatus(500)
-                    .withBody("{\"error\": \"Server Error: " + e.getMessage() + "\"}")
+                    .withJson(Map.of("error", "Server Error: " + e.getMessage()))
                     .build().toBytes();
         } catch (NumberFormatException e) {
             return new Response.Builder()
@@ -447,21 +788,281 @@ public class HttpServer {
         }
     }
 
+    /**
+     * Maneja una petición POST cuyos headers y cuerpo ya fueron leídos.
+     */
+    public static byte[] handlePostRequest(URI uriReq, Map<String, String> headers, String body) {
+        Request req = new Request.Builder()
+                .withUri(uriReq)
+                .withMethod("POST")
+                .withBody(body)
+                .withHeaders(headers)
+                .build();
+        return handleRequest(req).toBytes();
+    }
+
+    /**
+     * Variante en streaming de
+     * {@link #handlePostRequest(URI, Map, String)}.
+     */
+    public static void handlePostRequest(URI uriReq, Map<String, String> headers, String body, OutputStream out)
+            throws IOException {
+        writeResponse(new Request.Builder()
+                .withUri(uriReq)
+                .withMethod("POST")
+                .withBody(body)
+                .withHeaders(headers)
+                .build(), out);
+    }
+
+    /**
+     * Lee los headers de la petición hasta la línea en blanco.
+     *
+     * @param in Lector posicionado después de la línea de petición
+     * @return Headers con los nombres tal como se recibieron
+     */
+    static Headers readHeaders(BufferedReader in) throws IOException {
+        Headers.Builder headers = new Headers.Builder();
+        String line;
+        while ((line = in.readLine()) != null && !line.isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon >= 0) {
+                headers.add(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+            }
+        }
+        return headers.build();
+    }
+
+    /**
+     * Lee el cuerpo de la petición según el header Content-Length.
+     *
+     * @throws NumberFormatException Si Content-Length no es un número válido
+     */
+    static String readBody(BufferedReader in, Headers headers) throws IOException {
+        String lengthHeader = headers.get(Headers.CONTENT_LENGTH);
+        long contentLength = lengthHeader != null ? Long.parseLong(lengthHeader) : 0;
+        if (contentLength < 0) {
+            throw new NumberFormatException("Content-Length negativo");
+        }
+
+        // Content-Length cuenta bytes y el lector entrega caracteres: se lee
+        // hasta que los caracteres, codificados en UTF-8, suman esa cantidad.
+        // Cada carácter ocupa al menos un byte, así que pedir tantos
+        // caracteres como bytes faltan nunca lee más allá del cuerpo.
+        StringBuilder body = new StringBuilder((int) Math.min(contentLength, 8192));
+        char[] chars = new char[(int) Math.min(Math.max(contentLength, 1), 8192)];
+        long remaining = contentLength;
+        while (remaining > 0) {
+            int read = in.read(chars, 0, (int) Math.min(chars.length, remaining));
+            if (read < 0) {
+                throw new EOFException("Cuerpo incompleto: faltan " + remaining + " bytes");
+            }
+            for (int i = 0; i < read; i++) {
+                char c = chars[i];
+                remaining -= c < 0x80 ? 1 : c < 0x800 ? 2 : Character.isHighSurrogate(c) ? 4
+                        : Character.isLowSurrogate(c) ? 0 : 3;
+            }
+            body.append(chars, 0, read);
+        }
+        return body.toString();
+    }
+
+    // ==================== CONEXIONES PERSISTENTES ====================
+    /**
+     * Decide si la conexión sigue abierta después de esta respuesta y lo
+     * indica en el header Connection.
+     *
+     * HTTP/1.1 es persistente por defecto salvo "Connection: close"; HTTP/1.0
+     * solo lo es con "Connection: keep-alive". Una respuesta que ya trae
+     * "Connection: close" (errores de parseo) siempre cierra la conexión.
+     * Un cuerpo chunked pedido por un cliente HTTP/1.0 se envía sin framing y
+     * también cierra la conexión.
+     *
+     * @param response Respuesta a la que se agrega el header
+     * @param req Petición atendida (versión HTTP y header Connection)
+     * @param requestNumber Número de la petición dentro de la conexión (desde 1)
+     * @return true si la conexión debe mantenerse abierta
+     */
+    static boolean applyConnectionHeader(Response response, Request req, int requestNumber) {
+        String requested = req.getHeader(Headers.CONNECTION);
+        boolean keepAlive;
+        if ("HTTP/1.1".equals(req.getHttpVersion())) {
+            keepAlive = requested == null || !requested.equalsIgnoreCase("close");
+        } else {
+            keepAlive = requested != null && requested.equalsIgnoreCase("keep-alive");
+        }
+
+        if ("close".equalsIgnoreCase(response.getHeader("Connection"))
+                || requestNumber >= MAX_KEEP_ALIVE_REQUESTS) {
+            keepAlive = false;
+        }
+
+        // HTTP/1.0 no entiende chunked: el cuerpo en streaming se envía sin
+        // delimitar y termina al cerrar la conexión
+        if (response.isChunked() && !"HTTP/1.1".equals(req.getHttpVersion())) {
+            response.disableChunked();
+            keepAlive = false;
+        }
+
+        response.setHeader("Connection", keepAlive ? "keep-alive" : "close");
+        return keepAlive;
+    }
+
+    // ==================== RESPUESTAS HTTP COMUNES ====================
+    static Response createBadRequestResponse() {
+        Response response = new Response.Builder()
+                .withStatus(400)
+                .withBody("{\"error\": \"Bad Request\", \"message\": \"Invalid HTTP request format\"}")
+                .build();
+        // Tras un error de parseo no se puede confiar en el resto del stream
+        response.setHeader("Connection", "close");
+        return response;
+    }
+
+    static Response createMethodNotAllowedResponse(String method) {
+        return createMethodNotAllowedResponse(method, "GET, POST, HEAD, OPTIONS");
+    }
+
+    static Response createMethodNotAllowedResponse(String method, String allow) {
+        return new Response.Builder()
+                .withStatus(405)
+                .addHeader("Allow", allow)
+                .withBodyBytes(new JsonWriter().beginObject()
+                        .name("error").value("Method Not Allowed")
+                        .name("method").value(method)
+                        .endObject().toByteArray())
+                .build();
+    }
+
+    static Response createPostNotFoundResponse() {
+        return new Response.Builder()
+                .withStatus(404)
+                .withBody("{\"error\": \"Endpoint POST not found\"}")
+                .build();
+    }
+
+    static Response createHeadersTooLargeResponse() {
+        Response response = new Response.Builder()
+                .withStatus(431)
+                .withBody("{\"error\": \"Request Header Fields Too Large\"}")
+                .build();
+        response.setHeader("Connection", "close");
+        return response;
+    }
+
+    static Response createPayloadTooLargeResponse() {
+        Response response = new Response.Builder()
+                .withStatus(413)
+                .withBody("{\"error\": \"Content Too Large\", \"maxBodySize\": " + MAX_BODY_SIZE + "}")
+                .build();
+        // El resto del cuerpo no se lee: la conexión no puede reutilizarse
+        response.setHeader("Connection", "close");
+        return response;
+    }
+
+    /**
+     * Respuesta para una petición cuyo cuerpo superó el máximo mientras el
+     * handler lo leía. Se mantiene la del handler si ya es un 413 (con el
+     * detalle de lo que alcanzó a procesar); si no, se usa el 413 genérico.
+     * En ambos casos la conexión se cierra.
+     *
+     * @param handled Respuesta del handler, o null si lanzó una excepción
+     */
+    static Response payloadTooLarge(Response handled) {
+        if (handled == null || handled.getStatus() != 413) {
+            return createPayloadTooLargeResponse();
+        }
+        handled.setHeader("Connection", "close");
+        return handled;
+    }
+
+    /**
+     * Valida los headers que describen el cuerpo antes de leerlo.
+     *
+     * @return 413 si Content-Length supera el máximo, 417 si Expect pide algo
+     * distinto de 100-continue, o null si el cuerpo puede leerse
+     */
+    static Response checkRequestBody(RequestParser parser) {
+        if (parser.contentLength() > MAX_BODY_SIZE) {
+            return createPayloadTooLargeResponse();
+        }
+        String expect = parser.header(Headers.EXPECT);
+        if (expect != null && !expect.equalsIgnoreCase("100-continue")) {
+            Response response = new Response.Builder()
+                    .withStatus(417)
+                    .withBody("{\"error\": \"Expectation Failed\"}")
+                    .build();
+            response.setHeader("Connection", "close");
+            return response;
+        }
+        return null;
+    }
+
+    /**
+     * Indica si el cliente espera "100 Continue" antes de enviar el cuerpo.
+     */
+    static boolean expectsContinue(RequestParser parser) {
+        return "HTTP/1.1".equals(parser.version())
+                && (parser.isChunked() || parser.contentLength() > 0)
+                && "100-continue".equalsIgnoreCase(parser.header(Headers.EXPECT));
+    }
+
+    static Response createInternalServerErrorResponse() {
+        Response response = new Response.Builder()
+                .withStatus(500)
+                .withBody("{\"error\": \"Internal Server Error\"}")
+                .build();
+        response.setHeader("Connection", "close");
+        return response;
+    }
+
+    static Response createOptionsResponse() {
+        return createOptionsResponse("GET, POST, HEAD, OPTIONS");
+    }
+
+    static Response createOptionsResponse(String allow) {
+        return new Response.Builder()
+                .addHeader("Allow", allow)
+                .addHeader("Access-Control-Allow-Origin", "*")
+                .addHeader("Access-Control-Allow-Methods", allow)
+                .addHeader("Access-Control-Allow-Headers", "Content-Type")
+                .build();
+    }
+
     // ==================== MÉTODOS PÚBLICOS ====================
     /**
-     * Registra un handler para peticiones GET.
+     * Registra un handler para peticiones GET (y HEAD). La ruta admite
+     * variables ({@code /users/{id}}) y un comodín final ({@code /files/*}).
      */
     public static void get(String path, BiFunction<Request, Response, Response> handler) {
-        getServices.put(path, handler);
-        System.out.println("Endpoint GET registrado: " + path);
+        route("GET", path, handler);
     }
 
     /**
      * Registra un handler para peticiones POST.
      */
     public static void post(String path, BiFunction<Request, Response, Response> handler) {
-        postServices.put(path, handler);
-        System.out.println("Endpoint POST registrado: " + path);
+        route("POST", path, handler);
+    }
+
+    /**
+     * Registra un handler para cualquier método soportado por el router (GET,
+     * POST, PUT, DELETE o PATCH). Los valores de las variables de la ruta se
+     * leen con {@link Request#getPathParam(String)}.
+     *
+     * @throws IllegalArgumentException Si el patrón es inválido o choca con
+     * una ruta ya registrada
+     */
+    public static void route(String method, String path, BiFunction<Request, Response, Response> handler) {
+        router.add(method, path, handler);
+        System.out.println("Endpoint " + method + " registrado: " + path);
+    }
+
+    /**
+     * Router con las rutas registradas.
+     */
+    public static Router getRouter() {
+        return router;
     }
 
     /**
@@ -470,6 +1071,7 @@ public class HttpServer {
     public static void staticfiles(String dir) {
         if (dir == null || dir.isBlank()) {
             staticFilesDirectory = "";
+            staticCache.clear();
             return;
         }
         String d = dir.startsWith("/") ? dir : "/" + dir;
@@ -477,16 +1079,150 @@ public class HttpServer {
             d = d.substring(0, d.length() - 1);
         }
         staticFilesDirectory = d;
+        staticCache.clear();
         System.out.println("Directorio de archivos estáticos configurado: " + staticFilesDirectory);
     }
 
     /**
-     * Obtiene el mapa de usuarios registrados.
+     * Sirve los archivos estáticos desde un directorio en disco en lugar del
+     * classpath. Los archivos grandes se envían con FileChannel.transferTo
+     * (sendfile en Linux). Con null o vacío se vuelve a usar el classpath.
+     *
+     * @param directory Directorio raíz de los archivos estáticos
+     * @throws IllegalArgumentException Si el directorio no existe
+     */
+    public static void staticFilesRoot(String directory) {
+        staticCache.clear();
+        if (directory == null || directory.isBlank()) {
+            staticFilesRoot = null;
+            staticFilesRealRoot = null;
+            return;
+        }
+        Path root = Paths.get(directory).toAbsolutePath().normalize();
+        if (!Files.isDirectory(root)) {
+            throw new IllegalArgumentException("El directorio de archivos estáticos no existe: " + root);
+        }
+        try {
+            staticFilesRealRoot = root.toRealPath();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        staticFilesRoot = root;
+        System.out.println("Archivos estáticos servidos desde el directorio: " + root);
+    }
+
+    /**
+     * Obtiene el mapa de usuarios registrados (ID → nombre). Es una vista del
+     * registro: containsValue consulta el índice por nombre.
+     */
+    public static Map<String, String> getUsers() {
+        return users.asMap();
+    }
+
+    /**
+     * Obtiene el registro de usuarios, con búsquedas por ID y por nombre.
      */
-    public static ConcurrentHashMap<String, String> getUsers() {
+    public static UserRegistry getUserRegistry() {
         return users;
     }
 
+    /**
+     * Obtiene el almacén persistente de usuarios.
+     *
+     * @return El almacén o null si el registro está solo en memoria
+     */
+    public static UserStore getUserStore() {
+        return userStore;
+    }
+
+    /**
+     * Obtiene el log asíncrono del servidor.
+     */
+    public static AsyncLog getLog() {
+        return log;
+    }
+
+    /**
+     * Activa el access log: cada petición se agrega como una línea al
+     * archivo, que rota por tamaño (http.accessLogMaxBytes y
+     * http.accessLogFiles).
+     *
+     * @param file Archivo del access log
+     * @throws IOException Si el archivo no se puede abrir
+     */
+    public static synchronized void openAccessLog(Path file) throws IOException {
+        AsyncLog previous = log;
+        log = createLog(file);
+        previous.close();
+        System.out.println("Access log en " + file.toAbsolutePath());
+    }
+
+    private static AsyncLog createConsoleLog() {
+        try {
+            return createLog(null);
+        } catch (IOException e) {
+            // Sin access log no se abre ningún archivo
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static AsyncLog createLog(Path accessLog) throws IOException {
+        AsyncLog.Builder builder = new AsyncLog.Builder()
+                .withLevel(AsyncLog.Level.fromString(getConfig("http.logLevel", "HTTP_LOG_LEVEL",
+                        Boolean.getBoolean("http.debug") ? "debug" : "info")))
+                .withCapacity(Integer.parseInt(getConfig("http.logBuffer", "HTTP_LOG_BUFFER",
+                        String.valueOf(AsyncLog.DEFAULT_CAPACITY))));
+        if (accessLog != null) {
+            builder.withAccessLog(accessLog,
+                    Long.parseLong(getConfig("http.accessLogMaxBytes", "HTTP_ACCESS_LOG_MAX_BYTES",
+                            String.valueOf(AsyncLog.DEFAULT_ACCESS_LOG_BYTES))),
+                    Integer.parseInt(getConfig("http.accessLogFiles", "HTTP_ACCESS_LOG_FILES",
+                            String.valueOf(AsyncLog.DEFAULT_ACCESS_LOG_FILES))));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Obtiene las métricas de peticiones del servidor.
+     */
+    public static HttpMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Genera todas las métricas en el formato de texto de Prometheus:
+     * peticiones, latencias y bytes ({@link HttpMetrics}), el pool de hilos,
+     * la caché de archivos estáticos y el registro de usuarios.
+     */
+    public static String renderMetrics() {
+        StringBuilder out = new StringBuilder(16 * 1024);
+        metrics.writePrometheus(out);
+        HttpMetrics.gauge(out, "http_executor_active_threads", "Tareas en ejecución en el pool.", getActiveCount());
+        HttpMetrics.gauge(out, "http_executor_queue_depth", "Tareas esperando en la cola del pool.", getQueueSize());
+        long completed = threadPool instanceof ThreadPoolExecutor executor ? executor.getCompletedTaskCount()
+                : executorStrategy == ExecutorStrategy.VIRTUAL ? ExecutorStrategy.getVirtualCompletedCount() : 0;
+        HttpMetrics.counter(out, "http_executor_completed_tasks_total", "Tareas completadas por el pool.", completed);
+        HttpMetrics.counter(out, "http_static_cache_hits_total", "Aciertos de la caché de estáticos.",
+                staticCache.getHits());
+        HttpMetrics.counter(out, "http_static_cache_misses_total", "Fallos de la caché de estáticos.",
+                staticCache.getMisses());
+        HttpMetrics.counter(out, "http_static_cache_evictions_total", "Expulsiones de la caché de estáticos.",
+                staticCache.getEvictions());
+        HttpMetrics.gauge(out, "http_static_cache_bytes", "Bytes ocupados por la caché de estáticos.",
+                staticCache.getSizeBytes());
+        HttpMetrics.gauge(out, "users_registered", "Usuarios registrados.", users.size());
+        HttpMetrics.counter(out, "http_log_dropped_total", "Eventos de log descartados por buffer lleno.",
+                log.getDropped());
+        UserStore store = userStore;
+        if (store != null) {
+            HttpMetrics.counter(out, "user_store_records_total", "Registros agregados al log de usuarios.",
+                    store.getLoggedRecords());
+            HttpMetrics.counter(out, "user_store_commits_total", "force() hechos sobre el log de usuarios.",
+                    store.getCommitCount());
+        }
+        return out.toString();
+    }
+
     /**
      * Obtiene estadísticas del pool de hilos.
      */
@@ -499,36 +1235,101 @@ public class HttpServer {
                     executor.getQueue().size(),
                     executor.getCompletedTaskCount());
         }
+        if (threadPool != null && executorStrategy == ExecutorStrategy.VIRTUAL) {
+            // Un hilo virtual por tarea: el tamaño del "pool" es el número de
+            // tareas activas y nunca hay cola
+            int active = ExecutorStrategy.getVirtualActiveCount();
+            return String.format("Pool Stats (virtual) - Active: %d, Pool Size: %d, Queue Size: %d, Completed: %d",
+                    active,
+                    active,
+                    0,
+                    ExecutorStrategy.getVirtualCompletedCount());
+        }
         return "Thread pool stats not available";
     }
 
-    public ConcurrentHashMap<String, BiFunction<Request, Response, Response>> getGetServices() {
-        return getServices;
+    /**
+     * Obtiene estadísticas de la caché de archivos estáticos (aciertos,
+     * fallos y expulsiones).
+     */
+    public static String getStaticCacheStats() {
+        return staticCache.getStats();
     }
 
-    public ConcurrentHashMap<String, BiFunction<Request, Response, Response>> getPostServices() {
-        return postServices;
+    /**
+     * Caché de archivos estáticos, expuesta para consultar sus contadores.
+     */
+    public static StaticFileCache getStaticCache() {
+        return staticCache;
     }
 
-    // ==================== MÉTODOS PRIVADOS ====================
     /**
-     * Resuelve la ruta de un archivo estático solicitado.
+     * Número de tareas en ejecución en el pool actual.
      */
-    private static File resolveStaticFile(String requestPath) throws IOException {
-        String decoded = java.net.URLDecoder.decode(requestPath, StandardCharsets.UTF_8.name());
+    public static int getActiveCount() {
+        if (threadPool instanceof ThreadPoolExecutor executor) {
+            return executor.getActiveCount();
+        }
+        return executorStrategy == ExecutorStrategy.VIRTUAL ? ExecutorStrategy.getVirtualActiveCount() : 0;
+    }
 
-        if (decoded.equals("/") || decoded.isEmpty()) {
-            decoded = "/index.html";
+    /**
+     * Número de tareas esperando en la cola del pool (siempre 0 en modo virtual).
+     */
+    public static int getQueueSize() {
+        if (threadPool instanceof ThreadPoolExecutor executor) {
+            return executor.getQueue().size();
         }
+        return 0;
+    }
 
-        String resourcePath = (staticFilesDirectory + decoded).replaceFirst("^/", "");
-        java.net.URL resourceUrl = HttpServer.class.getClassLoader().getResource(resourcePath);
+    /**
+     * Estrategia de ejecución con la que se inició el servidor.
+     */
+    public static ExecutorStrategy getExecutorStrategy() {
+        return executorStrategy;
+    }
 
-        if (resourceUrl == null) {
-            return null;
+    private static String describeExecutor() {
+        if (executorStrategy == ExecutorStrategy.VIRTUAL) {
+            return "Ejecutor inicializado con un hilo virtual por conexión";
         }
+        return "Pool de hilos inicializado con " + MAX_THREADS + " hilos";
+    }
+
+    /**
+     * Copia de los handlers GET registrados, por patrón.
+     *
+     * @deprecated Las rutas viven en el {@link Router}: modificar el mapa
+     * devuelto no registra ni elimina rutas. Usar {@link #getRouter()}.
+     */
+    @Deprecated(forRemoval = true)
+    public ConcurrentHashMap<String, BiFunction<Request, Response, Response>> getGetServices() {
+        return new ConcurrentHashMap<>(router.handlers("GET"));
+    }
 
-        return new File(resourceUrl.getFile());
+    /**
+     * Copia de los handlers POST registrados, por patrón.
+     *
+     * @deprecated Las rutas viven en el {@link Router}: modificar el mapa
+     * devuelto no registra ni elimina rutas. Usar {@link #getRouter()}.
+     */
+    @Deprecated(forRemoval = true)
+    public ConcurrentHashMap<String, BiFunction<Request, Response, Response>> getPostServices() {
+        return new ConcurrentHashMap<>(router.handlers("POST"));
+    }
+
+    // ==================== MÉTODOS PRIVADOS ====================
+    /**
+     * Lee un parámetro de configuración: primero la system property, luego la
+     * variable de entorno y finalmente el valor por defecto.
+     */
+    static String getConfig(String property, String envVariable, String defaultValue) {
+        String value = System.getProperty(property);
+        if (value == null || value.isBlank()) {
+            value = System.getenv(envVariable);
+        }
+        return value == null || value.isBlank() ? defaultValue : value.trim();
     }
 
     /**
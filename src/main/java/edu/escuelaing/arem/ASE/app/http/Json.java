@@ -0,0 +1,346 @@
+package edu.escuelaing.arem.ASE.app.http;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Vista perezosa de un valor dentro de un documento JSON.
+ *
+ * No construye un árbol: cada valor es solo una posición dentro de los bytes
+ * del documento. Una búsqueda ({@link #get(String)}, {@link #get(int)},
+ * {@link #path(String)}) recorre el objeto o arreglo con {@link JsonReader}
+ * saltando los valores que no coinciden y se detiene en cuanto encuentra el
+ * buscado, así que el documento se parsea solo hasta donde hace falta y solo
+ * se decodifican los Strings que se piden. Un error de sintaxis en una parte
+ * que no se recorre no se detecta.
+ *
+ * Buscar un campo que no existe devuelve un valor ausente
+ * ({@link #isMissing()}) en lugar de null, para poder encadenar búsquedas:
+ *
+ * <pre>
+ * Json json = req.getJson();
+ * String city = json.path("user.address.city").asString();
+ * long qty = json.get("items").get(0).get("qty").asLong();
+ * </pre>
+ *
+ * La vista no copia los bytes: no deben modificarse mientras se use.
+ *
+ * @author jgamb
+ * @version 1.0
+ * @since 3.0
+ */
+public final class Json {
+
+    private static final Json MISSING = new Json(null, 0, 0);
+
+    private final byte[] data;
+    // Primer byte del valor y fin del documento
+    private final int start;
+    private final int end;
+
+    private Json(byte[] data, int start, int end) {
+        this.data = data;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Crea la vista de un documento sin parsearlo.
+     *
+     * @param data Documento en UTF-8
+     * @throws JsonException Si el documento está vacío
+     */
+    public static Json parse(byte[] data) {
+        return parse(data, 0, data.length);
+    }
+
+    /**
+     * Crea la vista de un documento contenido en un slice de un arreglo.
+     *
+     * @throws JsonException Si el slice solo tiene espacios
+     */
+    public static Json parse(byte[] data, int offset, int length) {
+        if (offset < 0 || length < 0 || length > data.length - offset) {
+            throw new IndexOutOfBoundsException();
+        }
+        int end = offset + length;
+        int start = offset;
+        while (start < end && isWhitespace(data[start])) {
+            start++;
+        }
+        if (start == end) {
+            throw new JsonException("documento vacío", start);
+        }
+        return new Json(data, start, end);
+    }
+
+    public static Json parse(String text) {
+        return parse(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Valor ausente, el resultado de buscar algo que no existe.
+     */
+    public static Json missing() {
+        return MISSING;
+    }
+
+    // ==================== NAVEGACIÓN ====================
+    /**
+     * Busca un campo de este objeto.
+     *
+     * @return El valor del primer campo con ese nombre, o un valor ausente si
+     * no existe o si este valor no es un objeto
+     */
+    public Json get(String key) {
+        if (!isObject()) {
+            return MISSING;
+        }
+        JsonReader reader = reader();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextNameEquals(key)) {
+                return new Json(data, reader.valueStart(), end);
+            }
+            reader.skipValue();
+        }
+        return MISSING;
+    }
+
+    /**
+     * Obtiene un elemento de este arreglo.
+     *
+     * @return El elemento, o un valor ausente si el índice no existe o si este
+     * valor no es un arreglo
+     */
+    public Json get(int index) {
+        if (!isArray() || index < 0) {
+            return MISSING;
+        }
+        JsonReader reader = reader();
+        reader.beginArray();
+        for (int i = 0; reader.hasNext(); i++) {
+            if (i == index) {
+                return new Json(data, reader.valueStart(), end);
+            }
+            reader.skipValue();
+        }
+        return MISSING;
+    }
+
+    /**
+     * Sigue una ruta de campos separados por '.'; en los arreglos un segmento
+     * numérico es un índice, ej: "items.0.name".
+     *
+     * @return El valor encontrado o un valor ausente
+     */
+    public Json path(String path) {
+        Json current = this;
+        int from = 0;
+        while (from <= path.length() && !current.isMissing()) {
+            int dot = path.indexOf('.', from);
+            if (dot < 0) {
+                dot = path.length();
+            }
+            String segment = path.substring(from, dot);
+            int index = current.isArray() ? index(segment) : -1;
+            current = index >= 0 ? current.get(index) : current.get(segment);
+            from = dot + 1;
+        }
+        return current;
+    }
+
+    /**
+     * Número de campos (objeto) o elementos (arreglo); 0 para otros valores.
+     */
+    public int size() {
+        if (!isObject() && !isArray()) {
+            return 0;
+        }
+        JsonReader reader = reader();
+        boolean object = isObject();
+        if (object) {
+            reader.beginObject();
+        } else {
+            reader.beginArray();
+        }
+        int size = 0;
+        while (reader.hasNext()) {
+            if (object) {
+                reader.skipValue();
+            }
+            reader.skipValue();
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Nombres de los campos de este objeto, en orden.
+     *
+     * @return Lista inmutable (vacía si no es un objeto)
+     */
+    public List<String> keys() {
+        if (!isObject()) {
+            return Collections.emptyList();
+        }
+        List<String> keys = new ArrayList<>();
+        JsonReader reader = reader();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            keys.add(reader.nextName());
+            reader.skipValue();
+        }
+        return Collections.unmodifiableList(keys);
+    }
+
+    /**
+     * Elementos de este arreglo, en orden.
+     *
+     * @return Lista inmutable (vacía si no es un arreglo)
+     */
+    public List<Json> elements() {
+        if (!isArray()) {
+            return Collections.emptyList();
+        }
+        List<Json> elements = new ArrayList<>();
+        JsonReader reader = reader();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            elements.add(new Json(data, reader.valueStart(), end));
+            reader.skipValue();
+        }
+        return Collections.unmodifiableList(elements);
+    }
+
+    /**
+     * Lector posicionado en este valor, para recorrerlo token a token.
+     */
+    public JsonReader reader() {
+        if (isMissing()) {
+            throw new IllegalStateException("El valor no existe");
+        }
+        return new JsonReader(data, start, end - start);
+    }
+
+    // ==================== TIPOS ====================
+    public boolean isMissing() {
+        return data == null;
+    }
+
+    public boolean isObject() {
+        return first() == '{';
+    }
+
+    public boolean isArray() {
+        return first() == '[';
+    }
+
+    public boolean isString() {
+        return first() == '"';
+    }
+
+    public boolean isNumber() {
+        int c = first();
+        return c == '-' || (c >= '0' && c <= '9');
+    }
+
+    public boolean isBoolean() {
+        int c = first();
+        return c == 't' || c == 'f';
+    }
+
+    public boolean isNull() {
+        return first() == 'n';
+    }
+
+    // ==================== VALORES ====================
+    /**
+     * Valor como texto: los strings se decodifican, los números y booleanos
+     * se devuelven como su literal y los objetos y arreglos como su JSON.
+     *
+     * @return El texto, o null si el valor es null o no existe
+     */
+    public String asString() {
+        if (isMissing() || isNull()) {
+            return null;
+        }
+        if (isString()) {
+            return reader().nextString();
+        }
+        if (isNumber() || isBoolean()) {
+            return reader().peekedLiteral();
+        }
+        return toString();
+    }
+
+    /**
+     * @throws JsonException Si el valor no es un entero
+     * @throws IllegalStateException Si el valor no existe
+     */
+    public long asLong() {
+        return reader().nextLong();
+    }
+
+    /**
+     * @throws JsonException Si el valor no es un entero de 32 bits
+     * @throws IllegalStateException Si el valor no existe
+     */
+    public int asInt() {
+        return reader().nextInt();
+    }
+
+    /**
+     * @throws JsonException Si el valor no es un número
+     * @throws IllegalStateException Si el valor no existe
+     */
+    public double asDouble() {
+        return reader().nextDouble();
+    }
+
+    /**
+     * @throws JsonException Si el valor no es un booleano
+     * @throws IllegalStateException Si el valor no existe
+     */
+    public boolean asBoolean() {
+        return reader().nextBoolean();
+    }
+
+    /**
+     * JSON sin modificar de este valor ("" si no existe).
+     */
+    @Override
+    public String toString() {
+        if (isMissing()) {
+            return "";
+        }
+        JsonReader reader = reader();
+        reader.skipValue();
+        return new String(data, start, reader.position() - start, StandardCharsets.UTF_8);
+    }
+
+    private int first() {
+        return data == null ? -1 : data[start];
+    }
+
+    private static int index(String segment) {
+        if (segment.isEmpty() || segment.length() > 9) {
+            return -1;
+        }
+        int index = 0;
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            index = index * 10 + (c - '0');
+        }
+        return index;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+}
@@ -0,0 +1,33 @@
+package edu.escuelaing.arem.ASE.app.http;
+
+/**
+ * Error de sintaxis o de tipo al leer un documento JSON.
+ *
+ * @author jgamb
+ * @version 1.0
+ * @since 3.0
+ */
+public class JsonException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int position;
+
+    /**
+     * @param message Descripción del error
+     * @param position Posición (en bytes) del documento donde se detectó
+     */
+    public JsonException(String message, int position) {
+        super("JSON inválido en la posición " + position + ": " + message);
+        this.position = position;
+    }
+
+    /**
+     * Obtiene la posición del documento donde se detectó el error.
+     *
+     * @return Offset en bytes desde el inicio del arreglo leído
+     */
+    public int getPosition() {
+        return position;
+    }
+}
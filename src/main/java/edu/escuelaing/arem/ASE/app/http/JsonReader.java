@@ -0,0 +1,568 @@
+package edu.escuelaing.arem.ASE.app.http;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Tokenizador JSON en streaming sobre bytes UTF-8.
+ *
+ * Lee el documento token a token (pull) sin construir un árbol: cada llamada
+ * avanza hasta el siguiente token y valida solo lo que recorre. Los Strings
+ * solo se crean cuando se pide un nombre o un valor; {@link #skipValue()}
+ * salta objetos y arreglos completos sin decodificar nada y
+ * {@link #nextNameEquals(String)} compara un nombre contra los bytes sin
+ * copiarlo.
+ *
+ * <pre>
+ * JsonReader reader = new JsonReader(bytes);
+ * reader.beginObject();
+ * while (reader.hasNext()) {
+ *     if (reader.nextNameEquals("name")) {
+ *         name = reader.nextString();
+ *     } else {
+ *         reader.skipValue();
+ *     }
+ * }
+ * reader.endObject();
+ * </pre>
+ *
+ * Los errores de sintaxis y de tipo se reportan con {@link JsonException}.
+ * No es thread-safe.
+ *
+ * @author jgamb
+ * @version 1.0
+ * @since 3.0
+ */
+public final class JsonReader {
+
+    /**
+     * Tipos de token.
+     */
+    public enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+    }
+
+    private static final int MAX_DEPTH = 512;
+
+    // Contexto de cada nivel de anidamiento
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_OBJECT = 2;
+    private static final int DANGLING_NAME = 3;
+    private static final int NONEMPTY_OBJECT = 4;
+    private static final int EMPTY_ARRAY = 5;
+    private static final int NONEMPTY_ARRAY = 6;
+
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+
+    private final byte[] data;
+    private final int end;
+    private int pos;
+
+    private int[] stack = new int[16];
+    private int depth;
+
+    private Token peeked;
+    // Inicio del token en el documento (incluye la comilla de los strings)
+    private int valueStart;
+    // Contenido del token: sin comillas para nombres y strings
+    private int tokenStart;
+    private int tokenEnd;
+    private boolean escaped;
+    private boolean integer;
+
+    /**
+     * @param data Documento completo en UTF-8
+     */
+    public JsonReader(byte[] data) {
+        this(data, 0, data.length);
+    }
+
+    /**
+     * @param data Arreglo con el documento en UTF-8
+     * @param offset Inicio del documento
+     * @param length Longitud en bytes
+     */
+    public JsonReader(byte[] data, int offset, int length) {
+        if (offset < 0 || length < 0 || length > data.length - offset) {
+            throw new IndexOutOfBoundsException();
+        }
+        this.data = data;
+        this.pos = offset;
+        this.end = offset + length;
+        stack[depth++] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * Tipo del siguiente token, sin consumirlo.
+     */
+    public Token peek() {
+        if (peeked != null) {
+            return peeked;
+        }
+        int scope = stack[depth - 1];
+        int c;
+        switch (scope) {
+            case EMPTY_ARRAY -> {
+                stack[depth - 1] = NONEMPTY_ARRAY;
+                c = nextNonWhitespace();
+                if (c == ']') {
+                    return token(Token.END_ARRAY, 1);
+                }
+                return readValue(c);
+            }
+            case NONEMPTY_ARRAY -> {
+                c = nextNonWhitespace();
+                if (c == ']') {
+                    return token(Token.END_ARRAY, 1);
+                }
+                if (c != ',') {
+                    throw syntaxError("se esperaba ',' o ']'");
+                }
+                pos++;
+                return readValue(nextNonWhitespace());
+            }
+            case EMPTY_OBJECT, NONEMPTY_OBJECT -> {
+                c = nextNonWhitespace();
+                if (c == '}') {
+                    return token(Token.END_OBJECT, 1);
+                }
+                if (scope == NONEMPTY_OBJECT) {
+                    if (c != ',') {
+                        throw syntaxError("se esperaba ',' o '}'");
+                    }
+                    pos++;
+                    c = nextNonWhitespace();
+                }
+                if (c != '"') {
+                    throw syntaxError("se esperaba el nombre de un campo");
+                }
+                stack[depth - 1] = DANGLING_NAME;
+                scanString();
+                peeked = Token.NAME;
+                return peeked;
+            }
+            case DANGLING_NAME -> {
+                if (nextNonWhitespace() != ':') {
+                    throw syntaxError("se esperaba ':'");
+                }
+                pos++;
+                stack[depth - 1] = NONEMPTY_OBJECT;
+                return readValue(nextNonWhitespace());
+            }
+            case EMPTY_DOCUMENT -> {
+                stack[depth - 1] = NONEMPTY_DOCUMENT;
+                return readValue(nextNonWhitespace());
+            }
+            default -> {
+                if (nextNonWhitespace() != -1) {
+                    throw syntaxError("contenido después del valor raíz");
+                }
+                peeked = Token.END_DOCUMENT;
+                return peeked;
+            }
+        }
+    }
+
+    /**
+     * Indica si el objeto o arreglo actual tiene más elementos.
+     */
+    public boolean hasNext() {
+        Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    public void beginObject() {
+        expect(Token.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    public void endObject() {
+        expect(Token.END_OBJECT);
+        depth--;
+    }
+
+    public void beginArray() {
+        expect(Token.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    public void endArray() {
+        expect(Token.END_ARRAY);
+        depth--;
+    }
+
+    /**
+     * Consume el nombre del siguiente campo.
+     */
+    public String nextName() {
+        expect(Token.NAME);
+        return decode();
+    }
+
+    /**
+     * Consume el nombre del siguiente campo y lo compara con la clave sin
+     * crear un String (salvo que el nombre tenga escapes).
+     *
+     * @return true si el nombre es igual a la clave
+     */
+    public boolean nextNameEquals(String key) {
+        expect(Token.NAME);
+        if (escaped) {
+            return decode().equals(key);
+        }
+        int length = key.length();
+        if (length > tokenEnd - tokenStart) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = key.charAt(i);
+            if (c >= 0x80) {
+                return new String(data, tokenStart, tokenEnd - tokenStart, StandardCharsets.UTF_8).equals(key);
+            }
+            if (data[tokenStart + i] != c) {
+                return false;
+            }
+        }
+        return length == tokenEnd - tokenStart;
+    }
+
+    public String nextString() {
+        expect(Token.STRING);
+        return decode();
+    }
+
+    public boolean nextBoolean() {
+        expect(Token.BOOLEAN);
+        return data[tokenStart] == 't';
+    }
+
+    public void nextNull() {
+        expect(Token.NULL);
+    }
+
+    public long nextLong() {
+        expect(Token.NUMBER);
+        if (!integer) {
+            throw new JsonException("se esperaba un entero", tokenStart);
+        }
+        int length = tokenEnd - tokenStart;
+        if (length > 18) {
+            try {
+                return Long.parseLong(literal());
+            } catch (NumberFormatException e) {
+                throw new JsonException("entero fuera de rango", tokenStart);
+            }
+        }
+        int i = tokenStart;
+        boolean negative = data[i] == '-';
+        if (negative) {
+            i++;
+        }
+        long value = 0;
+        for (; i < tokenEnd; i++) {
+            value = value * 10 + (data[i] - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    public int nextInt() {
+        int start = peek() == Token.NUMBER ? tokenStart : pos;
+        long value = nextLong();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new JsonException("entero fuera de rango", start);
+        }
+        return (int) value;
+    }
+
+    public double nextDouble() {
+        expect(Token.NUMBER);
+        return Double.parseDouble(literal());
+    }
+
+    /**
+     * Salta el siguiente valor completo (incluidos objetos y arreglos
+     * anidados) sin decodificarlo. Si el siguiente token es un nombre, salta
+     * solo el nombre.
+     */
+    public void skipValue() {
+        int count = 0;
+        do {
+            switch (peek()) {
+                case BEGIN_OBJECT -> {
+                    beginObject();
+                    count++;
+                }
+                case BEGIN_ARRAY -> {
+                    beginArray();
+                    count++;
+                }
+                case END_OBJECT -> {
+                    endObject();
+                    count--;
+                }
+                case END_ARRAY -> {
+                    endArray();
+                    count--;
+                }
+                case END_DOCUMENT -> throw syntaxError("no hay más valores");
+                default -> peeked = null;
+            }
+        } while (count > 0);
+    }
+
+    /**
+     * Posición en el documento donde empieza el siguiente valor (su primer
+     * byte, incluida la comilla de un string).
+     */
+    int valueStart() {
+        peek();
+        return valueStart;
+    }
+
+    /**
+     * Posición hasta la que se ha leído el documento.
+     */
+    int position() {
+        return pos;
+    }
+
+    /**
+     * Texto sin decodificar del token pendiente (números y literales).
+     */
+    String peekedLiteral() {
+        peek();
+        return new String(data, tokenStart, tokenEnd - tokenStart, StandardCharsets.UTF_8);
+    }
+
+    // ==================== LECTURA DE TOKENS ====================
+    private Token readValue(int c) {
+        valueStart = pos;
+        switch (c) {
+            case '{' -> {
+                return token(Token.BEGIN_OBJECT, 1);
+            }
+            case '[' -> {
+                return token(Token.BEGIN_ARRAY, 1);
+            }
+            case '"' -> {
+                scanString();
+                peeked = Token.STRING;
+                return peeked;
+            }
+            case 't' -> {
+                return literal(TRUE, Token.BOOLEAN);
+            }
+            case 'f' -> {
+                return literal(FALSE, Token.BOOLEAN);
+            }
+            case 'n' -> {
+                return literal(NULL, Token.NULL);
+            }
+            case -1 -> throw syntaxError("fin inesperado del documento");
+            default -> {
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    scanNumber();
+                    peeked = Token.NUMBER;
+                    return peeked;
+                }
+                throw syntaxError("valor inesperado '" + (char) c + "'");
+            }
+        }
+    }
+
+    private Token token(Token token, int length) {
+        tokenStart = pos;
+        pos += length;
+        tokenEnd = pos;
+        peeked = token;
+        return token;
+    }
+
+    private Token literal(byte[] expected, Token token) {
+        if (end - pos < expected.length
+                || !Arrays.equals(data, pos, pos + expected.length, expected, 0, expected.length)) {
+            throw syntaxError("literal inválido");
+        }
+        int after = pos + expected.length;
+        if (after < end && !isDelimiter(data[after])) {
+            throw syntaxError("literal inválido");
+        }
+        return token(token, expected.length);
+    }
+
+    private void scanString() {
+        int i = pos + 1;
+        boolean hasEscapes = false;
+        while (true) {
+            if (i >= end) {
+                throw syntaxError("string sin cerrar");
+            }
+            byte b = data[i];
+            if (b == '"') {
+                break;
+            }
+            if (b == '\\') {
+                hasEscapes = true;
+                i += 2;
+                continue;
+            }
+            if (b >= 0 && b < 0x20) {
+                throw new JsonException("carácter de control sin escapar", i);
+            }
+            i++;
+        }
+        tokenStart = pos + 1;
+        tokenEnd = i;
+        escaped = hasEscapes;
+        pos = i + 1;
+    }
+
+    private void scanNumber() {
+        int i = pos;
+        if (data[i] == '-') {
+            i++;
+        }
+        if (i >= end || !isDigit(data[i])) {
+            throw syntaxError("número inválido");
+        }
+        if (data[i] == '0') {
+            i++;
+        } else {
+            while (i < end && isDigit(data[i])) {
+                i++;
+            }
+        }
+        boolean isInteger = true;
+        if (i < end && data[i] == '.') {
+            isInteger = false;
+            i++;
+            if (i >= end || !isDigit(data[i])) {
+                throw new JsonException("número inválido", i);
+            }
+            while (i < end && isDigit(data[i])) {
+                i++;
+            }
+        }
+        if (i < end && (data[i] == 'e' || data[i] == 'E')) {
+            isInteger = false;
+            i++;
+            if (i < end && (data[i] == '+' || data[i] == '-')) {
+                i++;
+            }
+            if (i >= end || !isDigit(data[i])) {
+                throw new JsonException("número inválido", i);
+            }
+            while (i < end && isDigit(data[i])) {
+                i++;
+            }
+        }
+        if (i < end && !isDelimiter(data[i])) {
+            throw new JsonException("número inválido", i);
+        }
+        tokenStart = pos;
+        tokenEnd = i;
+        integer = isInteger;
+        pos = i;
+    }
+
+    private int nextNonWhitespace() {
+        while (pos < end) {
+            byte b = data[pos];
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                return b & 0xFF;
+            }
+            pos++;
+        }
+        return -1;
+    }
+
+    private void expect(Token expected) {
+        Token actual = peek();
+        if (actual != expected) {
+            throw new JsonException("se esperaba " + expected + " pero se encontró " + actual, valueStartOf(actual));
+        }
+        peeked = null;
+    }
+
+    private int valueStartOf(Token token) {
+        return token == Token.NAME ? tokenStart - 1 : token == Token.END_DOCUMENT ? pos : tokenStart;
+    }
+
+    private void push(int scope) {
+        if (depth == MAX_DEPTH) {
+            throw syntaxError("anidamiento demasiado profundo");
+        }
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+        }
+        stack[depth++] = scope;
+    }
+
+    // ==================== DECODIFICACIÓN ====================
+    private String literal() {
+        return new String(data, tokenStart, tokenEnd - tokenStart, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Decodifica el nombre o string pendiente (UTF-8 y escapes).
+     */
+    private String decode() {
+        if (!escaped) {
+            return new String(data, tokenStart, tokenEnd - tokenStart, StandardCharsets.UTF_8);
+        }
+        StringBuilder sb = new StringBuilder(tokenEnd - tokenStart);
+        int segment = tokenStart;
+        int i = tokenStart;
+        while (i < tokenEnd) {
+            if (data[i] != '\\') {
+                i++;
+                continue;
+            }
+            sb.append(new String(data, segment, i - segment, StandardCharsets.UTF_8));
+            byte e = data[i + 1];
+            switch (e) {
+                case '"', '\\', '/' -> sb.append((char) e);
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                case 't' -> sb.append('\t');
+                case 'u' -> {
+                    if (i + 6 > tokenEnd) {
+                        throw new JsonException("escape \\u incompleto", i);
+                    }
+                    int code = 0;
+                    for (int k = i + 2; k < i + 6; k++) {
+                        int digit = Character.digit(data[k], 16);
+                        if (digit < 0) {
+                            throw new JsonException("escape \\u inválido", i);
+                        }
+                        code = code * 16 + digit;
+                    }
+                    sb.append((char) code);
+                    i += 4;
+                }
+                default -> throw new JsonException("escape inválido", i);
+            }
+            i += 2;
+            segment = i;
+        }
+        sb.append(new String(data, segment, tokenEnd - segment, StandardCharsets.UTF_8));
+        return sb.toString();
+    }
+
+    private JsonException syntaxError(String message) {
+        return new JsonException(message, pos);
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isDelimiter(byte b) {
+        return b == ',' || b == ']' || b == '}' || b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+}
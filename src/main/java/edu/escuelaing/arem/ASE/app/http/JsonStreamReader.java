@@ -0,0 +1,314 @@
+package edu.escuelaing.arem.ASE.app.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Lee una secuencia de documentos JSON desde un stream, uno a la vez.
+ *
+ * Acepta dos formatos, según el primer carácter que no es espacio:
+ * <ul>
+ * <li>{@code [} — un arreglo JSON; cada elemento es un documento.</li>
+ * <li>cualquier otro — JSON delimitado por líneas (NDJSON): cada línea no
+ * vacía es un documento.</li>
+ * </ul>
+ *
+ * Solo se guarda en memoria el documento actual: los bytes se leen del stream
+ * en bloques a medida que se piden documentos, así que un cuerpo de cientos
+ * de MB se procesa con un buffer del tamaño del documento más grande. El
+ * {@link Json} devuelto por {@link #next()} es una vista sobre ese buffer y
+ * deja de ser válido en la siguiente llamada; hay que extraer lo necesario
+ * (p. ej. con asString) antes de pedir el siguiente.
+ *
+ * Un documento mal formado en NDJSON se detecta al leerlo con la vista y no
+ * impide leer las líneas siguientes. En un arreglo, en cambio, un separador
+ * inválido o un arreglo sin cerrar hacen que {@link #next()} lance
+ * {@link JsonException}, porque ya no se sabe dónde empieza el siguiente.
+ *
+ * @author jgamb
+ * @version 1.0
+ * @since 3.0
+ */
+public final class JsonStreamReader implements Closeable {
+
+    private static final int INITIAL_BUFFER = 8 * 1024;
+    /**
+     * Tamaño máximo por defecto de un documento.
+     */
+    public static final int DEFAULT_MAX_RECORD = 1024 * 1024;
+
+    private final InputStream in;
+    private final int maxRecord;
+    private byte[] buffer;
+    // Inicio del documento actual, posición de lectura y fin de los datos
+    private int start;
+    private int pos;
+    private int limit;
+    // Bytes del stream descartados antes de buffer[0], para las posiciones
+    // de los errores
+    private long discarded;
+    private boolean eof;
+
+    private boolean formatKnown;
+    private boolean array;
+    private boolean arrayEnded;
+    private boolean firstElement = true;
+    private long records;
+
+    /**
+     * @param in Stream con el contenido
+     */
+    public JsonStreamReader(InputStream in) {
+        this(in, DEFAULT_MAX_RECORD);
+    }
+
+    /**
+     * @param in Stream con el contenido
+     * @param maxRecord Tamaño máximo de un documento, en bytes
+     */
+    public JsonStreamReader(InputStream in, int maxRecord) {
+        if (maxRecord < 1) {
+            throw new IllegalArgumentException("El tamaño máximo debe ser positivo");
+        }
+        this.in = in;
+        this.maxRecord = maxRecord;
+        this.buffer = new byte[Math.min(INITIAL_BUFFER, maxRecord)];
+    }
+
+    /**
+     * Lee el siguiente documento.
+     *
+     * @return Vista del documento (válida hasta la siguiente llamada) o null
+     * si no hay más
+     * @throws JsonException Si un documento supera el tamaño máximo o el
+     * arreglo está mal formado
+     * @throws IOException Si falla la lectura del stream
+     */
+    public Json next() throws IOException {
+        if (!formatKnown) {
+            detectFormat();
+        }
+        Json record = array ? nextElement() : nextLine();
+        if (record != null) {
+            records++;
+        }
+        return record;
+    }
+
+    /**
+     * Número de documentos devueltos hasta ahora (el último es ese número,
+     * contando desde 1).
+     */
+    public long getRecordCount() {
+        return records;
+    }
+
+    /**
+     * Indica si el contenido es un arreglo JSON (false: NDJSON). Solo se sabe
+     * después de la primera llamada a {@link #next()}.
+     */
+    public boolean isArray() {
+        return array;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void detectFormat() throws IOException {
+        while (true) {
+            while (pos < limit && isWhitespace(buffer[pos])) {
+                pos++;
+            }
+            start = pos;
+            if (pos < limit || !fill()) {
+                break;
+            }
+        }
+        formatKnown = true;
+        if (pos < limit && buffer[pos] == '[') {
+            array = true;
+            pos++;
+            start = pos;
+        }
+    }
+
+    // ==================== NDJSON ====================
+    private Json nextLine() throws IOException {
+        while (true) {
+            start = pos;
+            int newline = -1;
+            while (newline < 0) {
+                for (int i = pos; i < limit; i++) {
+                    if (buffer[i] == '\n') {
+                        newline = i;
+                        break;
+                    }
+                }
+                if (newline >= 0) {
+                    break;
+                }
+                pos = limit;
+                if (!fill()) {
+                    break;
+                }
+            }
+            int end = newline >= 0 ? newline : limit;
+            pos = newline >= 0 ? newline + 1 : limit;
+            int from = start;
+            while (from < end && isWhitespace(buffer[from])) {
+                from++;
+            }
+            if (from < end) {
+                return Json.parse(buffer, from, end - from);
+            }
+            if (newline < 0) {
+                return null;
+            }
+        }
+    }
+
+    // ==================== ARREGLO ====================
+    private Json nextElement() throws IOException {
+        if (arrayEnded) {
+            return null;
+        }
+        skipWhitespace();
+        if (pos == limit) {
+            throw error("arreglo sin cerrar");
+        }
+        if (!firstElement) {
+            if (buffer[pos] == ']') {
+                return endArray();
+            }
+            if (buffer[pos] != ',') {
+                throw error("se esperaba ',' o ']'");
+            }
+            pos++;
+            skipWhitespace();
+            if (pos == limit) {
+                throw error("arreglo sin cerrar");
+            }
+        } else if (buffer[pos] == ']') {
+            return endArray();
+        }
+        firstElement = false;
+
+        start = pos;
+        byte first = buffer[pos];
+        if (first == ',' || first == ']') {
+            throw error("elemento vacío");
+        }
+        int depth = 0;
+        boolean inString = false;
+        boolean escaped = false;
+        boolean scalar = first != '{' && first != '[' && first != '"';
+        while (true) {
+            if (pos == limit && !fill()) {
+                if (scalar && depth == 0) {
+                    break;
+                }
+                throw error("arreglo sin cerrar");
+            }
+            byte b = buffer[pos];
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (b == '\\') {
+                    escaped = true;
+                } else if (b == '"') {
+                    inString = false;
+                    if (depth == 0) {
+                        pos++;
+                        break;
+                    }
+                }
+            } else if (scalar) {
+                if (b == ',' || b == ']' || isWhitespace(b)) {
+                    break;
+                }
+            } else if (b == '"') {
+                inString = true;
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                if (--depth == 0) {
+                    pos++;
+                    break;
+                }
+                if (depth < 0) {
+                    throw error("'" + (char) b + "' inesperado");
+                }
+            }
+            pos++;
+        }
+        return Json.parse(buffer, start, pos - start);
+    }
+
+    private Json endArray() throws IOException {
+        pos++;
+        arrayEnded = true;
+        skipWhitespace();
+        if (pos < limit) {
+            throw error("contenido después del arreglo");
+        }
+        return null;
+    }
+
+    private void skipWhitespace() throws IOException {
+        while (true) {
+            while (pos < limit && isWhitespace(buffer[pos])) {
+                pos++;
+            }
+            if (pos < limit) {
+                return;
+            }
+            start = pos;
+            if (!fill()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Lee más datos conservando el documento actual (desde start).
+     *
+     * @return false si el stream terminó
+     */
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, limit - start);
+            discarded += start;
+            pos -= start;
+            limit -= start;
+            start = 0;
+        }
+        if (limit == buffer.length) {
+            if (buffer.length >= maxRecord) {
+                throw error("documento de más de " + maxRecord + " bytes");
+            }
+            buffer = Arrays.copyOf(buffer, (int) Math.min((long) buffer.length * 2, maxRecord));
+        }
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    private JsonException error(String message) {
+        return new JsonException(message, (int) Math.min(discarded + pos, Integer.MAX_VALUE));
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+}
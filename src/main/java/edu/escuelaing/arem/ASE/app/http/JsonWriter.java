@@ -0,0 +1,515 @@
+package edu.escuelaing.arem.ASE.app.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Escritor JSON en streaming sobre un buffer de bytes reutilizable.
+ *
+ * Codifica directamente a UTF-8 en el buffer, sin Strings intermedios: los
+ * nombres y valores se escapan carácter a carácter, los enteros se escriben
+ * dígito a dígito y las comas se insertan solas según el contexto.
+ * {@link #value(Object)} serializa records, mapas, colecciones, arreglos,
+ * enums, Optionals y valores primitivos; los accesores de cada record se
+ * resuelven una sola vez por clase.
+ *
+ * <pre>
+ * JsonWriter json = new JsonWriter();
+ * json.beginObject().name("message").value(message).endObject();
+ * byte[] body = json.toByteArray();
+ * </pre>
+ *
+ * {@link #toJson(Object)} reutiliza un escritor por hilo. Una instancia no es
+ * thread-safe.
+ *
+ * @author jgamb
+ * @version 1.0
+ * @since 3.0
+ */
+public final class JsonWriter {
+
+    private static final int INITIAL_CAPACITY = 256;
+    // Buffers mayores no se conservan en el escritor del hilo
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+    private static final int MAX_DEPTH = 512;
+    private static final int STRING_BLOCK = 1024;
+
+    private static final byte[] HEX = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] MIN_LONG = {'-', '9', '2', '2', '3', '3', '7', '2', '0', '3', '6', '8', '5', '4',
+        '7', '7', '5', '8', '0', '8'};
+
+    // Escape de cada carácter ASCII: 0 = se copia, 'u' = \\u00XX, otro = \\c
+    private static final byte[] ESCAPES = new byte[128];
+
+    private static final ThreadLocal<JsonWriter> LOCAL = ThreadLocal.withInitial(JsonWriter::new);
+
+    private static final ClassValue<Component[]> RECORDS = new ClassValue<>() {
+        @Override
+        protected Component[] computeValue(Class<?> type) {
+            return components(type);
+        }
+    };
+
+    static {
+        for (int c = 0; c < 0x20; c++) {
+            ESCAPES[c] = 'u';
+        }
+        ESCAPES['"'] = '"';
+        ESCAPES['\\'] = '\\';
+        ESCAPES['\b'] = 'b';
+        ESCAPES['\f'] = 'f';
+        ESCAPES['\n'] = 'n';
+        ESCAPES['\r'] = 'r';
+        ESCAPES['\t'] = 't';
+    }
+
+    // Contexto de cada nivel
+    private static final byte EMPTY = 0;
+    private static final byte NONEMPTY = 1;
+    private static final byte DANGLING_NAME = 2;
+
+    private byte[] buffer;
+    private int count;
+
+    private byte[] scopes = new byte[16];
+    private boolean[] objects = new boolean[16];
+    private int depth;
+    private boolean inUse;
+
+    public JsonWriter() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public JsonWriter(int initialCapacity) {
+        buffer = new byte[Math.max(initialCapacity, 16)];
+    }
+
+    /**
+     * Serializa un valor con el escritor del hilo actual.
+     *
+     * @return El JSON en UTF-8, en un arreglo del tamaño exacto
+     * @throws IllegalArgumentException Si el valor contiene números no finitos
+     * o un anidamiento demasiado profundo (por ejemplo, un ciclo)
+     */
+    public static byte[] toJson(Object value) {
+        JsonWriter writer = LOCAL.get();
+        if (writer.inUse) {
+            // Llamada anidada (por ejemplo desde un toString()): escritor propio
+            return new JsonWriter().value(value).toByteArray();
+        }
+        writer.reset();
+        writer.inUse = true;
+        try {
+            writer.value(value);
+            return writer.toByteArray();
+        } finally {
+            writer.inUse = false;
+            if (writer.buffer.length > MAX_RETAINED_CAPACITY) {
+                LOCAL.remove();
+            }
+        }
+    }
+
+    // ==================== ESTRUCTURA ====================
+    public JsonWriter beginObject() {
+        beforeValue();
+        push(true);
+        write((byte) '{');
+        return this;
+    }
+
+    public JsonWriter endObject() {
+        pop(true);
+        write((byte) '}');
+        return this;
+    }
+
+    public JsonWriter beginArray() {
+        beforeValue();
+        push(false);
+        write((byte) '[');
+        return this;
+    }
+
+    public JsonWriter endArray() {
+        pop(false);
+        write((byte) ']');
+        return this;
+    }
+
+    /**
+     * Escribe el nombre del siguiente campo del objeto actual.
+     *
+     * @throws IllegalStateException Si no se está dentro de un objeto o ya
+     * hay un nombre pendiente
+     */
+    public JsonWriter name(String name) {
+        if (depth == 0 || !objects[depth - 1] || scopes[depth - 1] == DANGLING_NAME) {
+            throw new IllegalStateException("Nombre fuera de un objeto: " + name);
+        }
+        if (scopes[depth - 1] == NONEMPTY) {
+            write((byte) ',');
+        }
+        scopes[depth - 1] = DANGLING_NAME;
+        string(name);
+        write((byte) ':');
+        return this;
+    }
+
+    // ==================== VALORES ====================
+    public JsonWriter value(String value) {
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        string(value);
+        return this;
+    }
+
+    public JsonWriter value(long value) {
+        beforeValue();
+        if (value == Long.MIN_VALUE) {
+            write(MIN_LONG);
+            return this;
+        }
+        if (value < 0) {
+            write((byte) '-');
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        ensure(digits);
+        for (int i = count + digits - 1; i >= count; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        count += digits;
+        return this;
+    }
+
+    /**
+     * @throws IllegalArgumentException Si el valor es NaN o infinito
+     */
+    public JsonWriter value(double value) {
+        if (!Double.isFinite(value)) {
+            throw new IllegalArgumentException("JSON no admite " + value);
+        }
+        if (value == (long) value && Math.abs(value) < 1e15 && (value != 0 || 1 / value > 0)) {
+            return value((long) value);
+        }
+        beforeValue();
+        ascii(Double.toString(value));
+        return this;
+    }
+
+    public JsonWriter value(boolean value) {
+        beforeValue();
+        write(value ? TRUE : FALSE);
+        return this;
+    }
+
+    public JsonWriter nullValue() {
+        beforeValue();
+        write(NULL);
+        return this;
+    }
+
+    /**
+     * Serializa cualquier valor: null, String y CharSequence, números,
+     * booleanos, Character, enums (su nombre), Optional, records (sus
+     * componentes como campos), mapas (claves con String.valueOf), Iterables y
+     * arreglos. Cualquier otro objeto se escribe como el String de toString().
+     *
+     * @throws IllegalArgumentException Si el anidamiento es demasiado profundo
+     */
+    public JsonWriter value(Object value) {
+        if (value == null) {
+            return nullValue();
+        }
+        if (value instanceof String s) {
+            return value(s);
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return value(((Number) value).longValue());
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return value(((Number) value).doubleValue());
+        }
+        if (value instanceof Number n) {
+            // BigDecimal, BigInteger, atómicos: su literal
+            beforeValue();
+            ascii(n.toString());
+            return this;
+        }
+        if (value instanceof Boolean b) {
+            return value(b.booleanValue());
+        }
+        if (value instanceof Enum<?> e) {
+            return value(e.name());
+        }
+        if (value instanceof Optional<?> o) {
+            return value(o.orElse(null));
+        }
+        if (value instanceof Record) {
+            return record(value);
+        }
+        if (value instanceof Map<?, ?> map) {
+            beginObject();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                name(String.valueOf(entry.getKey()));
+                value(entry.getValue());
+            }
+            return endObject();
+        }
+        if (value instanceof Iterable<?> iterable) {
+            beginArray();
+            for (Object element : iterable) {
+                value(element);
+            }
+            return endArray();
+        }
+        if (value.getClass().isArray()) {
+            beginArray();
+            int length = Array.getLength(value);
+            for (int i = 0; i < length; i++) {
+                value(Array.get(value, i));
+            }
+            return endArray();
+        }
+        return value(value.toString());
+    }
+
+    private JsonWriter record(Object value) {
+        Component[] components = RECORDS.get(value.getClass());
+        beginObject();
+        for (Component component : components) {
+            name(component.name);
+            value(component.accessor.apply(value));
+        }
+        return endObject();
+    }
+
+    // ==================== RESULTADO ====================
+    /**
+     * Bytes escritos hasta ahora.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Copia del JSON escrito, del tamaño exacto.
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, count);
+    }
+
+    /**
+     * Escribe el JSON en el stream sin copiarlo.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, count);
+    }
+
+    /**
+     * Descarta lo escrito y conserva el buffer.
+     */
+    public void reset() {
+        count = 0;
+        depth = 0;
+    }
+
+    // ==================== CODIFICACIÓN ====================
+    private void beforeValue() {
+        if (depth == 0) {
+            if (count > 0) {
+                throw new IllegalStateException("El documento ya tiene un valor raíz");
+            }
+            return;
+        }
+        byte scope = scopes[depth - 1];
+        if (objects[depth - 1]) {
+            if (scope != DANGLING_NAME) {
+                throw new IllegalStateException("Falta el nombre del campo");
+            }
+            scopes[depth - 1] = NONEMPTY;
+        } else {
+            if (scope == NONEMPTY) {
+                write((byte) ',');
+            }
+            scopes[depth - 1] = NONEMPTY;
+        }
+    }
+
+    private void push(boolean object) {
+        if (depth == MAX_DEPTH) {
+            throw new IllegalArgumentException("Anidamiento demasiado profundo (¿referencia circular?)");
+        }
+        if (depth == scopes.length) {
+            scopes = Arrays.copyOf(scopes, depth * 2);
+            objects = Arrays.copyOf(objects, depth * 2);
+        }
+        scopes[depth] = EMPTY;
+        objects[depth] = object;
+        depth++;
+    }
+
+    private void pop(boolean object) {
+        if (depth == 0 || objects[depth - 1] != object || scopes[depth - 1] == DANGLING_NAME) {
+            throw new IllegalStateException(object ? "endObject sin objeto abierto" : "endArray sin arreglo abierto");
+        }
+        depth--;
+    }
+
+    /**
+     * Escribe un string entre comillas, escapado y en UTF-8. El espacio se
+     * reserva por bloques (6 bytes por carácter en el peor caso) para no
+     * comprobarlo en cada byte.
+     */
+    private void string(String value) {
+        int length = value.length();
+        write((byte) '"');
+        int i = 0;
+        while (i < length) {
+            int blockEnd = Math.min(length, i + STRING_BLOCK);
+            ensure((blockEnd - i) * 6);
+            byte[] buf = buffer;
+            int n = count;
+            for (; i < blockEnd; i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    byte escape = ESCAPES[c];
+                    if (escape == 0) {
+                        buf[n++] = (byte) c;
+                    } else if (escape == 'u') {
+                        n = unicodeEscape(buf, n, c);
+                    } else {
+                        buf[n++] = '\\';
+                        buf[n++] = escape;
+                    }
+                } else if (c < 0x800) {
+                    buf[n++] = (byte) (0xC0 | (c >> 6));
+                    buf[n++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    // El par ocupa dos caracteres del bloque: 4 bytes caben en los 12 reservados
+                    int cp = Character.toCodePoint(c, value.charAt(++i));
+                    buf[n++] = (byte) (0xF0 | (cp >> 18));
+                    buf[n++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    buf[n++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    buf[n++] = (byte) (0x80 | (cp & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    // Surrogate suelto: no tiene UTF-8 válido, se escapa
+                    n = unicodeEscape(buf, n, c);
+                } else {
+                    buf[n++] = (byte) (0xE0 | (c >> 12));
+                    buf[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buf[n++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            count = n;
+        }
+        write((byte) '"');
+    }
+
+    private static int unicodeEscape(byte[] buf, int n, char c) {
+        buf[n++] = '\\';
+        buf[n++] = 'u';
+        buf[n++] = HEX[(c >> 12) & 0xF];
+        buf[n++] = HEX[(c >> 8) & 0xF];
+        buf[n++] = HEX[(c >> 4) & 0xF];
+        buf[n++] = HEX[c & 0xF];
+        return n;
+    }
+
+    private void ascii(String literal) {
+        int length = literal.length();
+        ensure(length);
+        for (int i = 0; i < length; i++) {
+            buffer[count++] = (byte) literal.charAt(i);
+        }
+    }
+
+    private void write(byte b) {
+        ensure(1);
+        buffer[count++] = b;
+    }
+
+    private void write(byte[] bytes) {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, count, bytes.length);
+        count += bytes.length;
+    }
+
+    private void ensure(int bytes) {
+        if (buffer.length - count < bytes) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, count + bytes));
+        }
+    }
+
+    // ==================== RECORDS ====================
+    /**
+     * Resuelve los accesores de un record. Cada uno se convierte con
+     * LambdaMetafactory en una Function que el JIT puede inlinear; si la clase
+     * no lo permite se usa el MethodHandle del accesor.
+     */
+    private static Component[] components(Class<?> type) {
+        RecordComponent[] recordComponents = type.getRecordComponents();
+        Component[] components = new Component[recordComponents.length];
+        for (int i = 0; i < recordComponents.length; i++) {
+            Method accessor = recordComponents[i].getAccessor();
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+                components[i] = new Component(recordComponents[i].getName(), function(lookup, type, accessor));
+            } catch (Throwable e) {
+                throw new IllegalArgumentException("No se puede serializar el record " + type.getName(), e);
+            }
+        }
+        return components;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> function(MethodHandles.Lookup lookup, Class<?> type, Method accessor)
+            throws Throwable {
+        MethodHandle target = lookup.unreflect(accessor);
+        try {
+            MethodType erased = MethodType.methodType(Object.class, Object.class);
+            CallSite site = LambdaMetafactory.metafactory(lookup, "apply", MethodType.methodType(Function.class),
+                    erased, target, MethodType.methodType(accessor.getReturnType(), type).wrap()
+                            .changeParameterType(0, type));
+            return (Function<Object, Object>) site.getTarget().invoke();
+        } catch (LambdaConversionException | IllegalAccessException e) {
+            MethodHandle generic = target.asType(MethodType.methodType(Object.class, Object.class));
+            return value -> {
+                try {
+                    return (Object) generic.invokeExact(value);
+                } catch (RuntimeException | Error ex) {
+                    throw ex;
+                } catch (Throwable ex) {
+                    throw new IllegalStateException(ex);
+                }
+            };
+        }
+    }
+
+    private record Component(String name, Function<Object, Object> accessor) {
+
+    }
+}
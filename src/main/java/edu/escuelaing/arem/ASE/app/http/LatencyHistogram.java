@@ -0,0 +1,191 @@
+package edu.escuelaing.arem.ASE.app.http;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latencias en nanosegundos con buckets log-lineales, al estilo
+ * de HdrHistogram.
+ *
+ * Cada potencia de dos se divide en {@value #SUB_BUCKETS} buckets del mismo
+ * ancho, así que el error relativo de cualquier valor es menor al 3% tanto
+ * para 200 ns como para 20 s. Los valores de 2^37 ns (~137 s) o más se cuentan
+ * en el último bucket. Registrar un valor son dos sumas atómicas sin locks.
+ *
+ * Para que varios hilos no compitan por las mismas líneas de caché los
+ * contadores están repartidos en franjas (una por procesador, hasta 8); cada
+ * hilo escribe en la franja que le corresponde por su ID y las lecturas suman
+ * todas. {@link #snapshot()} no detiene las escrituras: un registro que ocurre
+ * durante la lectura puede aparecer en el conteo pero todavía no en la suma.
+ *
+ * @author jgamb
+ * @version 1.0
+ * @since 3.0
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 36;
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_BUCKETS;
+    // Posición de la suma de los valores, después de los buckets
+    private static final int SUM = BUCKETS;
+    private static final int STRIPES = Integer.highestOneBit(
+            Math.min(8, Math.max(1, Runtime.getRuntime().availableProcessors())));
+
+    private final AtomicLongArray[] stripes = new AtomicLongArray[STRIPES];
+
+    public LatencyHistogram() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new AtomicLongArray(BUCKETS + 1);
+        }
+    }
+
+    /**
+     * Registra una latencia.
+     *
+     * @param nanos Duración en nanosegundos (los negativos cuentan como 0)
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        AtomicLongArray stripe = stripes[stripeIndex()];
+        stripe.getAndIncrement(bucketIndex(value));
+        stripe.getAndAdd(SUM, value);
+    }
+
+    /**
+     * Copia de los contadores actuales.
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long sum = 0;
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] += stripe.get(i);
+            }
+            sum += stripe.get(SUM);
+        }
+        return new Snapshot(counts, sum);
+    }
+
+    private static int stripeIndex() {
+        long id = Thread.currentThread().threadId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 58) & (STRIPES - 1);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int shift = exponent - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    /**
+     * Mayor valor que cae en el bucket (el error siempre es hacia arriba).
+     */
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lower = (long) (index % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    /**
+     * Conteos de un histograma en un momento dado. Se pueden combinar para
+     * calcular percentiles de varias series juntas.
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private long count;
+        private long sum;
+
+        private Snapshot(long[] counts, long sum) {
+            this.counts = counts;
+            this.sum = sum;
+            for (long c : counts) {
+                count += c;
+            }
+        }
+
+        /**
+         * Snapshot vacío, para acumular otros con {@link #add}.
+         */
+        public static Snapshot empty() {
+            return new Snapshot(new long[BUCKETS], 0);
+        }
+
+        /**
+         * Suma los conteos de otro snapshot a este.
+         */
+        public void add(Snapshot other) {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] += other.counts[i];
+            }
+            count += other.count;
+            sum += other.sum;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Suma de todos los valores registrados, en nanosegundos.
+         */
+        public long getSum() {
+            return sum;
+        }
+
+        /**
+         * Valor bajo el cual está la fracción indicada de los registros.
+         *
+         * @param quantile Entre 0 y 1 (0.99 para el p99)
+         * @return Latencia en nanosegundos (límite superior de su bucket) o 0
+         * si no hay registros
+         */
+        public long getValueAtQuantile(double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(Math.min(Math.max(quantile, 0), 1) * count));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return bucketUpperBound(i);
+                }
+            }
+            return bucketUpperBound(BUCKETS - 1);
+        }
+
+        /**
+         * Mayor valor registrado (límite superior de su bucket).
+         */
+        public long getMax() {
+            for (int i = BUCKETS - 1; i >= 0; i--) {
+                if (counts[i] > 0) {
+                    return bucketUpperBound(i);
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Número de registros menores o iguales al límite.
+         */
+        public long getCountAtOrBelow(long nanos) {
+            long total = 0;
+            for (int i = 0; i < BUCKETS && bucketUpperBound(i) <= nanos; i++) {
+                total += counts[i];
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,729 @@
+package edu.escuelaing.arem.ASE.app.http;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.Channel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Motor de red alternativo basado en NIO (patrón reactor).
+ *
+ * Un hilo aceptador recibe las conexiones en un ServerSocketChannel y las
+ * reparte en round-robin entre N event loops. Cada event loop tiene su propio
+ * Selector y realiza de forma no bloqueante la lectura, el parseo y la
+ * escritura de sus conexiones. Solo la ejecución de los handlers se delega al
+ * pool de workers, de modo que una conexión inactiva o lenta no ocupa ningún
+ * hilo mientras espera datos.
+ *
+ * Las conexiones son persistentes (HTTP/1.1 keep-alive) con las mismas reglas
+ * que el motor bloqueante, y las peticiones encadenadas se responden en orden.
+ *
+ * Se selecciona al iniciar con -Dhttp.engine=nio (o HTTP_ENGINE=nio) y el
+ * número de event loops con -Dhttp.eventLoops (por defecto, número de cores).
+ *
+ * @author jgamb
+ * @version 1.0
+ * @since 3.0
+ */
+public class NioServer {
+
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final long IDLE_TIMEOUT_MS = 30000;
+    // Bytes de un cuerpo en streaming que pueden esperar en memoria a que el
+    // socket los acepte; al superarlos el handler se bloquea
+    private static final int STREAM_WINDOW = 64 * 1024;
+
+    private final ServerSocketChannel serverChannel;
+    private final Selector acceptSelector;
+    private final EventLoop[] eventLoops;
+    private final ExecutorService workers;
+    private volatile boolean running = true;
+    private int nextLoop = 0;
+
+    /**
+     * Crea el servidor y abre el puerto de escucha.
+     *
+     * @param port Puerto TCP en el que escuchar
+     * @param eventLoopCount Número de event loops (mínimo 1)
+     * @param workers Pool donde se ejecutan los handlers
+     * @throws IOException Si no se puede abrir el puerto
+     */
+    public NioServer(int port, int eventLoopCount, ExecutorService workers) throws IOException {
+        this.workers = workers;
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        this.serverChannel.bind(new InetSocketAddress(port), 1024);
+        this.serverChannel.configureBlocking(false);
+        this.acceptSelector = Selector.open();
+        this.serverChannel.register(acceptSelector, SelectionKey.OP_ACCEPT);
+
+        this.eventLoops = new EventLoop[Math.max(1, eventLoopCount)];
+        for (int i = 0; i < eventLoops.length; i++) {
+            eventLoops[i] = new EventLoop(i);
+        }
+    }
+
+    /**
+     * Arranca los event loops y ejecuta el bucle de aceptación en el hilo
+     * actual hasta que se invoque {@link #stop()}.
+     */
+    public void run() {
+        for (EventLoop loop : eventLoops) {
+            loop.thread.start();
+        }
+
+        while (running) {
+            try {
+                acceptSelector.select(1000);
+                acceptSelector.selectedKeys().clear();
+
+                SocketChannel channel;
+                while ((channel = serverChannel.accept()) != null) {
+                    channel.configureBlocking(false);
+                    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    eventLoops[nextLoop].register(channel);
+                    nextLoop = (nextLoop + 1) % eventLoops.length;
+                }
+            } catch (ClosedSelectorException | ClosedChannelException e) {
+                break;
+            } catch (IOException e) {
+                if (running) {
+                    HttpServer.getLog().error(null, "Error al aceptar cliente: " + e.getMessage());
+                }
+            }
+        }
+        stop();
+    }
+
+    /**
+     * Detiene la aceptación de conexiones y cierra todos los event loops.
+     */
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            serverChannel.close();
+            acceptSelector.close();
+        } catch (IOException e) {
+            System.err.println("Error cerrando ServerSocketChannel: " + e.getMessage());
+        }
+        for (EventLoop loop : eventLoops) {
+            loop.selector.wakeup();
+        }
+    }
+
+    /**
+     * Indica si el servidor sigue aceptando conexiones.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    // ==================== EVENT LOOP ====================
+    /**
+     * Hilo con su propio Selector que atiende un subconjunto de conexiones.
+     * Las tareas de otros hilos (registro de canales, respuestas listas) se
+     * encolan y se ejecutan dentro del loop para no tocar el Selector desde
+     * fuera.
+     */
+    private final class EventLoop implements Runnable {
+
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final Thread thread;
+
+        EventLoop(int index) throws IOException {
+            this.selector = Selector.open();
+            this.thread = new Thread(this, "nio-event-loop-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        void register(SocketChannel channel) {
+            execute(() -> {
+                try {
+                    Connection connection = new Connection(this, channel);
+                    connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                } catch (ClosedChannelException e) {
+                    closeQuietly(channel);
+                }
+            });
+        }
+
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            long lastSweep = System.currentTimeMillis();
+            while (running) {
+                try {
+                    selector.select(1000);
+                    runTasks();
+
+                    Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                    while (it.hasNext()) {
+                        SelectionKey key = it.next();
+                        it.remove();
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            if (key.isValid() && key.isReadable()) {
+                                connection.onReadable();
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                connection.onWritable();
+                            }
+                        } catch (IOException | CancelledKeyException e) {
+                            connection.close();
+                        }
+                    }
+
+                    long now = System.currentTimeMillis();
+                    if (now - lastSweep >= 1000) {
+                        closeIdleConnections(now);
+                        lastSweep = now;
+                    }
+                } catch (IOException | ClosedSelectorException e) {
+                    if (running) {
+                        HttpServer.getLog().error(null, "Error en event loop: " + e.getMessage());
+                    }
+                }
+            }
+            closeAll();
+        }
+
+        private void runTasks() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+
+        /**
+         * Cierra las conexiones que llevan demasiado tiempo sin actividad,
+         * excepto las que tienen un handler en ejecución.
+         */
+        private void closeIdleConnections(long now) {
+            for (SelectionKey key : selector.keys()) {
+                Connection connection = (Connection) key.attachment();
+                // Entre peticiones de una conexión persistente aplica el
+                // timeout de keep-alive
+                long timeout = connection != null && connection.requestsHandled > 0
+                        ? HttpServer.KEEP_ALIVE_TIMEOUT_MS : IDLE_TIMEOUT_MS;
+                if (connection != null && !connection.processing
+                        && now - connection.lastActivity > timeout) {
+                    connection.close();
+                }
+            }
+        }
+
+        private void closeAll() {
+            try {
+                for (SelectionKey key : selector.keys()) {
+                    closeQuietly(key.channel());
+                }
+                selector.close();
+            } catch (IOException | ClosedSelectorException e) {
+                // Ya estamos cerrando
+            }
+        }
+    }
+
+    // ==================== CONEXIÓN ====================
+    /**
+     * Estado de una conexión: parser con el buffer de lectura acumulado,
+     * respuesta pendiente de escribir y marca de actividad para el timeout de
+     * inactividad.
+     */
+    private final class Connection {
+
+        private final EventLoop loop;
+        private final SocketChannel channel;
+        private SelectionKey key;
+        private final RequestParser parser = new RequestParser(READ_BUFFER_SIZE);
+        // Cabecera y cuerpo pendientes; la cabecera usa el buffer del writer
+        private final ResponseWriter writer = new ResponseWriter();
+        private ByteBuffer[] out;
+        // Cuerpo pendiente enviado desde un archivo con transferTo
+        private FileChannel fileOut;
+        private long filePosition;
+        private long fileRemaining;
+        // Cuerpo en streaming que el handler sigue generando en un worker
+        private StreamSink stream;
+        // Cuerpo de la petición leído en streaming: el worker pide lecturas
+        // al event loop y espera el resultado
+        private boolean readingBody;
+        private volatile int bodyRead;
+        private final Semaphore bodyReady = new Semaphore(0);
+        private boolean continueSent;
+        private long lastActivity = System.currentTimeMillis();
+        private volatile boolean processing;
+        private boolean keepAlive;
+        private int requestsHandled;
+        private final String remoteAddress;
+
+        Connection(EventLoop loop, SocketChannel channel) {
+            this.loop = loop;
+            this.channel = channel;
+            InetAddress address = channel.socket().getInetAddress();
+            this.remoteAddress = address != null ? address.getHostAddress() : null;
+        }
+
+        void onReadable() throws IOException {
+            if (readingBody) {
+                readBody();
+                return;
+            }
+            int read = parser.readFrom(channel);
+            if (read > 0) {
+                HttpServer.getMetrics().addBytesIn(read);
+            }
+            if (read < 0) {
+                close();
+                return;
+            }
+            lastActivity = System.currentTimeMillis();
+            tryParse();
+        }
+
+        void onWritable() throws IOException {
+            lastActivity = System.currentTimeMillis();
+            if (out != null) {
+                HttpServer.getMetrics().addBytesOut(channel.write(out));
+                if (out[out.length - 1].hasRemaining() || out[0].hasRemaining()) {
+                    key.interestOps(SelectionKey.OP_WRITE);
+                    return;
+                }
+                out = null;
+            }
+            if (stream != null && !drainStream()) {
+                return;
+            }
+            if (fileOut != null && !transferFile()) {
+                key.interestOps(SelectionKey.OP_WRITE);
+                return;
+            }
+            if (!keepAlive) {
+                close();
+                return;
+            }
+            // Conexión persistente: descartar la petición atendida, volver
+            // a leer y atender cualquier petición encadenada que ya esté
+            // en el buffer
+            parser.next();
+            key.interestOps(SelectionKey.OP_READ);
+            tryParse();
+        }
+
+        /**
+         * Envía lo que admita el socket del archivo pendiente con transferTo
+         * (sendfile), sin copiarlo al heap.
+         *
+         * @return true si el archivo se envió completo
+         */
+        private boolean transferFile() throws IOException {
+            long sent = fileOut.transferTo(filePosition, fileRemaining, channel);
+            HttpServer.getMetrics().addBytesOut(sent);
+            filePosition += sent;
+            fileRemaining -= sent;
+            if (fileRemaining > 0) {
+                if (sent == 0 && filePosition >= fileOut.size()) {
+                    throw new IOException("Archivo truncado durante el envío");
+                }
+                return false;
+            }
+            closeQuietly(fileOut);
+            fileOut = null;
+            return true;
+        }
+
+        /**
+         * Escribe los bloques del cuerpo en streaming que ya generó el worker.
+         *
+         * @return true si el cuerpo terminó y se escribió completo
+         */
+        private boolean drainStream() throws IOException {
+            StreamSink sink = stream;
+            // Se lee antes de vaciar la cola: si ya terminó, todos sus bloques
+            // están encolados
+            boolean done = sink.done;
+            ByteBuffer chunk;
+            while ((chunk = sink.chunks.peek()) != null) {
+                channel.write(chunk);
+                if (chunk.hasRemaining()) {
+                    key.interestOps(SelectionKey.OP_WRITE);
+                    return false;
+                }
+                sink.chunks.poll();
+                sink.credits.release(StreamSink.permits(chunk.capacity()));
+            }
+            if (!done) {
+                // Sin datos pendientes: el worker avisará al encolar más
+                key.interestOps(0);
+                return false;
+            }
+            stream = null;
+            processing = false;
+            if (sink.failed) {
+                // El handler falló con la cabecera ya enviada
+                close();
+                return false;
+            }
+            return true;
+        }
+
+        private void onStreamData(StreamSink sink) {
+            sink.wakeupScheduled.set(false);
+            if (stream != sink || out != null) {
+                return;
+            }
+            try {
+                onWritable();
+            } catch (IOException | CancelledKeyException e) {
+                close();
+            }
+        }
+
+        /**
+         * Avanza el parser con los bytes acumulados. Si la petición (headers +
+         * cuerpo) está completa la despacha; si no, espera la siguiente lectura.
+         */
+        private void tryParse() throws IOException {
+            RequestParser.Status status = parser.parse();
+            switch (status) {
+                case INCOMPLETE:
+                    return;
+                case INVALID:
+                    respondAndClose(HttpServer.createBadRequestResponse());
+                    return;
+                case TOO_LARGE:
+                    respondAndClose(HttpServer.createHeadersTooLargeResponse());
+                    return;
+                default:
+                    break;
+            }
+
+            Response rejected = HttpServer.checkRequestBody(parser);
+            if (rejected != null) {
+                respondAndClose(rejected);
+                return;
+            }
+            boolean expectContinue = HttpServer.expectsContinue(parser);
+            long contentLength = Math.max(parser.contentLength(), 0);
+            if (parser.isChunked() || contentLength > RequestBodyStream.BUFFERED_BODY_LIMIT) {
+                // El handler lee el cuerpo en streaming desde su worker
+                requestsHandled++;
+                RequestBodyStream body = new RequestBodyStream(parser, this::fillBody, HttpServer.MAX_BODY_SIZE,
+                        expectContinue ? () -> loop.execute(this::writeContinue) : null);
+                dispatch(new Request.Builder()
+                        .withHead(parser)
+                        .withRemoteAddress(remoteAddress)
+                        .withBodyStream(body)
+                        .build(), body);
+                return;
+            }
+            if (!parser.isBodyComplete()) {
+                if (expectContinue && !continueSent) {
+                    continueSent = true;
+                    writeContinue();
+                }
+                parser.ensureCapacity(parser.bodyOffset() + (int) contentLength);
+                return;
+            }
+
+            requestsHandled++;
+            Request request = new Request.Builder()
+                    .withHead(parser)
+                    .withRemoteAddress(remoteAddress)
+                    .withBodyBytes(parser.array(), parser.bodyOffset(), (int) contentLength)
+                    .build();
+            dispatch(request, null);
+        }
+
+        /**
+         * Envía "100 Continue". Se escribe cuando no hay ninguna respuesta
+         * pendiente en el socket, así que los pocos bytes caben en una
+         * escritura; si no, la conexión no está en condiciones de seguir.
+         */
+        private void writeContinue() {
+            try {
+                ByteBuffer line = ByteBuffer.wrap(ResponseWriter.CONTINUE);
+                channel.write(line);
+                if (line.hasRemaining()) {
+                    close();
+                }
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        /**
+         * Lectura pedida por el worker que consume el cuerpo en streaming
+         * (se ejecuta en el worker).
+         */
+        private int fillBody(RequestParser parser) throws IOException {
+            loop.execute(this::resumeBodyRead);
+            long deadline = System.currentTimeMillis() + IDLE_TIMEOUT_MS;
+            try {
+                while (!bodyReady.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                    if (!channel.isOpen()) {
+                        throw new IOException("El cliente cerró la conexión");
+                    }
+                    if (System.currentTimeMillis() > deadline) {
+                        loop.execute(this::close);
+                        throw new SocketTimeoutException("Tiempo de espera agotado leyendo el cuerpo");
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Lectura del cuerpo interrumpida");
+            }
+            return bodyRead;
+        }
+
+        private void resumeBodyRead() {
+            if (!key.isValid()) {
+                return;
+            }
+            readingBody = true;
+            key.interestOps(SelectionKey.OP_READ);
+        }
+
+        /**
+         * Lee al buffer del parser para el worker que espera en
+         * {@link #fillBody}; mientras tanto el worker no toca el buffer.
+         */
+        private void readBody() throws IOException {
+            int read = parser.readFrom(channel);
+            if (read > 0) {
+                HttpServer.getMetrics().addBytesIn(read);
+            }
+            if (read == 0) {
+                return;
+            }
+            lastActivity = System.currentTimeMillis();
+            readingBody = false;
+            key.interestOps(0);
+            bodyRead = read;
+            bodyReady.release();
+        }
+
+        /**
+         * Ejecuta el handler en el pool de workers. Mientras tanto la conexión
+         * no recibe eventos (y el buffer del parser no cambia); la respuesta
+         * vuelve al event loop para escribirse.
+         */
+        private void dispatch(Request request, RequestBodyStream requestBody) {
+            processing = true;
+            key.interestOps(0);
+            int requestNumber = requestsHandled;
+            try {
+                workers.execute(() -> {
+                    Response response;
+                    try {
+                        response = HttpServer.handleRequest(request);
+                    } catch (RuntimeException e) {
+                        response = HttpServer.createInternalServerErrorResponse();
+                    } catch (Error e) {
+                        // No se responde, pero la conexión no puede quedar
+                        // esperando una respuesta que no llegará
+                        loop.execute(Connection.this::close);
+                        throw e;
+                    }
+                    if (requestBody != null) {
+                        // Descartar lo que el handler no leyó del cuerpo
+                        if (requestBody.isLimitExceeded()) {
+                            response = HttpServer.payloadTooLarge(response);
+                        } else if (!requestBody.finishForReuse()) {
+                            response.setHeader("Connection", "close");
+                        }
+                    }
+                    boolean persistent = HttpServer.applyConnectionHeader(response, request, requestNumber);
+                    FileRegion region = response.getFileRegion();
+                    // El buffer de cabecera queda libre: la respuesta anterior ya
+                    // se escribió completa antes de despachar esta petición
+                    ByteBuffer[] buffers = writer.encode(response);
+                    if (response.isStreaming() && !response.isBodyOmitted()) {
+                        // El cuerpo se genera en este worker mientras el event
+                        // loop envía los bloques
+                        StreamSink sink = new StreamSink(Connection.this);
+                        loop.execute(() -> startWrite(buffers, null, null, sink, persistent));
+                        boolean completed = false;
+                        try {
+                            ResponseWriter.writeBody(response, sink);
+                            completed = true;
+                        } catch (IOException | RuntimeException e) {
+                            // La conexión se cierra al vaciar lo encolado
+                        } finally {
+                            sink.complete(completed);
+                        }
+                        return;
+                    }
+                    FileChannel file = null;
+                    if (region != null) {
+                        try {
+                            file = region.open();
+                        } catch (IOException e) {
+                            // El archivo desapareció: ya no se puede cumplir el
+                            // Content-Length anunciado
+                            loop.execute(Connection.this::close);
+                            return;
+                        }
+                    }
+                    FileChannel body = file;
+                    loop.execute(() -> startWrite(buffers, body, region, null, persistent));
+                });
+            } catch (RejectedExecutionException e) {
+                close();
+            }
+        }
+
+        private void startWrite(ByteBuffer[] response, FileChannel file, FileRegion region, StreamSink sink,
+                boolean persistent) {
+            // Con un cuerpo en streaming el handler sigue en ejecución
+            processing = sink != null;
+            stream = sink;
+            continueSent = false;
+            keepAlive = persistent;
+            if (!channel.isOpen()) {
+                if (file != null) {
+                    closeQuietly(file);
+                }
+                return;
+            }
+            out = response;
+            if (file != null) {
+                fileOut = file;
+                filePosition = region.offset();
+                fileRemaining = region.length();
+            }
+            try {
+                onWritable();
+            } catch (IOException | CancelledKeyException e) {
+                close();
+            }
+        }
+
+        private void respondAndClose(Response response) throws IOException {
+            key.interestOps(0);
+            keepAlive = false;
+            out = writer.encode(response);
+            onWritable();
+        }
+
+        void close() {
+            if (key != null) {
+                key.cancel();
+            }
+            closeQuietly(channel);
+            if (fileOut != null) {
+                closeQuietly(fileOut);
+                fileOut = null;
+            }
+        }
+    }
+
+    // ==================== STREAMING ====================
+    /**
+     * Puente entre el worker que genera un cuerpo en streaming y el event loop
+     * que lo escribe. Cada escritura se encola como un bloque ya enmarcado; si
+     * hay más de {@link #STREAM_WINDOW} bytes esperando, el worker se bloquea
+     * hasta que el socket los acepte, así que la memoria por conexión queda
+     * acotada aunque el cliente lea despacio.
+     */
+    private static final class StreamSink extends OutputStream {
+
+        private final Connection connection;
+        private final Queue<ByteBuffer> chunks = new ConcurrentLinkedQueue<>();
+        private final Semaphore credits = new Semaphore(STREAM_WINDOW);
+        private final AtomicBoolean wakeupScheduled = new AtomicBoolean();
+        private volatile boolean done;
+        private volatile boolean failed;
+
+        StreamSink(Connection connection) {
+            this.connection = connection;
+        }
+
+        static int permits(int length) {
+            return Math.min(length, STREAM_WINDOW);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            acquire(permits(len));
+            chunks.add(ByteBuffer.wrap(Arrays.copyOfRange(b, off, off + len)));
+            wakeLoop();
+        }
+
+        private void acquire(int permits) throws IOException {
+            try {
+                while (!credits.tryAcquire(permits, 100, TimeUnit.MILLISECONDS)) {
+                    if (!connection.channel.isOpen()) {
+                        throw new IOException("El cliente cerró la conexión");
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Escritura del cuerpo interrumpida");
+            }
+            if (!connection.channel.isOpen()) {
+                credits.release(permits);
+                throw new IOException("El cliente cerró la conexión");
+            }
+        }
+
+        void complete(boolean completed) {
+            failed = !completed;
+            done = true;
+            wakeLoop();
+        }
+
+        private void wakeLoop() {
+            if (wakeupScheduled.compareAndSet(false, true)) {
+                connection.loop.execute(() -> connection.onStreamData(this));
+            }
+        }
+    }
+
+    // ==================== UTILIDADES ====================
+    private static void closeQuietly(Channel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Nada más que hacer
+        }
+    }
+}
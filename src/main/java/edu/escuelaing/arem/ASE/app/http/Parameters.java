@@ -0,0 +1,280 @@
+package edu.escuelaing.arem.ASE.app.http;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parámetros de una query string o de un formulario
+ * application/x-www-form-urlencoded, parseados una sola vez.
+ *
+ * El texto original no se copia: cada par se guarda como posiciones dentro de
+ * él en un único arreglo de enteros. Las búsquedas comparan el nombre contra
+ * esas posiciones sin crear Strings, y un valor solo se decodifica (%XX y '+')
+ * si contiene escapes; el resultado queda en caché. Una clave puede aparecer
+ * varias veces: {@link #get(String)} devuelve el primer valor y
+ * {@link #getAll(String)} todos.
+ *
+ * Pensado para usarse dentro de una petición: no es thread-safe.
+ *
+ * @author jgamb
+ * @version 1.0
+ * @since 3.0
+ */
+public final class Parameters {
+
+    static final Parameters EMPTY = new Parameters("", new int[0], new byte[0], 0);
+
+    private static final byte KEY_ESCAPED = 1;
+    private static final byte VALUE_ESCAPED = 2;
+
+    private final String source;
+    // Por cada par: inicio y fin de la clave, inicio y fin del valor
+    private final int[] bounds;
+    private final byte[] flags;
+    private final int count;
+
+    private String[] keys;
+    private String[] values;
+    private Map<String, String> map;
+
+    private Parameters(String source, int[] bounds, byte[] flags, int count) {
+        this.source = source;
+        this.bounds = bounds;
+        this.flags = flags;
+        this.count = count;
+    }
+
+    /**
+     * Parsea pares clave=valor separados por '&'. Los pares con clave vacía se
+     * ignoran y una clave sin '=' tiene valor "".
+     *
+     * @param source Texto sin decodificar, o null
+     */
+    public static Parameters parse(String source) {
+        if (source == null || source.isEmpty()) {
+            return EMPTY;
+        }
+        int pairs = 1;
+        for (int i = 0; i < source.length(); i++) {
+            if (source.charAt(i) == '&') {
+                pairs++;
+            }
+        }
+        int[] bounds = new int[pairs * 4];
+        byte[] flags = new byte[pairs];
+        int count = 0;
+        int start = 0;
+        int length = source.length();
+        while (start <= length) {
+            int end = source.indexOf('&', start);
+            if (end < 0) {
+                end = length;
+            }
+            int equals = start;
+            byte flag = 0;
+            while (equals < end && source.charAt(equals) != '=') {
+                if (isEscape(source.charAt(equals))) {
+                    flag |= KEY_ESCAPED;
+                }
+                equals++;
+            }
+            if (equals > start) {
+                int valueStart = equals < end ? equals + 1 : end;
+                for (int i = valueStart; i < end; i++) {
+                    if (isEscape(source.charAt(i))) {
+                        flag |= VALUE_ESCAPED;
+                        break;
+                    }
+                }
+                int slot = count * 4;
+                bounds[slot] = start;
+                bounds[slot + 1] = equals;
+                bounds[slot + 2] = valueStart;
+                bounds[slot + 3] = end;
+                flags[count++] = flag;
+            }
+            start = end + 1;
+        }
+        return count == 0 ? EMPTY : new Parameters(source, bounds, flags, count);
+    }
+
+    /**
+     * Primer valor de un parámetro.
+     *
+     * @param name Nombre del parámetro (ya decodificado)
+     * @return El valor decodificado o null si no existe
+     */
+    public String get(String name) {
+        for (int i = 0; i < count; i++) {
+            if (keyEquals(i, name)) {
+                return value(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Todos los valores de un parámetro, en el orden en que aparecen.
+     *
+     * @param name Nombre del parámetro
+     * @return Lista inmutable, vacía si no existe
+     */
+    public List<String> getAll(String name) {
+        List<String> all = null;
+        for (int i = 0; i < count; i++) {
+            if (keyEquals(i, name)) {
+                if (all == null) {
+                    all = new ArrayList<>(2);
+                }
+                all.add(value(i));
+            }
+        }
+        return all == null ? Collections.emptyList() : Collections.unmodifiableList(all);
+    }
+
+    public boolean contains(String name) {
+        for (int i = 0; i < count; i++) {
+            if (keyEquals(i, name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Número de pares, contando las claves repetidas.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Nombre decodificado del par en la posición indicada.
+     */
+    public String name(int index) {
+        if (keys == null) {
+            keys = new String[count];
+        }
+        String key = keys[index];
+        if (key == null) {
+            int slot = index * 4;
+            key = (flags[index] & KEY_ESCAPED) != 0
+                    ? decode(source, bounds[slot], bounds[slot + 1])
+                    : source.substring(bounds[slot], bounds[slot + 1]);
+            keys[index] = key;
+        }
+        return key;
+    }
+
+    /**
+     * Valor decodificado del par en la posición indicada.
+     */
+    public String value(int index) {
+        if (values == null) {
+            values = new String[count];
+        }
+        String value = values[index];
+        if (value == null) {
+            int slot = index * 4;
+            value = (flags[index] & VALUE_ESCAPED) != 0
+                    ? decode(source, bounds[slot + 2], bounds[slot + 3])
+                    : source.substring(bounds[slot + 2], bounds[slot + 3]);
+            values[index] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Vista como mapa con el primer valor de cada clave, en orden de aparición.
+     * Se construye una sola vez.
+     *
+     * @return Mapa inmutable
+     */
+    public Map<String, String> asMap() {
+        if (map == null) {
+            if (count == 0) {
+                map = Collections.emptyMap();
+            } else {
+                Map<String, String> built = new LinkedHashMap<>();
+                for (int i = 0; i < count; i++) {
+                    built.putIfAbsent(name(i), value(i));
+                }
+                map = Collections.unmodifiableMap(built);
+            }
+        }
+        return map;
+    }
+
+    private boolean keyEquals(int index, String name) {
+        if ((flags[index] & KEY_ESCAPED) != 0) {
+            return name(index).equals(name);
+        }
+        int start = bounds[index * 4];
+        int length = bounds[index * 4 + 1] - start;
+        return length == name.length() && source.regionMatches(start, name, 0, length);
+    }
+
+    private static boolean isEscape(char c) {
+        return c == '%' || c == '+';
+    }
+
+    /**
+     * Decodifica %XX (como bytes UTF-8) y '+' como espacio. Un '%' que no va
+     * seguido de dos dígitos hexadecimales se conserva tal cual.
+     */
+    static String decode(String text, int from, int to) {
+        byte[] out = new byte[to - from];
+        int n = 0;
+        int i = from;
+        while (i < to) {
+            char c = text.charAt(i);
+            if (c == '%' && i + 2 < to && hexValue(text.charAt(i + 1)) >= 0 && hexValue(text.charAt(i + 2)) >= 0) {
+                out[n++] = (byte) ((hexValue(text.charAt(i + 1)) << 4) | hexValue(text.charAt(i + 2)));
+                i += 3;
+            } else if (c == '+') {
+                out[n++] = ' ';
+                i++;
+            } else if (c < 0x80) {
+                out[n++] = (byte) c;
+                i++;
+            } else {
+                // Texto ya decodificado (cuerpo UTF-8): se vuelve a codificar
+                int end = i + 1;
+                while (end < to && text.charAt(end) >= 0x80) {
+                    end++;
+                }
+                byte[] encoded = text.substring(i, end).getBytes(StandardCharsets.UTF_8);
+                if (n + encoded.length > out.length) {
+                    out = Arrays.copyOf(out, n + encoded.length + (to - end));
+                }
+                System.arraycopy(encoded, 0, out, n, encoded.length);
+                n += encoded.length;
+                i = end;
+            }
+        }
+        return new String(out, 0, n, StandardCharsets.UTF_8);
+    }
+
+    private static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return asMap().toString();
+    }
+}
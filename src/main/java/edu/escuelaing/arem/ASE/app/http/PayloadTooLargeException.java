@@ -0,0 +1,38 @@
+package edu.escuelaing.arem.ASE.app.http;
+
+import java.io.IOException;
+
+/**
+ * Error al leer el cuerpo de una petición que supera el tamaño máximo.
+ *
+ * Un handler que lee el cuerpo en streaming puede capturarla para responder
+ * él mismo con 413 (por ejemplo, informando lo que ya procesó); si no, el
+ * servidor responde con un 413 genérico.
+ *
+ * @author jgamb
+ * @version 1.0
+ * @since 3.0
+ */
+public class PayloadTooLargeException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long maxBodySize;
+
+    /**
+     * @param maxBodySize Tamaño máximo permitido en bytes
+     */
+    public PayloadTooLargeException(long maxBodySize) {
+        super("El cuerpo supera el máximo de " + maxBodySize + " bytes");
+        this.maxBodySize = maxBodySize;
+    }
+
+    /**
+     * Obtiene el tamaño máximo de cuerpo que se superó.
+     *
+     * @return Bytes permitidos
+     */
+    public long getMaxBodySize() {
+        return maxBodySize;
+    }
+}
@@ -4,10 +4,13 @@ package edu.escuelaing.arem.ASE.app.http;
  *
  * @author jgamb
  */
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
-import java.util.HashMap;
+import java.net.URISyntaxException;
 import java.util.Map;
-import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 
 /**
@@ -19,14 +22,60 @@ import java.nio.charset.StandardCharsets;
  */
 public class Request {
 
-    private final URI uri;
-    private final String body;
-    private final Map<String, String> headers;
+    private final RequestParser head;
+    private URI uri;
+    private final String method;
+    private String body;
+    private byte[] bodySource;
+    private int bodyOffset;
+    private int bodyLength;
+    // Cuerpo leído en streaming desde la conexión (null si ya está en memoria)
+    private final InputStream bodyStream;
+    private boolean bodyStreamTaken;
+    private Headers headers;
+    // Ruta del router que atendió la petición (variables de ruta)
+    private Router.Match route;
+    // Parámetros de query y formulario, parseados la primera vez que se piden
+    private Parameters queryParameters;
+    private Parameters formParameters;
+    private Json json;
+    private final String remoteAddress;
 
     private Request(Builder builder) {
+        this.head = builder.head;
         this.uri = builder.uri;
-        this.body = builder.body != null ? builder.body : "";
-        this.headers = builder.headers != null ? new HashMap<>(builder.headers) : new HashMap<>();
+        this.method = builder.method != null ? builder.method : (head != null ? head.method() : "GET");
+        this.body = builder.body;
+        this.bodySource = builder.bodySource;
+        this.bodyOffset = builder.bodyOffset;
+        this.bodyLength = builder.bodyLength;
+        this.bodyStream = builder.bodyStream;
+        this.remoteAddress = builder.remoteAddress;
+        if (head == null) {
+            this.headers = builder.builtHeaders != null ? builder.builtHeaders
+                    : builder.headers != null ? builder.headers.build() : Headers.EMPTY;
+            if (this.body == null && bodySource == null && bodyStream == null) {
+                this.body = "";
+            }
+        }
+    }
+
+    /**
+     * Obtiene el método HTTP de la petición (en mayúsculas).
+     *
+     * @return El método HTTP, "GET" si la petición se construyó solo con una URI
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Obtiene la versión HTTP de la línea de petición.
+     *
+     * @return La versión, "HTTP/1.1" si la petición se construyó con una URI
+     */
+    public String getHttpVersion() {
+        return head != null ? head.version() : "HTTP/1.1";
     }
 
     /**
@@ -35,74 +84,149 @@ public class Request {
      * @return La ruta de la petición
      */
     public String getPath() {
-        return uri.getPath();
+        return head != null ? head.path() : uri.getPath();
+    }
+
+    /**
+     * Obtiene la query string sin decodificar.
+     *
+     * @return La query o null si la petición no tiene
+     */
+    public String getRawQuery() {
+        return head != null ? head.query() : uri.getRawQuery();
+    }
+
+    /**
+     * Obtiene la dirección IP del cliente que envió la petición.
+     *
+     * @return La dirección o null si la petición no vino de una conexión
+     */
+    public String getRemoteAddress() {
+        return remoteAddress;
     }
 
     /**
      * Obtiene un parámetro específico de la query string.
      *
      * @param key El nombre del parámetro
-     * @return El valor del parámetro o null si no existe
+     * @return El primer valor del parámetro o null si no existe
      */
     public String getQueryParam(String key) {
-        if (uri.getQuery() == null) {
-            return null;
-        }
-
-        for (String param : uri.getQuery().split("&")) {
-            String[] kv = param.split("=", 2);
-            if (kv[0].equals(key)) {
-                try {
-                    return kv.length > 1 ? URLDecoder.decode(kv[1], StandardCharsets.UTF_8) : "";
-                } catch (Exception e) {
-                    return kv.length > 1 ? kv[1] : "";
-                }
-            }
-        }
-        return null;
+        return getQueryParameters().get(key);
     }
 
     /**
      * Obtiene todos los parámetros de query como un mapa.
      *
-     * @return Mapa con todos los parámetros de query
+     * @return Mapa inmutable con el primer valor de cada parámetro
      */
     public Map<String, String> getQueryParams() {
-        Map<String, String> params = new HashMap<>();
-        if (uri.getQuery() == null) {
-            return params;
-        }
+        return getQueryParameters().asMap();
+    }
 
-        for (String param : uri.getQuery().split("&")) {
-            String[] kv = param.split("=", 2);
-            try {
-                String key = URLDecoder.decode(kv[0], StandardCharsets.UTF_8);
-                String value = kv.length > 1 ? URLDecoder.decode(kv[1], StandardCharsets.UTF_8) : "";
-                params.put(key, value);
-            } catch (Exception e) {
-                // Si falla el decode, usar valores sin decodificar
-                params.put(kv[0], kv.length > 1 ? kv[1] : "");
-            }
+    /**
+     * Obtiene los parámetros de query, incluidos los repetidos. La query se
+     * parsea una sola vez por petición.
+     *
+     * @return Los parámetros (vacíos si la petición no tiene query)
+     */
+    public Parameters getQueryParameters() {
+        if (queryParameters == null) {
+            queryParameters = Parameters.parse(getRawQuery());
         }
-        return params;
+        return queryParameters;
+    }
+
+    /**
+     * Obtiene una variable de la ruta registrada, ej: "id" en "/users/{id}".
+     * El resto capturado por un comodín final se consulta como "*".
+     *
+     * @param name El nombre de la variable
+     * @return El valor capturado o null si la ruta no la declara
+     */
+    public String getPathParam(String name) {
+        return route != null ? route.param(name) : null;
+    }
+
+    /**
+     * Obtiene el patrón de la ruta que atendió la petición.
+     *
+     * @return El patrón (ej: "/users/{id}") o null si no corresponde a una
+     * ruta registrada
+     */
+    public String getRoutePattern() {
+        return route != null ? route.route().pattern() : null;
+    }
+
+    void setRouteMatch(Router.Match route) {
+        this.route = route;
     }
 
     /**
-     * Obtiene el cuerpo completo de la petición.
+     * Obtiene el cuerpo completo de la petición. Si el cuerpo llega en
+     * streaming, se lee completo la primera vez que se pide.
      *
-     * @return El cuerpo de la petición como string
+     * @return El cuerpo de la petición como string (UTF-8)
+     * @throws IllegalStateException Si el cuerpo ya se consumió con
+     * {@link #getBodyStream()}
+     * @throws UncheckedIOException Si falla la lectura del cuerpo
      */
     public String getBody() {
+        if (body == null) {
+            bufferBodyStream();
+            // Decodificación perezosa del slice del cuerpo
+            body = bodySource != null ? new String(bodySource, bodyOffset, bodyLength, StandardCharsets.UTF_8) : "";
+        }
         return body;
     }
 
+    /**
+     * Obtiene el cuerpo como stream de bytes. Para subidas grandes o chunked
+     * los bytes se leen de la conexión a medida que el handler los consume,
+     * sin que el servidor acumule el cuerpo; una lectura falla con
+     * IOException si el cuerpo supera el máximo configurado.
+     *
+     * Después de llamarlo, {@link #getBody()} ya no está disponible.
+     *
+     * @return Stream con el cuerpo (vacío si la petición no tiene)
+     */
+    public InputStream getBodyStream() {
+        if (bodyStream != null && bodySource == null) {
+            bodyStreamTaken = true;
+            return bodyStream;
+        }
+        if (bodySource != null) {
+            return new ByteArrayInputStream(bodySource, bodyOffset, bodyLength);
+        }
+        return new ByteArrayInputStream(getBody().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void bufferBodyStream() {
+        if (bodyStream == null || bodySource != null) {
+            return;
+        }
+        if (bodyStreamTaken) {
+            throw new IllegalStateException("El cuerpo ya se consumió con getBodyStream()");
+        }
+        try {
+            bodySource = bodyStream.readAllBytes();
+            bodyOffset = 0;
+            bodyLength = bodySource.length;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     /**
      * Verifica si la petición tiene cuerpo.
      *
      * @return true si tiene cuerpo, false en caso contrario
      */
     public boolean hasBody() {
-        return body != null && !body.trim().isEmpty();
+        if (body == null && bodyStream == null && bodySource != null && bodyLength == 0) {
+            return false;
+        }
+        return !getBody().trim().isEmpty();
     }
 
     /**
@@ -112,16 +236,29 @@ public class Request {
      * @return El valor del header o null si no existe
      */
     public String getHeader(String name) {
-        return headers.get(name.toLowerCase());
+        return getHttpHeaders().get(name);
     }
 
     /**
      * Obtiene todos los headers como un mapa.
      *
-     * @return Mapa con todos los headers
+     * @return Vista de solo lectura; las búsquedas no distinguen mayúsculas
      */
     public Map<String, String> getHeaders() {
-        return new HashMap<>(headers);
+        return getHttpHeaders().asMap();
+    }
+
+    /**
+     * Obtiene los headers de la petición, incluidos los repetidos. Si la
+     * petición se leyó de la red es una vista sobre los bytes recibidos.
+     *
+     * @return Los headers (inmutables)
+     */
+    public Headers getHttpHeaders() {
+        if (headers == null) {
+            headers = Headers.of(head);
+        }
+        return headers;
     }
 
     /**
@@ -131,7 +268,7 @@ public class Request {
      * @return true si existe, false en caso contrario
      */
     public boolean hasHeader(String name) {
-        return headers.containsKey(name.toLowerCase());
+        return getHttpHeaders().contains(name);
     }
 
     /**
@@ -140,7 +277,7 @@ public class Request {
      * @return El Content-Type o null si no está presente
      */
     public String getContentType() {
-        return getHeader("content-type");
+        return getHeader(Headers.CONTENT_TYPE);
     }
 
     /**
@@ -149,7 +286,7 @@ public class Request {
      * @return La longitud del contenido o 0 si no está presente
      */
     public int getContentLength() {
-        String lengthStr = getHeader("content-length");
+        String lengthStr = getHeader(Headers.CONTENT_LENGTH);
         if (lengthStr != null) {
             try {
                 return Integer.parseInt(lengthStr);
@@ -164,29 +301,24 @@ public class Request {
      * Parsea el cuerpo como datos de formulario
      * (application/x-www-form-urlencoded).
      *
-     * @return Mapa con los datos del formulario
+     * @return Mapa inmutable con el primer valor de cada campo
      */
     public Map<String, String> getFormData() {
-        Map<String, String> formData = new HashMap<>();
-        if (!hasBody()) {
-            return formData;
-        }
+        return getFormParameters().asMap();
+    }
 
-        String contentType = getContentType();
-        if (contentType != null && contentType.toLowerCase().contains("application/x-www-form-urlencoded")) {
-            for (String param : body.split("&")) {
-                String[] kv = param.split("=", 2);
-                try {
-                    String key = URLDecoder.decode(kv[0], StandardCharsets.UTF_8);
-                    String value = kv.length > 1 ? URLDecoder.decode(kv[1], StandardCharsets.UTF_8) : "";
-                    formData.put(key, value);
-                } catch (Exception e) {
-                    // Si falla el decode, usar valores sin decodificar
-                    formData.put(kv[0], kv.length > 1 ? kv[1] : "");
-                }
-            }
+    /**
+     * Obtiene los campos del formulario, incluidos los repetidos. El cuerpo se
+     * parsea una sola vez y solo si el Content-Type es
+     * application/x-www-form-urlencoded.
+     *
+     * @return Los campos (vacíos si el cuerpo no es un formulario)
+     */
+    public Parameters getFormParameters() {
+        if (formParameters == null) {
+            formParameters = isFormData() && hasBody() ? Parameters.parse(getBody()) : Parameters.EMPTY;
         }
-        return formData;
+        return formParameters;
     }
 
     /**
@@ -210,38 +342,73 @@ public class Request {
     }
 
     /**
-     * Extrae un valor específico de un JSON simple en el cuerpo.
+     * Obtiene el cuerpo como documento JSON. Los bytes del cuerpo no se
+     * copian ni se decodifican: el documento se parsea solo hasta donde
+     * llegan las búsquedas.
+     *
+     * @return La vista del documento, o un valor ausente si no hay cuerpo
+     * @throws IllegalStateException Si el cuerpo ya se consumió con
+     * {@link #getBodyStream()}
+     */
+    public Json getJson() {
+        if (json == null) {
+            if (body != null && bodySource == null) {
+                byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                json = isBlank(bytes, 0, bytes.length) ? Json.missing() : Json.parse(bytes);
+            } else {
+                bufferBodyStream();
+                json = bodySource == null || isBlank(bodySource, bodyOffset, bodyLength)
+                        ? Json.missing() : Json.parse(bodySource, bodyOffset, bodyLength);
+            }
+        }
+        return json;
+    }
+
+    /**
+     * Extrae un campo de primer nivel del JSON del cuerpo.
      *
      * @param key La clave a buscar
-     * @return El valor encontrado o null
+     * @return El string decodificado, o null si el cuerpo no es JSON, no tiene
+     * el campo, el campo no es un string o el cuerpo está mal formado
      */
     public String getJsonValue(String key) {
-        if (!hasBody() || !isJson()) {
+        if (!isJson()) {
             return null;
         }
-
         try {
-            // Parser muy básico para JSON simple: {"key": "value"}
-            String pattern = "\"" + key + "\"\\s*:\\s*\"([^\"]+)\"";
-            java.util.regex.Pattern regex = java.util.regex.Pattern.compile(pattern);
-            java.util.regex.Matcher matcher = regex.matcher(body);
+            Json value = getJson().get(key);
+            return value.isString() ? value.asString() : null;
+        } catch (JsonException e) {
+            return null;
+        }
+    }
 
-            if (matcher.find()) {
-                return matcher.group(1);
+    private static boolean isBlank(byte[] data, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            byte b = data[i];
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                return false;
             }
-        } catch (Exception e) {
-            // Si falla el parsing, retornar null
         }
-
-        return null;
+        return true;
     }
 
     /**
      * Obtiene la URI completa de la petición.
      *
-     * @return La URI de la petición
+     * Si la petición se leyó de la red, la URI se construye solo cuando se
+     * pide por primera vez.
+     *
+     * @return La URI de la petición, o null si el target no es una URI válida
      */
     public URI getUri() {
+        if (uri == null && head != null) {
+            try {
+                uri = new URI(head.target());
+            } catch (URISyntaxException e) {
+                return null;
+            }
+        }
         return uri;
     }
 
@@ -254,14 +421,18 @@ public class Request {
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append("Request{");
-        sb.append("path='").append(getPath()).append('\'');
-        if (uri.getQuery() != null) {
-            sb.append(", query='").append(uri.getQuery()).append('\'');
+        sb.append("method='").append(method).append('\'');
+        sb.append(", path='").append(getPath()).append('\'');
+        if (getRawQuery() != null) {
+            sb.append(", query='").append(getRawQuery()).append('\'');
         }
-        if (hasBody()) {
-            sb.append(", bodyLength=").append(body.length());
+        if (bodyStream != null && bodySource == null) {
+            // No se lee el cuerpo solo para describir la petición
+            sb.append(", body=stream");
+        } else if (hasBody()) {
+            sb.append(", bodyLength=").append(getBody().length());
         }
-        sb.append(", headers=").append(headers.size());
+        sb.append(", headers=").append(getHttpHeaders().size());
         sb.append('}');
         return sb.toString();
     }
@@ -272,9 +443,56 @@ public class Request {
      */
     public static class Builder {
 
+        private RequestParser head;
         private URI uri;
+        private String method;
         private String body;
-        private Map<String, String> headers;
+        private byte[] bodySource;
+        private int bodyOffset;
+        private int bodyLength;
+        private InputStream bodyStream;
+        private Headers.Builder headers;
+        private Headers builtHeaders;
+        private String remoteAddress;
+
+        /**
+         * Envuelve una petición ya parseada: método, ruta, query y headers se
+         * leen del parser sin copiarlos.
+         */
+        public Builder withHead(RequestParser head) {
+            this.head = head;
+            return this;
+        }
+
+        public Builder withMethod(String method) {
+            this.method = method;
+            return this;
+        }
+
+        /**
+         * Cuerpo como slice de un arreglo de bytes; se decodifica como UTF-8
+         * solo si el handler lo pide.
+         */
+        public Builder withBodyBytes(byte[] source, int offset, int length) {
+            this.bodySource = source;
+            this.bodyOffset = offset;
+            this.bodyLength = length;
+            return this;
+        }
+
+        /**
+         * Cuerpo que se leerá en streaming (por ejemplo, directamente de la
+         * conexión).
+         */
+        public Builder withBodyStream(InputStream bodyStream) {
+            this.bodyStream = bodyStream;
+            return this;
+        }
+
+        public Builder withRemoteAddress(String remoteAddress) {
+            this.remoteAddress = remoteAddress;
+            return this;
+        }
 
         public Builder withUri(URI uri) {
             this.uri = uri;
@@ -286,25 +504,44 @@ public class Request {
             return this;
         }
 
+        /**
+         * Reemplaza los headers por los del mapa. Los nombres se conservan
+         * tal como vienen; las búsquedas no distinguen mayúsculas.
+         */
         public Builder withHeaders(Map<String, String> headers) {
-            this.headers = new HashMap<>();
-            // Convertir todos los nombres de headers a minúsculas para consistencia
+            this.builtHeaders = null;
+            this.headers = new Headers.Builder();
             for (Map.Entry<String, String> entry : headers.entrySet()) {
-                this.headers.put(entry.getKey().toLowerCase(), entry.getValue());
+                this.headers.set(entry.getKey(), entry.getValue());
             }
             return this;
         }
 
+        /**
+         * Usa headers ya construidos (por ejemplo, leídos de un stream).
+         */
+        public Builder withHeaders(Headers headers) {
+            this.builtHeaders = headers;
+            this.headers = null;
+            return this;
+        }
+
         public Builder withHeader(String name, String value) {
             if (this.headers == null) {
-                this.headers = new HashMap<>();
+                this.headers = new Headers.Builder();
+                if (builtHeaders != null) {
+                    for (int i = 0; i < builtHeaders.size(); i++) {
+                        this.headers.add(builtHeaders.name(i), builtHeaders.value(i));
+                    }
+                    builtHeaders = null;
+                }
             }
-            this.headers.put(name.toLowerCase(), value);
+            this.headers.set(name, value);
             return this;
         }
 
         public Request build() {
-            if (uri == null) {
+            if (uri == null && head == null) {
                 throw new IllegalStateException("URI is required");
             }
             return new Request(this);
@@ -0,0 +1,319 @@
+package edu.escuelaing.arem.ASE.app.http;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Cuerpo de una petición leído en streaming desde la conexión.
+ *
+ * Los bytes se toman del buffer del {@link RequestParser} a continuación de
+ * los headers; cuando se agotan, los ya entregados se descartan y se pide
+ * otra lectura a la conexión, así que el cuerpo nunca se acumula completo en
+ * memoria. Soporta cuerpos con Content-Length y con Transfer-Encoding: chunked
+ * (se entregan ya decodificados), y corta la lectura si el cuerpo supera el
+ * máximo configurado.
+ *
+ * La primera lectura ejecuta la acción indicada al crearlo, que los motores
+ * usan para enviar "100 Continue" solo si el handler realmente consume el
+ * cuerpo. Al terminar, el parser queda posicionado en la siguiente petición
+ * encadenada.
+ *
+ * Lo usa un único hilo (el que ejecuta el handler).
+ *
+ * @author jgamb
+ * @version 1.0
+ * @since 3.0
+ */
+final class RequestBodyStream extends InputStream {
+
+    /**
+     * Cuerpos con Content-Length de hasta este tamaño se leen completos antes
+     * de ejecutar el handler; los mayores y los chunked se leen en streaming.
+     */
+    static final int BUFFERED_BODY_LIMIT = 64 * 1024;
+
+    private static final int MAX_CHUNK_LINE = 4096;
+
+    private static final int SIZE = 0;
+    private static final int DATA = 1;
+    private static final int DATA_END = 2;
+    private static final int TRAILERS = 3;
+
+    /**
+     * Origen de más bytes para el buffer del parser.
+     */
+    interface Source {
+
+        /**
+         * Lee más bytes de la conexión al buffer del parser, bloqueando hasta
+         * que llegue al menos uno.
+         *
+         * @return bytes leídos o -1 si la conexión se cerró
+         */
+        int fill(RequestParser parser) throws IOException;
+    }
+
+    /**
+     * Acción previa a la primera lectura.
+     */
+    interface Action {
+
+        void run() throws IOException;
+    }
+
+    private final RequestParser parser;
+    private final Source source;
+    private final long maxBodySize;
+    private final boolean chunked;
+    private Action onFirstRead;
+
+    private int pos;
+    private long remaining;
+    private int state = SIZE;
+    private long total;
+    private boolean started;
+    private boolean finished;
+    private boolean limitExceeded;
+    private final boolean expectContinue;
+    private final byte[] single = new byte[1];
+
+    /**
+     * @param parser Parser con los headers de la petición ya parseados
+     * @param source Lecturas adicionales de la conexión
+     * @param maxBodySize Tamaño máximo del cuerpo (decodificado)
+     * @param onFirstRead Acción a ejecutar antes de la primera lectura (por
+     * ejemplo enviar 100 Continue), o null
+     */
+    RequestBodyStream(RequestParser parser, Source source, long maxBodySize, Action onFirstRead) {
+        this.parser = parser;
+        this.source = source;
+        this.maxBodySize = maxBodySize;
+        this.chunked = parser.isChunked();
+        this.onFirstRead = onFirstRead;
+        this.expectContinue = onFirstRead != null;
+        this.pos = parser.bodyOffset();
+        this.remaining = chunked ? 0 : Math.max(parser.contentLength(), 0);
+        if (!chunked && remaining == 0) {
+            finish();
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        int n = read(single, 0, 1);
+        return n < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (finished) {
+            return -1;
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (!started) {
+            started = true;
+            if (onFirstRead != null) {
+                Action action = onFirstRead;
+                onFirstRead = null;
+                action.run();
+            }
+        }
+        return chunked ? readChunked(b, off, len) : readFixed(b, off, len);
+    }
+
+    private int readFixed(byte[] b, int off, int len) throws IOException {
+        ensureAvailable();
+        int n = (int) Math.min(Math.min(len, buffered()), remaining);
+        System.arraycopy(parser.array(), pos, b, off, n);
+        pos += n;
+        remaining -= n;
+        if (remaining == 0) {
+            finish();
+        }
+        return n;
+    }
+
+    private int readChunked(byte[] b, int off, int len) throws IOException {
+        while (true) {
+            switch (state) {
+                case SIZE -> {
+                    int lineEnd = readLine();
+                    long size = parseChunkSize(pos, lineEnd);
+                    pos = lineEnd + 1;
+                    if (size == 0) {
+                        state = TRAILERS;
+                    } else {
+                        if (total + size > maxBodySize) {
+                            limitExceeded = true;
+                            throw new PayloadTooLargeException(maxBodySize);
+                        }
+                        total += size;
+                        remaining = size;
+                        state = DATA;
+                    }
+                }
+                case DATA -> {
+                    ensureAvailable();
+                    int n = (int) Math.min(Math.min(len, buffered()), remaining);
+                    System.arraycopy(parser.array(), pos, b, off, n);
+                    pos += n;
+                    remaining -= n;
+                    if (remaining == 0) {
+                        state = DATA_END;
+                    }
+                    return n;
+                }
+                case DATA_END -> {
+                    int lineEnd = readLine();
+                    if (lineEnd != pos && !(lineEnd == pos + 1 && parser.array()[pos] == '\r')) {
+                        throw new IOException("Falta el CRLF al final del bloque chunked");
+                    }
+                    pos = lineEnd + 1;
+                    state = SIZE;
+                }
+                default -> {
+                    // Trailers: se ignoran hasta la línea vacía
+                    int lineEnd = readLine();
+                    boolean empty = lineEnd == pos || (lineEnd == pos + 1 && parser.array()[pos] == '\r');
+                    pos = lineEnd + 1;
+                    if (empty) {
+                        finish();
+                        return -1;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Espera una línea completa a partir de pos.
+     *
+     * @return posición del '\n' que la termina
+     */
+    private int readLine() throws IOException {
+        int scan = pos;
+        while (true) {
+            byte[] data = parser.array();
+            int limit = parser.buffer().position();
+            for (int i = scan; i < limit; i++) {
+                if (data[i] == '\n') {
+                    return i;
+                }
+            }
+            if (limit - pos > MAX_CHUNK_LINE) {
+                throw new IOException("Línea chunked demasiado larga");
+            }
+            scan = limit;
+            int offset = scan - pos;
+            compact();
+            fill();
+            scan = pos + offset;
+        }
+    }
+
+    private long parseChunkSize(int from, int lineEnd) throws IOException {
+        byte[] data = parser.array();
+        long size = 0;
+        int digits = 0;
+        int i = from;
+        for (; i < lineEnd; i++) {
+            int digit = Character.digit(data[i], 16);
+            if (digit < 0) {
+                break;
+            }
+            if (++digits > 15) {
+                throw new IOException("Tamaño de bloque chunked inválido");
+            }
+            size = size * 16 + digit;
+        }
+        // Tras el tamaño solo pueden venir extensiones (";...") o el CR final
+        if (digits == 0 || (i < lineEnd && data[i] != ';' && data[i] != '\r' && data[i] != ' ' && data[i] != '\t')) {
+            throw new IOException("Tamaño de bloque chunked inválido");
+        }
+        return size;
+    }
+
+    /**
+     * Bytes del cuerpo que pueden leerse sin esperar a la conexión.
+     */
+    @Override
+    public int available() {
+        if (finished || (chunked && state != DATA)) {
+            return 0;
+        }
+        return (int) Math.min(buffered(), remaining);
+    }
+
+    private int buffered() {
+        return parser.buffer().position() - pos;
+    }
+
+    private void ensureAvailable() throws IOException {
+        if (buffered() == 0) {
+            compact();
+            fill();
+        }
+    }
+
+    private void compact() {
+        parser.discardBody(pos);
+        pos = parser.bodyOffset();
+    }
+
+    private void fill() throws IOException {
+        if (source.fill(parser) < 0) {
+            throw new EOFException("La conexión se cerró antes de terminar el cuerpo");
+        }
+    }
+
+    private void finish() {
+        finished = true;
+        parser.endBody(pos);
+    }
+
+    /**
+     * Indica si se leyó el cuerpo completo.
+     */
+    boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Indica si la lectura se cortó porque el cuerpo superaba el máximo.
+     */
+    boolean isLimitExceeded() {
+        return limitExceeded;
+    }
+
+    /**
+     * Descarta lo que el handler no leyó para poder atender la siguiente
+     * petición de la conexión.
+     *
+     * @return true si la conexión puede reutilizarse; false si el cliente
+     * esperaba "100 Continue" y no se le pidió el cuerpo, o si el cuerpo no
+     * pudo leerse completo
+     */
+    boolean finishForReuse() {
+        if (finished) {
+            return true;
+        }
+        if (expectContinue && !started) {
+            return false;
+        }
+        byte[] skip = new byte[8192];
+        try {
+            while (read(skip, 0, skip.length) >= 0) {
+                // descartar
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
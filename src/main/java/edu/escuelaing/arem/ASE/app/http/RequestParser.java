@@ -0,0 +1,654 @@
+package edu.escuelaing.arem.ASE.app.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Parser HTTP/1.1 incremental que trabaja directamente sobre bytes.
+ *
+ * Cada conexión tiene un parser con su propio buffer, que se reutiliza entre
+ * peticiones. La línea de petición y los headers se recorren byte a byte sin
+ * crear Strings intermedios: solo se guardan las posiciones (slices) de cada
+ * elemento dentro del buffer, y el método, la ruta, la query y los valores de
+ * los headers se decodifican de forma perezosa la primera vez que se piden.
+ *
+ * El parseo es reanudable: si una lectura trae solo parte de la petición,
+ * {@link #parse()} devuelve INCOMPLETE y la siguiente llamada continúa desde
+ * donde se quedó, sin volver a recorrer los bytes ya analizados. Así lo usan
+ * tanto {@link ClientHandler} (lecturas de un InputStream) como
+ * {@link NioServer} (lecturas no bloqueantes de un SocketChannel).
+ *
+ * Los slices apuntan al buffer interno, por lo que una {@link Request} que
+ * envuelve el parser solo es válida hasta que se llama a {@link #next()}.
+ *
+ * @author jgamb
+ * @version 1.0
+ * @since 3.0
+ */
+public final class RequestParser {
+
+    /**
+     * Resultado de un intento de parseo.
+     */
+    public enum Status {
+        /** Faltan bytes para completar la línea de petición y los headers. */
+        INCOMPLETE,
+        /** Línea de petición y headers completos. */
+        COMPLETE,
+        /** La petición no respeta el formato HTTP (responder 400). */
+        INVALID,
+        /** Los headers superan el tamaño o número máximo (responder 431). */
+        TOO_LARGE
+    }
+
+    static final int MAX_HEADER_SIZE = 64 * 1024;
+    private static final int MAX_HEADERS = 100;
+    private static final int DEFAULT_CAPACITY = 8192;
+
+    private static final int STATE_REQUEST_LINE = 0;
+    private static final int STATE_HEADERS = 1;
+    private static final int STATE_DONE = 2;
+
+    private static final String[] KNOWN_METHODS = {"GET", "POST", "HEAD", "OPTIONS", "PUT", "DELETE", "PATCH"};
+
+    // Buffer en modo escritura: position = cantidad de bytes recibidos
+    private ByteBuffer buffer;
+
+    // Estado del parseo reanudable
+    private int state;
+    private int scan;
+    private int lineStart;
+
+    // Slices de la línea de petición
+    private int methodStart;
+    private int methodEnd;
+    private int targetStart;
+    private int targetEnd;
+    private int queryStart;
+    private int versionStart;
+    private int versionEnd;
+
+    // Slices de headers: [nombreInicio, nombreFin, valorInicio, valorFin] por header
+    private int[] headerSlices = new int[16 * 4];
+    private int headerCount;
+    private int bodyStart;
+    private long contentLength;
+    private boolean chunked;
+    // Fin del cuerpo leído en streaming (-1: se usa Content-Length)
+    private int bodyEnd;
+
+    // Valores decodificados bajo demanda
+    private String method;
+    private String path;
+    private String query;
+    private String target;
+    private String[] headerValues = new String[16];
+    // Constante de Headers para cada nombre conocido (null si no lo es)
+    private String[] headerTokens = new String[16];
+
+    public RequestParser() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public RequestParser(int initialCapacity) {
+        this.buffer = ByteBuffer.allocate(initialCapacity);
+        reset();
+    }
+
+    // ==================== ENTRADA DE BYTES ====================
+    /**
+     * Buffer donde escribir los bytes recibidos (position = bytes ya
+     * recibidos). Si está lleno se amplía antes de devolverlo.
+     */
+    public ByteBuffer buffer() {
+        if (!buffer.hasRemaining()) {
+            ensureCapacity(buffer.capacity() * 2);
+        }
+        return buffer;
+    }
+
+    /**
+     * Lee del canal lo que esté disponible, sin bloquear si es no bloqueante.
+     *
+     * @return bytes leídos o -1 si el canal se cerró
+     */
+    public int readFrom(ReadableByteChannel channel) throws IOException {
+        return channel.read(buffer());
+    }
+
+    /**
+     * Lee del stream, bloqueando hasta que llegue al menos un byte.
+     *
+     * @return bytes leídos o -1 si el stream se cerró
+     */
+    public int readFrom(InputStream in) throws IOException {
+        ByteBuffer target = buffer();
+        int read = in.read(target.array(), target.position(), target.remaining());
+        if (read > 0) {
+            target.position(target.position() + read);
+        }
+        return read;
+    }
+
+    /**
+     * Garantiza que el buffer pueda contener al menos la cantidad indicada de
+     * bytes (por ejemplo, headers + cuerpo completo).
+     */
+    public void ensureCapacity(int capacity) {
+        if (buffer.capacity() < capacity) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(capacity, buffer.capacity() * 2));
+            buffer.flip();
+            bigger.put(buffer);
+            buffer = bigger;
+        }
+    }
+
+    // ==================== PARSEO ====================
+    /**
+     * Avanza el parseo con los bytes recibidos hasta ahora.
+     *
+     * Acepta finales de línea CRLF o solo LF e ignora líneas vacías antes de
+     * la línea de petición (permitido por RFC 9112).
+     *
+     * @return COMPLETE cuando la línea de petición y los headers están listos
+     */
+    public Status parse() {
+        byte[] data = buffer.array();
+        int limit = buffer.position();
+
+        while (state != STATE_DONE) {
+            int lf = indexOf(data, scan, limit, (byte) '\n');
+            if (lf < 0) {
+                scan = limit;
+                return limit >= MAX_HEADER_SIZE ? Status.TOO_LARGE : Status.INCOMPLETE;
+            }
+            int lineEnd = (lf > lineStart && data[lf - 1] == '\r') ? lf - 1 : lf;
+
+            if (state == STATE_REQUEST_LINE) {
+                if (lineEnd > lineStart) {
+                    if (!parseRequestLine(data, lineStart, lineEnd)) {
+                        return Status.INVALID;
+                    }
+                    state = STATE_HEADERS;
+                }
+            } else if (lineEnd == lineStart) {
+                // Con ambos headers el largo es ambiguo (request smuggling)
+                if (chunked && contentLength >= 0) {
+                    return Status.INVALID;
+                }
+                bodyStart = lf + 1;
+                state = STATE_DONE;
+                break;
+            } else {
+                if (headerCount == MAX_HEADERS) {
+                    return Status.TOO_LARGE;
+                }
+                if (!parseHeaderLine(data, lineStart, lineEnd)) {
+                    return Status.INVALID;
+                }
+            }
+            lineStart = lf + 1;
+            scan = lf + 1;
+        }
+        return Status.COMPLETE;
+    }
+
+    private boolean parseRequestLine(byte[] data, int from, int to) {
+        int sp1 = indexOf(data, from, to, (byte) ' ');
+        if (sp1 <= from) {
+            return false;
+        }
+        for (int i = from; i < sp1; i++) {
+            if (!isTokenChar(data[i])) {
+                return false;
+            }
+        }
+        methodStart = from;
+        methodEnd = sp1;
+
+        int sp2 = indexOf(data, sp1 + 1, to, (byte) ' ');
+        targetStart = sp1 + 1;
+        targetEnd = sp2 < 0 ? to : sp2;
+        if (targetEnd == targetStart) {
+            return false;
+        }
+        for (int i = targetStart; i < targetEnd; i++) {
+            byte b = data[i];
+            if (b <= 0x20 || b >= 0x7F) {
+                return false;
+            }
+            if (b == '?' && queryStart < 0) {
+                queryStart = i + 1;
+            }
+        }
+
+        if (sp2 < 0) {
+            // Petición sin versión (estilo HTTP/0.9): se trata como HTTP/1.0
+            versionStart = versionEnd = -1;
+            return true;
+        }
+        versionStart = sp2 + 1;
+        versionEnd = to;
+        return versionEnd - versionStart == 8 && startsWith(data, versionStart, "HTTP/");
+    }
+
+    private boolean parseHeaderLine(byte[] data, int from, int to) {
+        if (data[from] == ' ' || data[from] == '\t') {
+            return false; // obs-fold no soportado
+        }
+        int colon = indexOf(data, from, to, (byte) ':');
+        if (colon <= from) {
+            return false;
+        }
+        int nameEnd = colon;
+        while (nameEnd > from && isWhitespace(data[nameEnd - 1])) {
+            nameEnd--;
+        }
+        int valueStart = colon + 1;
+        while (valueStart < to && isWhitespace(data[valueStart])) {
+            valueStart++;
+        }
+        int valueEnd = to;
+        while (valueEnd > valueStart && isWhitespace(data[valueEnd - 1])) {
+            valueEnd--;
+        }
+
+        String token = Headers.knownName(data, from, nameEnd);
+        if (token == Headers.CONTENT_LENGTH) {
+            long length = parseDecimal(data, valueStart, valueEnd);
+            if (length < 0 || (contentLength >= 0 && contentLength != length)) {
+                return false;
+            }
+            contentLength = length;
+        } else if (token == Headers.TRANSFER_ENCODING) {
+            // Solo se acepta chunked como última codificación: con cualquier
+            // otra no se puede saber dónde termina el cuerpo
+            int last = valueEnd;
+            while (last > valueStart && data[last - 1] != ',') {
+                last--;
+            }
+            while (last < valueEnd && isWhitespace(data[last])) {
+                last++;
+            }
+            if (chunked || !equalsIgnoreCase(data, last, valueEnd, "chunked")) {
+                return false;
+            }
+            chunked = true;
+        }
+
+        int slot = headerCount * 4;
+        if (slot + 4 > headerSlices.length) {
+            headerSlices = Arrays.copyOf(headerSlices, headerSlices.length * 2);
+            headerValues = Arrays.copyOf(headerValues, headerValues.length * 2);
+            headerTokens = Arrays.copyOf(headerTokens, headerTokens.length * 2);
+        }
+        headerTokens[headerCount] = token;
+        headerSlices[slot] = from;
+        headerSlices[slot + 1] = nameEnd;
+        headerSlices[slot + 2] = valueStart;
+        headerSlices[slot + 3] = valueEnd;
+        headerCount++;
+        return true;
+    }
+
+    /**
+     * Indica si el cuerpo (según Content-Length) ya está completo en el buffer.
+     * Un cuerpo chunked nunca se considera completo: se lee en streaming.
+     */
+    public boolean isBodyComplete() {
+        return state == STATE_DONE && !chunked && buffer.position() >= requestEnd();
+    }
+
+    /**
+     * Descarta los bytes del cuerpo anteriores a {@code from}, ya entregados
+     * por un {@link RequestBodyStream}, moviendo el resto al inicio del
+     * cuerpo. Los headers no se tocan.
+     */
+    void discardBody(int from) {
+        int pending = buffer.position() - from;
+        if (from > bodyStart) {
+            System.arraycopy(buffer.array(), from, buffer.array(), bodyStart, pending);
+            buffer.position(bodyStart + pending);
+        }
+    }
+
+    /**
+     * Marca el fin del cuerpo leído en streaming; los bytes posteriores son de
+     * la siguiente petición.
+     */
+    void endBody(int end) {
+        bodyEnd = end;
+    }
+
+    /**
+     * Descarta la petición actual y conserva los bytes de la siguiente
+     * (pipelining) al inicio del buffer.
+     */
+    public void next() {
+        int end = Math.min(requestEnd(), buffer.position());
+        buffer.flip();
+        buffer.position(end);
+        buffer.compact();
+        reset();
+    }
+
+    /**
+     * Bytes ya recibidos que pertenecen a peticiones posteriores a la actual.
+     */
+    public int pendingBytes() {
+        return state == STATE_DONE ? Math.max(0, buffer.position() - requestEnd()) : buffer.position();
+    }
+
+    private int requestEnd() {
+        return bodyEnd >= 0 ? bodyEnd : bodyStart + (int) Math.max(contentLength, 0);
+    }
+
+    private void reset() {
+        state = STATE_REQUEST_LINE;
+        scan = 0;
+        lineStart = 0;
+        methodStart = methodEnd = 0;
+        targetStart = targetEnd = 0;
+        queryStart = -1;
+        versionStart = versionEnd = -1;
+        for (int i = 0; i < headerCount; i++) {
+            headerValues[i] = null;
+            headerTokens[i] = null;
+        }
+        headerCount = 0;
+        bodyStart = 0;
+        contentLength = -1;
+        chunked = false;
+        bodyEnd = -1;
+        method = null;
+        path = null;
+        query = null;
+        target = null;
+    }
+
+    // ==================== ACCESO PEREZOSO ====================
+    /**
+     * Método HTTP en mayúsculas. Los métodos conocidos se devuelven como
+     * constantes, sin crear un String nuevo.
+     */
+    public String method() {
+        if (method == null) {
+            byte[] data = buffer.array();
+            for (String known : KNOWN_METHODS) {
+                if (equalsIgnoreCase(data, methodStart, methodEnd, known)) {
+                    method = known;
+                    return method;
+                }
+            }
+            method = new String(data, methodStart, methodEnd - methodStart, StandardCharsets.US_ASCII).toUpperCase();
+        }
+        return method;
+    }
+
+    /**
+     * Request target tal como llegó (ruta + query, sin decodificar).
+     */
+    public String target() {
+        if (target == null) {
+            target = new String(buffer.array(), targetStart, targetEnd - targetStart, StandardCharsets.US_ASCII);
+        }
+        return target;
+    }
+
+    /**
+     * Ruta de la petición con los escapes %XX decodificados (equivalente a
+     * URI.getPath()). Solo se decodifica si la ruta contiene escapes.
+     */
+    public String path() {
+        if (path == null) {
+            int end = queryStart < 0 ? targetEnd : queryStart - 1;
+            path = decode(buffer.array(), targetStart, end, false);
+        }
+        return path;
+    }
+
+    /**
+     * Query string sin decodificar, o null si la petición no tiene.
+     */
+    public String query() {
+        if (query == null && queryStart >= 0) {
+            query = new String(buffer.array(), queryStart, targetEnd - queryStart, StandardCharsets.US_ASCII);
+        }
+        return query;
+    }
+
+    /**
+     * Versión HTTP ("HTTP/1.0" si la línea de petición no la indica).
+     */
+    public String version() {
+        if (versionStart < 0) {
+            return "HTTP/1.0";
+        }
+        byte minor = buffer.array()[versionEnd - 1];
+        if (buffer.array()[versionEnd - 3] == '1') {
+            if (minor == '1') {
+                return "HTTP/1.1";
+            }
+            if (minor == '0') {
+                return "HTTP/1.0";
+            }
+        }
+        return new String(buffer.array(), versionStart, versionEnd - versionStart, StandardCharsets.US_ASCII);
+    }
+
+    public int headerCount() {
+        return headerCount;
+    }
+
+    /**
+     * Nombre del header en la posición indicada: la constante de
+     * {@link Headers} si es un header conocido, o tal como lo envió el cliente.
+     */
+    public String headerName(int index) {
+        String token = headerTokens[index];
+        if (token != null) {
+            return token;
+        }
+        int slot = index * 4;
+        return new String(buffer.array(), headerSlices[slot], headerSlices[slot + 1] - headerSlices[slot],
+                StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Valor del header en la posición indicada (decodificado una sola vez).
+     */
+    public String headerValue(int index) {
+        String value = headerValues[index];
+        if (value == null) {
+            int slot = index * 4;
+            value = new String(buffer.array(), headerSlices[slot + 2], headerSlices[slot + 3] - headerSlices[slot + 2],
+                    StandardCharsets.UTF_8);
+            headerValues[index] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Busca un header comparando el nombre sin distinguir mayúsculas
+     * directamente sobre los bytes.
+     *
+     * @return índice del header o -1 si no existe
+     */
+    public int indexOfHeader(String name) {
+        for (int i = 0; i < headerCount; i++) {
+            if (headerNameEquals(i, name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compara el nombre del header en esa posición; con una constante de
+     * {@link Headers} basta la comparación de identidad.
+     */
+    boolean headerNameEquals(int index, String name) {
+        String token = headerTokens[index];
+        if (token == name) {
+            return true;
+        }
+        int slot = index * 4;
+        return equalsIgnoreCase(buffer.array(), headerSlices[slot], headerSlices[slot + 1], name);
+    }
+
+    /**
+     * Valor de un header (sin distinguir mayúsculas en el nombre), o null.
+     */
+    public String header(String name) {
+        int index = indexOfHeader(name);
+        return index < 0 ? null : headerValue(index);
+    }
+
+    /**
+     * Compara el valor de un header sin crear Strings (ej: "Connection: close").
+     */
+    public boolean headerEquals(String name, String value) {
+        int index = indexOfHeader(name);
+        if (index < 0) {
+            return false;
+        }
+        int slot = index * 4;
+        return equalsIgnoreCase(buffer.array(), headerSlices[slot + 2], headerSlices[slot + 3], value);
+    }
+
+    /**
+     * Valor de Content-Length, o -1 si la petición no lo incluye.
+     */
+    public long contentLength() {
+        return contentLength;
+    }
+
+    /**
+     * Indica si el cuerpo usa Transfer-Encoding: chunked.
+     */
+    public boolean isChunked() {
+        return chunked;
+    }
+
+    /**
+     * Arreglo subyacente del buffer (para leer el cuerpo sin copiarlo).
+     */
+    public byte[] array() {
+        return buffer.array();
+    }
+
+    /**
+     * Posición del primer byte del cuerpo dentro de {@link #array()}.
+     */
+    public int bodyOffset() {
+        return bodyStart;
+    }
+
+    // ==================== UTILIDADES DE BYTES ====================
+    private static int indexOf(byte[] data, int from, int to, byte value) {
+        for (int i = from; i < to; i++) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean startsWith(byte[] data, int from, String prefix) {
+        for (int i = 0; i < prefix.length(); i++) {
+            if (data[from + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean equalsIgnoreCase(byte[] data, int from, int to, String value) {
+        if (to - from != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (toLower(data[from + i]) != toLower((byte) value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte toLower(byte b) {
+        return (b >= 'A' && b <= 'Z') ? (byte) (b + 32) : b;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t';
+    }
+
+    private static boolean isTokenChar(byte b) {
+        return b > 0x20 && b < 0x7F && b != '(' && b != ')' && b != '<' && b != '>' && b != '@'
+                && b != ',' && b != ';' && b != ':' && b != '\\' && b != '"' && b != '/'
+                && b != '[' && b != ']' && b != '?' && b != '=' && b != '{' && b != '}';
+    }
+
+    private static long parseDecimal(byte[] data, int from, int to) {
+        if (from == to || to - from > 18) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            byte b = data[i];
+            if (b < '0' || b > '9') {
+                return -1;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Decodifica un slice con escapes %XX como UTF-8. Si no hay escapes (ni
+     * '+' cuando plusAsSpace) se crea el String directamente desde los bytes.
+     * Los escapes inválidos se dejan tal cual.
+     */
+    static String decode(byte[] data, int from, int to, boolean plusAsSpace) {
+        int i = from;
+        while (i < to && data[i] != '%' && !(plusAsSpace && data[i] == '+')) {
+            i++;
+        }
+        if (i == to) {
+            return new String(data, from, to - from, StandardCharsets.UTF_8);
+        }
+
+        byte[] out = new byte[to - from];
+        int n = i - from;
+        System.arraycopy(data, from, out, 0, n);
+        for (; i < to; i++) {
+            byte b = data[i];
+            if (b == '%' && i + 2 < to && hexValue(data[i + 1]) >= 0 && hexValue(data[i + 2]) >= 0) {
+                out[n++] = (byte) ((hexValue(data[i + 1]) << 4) | hexValue(data[i + 2]));
+                i += 2;
+            } else if (plusAsSpace && b == '+') {
+                out[n++] = ' ';
+            } else {
+                out[n++] = b;
+            }
+        }
+        return new String(out, 0, n, StandardCharsets.UTF_8);
+    }
+
+    private static int hexValue(byte b) {
+        if (b >= '0' && b <= '9') {
+            return b - '0';
+        }
+        if (b >= 'a' && b <= 'f') {
+            return b - 'a' + 10;
+        }
+        if (b >= 'A' && b <= 'F') {
+            return b - 'A' + 10;
+        }
+        return -1;
+    }
+}
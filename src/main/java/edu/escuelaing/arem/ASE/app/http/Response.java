@@ -1,5 +1,8 @@
     package edu.escuelaing.arem.ASE.app.http;
 
+    import java.io.ByteArrayOutputStream;
+    import java.io.IOException;
+    import java.io.UncheckedIOException;
     import java.nio.charset.StandardCharsets;
     import java.util.HashMap;
     import java.util.Map;
@@ -16,48 +19,114 @@
         private final int status;
         private final String contentType;
         private byte[] bodyBytes;
-        private boolean includeContentLength;
+        private boolean omitBody;
         private final Map<String, String> extraHeaders;
+        // Línea de estado y headers ya codificados (sin la línea en blanco final)
+        private final byte[] preEncodedHead;
+        // Cuerpo tomado directamente de un archivo, sin copiarlo al heap
+        private final FileRegion fileBody;
+        // Cuerpo generado en streaming (null si está en memoria)
+        private final BodyWriter bodyWriter;
+        // Longitud anunciada del cuerpo en streaming, o -1 si no se conoce
+        private final long streamLength;
+        private boolean chunked;
 
         private Response(Builder builder) {
             this.status = builder.status;
             this.contentType = builder.contentType;
             this.bodyBytes = builder.bodyBytes;
-            this.includeContentLength = builder.includeContentLength;
             this.extraHeaders = builder.extraHeaders;
+            this.preEncodedHead = null;
+            this.fileBody = null;
+            this.bodyWriter = builder.bodyWriter;
+            this.streamLength = builder.streamLength;
+            this.chunked = bodyWriter != null && streamLength < 0;
         }
 
-         /**
-         * Genera solo los headers HTTP en bytes.
+        private Response(int status, byte[] preEncodedHead, byte[] bodyBytes, FileRegion fileBody) {
+            this.status = status;
+            this.contentType = null;
+            this.bodyBytes = bodyBytes;
+            this.extraHeaders = new HashMap<>(2);
+            this.preEncodedHead = preEncodedHead;
+            this.fileBody = fileBody;
+            this.bodyWriter = null;
+            this.streamLength = -1;
+        }
+
+        /**
+         * Crea una respuesta a partir de una cabecera ya serializada (línea de
+         * estado y headers terminados en CRLF, sin la línea en blanco final).
+         * Los arreglos se comparten sin copiarse, por lo que no deben
+         * modificarse; los headers agregados con setHeader (por ejemplo
+         * Connection) se escriben después de la cabecera pre-serializada.
          *
-         * @return headers formateados como arreglo de bytes
+         * @param status Código de estado ya incluido en la cabecera
+         * @param head Cabecera pre-serializada
+         * @param bodyBytes Cuerpo de la respuesta
          */
-        public byte[] getHeaderBytes() {
-            StringBuilder headers = new StringBuilder();
-            headers.append("HTTP/1.1 ").append(status).append(" ").append(getStatusText()).append("\r\n");
-            headers.append("Content-Type: ").append(contentType).append("\r\n");
+        static Response preEncoded(int status, byte[] head, byte[] bodyBytes) {
+            return new Response(status, head, bodyBytes, null);
+        }
 
-            if (includeContentLength && bodyBytes != null && bodyBytes.length > 0) {
-                headers.append("Content-Length: ").append(bodyBytes.length).append("\r\n");
-            }
+        /**
+         * Crea una respuesta pre-serializada cuyo cuerpo es una región de un
+         * archivo. Los motores la envían con FileChannel.transferTo; la
+         * cabecera debe incluir el Content-Length de la región.
+         */
+        static Response preEncodedFile(int status, byte[] head, FileRegion fileBody) {
+            return new Response(status, head, new byte[0], fileBody);
+        }
 
-            // Agregar headers adicionales
-            for (Map.Entry<String, String> entry : extraHeaders.entrySet()) {
-                headers.append(entry.getKey()).append(": ").append(entry.getValue()).append("\r\n");
-            }
+        /**
+         * Región de archivo a enviar como cuerpo, o null si el cuerpo está en
+         * memoria o se omite (HEAD).
+         */
+        FileRegion getFileRegion() {
+            return omitBody ? null : fileBody;
+        }
 
-            headers.append("\r\n"); // Línea en blanco que separa headers y body
-            return headers.toString().getBytes(StandardCharsets.UTF_8);
+         /**
+         * Genera solo los headers HTTP en bytes (incluye Date).
+         *
+         * @return headers formateados como arreglo de bytes
+         */
+        public byte[] getHeaderBytes() {
+            return ResponseWriter.headBytes(this);
         }
 
          /**
-         * Construye la respuesta completa (headers + body) en bytes.
+         * Construye la respuesta completa (headers + body) en bytes. Los motores
+         * no pasan por aquí: escriben cabecera y cuerpo por separado con
+         * {@link ResponseWriter}, sin copiar el cuerpo.
          *
          * @return respuesta HTTP lista para enviar al cliente
          */
         public byte[] toBytes() {
             byte[] headerBytes = getHeaderBytes();
-            int bodyLength = (bodyBytes != null && bodyBytes.length > 0) ? bodyBytes.length : 0;
+            if (bodyWriter != null && !omitBody) {
+                // Camino de compatibilidad: el cuerpo en streaming se acumula
+                // con el mismo framing que enviarían los motores
+                try {
+                    ByteArrayOutputStream buffer = new ByteArrayOutputStream(headerBytes.length + BodyOutputStream.CHUNK_SIZE);
+                    buffer.write(headerBytes);
+                    ResponseWriter.writeBody(this, buffer);
+                    return buffer.toByteArray();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            FileRegion file = getFileRegion();
+            if (file != null) {
+                // Camino de compatibilidad: los motores envían el archivo con
+                // transferTo sin pasar por aquí
+                try {
+                    return concat(headerBytes, file.readAllBytes());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            int bodyLength = (!omitBody && bodyBytes != null) ? bodyBytes.length : 0;
 
             byte[] response = new byte[headerBytes.length + bodyLength];
 
@@ -70,45 +139,183 @@
             return response;
         }
 
+        private static byte[] concat(byte[] head, byte[] body) {
+            byte[] response = new byte[head.length + body.length];
+            System.arraycopy(head, 0, response, 0, head.length);
+            System.arraycopy(body, 0, response, head.length, body.length);
+            return response;
+        }
+
          /**
-         * Traduce un código de estado a su texto correspondiente (ej: 200 -> OK).
+         * Texto del estado de esta respuesta (ej: 200 -> OK).
          *
          * @return descripción textual del estado
          */
-        private String getStatusText() {
+        public String getStatusText() {
+            String reason = reasonPhrase(status);
+            return reason != null ? reason : "Unknown";
+        }
+
+         /**
+         * Frase de estado registrada en IANA para un código (RFC 9110 y
+         * extensiones), o null si el código no está registrado.
+         */
+        static String reasonPhrase(int status) {
             return switch (status) {
-                case 200 ->
-                    "OK";
-                case 201 ->
-                    "Created";
-                case 204 ->
-                    "No Content";
-                case 400 ->
-                    "Bad Request";
-                case 401 ->
-                    "Unauthorized";
-                case 403 ->
-                    "Forbidden";
-                case 404 ->
-                    "Not Found";
-                case 500 ->
-                    "Internal Server Error";
-                default ->
-                    "Unknown";
+                case 100 -> "Continue";
+                case 101 -> "Switching Protocols";
+                case 102 -> "Processing";
+                case 103 -> "Early Hints";
+                case 200 -> "OK";
+                case 201 -> "Created";
+                case 202 -> "Accepted";
+                case 203 -> "Non-Authoritative Information";
+                case 204 -> "No Content";
+                case 205 -> "Reset Content";
+                case 206 -> "Partial Content";
+                case 207 -> "Multi-Status";
+                case 208 -> "Already Reported";
+                case 226 -> "IM Used";
+                case 300 -> "Multiple Choices";
+                case 301 -> "Moved Permanently";
+                case 302 -> "Found";
+                case 303 -> "See Other";
+                case 304 -> "Not Modified";
+                case 305 -> "Use Proxy";
+                case 307 -> "Temporary Redirect";
+                case 308 -> "Permanent Redirect";
+                case 400 -> "Bad Request";
+                case 401 -> "Unauthorized";
+                case 402 -> "Payment Required";
+                case 403 -> "Forbidden";
+                case 404 -> "Not Found";
+                case 405 -> "Method Not Allowed";
+                case 406 -> "Not Acceptable";
+                case 407 -> "Proxy Authentication Required";
+                case 408 -> "Request Timeout";
+                case 409 -> "Conflict";
+                case 410 -> "Gone";
+                case 411 -> "Length Required";
+                case 412 -> "Precondition Failed";
+                case 413 -> "Content Too Large";
+                case 414 -> "URI Too Long";
+                case 415 -> "Unsupported Media Type";
+                case 416 -> "Range Not Satisfiable";
+                case 417 -> "Expectation Failed";
+                case 421 -> "Misdirected Request";
+                case 422 -> "Unprocessable Content";
+                case 423 -> "Locked";
+                case 424 -> "Failed Dependency";
+                case 425 -> "Too Early";
+                case 426 -> "Upgrade Required";
+                case 428 -> "Precondition Required";
+                case 429 -> "Too Many Requests";
+                case 431 -> "Request Header Fields Too Large";
+                case 451 -> "Unavailable For Legal Reasons";
+                case 500 -> "Internal Server Error";
+                case 501 -> "Not Implemented";
+                case 502 -> "Bad Gateway";
+                case 503 -> "Service Unavailable";
+                case 504 -> "Gateway Timeout";
+                case 505 -> "HTTP Version Not Supported";
+                case 506 -> "Variant Also Negotiates";
+                case 507 -> "Insufficient Storage";
+                case 508 -> "Loop Detected";
+                case 510 -> "Not Extended";
+                case 511 -> "Network Authentication Required";
+                default -> null;
             };
         }
 
         public void setBody(String body) {
-            this.includeContentLength = true;
             this.bodyBytes = body.getBytes(StandardCharsets.UTF_8);
         }
 
         public void setBodyBytes(byte[] bodyBytes) {
-            this.includeContentLength = true;
             this.bodyBytes = bodyBytes;
 
         }
 
+        /**
+         * Agrega o reemplaza un header de la respuesta.
+         */
+        public void setHeader(String name, String value) {
+            this.extraHeaders.put(name, value);
+        }
+
+        /**
+         * Obtiene el valor de un header adicional (ej: "Connection").
+         *
+         * @return el valor del header o null si no está definido
+         */
+        public String getHeader(String name) {
+            return extraHeaders.get(name);
+        }
+
+        /**
+         * Indica que solo deben enviarse los headers (respuesta a HEAD). El
+         * Content-Length se mantiene con la longitud que tendría el cuerpo.
+         */
+        public void setOmitBody(boolean omitBody) {
+            this.omitBody = omitBody;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public byte[] getBodyBytes() {
+            return bodyBytes;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * Generador del cuerpo en streaming, o null si el cuerpo está en
+         * memoria.
+         */
+        public BodyWriter getBodyWriter() {
+            return bodyWriter;
+        }
+
+        boolean isStreaming() {
+            return bodyWriter != null;
+        }
+
+        long getStreamLength() {
+            return streamLength;
+        }
+
+        /**
+         * Indica si el cuerpo en streaming se envía con Transfer-Encoding:
+         * chunked.
+         */
+        boolean isChunked() {
+            return chunked;
+        }
+
+        /**
+         * Desactiva chunked para clientes que no lo soportan (HTTP/1.0): el
+         * cuerpo se envía sin delimitar y termina al cerrar la conexión.
+         */
+        void disableChunked() {
+            chunked = false;
+        }
+
+        boolean isBodyOmitted() {
+            return omitBody;
+        }
+
+        byte[] getPreEncodedHead() {
+            return preEncodedHead;
+        }
+
+        Map<String, String> getExtraHeaders() {
+            return extraHeaders;
+        }
+
          /**
          * Builder para crear instancias de Response de forma flexible.
          *
@@ -117,6 +324,9 @@
          * - withContentType(String): define el tipo de contenido
          * - withBody(String): cuerpo como texto
          * - withBodyBytes(byte[]): cuerpo como bytes
+         * - withJson(Object): cuerpo serializado como JSON
+         * - withBodyWriter(BodyWriter): cuerpo en streaming (chunked)
+         * - withBodyWriter(BodyWriter, long): cuerpo en streaming de longitud conocida
          * - addHeader(String, String): agrega encabezados personalizados
          * - build(): construye el objeto Response
          */
@@ -125,8 +335,9 @@
             private int status = 200;
             private String contentType = "application/json";
             private byte[] bodyBytes = new byte[0];
-            private boolean includeContentLength = false;
             private Map<String, String> extraHeaders = new HashMap<>();
+            private BodyWriter bodyWriter;
+            private long streamLength = -1;
 
             public Builder withStatus(int status) {
                 this.status = status;
@@ -139,17 +350,45 @@
             }
 
             public Builder withBody(String body) {
-                this.includeContentLength = true;
                 this.bodyBytes = body.getBytes(StandardCharsets.UTF_8);
                 return this;
             }
 
             public Builder withBodyBytes(byte[] bodyBytes) {
-                this.includeContentLength = true;
                 this.bodyBytes = bodyBytes;
                 return this;
             }
 
+            /**
+             * Cuerpo JSON serializado con {@link JsonWriter} (records, mapas,
+             * colecciones, primitivos); fija el Content-Type a
+             * application/json.
+             */
+            public Builder withJson(Object value) {
+                this.contentType = "application/json";
+                this.bodyBytes = JsonWriter.toJson(value);
+                return this;
+            }
+
+            /**
+             * Cuerpo generado en streaming de longitud desconocida; se envía
+             * con Transfer-Encoding: chunked.
+             */
+            public Builder withBodyWriter(BodyWriter bodyWriter) {
+                return withBodyWriter(bodyWriter, -1);
+            }
+
+            /**
+             * Cuerpo generado en streaming que anuncia Content-Length. El
+             * writer debe escribir exactamente esa cantidad de bytes.
+             */
+            public Builder withBodyWriter(BodyWriter bodyWriter, long contentLength) {
+                this.bodyWriter = bodyWriter;
+                this.streamLength = contentLength;
+                this.bodyBytes = new byte[0];
+                return this;
+            }
+
             public Builder addHeader(String name, String value) {
                 this.extraHeaders.put(name, value);
                 return this;
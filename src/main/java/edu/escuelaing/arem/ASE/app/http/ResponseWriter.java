@@ -0,0 +1,242 @@
+package edu.escuelaing.arem.ASE.app.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+/**
+ * Serializa respuestas para escribirlas con una escritura agrupada
+ * (gathering write).
+ *
+ * La cabecera se codifica en un buffer que cada conexión reutiliza entre
+ * respuestas, a partir de líneas de estado y nombres de header ya codificados;
+ * el cuerpo se envía como un segundo ByteBuffer que envuelve el arreglo de la
+ * respuesta, sin copiarlo. El header Date se formatea como mucho una vez por
+ * segundo y se comparte entre todas las conexiones.
+ *
+ * Una instancia pertenece a una conexión y no es thread-safe.
+ *
+ * @author jgamb
+ * @version 1.0
+ * @since 3.0
+ */
+final class ResponseWriter {
+
+    private static final int INITIAL_HEAD_CAPACITY = 512;
+
+    // "HTTP/1.1 200 OK\r\n" para cada código conocido
+    private static final byte[][] STATUS_LINES = new byte[600][];
+    private static final byte[] CONTENT_TYPE = ascii("Content-Type: ");
+    private static final byte[] CONTENT_LENGTH = ascii("Content-Length: ");
+    private static final byte[] TRANSFER_ENCODING_CHUNKED = ascii("Transfer-Encoding: chunked\r\n");
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+    // Respuesta provisional a "Expect: 100-continue"
+    static final byte[] CONTINUE = ascii("HTTP/1.1 100 Continue\r\n\r\n");
+
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME;
+    private static volatile DateLine dateLine;
+
+    static {
+        for (int status = 100; status < STATUS_LINES.length; status++) {
+            String reason = Response.reasonPhrase(status);
+            if (reason != null) {
+                STATUS_LINES[status] = ascii("HTTP/1.1 " + status + " " + reason + "\r\n");
+            }
+        }
+    }
+
+    private ByteBuffer head = ByteBuffer.allocate(INITIAL_HEAD_CAPACITY);
+    private final ByteBuffer[] buffers = new ByteBuffer[2];
+
+    /**
+     * Codifica la respuesta. El primer buffer (cabecera) se reutiliza en la
+     * siguiente llamada, así que debe terminar de escribirse antes.
+     *
+     * @return {cabecera, cuerpo}; el cuerpo está vacío si se omite (HEAD), si
+     * es una región de archivo o si se genera en streaming
+     */
+    ByteBuffer[] encode(Response response) {
+        head.clear();
+        encodeHead(response);
+        head.flip();
+        buffers[0] = head;
+        byte[] body = response.getBodyBytes();
+        buffers[1] = response.isBodyOmitted() || response.isStreaming() || response.getFileRegion() != null
+                || body == null || body.length == 0 ? EMPTY : ByteBuffer.wrap(body);
+        // Los bytes enviados los cuentan los motores a medida que se escriben
+        return buffers;
+    }
+
+    /**
+     * Escribe los buffers completos en un canal bloqueante con escrituras
+     * agrupadas.
+     */
+    static void writeFully(ByteBuffer[] buffers, GatheringByteChannel channel) throws IOException {
+        ByteBuffer last = buffers[buffers.length - 1];
+        while (buffers[0].hasRemaining() || last.hasRemaining()) {
+            channel.write(buffers);
+        }
+    }
+
+    /**
+     * Escribe el cuerpo en streaming de la respuesta (si tiene uno y no se
+     * omite) con el framing anunciado en la cabecera.
+     */
+    static void writeBody(Response response, OutputStream out) throws IOException {
+        BodyWriter body = response.getBodyWriter();
+        if (body == null || response.isBodyOmitted()) {
+            return;
+        }
+        BodyOutputStream stream = BodyOutputStream.forResponse(response, out);
+        body.writeTo(stream);
+        stream.finish();
+    }
+
+    /**
+     * Cabecera completa en un arreglo nuevo (caminos que necesitan byte[]).
+     */
+    static byte[] headBytes(Response response) {
+        ResponseWriter writer = new ResponseWriter();
+        writer.head.clear();
+        writer.encodeHead(response);
+        byte[] bytes = new byte[writer.head.position()];
+        writer.head.flip();
+        writer.head.get(bytes);
+        return bytes;
+    }
+
+    private void encodeHead(Response response) {
+        byte[] preEncoded = response.getPreEncodedHead();
+        if (preEncoded != null) {
+            put(preEncoded);
+        } else {
+            put(statusLine(response.getStatus()));
+            put(CONTENT_TYPE);
+            putString(String.valueOf(response.getContentType()));
+            put(CRLF);
+            // Content-Length siempre presente (incluso 0): sin él el cliente no
+            // puede delimitar la respuesta en una conexión persistente
+            if (response.isChunked()) {
+                put(TRANSFER_ENCODING_CHUNKED);
+            } else if (!response.isStreaming() || response.getStreamLength() >= 0) {
+                put(CONTENT_LENGTH);
+                byte[] body = response.getBodyBytes();
+                putDecimal(response.isStreaming() ? response.getStreamLength() : body != null ? body.length : 0);
+                put(CRLF);
+            }
+        }
+
+        Map<String, String> extra = response.getExtraHeaders();
+        if (!extra.containsKey("Date")) {
+            put(dateLine());
+        }
+        for (Map.Entry<String, String> entry : extra.entrySet()) {
+            putString(entry.getKey());
+            ensure(2);
+            head.put((byte) ':').put((byte) ' ');
+            putString(entry.getValue());
+            put(CRLF);
+        }
+        put(CRLF);
+    }
+
+    /**
+     * Línea de estado ya codificada.
+     */
+    static byte[] statusLine(int status) {
+        if (status >= 0 && status < STATUS_LINES.length && STATUS_LINES[status] != null) {
+            return STATUS_LINES[status];
+        }
+        return ascii("HTTP/1.1 " + status + " Unknown\r\n");
+    }
+
+    /**
+     * "Date: ...\r\n" del segundo actual; se regenera solo cuando cambia el
+     * segundo.
+     */
+    static byte[] dateLine() {
+        long second = System.currentTimeMillis() / 1000;
+        DateLine current = dateLine;
+        if (current == null || current.second != second) {
+            String date = HTTP_DATE.format(ZonedDateTime.ofInstant(Instant.ofEpochSecond(second), ZoneOffset.UTC));
+            current = new DateLine(second, ascii("Date: " + date + "\r\n"));
+            dateLine = current;
+        }
+        return current.bytes;
+    }
+
+    // ==================== CODIFICACIÓN ====================
+    private void ensure(int bytes) {
+        if (head.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(head.capacity() * 2, head.position() + bytes));
+            head.flip();
+            larger.put(head);
+            head = larger;
+        }
+    }
+
+    private void put(byte[] bytes) {
+        ensure(bytes.length);
+        head.put(bytes);
+    }
+
+    /**
+     * Escribe un String como ASCII sin crear arreglos intermedios; los
+     * caracteres no ASCII se codifican en UTF-8.
+     */
+    private void putString(String value) {
+        int length = value.length();
+        ensure(length);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                head.put((byte) c);
+            } else {
+                put(value.substring(i).getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+        }
+    }
+
+    private void putDecimal(long value) {
+        if (value == 0) {
+            ensure(1);
+            head.put((byte) '0');
+            return;
+        }
+        int digits = 0;
+        for (long v = value; v > 0; v /= 10) {
+            digits++;
+        }
+        ensure(digits);
+        int end = head.position() + digits;
+        for (int i = end - 1; i >= head.position(); i--) {
+            head.put(i, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        head.position(end);
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static final class DateLine {
+
+        final long second;
+        final byte[] bytes;
+
+        DateLine(long second, byte[] bytes) {
+            this.second = second;
+            this.bytes = bytes;
+        }
+    }
+}
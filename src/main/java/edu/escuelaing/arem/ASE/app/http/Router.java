@@ -0,0 +1,532 @@
+package edu.escuelaing.arem.ASE.app.http;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Tabla de rutas en forma de árbol radix con variables de ruta y despacho por
+ * método.
+ *
+ * Los patrones admiten segmentos estáticos, variables que ocupan un segmento
+ * completo ({@code /users/{id}}) y un comodín final que captura el resto de la
+ * ruta ({@code /static/*}). Ante varias alternativas gana el prefijo estático,
+ * luego la variable y por último el comodín, retrocediendo si una rama no
+ * llega a una ruta.
+ *
+ * El árbol es inmutable: cada registro construye uno nuevo y lo publica en un
+ * campo volatile, así las búsquedas no toman locks ni ven tablas a medio
+ * construir. La búsqueda compara caracteres sobre la ruta original y guarda
+ * las capturas como posiciones; para rutas sin variables no reserva memoria.
+ *
+ * @author jgamb
+ * @version 1.0
+ * @since 3.0
+ */
+public final class Router {
+
+    // Métodos con handler propio; HEAD y OPTIONS se derivan de ellos
+    private static final String[] METHODS = {"GET", "POST", "PUT", "DELETE", "PATCH"};
+
+    private static final ThreadLocal<int[]> SCRATCH = ThreadLocal.withInitial(() -> new int[16]);
+
+    private final List<RouteDefinition> definitions = new ArrayList<>();
+    private volatile Table table = new Table(new Node("", new char[0], new Node[0], null, null, null), 0);
+
+    /**
+     * Registra (o reemplaza) el handler de un método para un patrón.
+     *
+     * @param method Método HTTP (GET, POST, PUT, DELETE o PATCH)
+     * @param pattern Patrón de ruta, ej: "/users/{id}" o "/static/*"
+     * @param handler Handler de la ruta
+     * @throws IllegalArgumentException Si el método no es soportado, el patrón
+     * es inválido o choca con una variable ya registrada con otro nombre
+     */
+    public synchronized void add(String method, String pattern, BiFunction<Request, Response, Response> handler) {
+        int index = methodIndex(method);
+        if (index < 0) {
+            throw new IllegalArgumentException("Método no soportado para rutas: " + method);
+        }
+        if (handler == null) {
+            throw new IllegalArgumentException("El handler no puede ser null");
+        }
+        List<Token> tokens = tokenize(pattern);
+
+        List<RouteDefinition> next = new ArrayList<>(definitions);
+        RouteDefinition existing = null;
+        for (int i = 0; i < next.size(); i++) {
+            if (next.get(i).pattern.equals(pattern)) {
+                existing = next.get(i);
+                next.set(i, existing.with(index, handler));
+                break;
+            }
+        }
+        if (existing == null) {
+            next.add(new RouteDefinition(pattern, tokens, newHandlers()).with(index, handler));
+        }
+
+        // Se construye el árbol completo antes de tocar el estado visible: si
+        // el patrón choca con otro, la tabla publicada no cambia
+        MutableNode builder = new MutableNode("");
+        int params = 0;
+        for (RouteDefinition definition : next) {
+            insert(builder, definition);
+            params = Math.max(params, definition.paramNames.length);
+        }
+        Node frozen = builder.freeze();
+
+        definitions.clear();
+        definitions.addAll(next);
+        table = new Table(frozen, params);
+    }
+
+    /**
+     * Busca la ruta que corresponde a un path.
+     *
+     * @param path Ruta de la petición (ya decodificada, sin query)
+     * @return La coincidencia, o null si ningún patrón corresponde
+     */
+    public Match match(String path) {
+        if (path == null || path.isEmpty()) {
+            return null;
+        }
+        Table current = table;
+        int[] captures = current.maxParams == 0 ? null : scratch(current.maxParams);
+        Node found = find(current.root, path, 0, captures, 0);
+        if (found == null) {
+            return null;
+        }
+        Route route = found.route;
+        if (route.paramNames.length == 0) {
+            return route.noParams;
+        }
+        return new Match(route, path, Arrays.copyOf(captures, route.paramNames.length * 2));
+    }
+
+    /**
+     * Patrones registrados, en orden de registro.
+     */
+    public synchronized List<String> patterns() {
+        List<String> patterns = new ArrayList<>(definitions.size());
+        for (RouteDefinition definition : definitions) {
+            patterns.add(definition.pattern);
+        }
+        return patterns;
+    }
+
+    /**
+     * Handlers registrados para un método, por patrón y en orden de registro.
+     */
+    synchronized Map<String, BiFunction<Request, Response, Response>> handlers(String method) {
+        Map<String, BiFunction<Request, Response, Response>> handlers = new LinkedHashMap<>();
+        int index = methodIndex(method);
+        if (index >= 0) {
+            for (RouteDefinition definition : definitions) {
+                if (definition.handlers[index] != null) {
+                    handlers.put(definition.pattern, definition.handlers[index]);
+                }
+            }
+        }
+        return handlers;
+    }
+
+    // Un handler por método de METHODS; los arreglos genéricos no se pueden
+    // crear directamente
+    @SuppressWarnings("unchecked")
+    private static BiFunction<Request, Response, Response>[] newHandlers() {
+        return (BiFunction<Request, Response, Response>[]) new BiFunction<?, ?, ?>[METHODS.length];
+    }
+
+    private static int[] scratch(int params) {
+        int[] captures = SCRATCH.get();
+        if (captures.length < params * 2) {
+            captures = new int[params * 2];
+            SCRATCH.set(captures);
+        }
+        return captures;
+    }
+
+    private static int methodIndex(String method) {
+        for (int i = 0; i < METHODS.length; i++) {
+            if (METHODS[i].equals(method)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // ==================== BÚSQUEDA ====================
+    /**
+     * Recorre el árbol desde un nodo cuya etiqueta ya se consumió hasta
+     * {@code pos}.
+     */
+    private static Node find(Node node, String path, int pos, int[] captures, int captured) {
+        int length = path.length();
+        if (pos == length) {
+            if (node.route != null) {
+                return node;
+            }
+            // "/static/*" también corresponde a "/static/" con resto vacío
+            if (node.wildcard != null) {
+                captures[captured * 2] = pos;
+                captures[captured * 2 + 1] = pos;
+                return node.wildcard;
+            }
+            return null;
+        }
+
+        char c = path.charAt(pos);
+        char[] indices = node.indices;
+        for (int i = 0; i < indices.length; i++) {
+            if (indices[i] == c) {
+                Node child = node.children[i];
+                String label = child.label;
+                if (path.regionMatches(pos, label, 0, label.length())) {
+                    Node found = find(child, path, pos + label.length(), captures, captured);
+                    if (found != null) {
+                        return found;
+                    }
+                }
+                break;
+            }
+        }
+
+        if (node.param != null && c != '/') {
+            int end = path.indexOf('/', pos);
+            if (end < 0) {
+                end = length;
+            }
+            captures[captured * 2] = pos;
+            captures[captured * 2 + 1] = end;
+            Node found = find(node.param, path, end, captures, captured + 1);
+            if (found != null) {
+                return found;
+            }
+        }
+
+        if (node.wildcard != null) {
+            captures[captured * 2] = pos;
+            captures[captured * 2 + 1] = length;
+            return node.wildcard;
+        }
+        return null;
+    }
+
+    // ==================== CONSTRUCCIÓN ====================
+    private static List<Token> tokenize(String pattern) {
+        if (pattern == null || !pattern.startsWith("/")) {
+            throw new IllegalArgumentException("El patrón debe empezar con '/': " + pattern);
+        }
+        List<Token> tokens = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            boolean segmentStart = i > 0 && pattern.charAt(i - 1) == '/';
+            if (c == '{') {
+                int close = pattern.indexOf('}', i);
+                if (!segmentStart || close < 0
+                        || (close + 1 < pattern.length() && pattern.charAt(close + 1) != '/')) {
+                    throw new IllegalArgumentException("La variable debe ocupar un segmento completo: " + pattern);
+                }
+                String name = pattern.substring(i + 1, close);
+                if (name.isEmpty() || name.indexOf('/') >= 0 || name.indexOf('{') >= 0 || name.equals("*")) {
+                    throw new IllegalArgumentException("Nombre de variable inválido en " + pattern);
+                }
+                for (Token token : tokens) {
+                    if (token.kind == Token.PARAM && token.text.equals(name)) {
+                        throw new IllegalArgumentException("Variable repetida '" + name + "' en " + pattern);
+                    }
+                }
+                flushLiteral(tokens, literal);
+                tokens.add(new Token(Token.PARAM, name));
+                i = close + 1;
+            } else if (c == '*') {
+                if (!segmentStart || i != pattern.length() - 1) {
+                    throw new IllegalArgumentException("El comodín solo puede ser el último segmento: " + pattern);
+                }
+                flushLiteral(tokens, literal);
+                tokens.add(new Token(Token.WILDCARD, "*"));
+                i++;
+            } else if (c == '}') {
+                throw new IllegalArgumentException("'}' sin abrir en " + pattern);
+            } else {
+                literal.append(c);
+                i++;
+            }
+        }
+        flushLiteral(tokens, literal);
+        return tokens;
+    }
+
+    private static void flushLiteral(List<Token> tokens, StringBuilder literal) {
+        if (literal.length() > 0) {
+            tokens.add(new Token(Token.STATIC, literal.toString()));
+            literal.setLength(0);
+        }
+    }
+
+    private static void insert(MutableNode root, RouteDefinition definition) {
+        MutableNode node = root;
+        for (Token token : definition.tokens) {
+            switch (token.kind) {
+                case Token.STATIC ->
+                    node = insertStatic(node, token.text);
+                case Token.PARAM -> {
+                    if (node.param == null) {
+                        node.param = new MutableNode("");
+                        node.paramName = token.text;
+                    } else if (!node.paramName.equals(token.text)) {
+                        throw new IllegalArgumentException("La variable {" + token.text + "} de "
+                                + definition.pattern + " choca con {" + node.paramName + "} ya registrada");
+                    }
+                    node = node.param;
+                }
+                default -> {
+                    if (node.wildcard == null) {
+                        node.wildcard = new MutableNode("");
+                    }
+                    node = node.wildcard;
+                }
+            }
+        }
+        node.route = definition;
+    }
+
+    /**
+     * Inserta un tramo estático dividiendo las aristas que comparten solo un
+     * prefijo con él.
+     */
+    private static MutableNode insertStatic(MutableNode node, String text) {
+        while (!text.isEmpty()) {
+            MutableNode child = null;
+            for (MutableNode candidate : node.children) {
+                if (candidate.label.charAt(0) == text.charAt(0)) {
+                    child = candidate;
+                    break;
+                }
+            }
+            if (child == null) {
+                MutableNode created = new MutableNode(text);
+                node.children.add(created);
+                return created;
+            }
+
+            int common = 0;
+            int max = Math.min(child.label.length(), text.length());
+            while (common < max && child.label.charAt(common) == text.charAt(common)) {
+                common++;
+            }
+            if (common < child.label.length()) {
+                // El hijo conserva el sufijo; el prefijo común pasa a ser un
+                // nodo intermedio
+                MutableNode split = new MutableNode(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                split.children.add(child);
+                node.children.set(node.children.indexOf(child), split);
+                child = split;
+            }
+            node = child;
+            text = text.substring(common);
+        }
+        return node;
+    }
+
+    private static final class Token {
+
+        static final int STATIC = 0;
+        static final int PARAM = 1;
+        static final int WILDCARD = 2;
+
+        final int kind;
+        final String text;
+
+        Token(int kind, String text) {
+            this.kind = kind;
+            this.text = text;
+        }
+    }
+
+    private static final class RouteDefinition {
+
+        final String pattern;
+        final List<Token> tokens;
+        final String[] paramNames;
+        final BiFunction<Request, Response, Response>[] handlers;
+
+        RouteDefinition(String pattern, List<Token> tokens, BiFunction<Request, Response, Response>[] handlers) {
+            this.pattern = pattern;
+            this.tokens = tokens;
+            this.handlers = handlers;
+            List<String> names = new ArrayList<>();
+            for (Token token : tokens) {
+                if (token.kind != Token.STATIC) {
+                    names.add(token.text);
+                }
+            }
+            this.paramNames = names.toArray(new String[0]);
+        }
+
+        RouteDefinition with(int methodIndex, BiFunction<Request, Response, Response> handler) {
+            BiFunction<Request, Response, Response>[] copy = handlers.clone();
+            copy[methodIndex] = handler;
+            return new RouteDefinition(pattern, tokens, copy);
+        }
+    }
+
+    private static final class MutableNode {
+
+        String label;
+        final List<MutableNode> children = new ArrayList<>();
+        MutableNode param;
+        String paramName;
+        MutableNode wildcard;
+        RouteDefinition route;
+
+        MutableNode(String label) {
+            this.label = label;
+        }
+
+        Node freeze() {
+            char[] indices = new char[children.size()];
+            Node[] frozen = new Node[children.size()];
+            for (int i = 0; i < frozen.length; i++) {
+                frozen[i] = children.get(i).freeze();
+                indices[i] = frozen[i].label.charAt(0);
+            }
+            return new Node(label, indices, frozen,
+                    param != null ? param.freeze() : null,
+                    wildcard != null ? wildcard.freeze() : null,
+                    route != null ? new Route(route) : null);
+        }
+    }
+
+    /**
+     * Árbol publicado junto con el máximo de capturas de sus rutas, para que
+     * una búsqueda nunca combine datos de dos versiones.
+     */
+    private static final class Table {
+
+        final Node root;
+        final int maxParams;
+
+        Table(Node root, int maxParams) {
+            this.root = root;
+            this.maxParams = maxParams;
+        }
+    }
+
+    /**
+     * Nodo inmutable del árbol publicado.
+     */
+    private static final class Node {
+
+        final String label;
+        // Primer carácter de cada hijo estático, para elegir la arista sin
+        // comparar etiquetas completas
+        final char[] indices;
+        final Node[] children;
+        final Node param;
+        final Node wildcard;
+        final Route route;
+
+        Node(String label, char[] indices, Node[] children, Node param, Node wildcard, Route route) {
+            this.label = label;
+            this.indices = indices;
+            this.children = children;
+            this.param = param;
+            this.wildcard = wildcard;
+            this.route = route;
+        }
+    }
+
+    /**
+     * Ruta registrada: handlers por método y el header Allow ya calculado.
+     */
+    public static final class Route {
+
+        private final String pattern;
+        private final String[] paramNames;
+        private final BiFunction<Request, Response, Response>[] handlers;
+        private final String allow;
+        private final Match noParams;
+
+        private Route(RouteDefinition definition) {
+            this.pattern = definition.pattern;
+            this.paramNames = definition.paramNames;
+            this.handlers = definition.handlers;
+            StringBuilder methods = new StringBuilder();
+            for (int i = 0; i < METHODS.length; i++) {
+                if (handlers[i] != null) {
+                    methods.append(METHODS[i]).append(", ");
+                    if (i == 0) {
+                        methods.append("HEAD, ");
+                    }
+                }
+            }
+            this.allow = methods.append("OPTIONS").toString();
+            this.noParams = paramNames.length == 0 ? new Match(this, null, new int[0]) : null;
+        }
+
+        /**
+         * Handler registrado para el método; HEAD usa el de GET.
+         *
+         * @return El handler, o null si la ruta no acepta ese método
+         */
+        public BiFunction<Request, Response, Response> handler(String method) {
+            int index = methodIndex("HEAD".equals(method) ? "GET" : method);
+            return index >= 0 ? handlers[index] : null;
+        }
+
+        /**
+         * Métodos aceptados, en el formato del header Allow.
+         */
+        public String allow() {
+            return allow;
+        }
+
+        public String pattern() {
+            return pattern;
+        }
+    }
+
+    /**
+     * Resultado de una búsqueda: la ruta y las posiciones de las variables
+     * capturadas dentro del path. Los valores se extraen solo si se piden.
+     */
+    public static final class Match {
+
+        private final Route route;
+        private final String path;
+        private final int[] offsets;
+
+        private Match(Route route, String path, int[] offsets) {
+            this.route = route;
+            this.path = path;
+            this.offsets = offsets;
+        }
+
+        public Route route() {
+            return route;
+        }
+
+        /**
+         * Valor de una variable de la ruta; el comodín se consulta como "*".
+         *
+         * @param name Nombre de la variable
+         * @return El valor capturado, o null si el patrón no la declara
+         */
+        public String param(String name) {
+            String[] names = route.paramNames;
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(name)) {
+                    return path.substring(offsets[i * 2], offsets[i * 2 + 1]);
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,567 @@
+package edu.escuelaing.arem.ASE.app.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Caché en memoria de respuestas estáticas ya serializadas.
+ *
+ * Cada entrada guarda la cabecera HTTP completa (línea de estado, Content-Type,
+ * Content-Length, ETag y Last-Modified) ya codificada en bytes junto con el
+ * cuerpo, además de la cabecera de la respuesta 304. Un acierto evita
+ * decodificar la ruta, buscar el recurso en el classpath y volver a copiar el
+ * archivo: solo se agrega el header Connection al enviarla. Los recursos de
+ * texto guardan además variantes gzip y deflate comprimidas una única vez.
+ *
+ * El tamaño total está acotado en bytes y se expulsa la entrada usada hace
+ * más tiempo (LRU). Las lecturas no toman locks; la expulsión, que solo ocurre
+ * al insertar, se sincroniza.
+ *
+ * @author jgamb
+ * @version 1.0
+ * @since 3.0
+ */
+public class StaticFileCache {
+
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final AtomicLong currentBytes = new AtomicLong();
+    private final AtomicLong accessClock = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxBytes Tamaño máximo total de los cuerpos en caché (incluidas
+     * las variantes comprimidas)
+     */
+    public StaticFileCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxBytes / 4;
+    }
+
+    /**
+     * Busca una entrada y actualiza su marca de uso. Solo cuenta los
+     * aciertos: una ruta que no está puede no ser un recurso estático (404),
+     * así que el fallo lo registra quien encuentra el recurso con
+     * {@link #recordMiss()}.
+     *
+     * @param path Ruta de la petición
+     * @return La entrada o null si no está en caché
+     */
+    public Entry get(String path) {
+        Entry entry = entries.get(path);
+        if (entry == null) {
+            return null;
+        }
+        entry.lastAccess = accessClock.incrementAndGet();
+        hits.increment();
+        return entry;
+    }
+
+    /**
+     * Cuenta un fallo: el recurso existe pero hubo que leerlo porque no
+     * estaba en caché (o estaba desactualizado, o no cabe en ella).
+     */
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    /**
+     * Crea una entrada para el recurso y la guarda si cabe en la caché.
+     *
+     * @param path Ruta de la petición (clave)
+     * @param contentType Content-Type del recurso
+     * @param body Contenido completo del recurso
+     * @param lastModifiedMillis Fecha de modificación (epoch millis)
+     * @return La entrada creada (guardada o no)
+     */
+    public Entry put(String path, String contentType, byte[] body, long lastModifiedMillis) {
+        return put(path, contentType, body, lastModifiedMillis, null);
+    }
+
+    /**
+     * Igual que {@link #put(String, String, byte[], long)} para un archivo en
+     * disco: la entrada recuerda el archivo de origen para detectar cuándo
+     * cambia (ver {@link Entry#isStale()}).
+     *
+     * @param source Archivo de origen o null para recursos del classpath
+     */
+    public Entry put(String path, String contentType, byte[] body, long lastModifiedMillis, Path source) {
+        if (body.length > maxEntryBytes) {
+            // No se guardará: comprimirlo en cada petición costaría más CPU
+            // de lo que ahorra, así que se sirve sin variantes
+            return new Entry(contentType, body, lastModifiedMillis, source, false);
+        }
+        Entry entry = new Entry(contentType, body, lastModifiedMillis, source, true);
+        if (entry.size() > maxEntryBytes) {
+            return entry;
+        }
+        entry.lastAccess = accessClock.incrementAndGet();
+        Entry previous = entries.put(path, entry);
+        currentBytes.addAndGet(entry.size() - (previous != null ? previous.size() : 0));
+        if (currentBytes.get() > maxBytes) {
+            evict();
+        }
+        return entry;
+    }
+
+    /**
+     * Expulsa las entradas menos usadas recientemente hasta volver al límite.
+     */
+    private synchronized void evict() {
+        while (currentBytes.get() > maxBytes) {
+            Map.Entry<String, Entry> oldest = null;
+            for (Map.Entry<String, Entry> candidate : entries.entrySet()) {
+                if (oldest == null || candidate.getValue().lastAccess < oldest.getValue().lastAccess) {
+                    oldest = candidate;
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            if (entries.remove(oldest.getKey(), oldest.getValue())) {
+                currentBytes.addAndGet(-oldest.getValue().size());
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Indica si un recurso de este tamaño se guardaría en la caché. Los más
+     * grandes se sirven directamente desde el archivo.
+     */
+    public boolean canStore(long size) {
+        return size <= maxEntryBytes;
+    }
+
+    /**
+     * Elimina una entrada (por ejemplo, cuando su archivo de origen cambió).
+     */
+    public void invalidate(String path) {
+        Entry removed = entries.remove(path);
+        if (removed != null) {
+            currentBytes.addAndGet(-removed.size());
+        }
+    }
+
+    /**
+     * Vacía la caché (por ejemplo, al cambiar el directorio estático).
+     */
+    public void clear() {
+        entries.clear();
+        currentBytes.set(0);
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getSizeBytes() {
+        return currentBytes.get();
+    }
+
+    public int getEntryCount() {
+        return entries.size();
+    }
+
+    /**
+     * Estadísticas de la caché en el mismo formato que las del pool de hilos.
+     */
+    public String getStats() {
+        return String.format("Static Cache Stats - Entries: %d, Bytes: %d/%d, Hits: %d, Misses: %d, Evictions: %d",
+                getEntryCount(), getSizeBytes(), maxBytes, getHits(), getMisses(), getEvictions());
+    }
+
+    // ==================== ARCHIVOS GRANDES ====================
+    /**
+     * Respuesta para un archivo que no se guarda en la caché: el cuerpo se
+     * envía desde disco con transferTo. El ETag se deriva del tamaño y la
+     * fecha de modificación para no tener que leer el archivo.
+     *
+     * @param req Petición (para los headers condicionales)
+     * @param file Archivo a servir
+     * @param contentType Content-Type del archivo
+     * @param size Tamaño del archivo
+     * @param lastModifiedMillis Fecha de modificación (epoch millis)
+     */
+    public static Response fileResponse(Request req, Path file, String contentType, long size, long lastModifiedMillis) {
+        long lastModifiedSeconds = lastModifiedMillis / 1000;
+        String etag = "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModifiedMillis) + "\"";
+        String validators = validators(etag, formatHttpDate(lastModifiedSeconds), false);
+
+        if (req != null && isNotModified(req, etag, lastModifiedSeconds)) {
+            return Response.preEncoded(304, ("HTTP/1.1 304 Not Modified\r\n" + validators)
+                    .getBytes(StandardCharsets.US_ASCII), new byte[0]);
+        }
+        FileRegion region = new FileRegion(file, 0, size);
+        long[] ranges = requestedRanges(req, etag, lastModifiedSeconds, size);
+        if (ranges != null) {
+            return ByteRanges.respond(ranges, size, contentType, validators, null, region);
+        }
+        byte[] head = ("HTTP/1.1 200 OK\r\n"
+                + "Content-Type: " + contentType + "\r\n"
+                + "Content-Length: " + size + "\r\n"
+                + "Accept-Ranges: bytes\r\n"
+                + validators).getBytes(StandardCharsets.US_ASCII);
+        return Response.preEncodedFile(200, head, region);
+    }
+
+    // ==================== VALIDADORES ====================
+    /**
+     * Evalúa If-None-Match (prioritario) e If-Modified-Since.
+     */
+    static boolean isNotModified(Request req, String etag, long lastModifiedSeconds) {
+        String ifNoneMatch = req.getHeader(Headers.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            return matchesEtag(ifNoneMatch, etag);
+        }
+        String ifModifiedSince = req.getHeader(Headers.IF_MODIFIED_SINCE);
+        if (ifModifiedSince != null) {
+            try {
+                long since = ZonedDateTime.parse(ifModifiedSince.trim(), HTTP_DATE).toEpochSecond();
+                return lastModifiedSeconds <= since;
+            } catch (DateTimeParseException e) {
+                return false; // Fecha inválida: se ignora el header
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Comparación débil de ETags contra una lista separada por comas o "*".
+     */
+    private static boolean matchesEtag(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Rangos a servir para la petición, o null si debe responderse el recurso
+     * completo: Range solo aplica a GET, se ignora si es inválido y If-Range
+     * debe coincidir con la representación actual.
+     */
+    private static long[] requestedRanges(Request req, String etag, long lastModifiedSeconds, long size) {
+        if (req == null || !"GET".equals(req.getMethod())) {
+            return null;
+        }
+        String range = req.getHeader(Headers.RANGE);
+        if (range == null || !ByteRanges.ifRangeMatches(req, etag, lastModifiedSeconds)) {
+            return null;
+        }
+        return ByteRanges.parse(range, size);
+    }
+
+    /**
+     * Headers de validación comunes a las respuestas 200 y 304.
+     */
+    private static String validators(String etag, String lastModified, boolean vary) {
+        StringBuilder validators = new StringBuilder();
+        validators.append("ETag: ").append(etag).append("\r\n");
+        validators.append("Last-Modified: ").append(lastModified).append("\r\n");
+        validators.append("Cache-Control: no-cache\r\n");
+        if (vary) {
+            validators.append("Vary: Accept-Encoding\r\n");
+        }
+        return validators.toString();
+    }
+
+    private static String formatHttpDate(long epochSeconds) {
+        return HTTP_DATE.format(ZonedDateTime.ofInstant(Instant.ofEpochSecond(epochSeconds), ZoneOffset.UTC));
+    }
+
+    // ==================== ENTRADA ====================
+    /**
+     * Recurso estático con sus respuestas 200 y 304 pre-serializadas.
+     *
+     * Los tipos de texto (html, css, js, json, svg, txt) se comprimen una sola
+     * vez al crear la entrada en gzip y deflate; cada variante se conserva solo
+     * si resulta más pequeña que el original. La variante se elige por
+     * Accept-Encoding y todas las respuestas de un recurso con variantes
+     * incluyen Vary: Accept-Encoding.
+     */
+    public static final class Entry {
+
+        private static final String[] CODINGS = {"gzip", "deflate"};
+
+        // variants[0] es siempre la representación sin comprimir (identity)
+        private final Variant[] variants;
+        private final long lastModifiedSeconds;
+        private final int size;
+        private final String contentType;
+        private final Path source;
+        private final long sourceLastModified;
+        private volatile long lastAccess;
+
+        Entry(String contentType, byte[] body, long lastModifiedMillis, Path source, boolean compress) {
+            this.lastModifiedSeconds = lastModifiedMillis / 1000;
+            this.contentType = contentType;
+            this.source = source;
+            this.sourceLastModified = lastModifiedMillis;
+            String lastModified = formatHttpDate(lastModifiedSeconds);
+
+            Variant[] compressed = new Variant[CODINGS.length];
+            int count = 0;
+            if (compress && isCompressible(contentType)) {
+                for (String coding : CODINGS) {
+                    byte[] encoded = compress(body, coding);
+                    if (encoded.length < body.length) {
+                        compressed[count++] = new Variant(coding, encoded, contentType, lastModified, true);
+                    }
+                }
+            }
+            this.variants = new Variant[count + 1];
+            this.variants[0] = new Variant(null, body, contentType, lastModified, count > 0);
+            System.arraycopy(compressed, 0, variants, 1, count);
+
+            int total = 0;
+            for (Variant variant : variants) {
+                total += variant.body.length;
+            }
+            this.size = total;
+        }
+
+        /**
+         * Genera la respuesta para la petición: elige la variante según
+         * Accept-Encoding y responde 304 si los validadores condicionales
+         * coinciden, 206/416 si pide rangos y 200 con el cuerpo en caso
+         * contrario.
+         *
+         * @param req Petición (puede ser null si no hay headers disponibles)
+         */
+        public Response toResponse(Request req) {
+            Variant variant = req != null ? select(req.getHeader(Headers.ACCEPT_ENCODING)) : variants[0];
+            if (req != null && isNotModified(req, variant.etag, lastModifiedSeconds)) {
+                return Response.preEncoded(304, variant.notModifiedHead, new byte[0]);
+            }
+            // Los rangos se sirven siempre sobre la representación sin comprimir
+            Variant identity = variants[0];
+            long[] ranges = requestedRanges(req, identity.etag, lastModifiedSeconds, identity.body.length);
+            if (ranges != null) {
+                return ByteRanges.respond(ranges, identity.body.length, contentType, identity.validators,
+                        identity.body, null);
+            }
+            return Response.preEncoded(200, variant.okHead, variant.body);
+        }
+
+        /**
+         * Elige la variante con mayor q aceptada por el cliente; ante empate
+         * se prefiere el orden de CODINGS (gzip antes que deflate).
+         */
+        Variant select(String acceptEncoding) {
+            if (acceptEncoding == null || variants.length == 1) {
+                return variants[0];
+            }
+            Variant best = variants[0];
+            float bestQ = 0;
+            for (int i = 1; i < variants.length; i++) {
+                float q = qualityOf(acceptEncoding, variants[i].coding);
+                if (q > bestQ) {
+                    best = variants[i];
+                    bestQ = q;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Valor q de una codificación en Accept-Encoding ("*" como comodín).
+         */
+        private static float qualityOf(String acceptEncoding, String coding) {
+            float wildcard = 0;
+            for (String item : acceptEncoding.split(",")) {
+                int semicolon = item.indexOf(';');
+                String name = (semicolon >= 0 ? item.substring(0, semicolon) : item).trim();
+                float q = 1;
+                if (semicolon >= 0) {
+                    String params = item.substring(semicolon + 1).trim();
+                    if (params.startsWith("q=") || params.startsWith("Q=")) {
+                        try {
+                            q = Float.parseFloat(params.substring(2).trim());
+                        } catch (NumberFormatException e) {
+                            q = 0;
+                        }
+                    }
+                }
+                if (name.equalsIgnoreCase(coding)) {
+                    return q;
+                }
+                if (name.equals("*")) {
+                    wildcard = q;
+                }
+            }
+            return wildcard;
+        }
+
+        /**
+         * Indica si el archivo de origen cambió (o desapareció) desde que se
+         * creó la entrada. Los recursos del classpath nunca quedan obsoletos.
+         */
+        public boolean isStale() {
+            if (source == null) {
+                return false;
+            }
+            try {
+                return Files.getLastModifiedTime(source).toMillis() != sourceLastModified;
+            } catch (IOException e) {
+                return true;
+            }
+        }
+
+        /**
+         * ETag de la representación sin comprimir.
+         */
+        public String getEtag() {
+            return variants[0].etag;
+        }
+
+        public byte[] getBody() {
+            return variants[0].body;
+        }
+
+        /**
+         * Codificaciones disponibles además de identity (ej: gzip, deflate).
+         */
+        public String[] getEncodings() {
+            String[] encodings = new String[variants.length - 1];
+            for (int i = 1; i < variants.length; i++) {
+                encodings[i - 1] = variants[i].coding;
+            }
+            return encodings;
+        }
+
+        /**
+         * Bytes que ocupa la entrada en la caché (todas sus variantes).
+         */
+        int size() {
+            return size;
+        }
+
+        private static boolean isCompressible(String contentType) {
+            return contentType.startsWith("text/")
+                    || contentType.startsWith("application/javascript")
+                    || contentType.startsWith("application/json")
+                    || contentType.startsWith("image/svg+xml");
+        }
+
+        private static byte[] compress(byte[] body, String coding) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(body.length / 2 + 64);
+            if (coding.equals("gzip")) {
+                try (GzipStream out = new GzipStream(buffer)) {
+                    out.write(body);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return buffer.toByteArray();
+            }
+            // "deflate" en HTTP es el formato zlib (RFC 1950)
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            try (DeflaterOutputStream out = new DeflaterOutputStream(buffer, deflater)) {
+                out.write(body);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                deflater.end();
+            }
+            return buffer.toByteArray();
+        }
+    }
+
+    /**
+     * GZIPOutputStream con el nivel de compresión máximo: la compresión se
+     * hace una sola vez por recurso, así que se prioriza el tamaño.
+     */
+    private static final class GzipStream extends GZIPOutputStream {
+
+        GzipStream(ByteArrayOutputStream out) throws IOException {
+            super(out);
+            def.setLevel(Deflater.BEST_COMPRESSION);
+        }
+    }
+
+    /**
+     * Una representación de un recurso: cuerpo (comprimido o no), su ETag y
+     * las cabeceras 200 y 304 ya serializadas.
+     */
+    static final class Variant {
+
+        private final String coding;
+        private final byte[] body;
+        private final String etag;
+        private final String validators;
+        private final byte[] okHead;
+        private final byte[] notModifiedHead;
+
+        Variant(String coding, byte[] body, String contentType, String lastModified, boolean vary) {
+            this.coding = coding;
+            this.body = body;
+            this.etag = computeEtag(body, coding);
+
+            this.validators = validators(etag, lastModified, vary);
+
+            StringBuilder head = new StringBuilder("HTTP/1.1 200 OK\r\n");
+            head.append("Content-Type: ").append(contentType).append("\r\n");
+            if (coding != null) {
+                head.append("Content-Encoding: ").append(coding).append("\r\n");
+            }
+            head.append("Content-Length: ").append(body.length).append("\r\n");
+            head.append("Accept-Ranges: bytes\r\n");
+            head.append(validators);
+            this.okHead = head.toString().getBytes(StandardCharsets.US_ASCII);
+            // 304 sin cuerpo ni Content-Length (RFC 9110 15.4.5)
+            this.notModifiedHead = ("HTTP/1.1 304 Not Modified\r\n" + validators)
+                    .getBytes(StandardCharsets.US_ASCII);
+        }
+
+        /**
+         * ETag fuerte: cada codificación es una representación distinta y
+         * necesita su propio valor.
+         */
+        private static String computeEtag(byte[] body, String coding) {
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            String base = Long.toHexString(body.length) + "-" + Long.toHexString(crc.getValue());
+            return "\"" + (coding != null ? base + "-" + coding : base) + "\"";
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package edu.escuelaing.arem.ASE.app.http;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro de usuarios con índice secundario por nombre.
+ *
+ * El mapa principal va de ID a nombre; el índice, de nombre a los IDs que lo
+ * usan, así que buscar un nombre es O(1) en lugar de recorrer todos los
+ * usuarios. Cada escritura se hace dentro de {@code compute} sobre el ID y,
+ * anidada, sobre el nombre: las escrituras a un mismo ID quedan serializadas
+ * y ambos mapas se actualizan juntos (los locks siempre se toman en el orden
+ * ID → nombre, así que no hay interbloqueos). Los IDs de cada nombre se
+ * guardan en un conjunto concurrente: agregar o quitar un ID es O(1) aunque
+ * muchos usuarios compartan el nombre, y las lecturas no toman locks.
+ *
+ * Un nombre aparece en el índice antes de que su ID sea visible en el mapa
+ * principal y desaparece después de que el ID se elimina.
+ *
+ * @author jgamb
+ * @version 1.0
+ * @since 3.0
+ */
+public final class UserRegistry {
+
+    private final ConcurrentHashMap<String, String> byId = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<String>> byName = new ConcurrentHashMap<>();
+    private final Map<String, String> view = new MapView();
+
+    /**
+     * Registra un usuario con un ID nuevo (UUID aleatorio).
+     *
+     * @return El ID generado
+     */
+    public String add(String name) {
+        String id = UUID.randomUUID().toString();
+        put(id, name);
+        return id;
+    }
+
+    /**
+     * Registra o reemplaza el usuario de un ID.
+     *
+     * @return El nombre anterior o null
+     */
+    public String put(String id, String name) {
+        if (id == null || name == null) {
+            throw new NullPointerException("El ID y el nombre son obligatorios");
+        }
+        String[] previous = new String[1];
+        byId.compute(id, (key, old) -> {
+            if (old != null) {
+                unindex(old, key);
+            }
+            index(name, key);
+            previous[0] = old;
+            return name;
+        });
+        return previous[0];
+    }
+
+    /**
+     * Elimina el usuario de un ID.
+     *
+     * @return El nombre que tenía o null si no existía
+     */
+    public String remove(String id) {
+        String[] removed = new String[1];
+        byId.computeIfPresent(id, (key, old) -> {
+            unindex(old, key);
+            removed[0] = old;
+            return null;
+        });
+        return removed[0];
+    }
+
+    /**
+     * Elimina todos los usuarios.
+     */
+    public void clear() {
+        for (String id : byId.keySet()) {
+            remove(id);
+        }
+    }
+
+    /**
+     * Obtiene el nombre de un usuario.
+     *
+     * @return El nombre o null si el ID no existe
+     */
+    public String getName(String id) {
+        return byId.get(id);
+    }
+
+    /**
+     * Indica si algún usuario tiene ese nombre, sin recorrer el registro.
+     */
+    public boolean containsName(String name) {
+        return name != null && byName.containsKey(name);
+    }
+
+    /**
+     * IDs de los usuarios con ese nombre, sin orden definido.
+     *
+     * @return Vista no modificable del índice, sin copiar los IDs: refleja
+     * los cambios posteriores mientras el nombre siga en uso (vacía si no hay
+     * ninguno)
+     */
+    public Set<String> getIdsByName(String name) {
+        Set<String> ids = name != null ? byName.get(name) : null;
+        return ids != null ? Collections.unmodifiableSet(ids) : Set.of();
+    }
+
+    /**
+     * Número de usuarios registrados.
+     */
+    public int size() {
+        return byId.size();
+    }
+
+    /**
+     * Vista de ID a nombre. Las escrituras, eliminaciones (también desde
+     * los iteradores) y clear() pasan por el registro y mantienen el índice;
+     * containsValue usa el índice.
+     */
+    public Map<String, String> asMap() {
+        return view;
+    }
+
+    // Se ejecutan dentro del compute del ID
+    private void index(String name, String id) {
+        byName.compute(name, (key, ids) -> {
+            if (ids == null) {
+                ids = ConcurrentHashMap.newKeySet();
+            }
+            ids.add(id);
+            return ids;
+        });
+    }
+
+    private void unindex(String name, String id) {
+        byName.computeIfPresent(name, (key, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private final class MapView extends AbstractMap<String, String> {
+
+        private final Set<Map.Entry<String, String>> entries = new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<String, String>> iterator() {
+                Iterator<Map.Entry<String, String>> it = byId.entrySet().iterator();
+                return new Iterator<>() {
+                    private String last;
+
+                    @Override
+                    public boolean hasNext() {
+                        return it.hasNext();
+                    }
+
+                    @Override
+                    public Map.Entry<String, String> next() {
+                        Map.Entry<String, String> entry = it.next();
+                        last = entry.getKey();
+                        // Inmutable: setValue sobre el mapa principal no
+                        // actualizaría el índice
+                        return new AbstractMap.SimpleImmutableEntry<>(entry);
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last == null) {
+                            throw new IllegalStateException();
+                        }
+                        UserRegistry.this.remove(last);
+                        last = null;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return byId.size();
+            }
+        };
+
+        @Override
+        public Set<Map.Entry<String, String>> entrySet() {
+            return entries;
+        }
+
+        @Override
+        public int size() {
+            return byId.size();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key != null && byId.containsKey(key);
+        }
+
+        @Override
+        public boolean containsValue(Object value) {
+            return value instanceof String name && containsName(name);
+        }
+
+        @Override
+        public String get(Object key) {
+            return key != null ? byId.get(key) : null;
+        }
+
+        @Override
+        public String put(String key, String value) {
+            return UserRegistry.this.put(key, value);
+        }
+
+        @Override
+        public String remove(Object key) {
+            return key instanceof String id ? UserRegistry.this.remove(id) : null;
+        }
+
+        @Override
+        public void clear() {
+            UserRegistry.this.clear();
+        }
+    }
+}
@@ -0,0 +1,498 @@
+package edu.escuelaing.arem.ASE.app.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32C;
+
+/**
+ * Persistencia del registro de usuarios en disco.
+ *
+ * Cada alta, cambio o baja se aplica al {@link UserRegistry} en memoria y se
+ * agrega a un {@link WriteAheadLog}; con commits síncronos (por defecto) la
+ * llamada vuelve cuando el registro ya pasó por un force(), que comparte con
+ * las demás escrituras concurrentes. Con commits asíncronos vuelve de
+ * inmediato y el registro llega a disco en el siguiente force(): una caída
+ * puede perder las últimas altas a cambio de latencia de memoria.
+ *
+ * Cada {@code snapshotEvery} registros se escribe un snapshot compacto del
+ * registro completo ({@code snapshot-<generación>.dat}) y se borran los
+ * segmentos del log que cubre. Al abrir, se carga el último snapshot y se
+ * reaplican los segmentos posteriores; un registro final cortado por una
+ * caída se descarta y se trunca.
+ *
+ * El snapshot se escribe sin detener las escrituras: puede incluir cambios
+ * que también están en el segmento siguiente, pero reaplicar un alta o una
+ * baja sobre un estado que ya la contiene no cambia el resultado.
+ *
+ * @author jgamb
+ * @version 1.0
+ * @since 3.0
+ */
+public final class UserStore implements Closeable {
+
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final int SNAPSHOT_MAGIC = 0x55535231; // "USR1"
+    private static final int SNAPSHOT_BUFFER = 256 * 1024;
+
+    private final Path directory;
+    private final UserRegistry registry;
+    private final boolean syncCommit;
+    private final long snapshotEvery;
+    private final WriteAheadLog log;
+    private final AtomicBoolean snapshotRunning = new AtomicBoolean();
+    private final Object snapshotLock = new Object();
+    private volatile long lastSnapshotAt;
+    private final long recoveredRecords;
+    private final long recoveryNanos;
+
+    private UserStore(Builder builder) throws IOException {
+        this.directory = builder.directory;
+        this.registry = builder.registry;
+        this.syncCommit = builder.syncCommit;
+        this.snapshotEvery = builder.snapshotEvery;
+
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+        long[] replayed = new long[1];
+        long generation = recover(replayed);
+        this.recoveredRecords = replayed[0];
+        this.recoveryNanos = System.nanoTime() - start;
+        this.log = WriteAheadLog.open(directory, generation);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Registra un usuario con un ID nuevo (UUID aleatorio).
+     *
+     * @return El ID generado
+     * @throws UncheckedIOException Si el log no pudo escribirse
+     */
+    public String add(String name) {
+        String id = UUID.randomUUID().toString();
+        put(id, name);
+        return id;
+    }
+
+    /**
+     * Registra varios usuarios con IDs nuevos. Los registros se agregan
+     * juntos al log y, con commits síncronos, la llamada espera un solo
+     * force() para todo el lote.
+     *
+     * @return Los IDs generados, en el mismo orden que los nombres
+     */
+    public List<String> addAll(List<String> names) {
+        List<String> ids = new ArrayList<>(names.size());
+        List<byte[]> records = new ArrayList<>(names.size());
+        for (String name : names) {
+            if (name == null) {
+                throw new NullPointerException("El nombre es obligatorio");
+            }
+            String id = UUID.randomUUID().toString();
+            ids.add(id);
+            records.add(encode(PUT, id, name));
+        }
+        if (!ids.isEmpty()) {
+            commit(records, () -> {
+                for (int i = 0; i < ids.size(); i++) {
+                    registry.put(ids.get(i), names.get(i));
+                }
+            });
+        }
+        return ids;
+    }
+
+    /**
+     * Registra o reemplaza el usuario de un ID.
+     *
+     * @return El nombre anterior o null
+     */
+    public String put(String id, String name) {
+        if (id == null || name == null) {
+            throw new NullPointerException("El ID y el nombre son obligatorios");
+        }
+        String[] previous = new String[1];
+        commit(encode(PUT, id, name), () -> previous[0] = registry.put(id, name));
+        return previous[0];
+    }
+
+    /**
+     * Elimina el usuario de un ID.
+     *
+     * @return El nombre que tenía o null si no existía
+     */
+    public String remove(String id) {
+        if (registry.getName(id) == null) {
+            return null;
+        }
+        String[] removed = new String[1];
+        commit(encode(REMOVE, id, null), () -> removed[0] = registry.remove(id));
+        return removed[0];
+    }
+
+    private void commit(byte[] record, Runnable apply) {
+        commit(List.of(record), apply);
+    }
+
+    private void commit(List<byte[]> records, Runnable apply) {
+        long sequence = log.append(records, apply);
+        if (syncCommit) {
+            log.awaitDurable(sequence);
+        }
+        if (snapshotEvery > 0 && sequence - lastSnapshotAt >= snapshotEvery
+                && snapshotRunning.compareAndSet(false, true)) {
+            lastSnapshotAt = sequence;
+            Thread snapshotter = new Thread(() -> {
+                try {
+                    snapshot();
+                } catch (IOException | UncheckedIOException e) {
+                    System.err.println("No se pudo escribir el snapshot de usuarios: " + e.getMessage());
+                } finally {
+                    snapshotRunning.set(false);
+                }
+            }, "user-store-snapshot");
+            snapshotter.setDaemon(true);
+            snapshotter.start();
+        }
+    }
+
+    /**
+     * Escribe un snapshot del registro y borra los segmentos del log y
+     * snapshots anteriores que ya no hacen falta para recuperar.
+     */
+    public void snapshot() throws IOException {
+        synchronized (snapshotLock) {
+            // Todo lo agregado antes de rotar queda en segmentos anteriores y
+            // ya está aplicado en memoria, así que el snapshot lo incluye
+            long generation = log.rotate();
+            Path temporary = directory.resolve(snapshotName(generation) + ".tmp");
+            writeSnapshot(temporary);
+            Files.move(temporary, directory.resolve(snapshotName(generation) + ".dat"),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            // El renombrado tiene que ser durable antes de borrar los
+            // segmentos que el snapshot reemplaza
+            WriteAheadLog.forceDirectory(directory);
+            deleteBefore(generation);
+        }
+    }
+
+    /**
+     * Registro en memoria que este almacén mantiene.
+     */
+    public UserRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Número de force() hechos sobre el log desde que se abrió.
+     */
+    public long getCommitCount() {
+        return log.commits();
+    }
+
+    /**
+     * Número de registros agregados al log desde que se abrió.
+     */
+    public long getLoggedRecords() {
+        return log.appended();
+    }
+
+    /**
+     * Número de registros reaplicados al abrir, sin contar los del snapshot.
+     */
+    public long getRecoveredRecords() {
+        return recoveredRecords;
+    }
+
+    /**
+     * Tiempo que tomó cargar el snapshot y reaplicar el log al abrir.
+     */
+    public long getRecoveryNanos() {
+        return recoveryNanos;
+    }
+
+    /**
+     * Escribe lo pendiente en disco y cierra el log.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (snapshotLock) {
+            log.close();
+        }
+    }
+
+    // ==================== FORMATO ====================
+    // [tipo][largo ID (short)][ID][largo nombre (int)][nombre], en UTF-8
+    private static byte[] encode(byte type, String id, String name) {
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        byte[] nameBytes = name != null ? name.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        if (idBytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("ID demasiado largo");
+        }
+        ByteBuffer record = ByteBuffer.allocate(1 + 2 + idBytes.length + 4 + nameBytes.length);
+        record.put(type).putShort((short) idBytes.length).put(idBytes)
+                .putInt(nameBytes.length).put(nameBytes);
+        return record.array();
+    }
+
+    private void apply(ByteBuffer record) throws IOException {
+        byte type = record.get();
+        String id = readString(record, record.getShort());
+        String name = readString(record, record.getInt());
+        switch (type) {
+            case PUT -> registry.put(id, name);
+            case REMOVE -> registry.remove(id);
+            default -> throw new IOException("Tipo de registro desconocido: " + type);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer, int length) throws IOException {
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IOException("Registro de usuario malformado");
+        }
+        String value = StandardCharsets.UTF_8.decode(buffer.slice(buffer.position(), length)).toString();
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static String snapshotName(long generation) {
+        return String.format("snapshot-%016d", generation);
+    }
+
+    // ==================== SNAPSHOTS ====================
+    // [magic][entradas: largo ID, ID, largo nombre, nombre]...[cantidad][CRC32C]
+    private void writeSnapshot(Path file) throws IOException {
+        CRC32C crc = new CRC32C();
+        int count = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(SNAPSHOT_BUFFER);
+            buffer.putInt(SNAPSHOT_MAGIC);
+            for (Map.Entry<String, String> entry : registry.asMap().entrySet()) {
+                byte[] id = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                byte[] name = entry.getValue().getBytes(StandardCharsets.UTF_8);
+                int size = 2 + id.length + 4 + name.length;
+                if (buffer.remaining() < size) {
+                    drain(channel, buffer, crc);
+                    if (buffer.remaining() < size) {
+                        buffer = ByteBuffer.allocateDirect(size);
+                    }
+                }
+                buffer.putShort((short) id.length).put(id).putInt(name.length).put(name);
+                count++;
+            }
+            if (buffer.remaining() < 4) {
+                drain(channel, buffer, crc);
+            }
+            buffer.putInt(count);
+            drain(channel, buffer, crc);
+            buffer.putInt((int) crc.getValue());
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer, CRC32C crc) throws IOException {
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void loadSnapshot(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 12 || size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot de usuarios inválido: " + file);
+            }
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int end = (int) size - 4;
+            CRC32C crc = new CRC32C();
+            crc.update(data.slice(0, end));
+            if (data.getInt(0) != SNAPSHOT_MAGIC || (int) crc.getValue() != data.getInt(end)) {
+                throw new IOException("Snapshot de usuarios corrupto: " + file);
+            }
+            ByteBuffer entries = data.slice(4, end - 8);
+            int count = 0;
+            while (entries.hasRemaining()) {
+                String id = readString(entries, entries.getShort());
+                String name = readString(entries, entries.getInt());
+                registry.put(id, name);
+                count++;
+            }
+            if (count != data.getInt(end - 4)) {
+                throw new IOException("Snapshot de usuarios incompleto: " + file);
+            }
+        }
+    }
+
+    // ==================== RECUPERACIÓN ====================
+    /**
+     * Carga el último snapshot y reaplica los segmentos posteriores.
+     *
+     * @return Generación del segmento donde se seguirá escribiendo
+     */
+    private long recover(long[] replayed) throws IOException {
+        List<Long> snapshots = new ArrayList<>();
+        List<Long> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.startsWith("snapshot-") && name.endsWith(".tmp")) {
+                    // Snapshot que no llegó a completarse
+                    Files.deleteIfExists(file);
+                } else if (name.startsWith("snapshot-") && name.endsWith(".dat")) {
+                    snapshots.add(generationOf(name, "snapshot-", ".dat"));
+                } else if (name.startsWith("wal-") && name.endsWith(".log")) {
+                    segments.add(generationOf(name, "wal-", ".log"));
+                }
+            }
+        }
+        snapshots.sort(null);
+        segments.sort(null);
+
+        long base = 0;
+        if (!snapshots.isEmpty()) {
+            base = snapshots.get(snapshots.size() - 1);
+            loadSnapshot(directory.resolve(snapshotName(base) + ".dat"));
+        }
+
+        long current = base;
+        for (int i = 0; i < segments.size(); i++) {
+            long generation = segments.get(i);
+            if (generation < base) {
+                continue;
+            }
+            Path segment = WriteAheadLog.segmentPath(directory, generation);
+            long valid = WriteAheadLog.replay(segment, record -> {
+                apply(record);
+                replayed[0]++;
+            });
+            long size = Files.size(segment);
+            if (valid < size) {
+                if (i < segments.size() - 1) {
+                    throw new IOException("Segmento del log de usuarios corrupto: " + segment);
+                }
+                // Escritura interrumpida por una caída: el registro nunca se
+                // confirmó, así que se descarta
+                try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                    channel.truncate(valid);
+                    channel.force(true);
+                }
+                System.err.println("Log de usuarios truncado en " + segment.getFileName()
+                        + ": " + (size - valid) + " bytes descartados");
+            }
+            current = generation;
+        }
+        deleteBefore(base);
+        return current;
+    }
+
+    private void deleteBefore(long generation) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if ((name.startsWith("wal-") && name.endsWith(".log")
+                        && generationOf(name, "wal-", ".log") < generation)
+                        || (name.startsWith("snapshot-") && name.endsWith(".dat")
+                        && generationOf(name, "snapshot-", ".dat") < generation)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private static long generationOf(String name, String prefix, String suffix) {
+        try {
+            return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Builder de {@link UserStore}.
+     */
+    public static final class Builder {
+
+        private Path directory;
+        private UserRegistry registry = new UserRegistry();
+        private boolean syncCommit = true;
+        private long snapshotEvery = 100_000;
+
+        private Builder() {
+        }
+
+        /**
+         * Directorio donde se guardan el log y los snapshots.
+         */
+        public Builder withDirectory(Path directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        /**
+         * Registro en memoria que se recupera y se mantiene (por defecto uno
+         * nuevo).
+         */
+        public Builder withRegistry(UserRegistry registry) {
+            this.registry = registry;
+            return this;
+        }
+
+        /**
+         * Si es true (por defecto), cada escritura espera a estar en disco.
+         */
+        public Builder withSyncCommit(boolean syncCommit) {
+            this.syncCommit = syncCommit;
+            return this;
+        }
+
+        /**
+         * Registros entre snapshots automáticos; 0 los desactiva.
+         */
+        public Builder withSnapshotEvery(long records) {
+            this.snapshotEvery = records;
+            return this;
+        }
+
+        /**
+         * Abre el almacén y recupera su contenido en el registro.
+         *
+         * @throws IOException Si el directorio no se puede leer o un
+         * snapshot está corrupto
+         */
+        public UserStore build() throws IOException {
+            if (directory == null) {
+                throw new IllegalStateException("Falta el directorio del almacén de usuarios");
+            }
+            if (registry == null) {
+                throw new IllegalStateException("Falta el registro de usuarios");
+            }
+            return new UserStore(this);
+        }
+    }
+}
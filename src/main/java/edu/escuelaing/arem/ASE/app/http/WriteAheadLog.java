@@ -0,0 +1,370 @@
+package edu.escuelaing.arem.ASE.app.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Log de escritura anticipada (write-ahead log) con commit agrupado.
+ *
+ * Los registros se copian a un buffer en memoria bajo un lock corto; un hilo
+ * dedicado intercambia ese buffer por otro vacío, lo escribe al final del
+ * segmento actual y hace un único {@code force()} para todos los registros
+ * que se acumularon mientras tanto. Así, cuantas más escrituras concurrentes
+ * hay, más registros comparte cada fsync.
+ *
+ * Cada registro se guarda como [longitud][CRC32C][payload]. El log se divide
+ * en segmentos ({@code wal-<generación>.log}); {@link #rotate()} cierra el
+ * actual y abre el siguiente, para poder descartar los anteriores después de
+ * un snapshot. {@link #replay} lee un segmento y se detiene en el primer
+ * registro incompleto o corrupto (una escritura cortada por una caída).
+ *
+ * @author jgamb
+ * @version 1.0
+ * @since 3.0
+ */
+final class WriteAheadLog implements Closeable {
+
+    private static final int HEADER = 8;
+    private static final int INITIAL_BUFFER = 64 * 1024;
+    // Con commits asíncronos, las escrituras esperan si se acumula más que esto
+    private static final int MAX_PENDING = 8 * 1024 * 1024;
+    private static final boolean WINDOWS = System.getProperty("os.name", "").startsWith("Windows");
+
+    /**
+     * Consumidor de los payloads leídos de un segmento.
+     */
+    interface RecordHandler {
+
+        void accept(ByteBuffer payload) throws IOException;
+    }
+
+    private final Path directory;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    private final Condition committed = lock.newCondition();
+    private final CRC32C crc = new CRC32C();
+    private final Thread committer;
+
+    // Protegidos por lock
+    private ByteBuffer pending = ByteBuffer.allocate(INITIAL_BUFFER);
+    private long appended;
+    private long durable;
+    private long commits;
+    private boolean rotateRequested;
+    private boolean closed;
+    private IOException failure;
+
+    // Solo los usa el hilo committer (y open/close)
+    private ByteBuffer flushing = ByteBuffer.allocate(INITIAL_BUFFER);
+    private FileChannel channel;
+    private volatile long generation;
+
+    private WriteAheadLog(Path directory, long generation) throws IOException {
+        this.directory = directory;
+        this.generation = generation;
+        this.channel = openSegment(directory, generation);
+        this.committer = new Thread(this::commitLoop, "wal-committer");
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    /**
+     * Abre (o crea) el segmento de una generación para agregar registros al
+     * final.
+     */
+    static WriteAheadLog open(Path directory, long generation) throws IOException {
+        return new WriteAheadLog(directory, generation);
+    }
+
+    static Path segmentPath(Path directory, long generation) {
+        return directory.resolve(String.format("wal-%016d.log", generation));
+    }
+
+    private static FileChannel openSegment(Path directory, long generation) throws IOException {
+        FileChannel segment = FileChannel.open(segmentPath(directory, generation),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            // Sin esto la entrada del segmento nuevo puede perderse en una
+            // caída aunque sus registros ya hayan pasado por force()
+            forceDirectory(directory);
+        } catch (IOException e) {
+            segment.close();
+            throw e;
+        }
+        segment.position(segment.size());
+        return segment;
+    }
+
+    /**
+     * Lleva a disco las entradas de un directorio (archivos creados,
+     * renombrados o borrados). En Windows no se puede abrir un directorio
+     * como canal, así que ahí no hace nada.
+     */
+    static void forceDirectory(Path directory) throws IOException {
+        if (WINDOWS) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Agrega registros seguidos (sin que se intercalen otros) y aplica su
+     * efecto en memoria bajo el mismo lock, de modo que el orden del log es el
+     * orden en que se aplicaron los cambios.
+     *
+     * @param payloads Contenido de los registros
+     * @param apply Cambio en memoria que los registros describen
+     * @return Número de secuencia del último registro, para
+     * {@link #awaitDurable}
+     * @throws UncheckedIOException Si el log falló o está cerrado
+     */
+    long append(List<byte[]> payloads, Runnable apply) {
+        lock.lock();
+        try {
+            while (pending.position() > MAX_PENDING && failure == null && !closed) {
+                committed.awaitUninterruptibly();
+            }
+            checkUsable();
+            for (byte[] payload : payloads) {
+                ensure(HEADER + payload.length);
+                crc.reset();
+                crc.update(payload);
+                pending.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+            }
+            apply.run();
+            appended += payloads.size();
+            workAvailable.signal();
+            return appended;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Espera a que el registro con esa secuencia esté en disco (después de su
+     * force()).
+     *
+     * @throws UncheckedIOException Si el log falló antes de escribirlo
+     */
+    void awaitDurable(long sequence) {
+        lock.lock();
+        try {
+            while (durable < sequence) {
+                if (failure != null) {
+                    throw new UncheckedIOException("El log de usuarios falló", failure);
+                }
+                if (closed && !committer.isAlive()) {
+                    throw new UncheckedIOException(new IOException("El log de usuarios está cerrado"));
+                }
+                committed.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Escribe lo pendiente, cierra el segmento actual y continúa en uno nuevo.
+     *
+     * @return Generación del segmento nuevo; todos los registros agregados
+     * antes de la llamada están en segmentos anteriores
+     */
+    long rotate() throws IOException {
+        lock.lock();
+        try {
+            checkUsable();
+            long current = generation;
+            rotateRequested = true;
+            workAvailable.signal();
+            while (generation == current && failure == null) {
+                committed.awaitUninterruptibly();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long generation() {
+        return generation;
+    }
+
+    /**
+     * Número de force() realizados.
+     */
+    long commits() {
+        lock.lock();
+        try {
+            return commits;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Número de registros agregados.
+     */
+    long appended() {
+        lock.lock();
+        try {
+            return appended;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Escribe lo pendiente y detiene el hilo committer.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            workAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrumpido cerrando el log");
+        }
+        channel.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // ==================== HILO COMMITTER ====================
+    private void commitLoop() {
+        while (true) {
+            long target;
+            boolean rotate;
+            lock.lock();
+            try {
+                while (pending.position() == 0 && !rotateRequested && !closed) {
+                    workAvailable.awaitUninterruptibly();
+                }
+                if (pending.position() == 0 && !rotateRequested && closed) {
+                    return;
+                }
+                ByteBuffer full = pending;
+                pending = flushing;
+                flushing = full;
+                target = appended;
+                rotate = rotateRequested;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                flushing.flip();
+                while (flushing.hasRemaining()) {
+                    channel.write(flushing);
+                }
+                flushing.clear();
+                channel.force(false);
+                if (rotate) {
+                    channel.close();
+                    channel = openSegment(directory, generation + 1);
+                }
+            } catch (IOException e) {
+                lock.lock();
+                try {
+                    failure = e;
+                    committed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+
+            lock.lock();
+            try {
+                durable = target;
+                commits++;
+                if (rotate) {
+                    generation++;
+                    rotateRequested = false;
+                }
+                committed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void checkUsable() {
+        if (failure != null) {
+            throw new UncheckedIOException("El log de usuarios falló", failure);
+        }
+        if (closed) {
+            throw new UncheckedIOException(new IOException("El log de usuarios está cerrado"));
+        }
+    }
+
+    private void ensure(int bytes) {
+        if (pending.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + bytes));
+            pending.flip();
+            larger.put(pending);
+            pending = larger;
+        }
+    }
+
+    // ==================== LECTURA ====================
+    /**
+     * Lee los registros válidos de un segmento.
+     *
+     * @return Posición del final del último registro válido; si es menor que
+     * el tamaño del archivo, el resto es un registro cortado o corrupto
+     */
+    static long replay(Path segment, RecordHandler handler) throws IOException {
+        try (FileChannel file = FileChannel.open(segment, StandardOpenOption.READ)) {
+            long size = file.size();
+            if (size == 0) {
+                return 0;
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Segmento demasiado grande: " + segment);
+            }
+            MappedByteBuffer data = file.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32C check = new CRC32C();
+            int position = 0;
+            while (data.limit() - position >= HEADER) {
+                int length = data.getInt(position);
+                int expected = data.getInt(position + 4);
+                if (length < 0 || length > data.limit() - position - HEADER) {
+                    break;
+                }
+                ByteBuffer payload = data.slice(position + HEADER, length);
+                check.reset();
+                check.update(payload.duplicate());
+                if ((int) check.getValue() != expected) {
+                    break;
+                }
+                handler.accept(payload);
+                position += HEADER + length;
+            }
+            return position;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package edu.escuelaing.arem.ASE.app.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Procesador de anotaciones que genera en tiempo de compilación el índice de
+ * controladores que HttpServer usa al arrancar.
+ *
+ * Por cada clase con @RestController se registran sus métodos @GetMapping con
+ * el nombre de cada @RequestParam. Los métodos públicos y estáticos cuyos
+ * parámetros aceptan String se invocan directamente desde el código generado;
+ * el resto (parámetros sin anotar, otros tipos, métodos no accesibles) queda
+ * indicado por nombre y se enlaza con reflexión al cargar el índice, con el
+ * mismo comportamiento que el escaneo del classpath.
+ *
+ * El índice se genera como
+ * {@code edu.escuelaing.arem.ASE.app.http.GeneratedControllerIndex}. Maven
+ * recompila todo el módulo cuando cambia un archivo, así que el índice siempre
+ * refleja todos los controladores.
+ *
+ * @author jgamb
+ * @version 1.0
+ * @since 3.0
+ */
+@SupportedAnnotationTypes(ControllerIndexProcessor.REST_CONTROLLER)
+public class ControllerIndexProcessor extends AbstractProcessor {
+
+    static final String REST_CONTROLLER = "edu.escuelaing.arem.ASE.app.annotation.RestController";
+    static final String GET_MAPPING = "edu.escuelaing.arem.ASE.app.annotation.GetMapping";
+    static final String REQUEST_PARAM = "edu.escuelaing.arem.ASE.app.annotation.RequestParam";
+
+    static final String INDEX_PACKAGE = "edu.escuelaing.arem.ASE.app.http";
+    static final String INDEX_CLASS = "GeneratedControllerIndex";
+
+    private boolean generated;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (generated || roundEnv.processingOver()) {
+            return false;
+        }
+        TypeElement restController = processingEnv.getElementUtils().getTypeElement(REST_CONTROLLER);
+        if (restController == null) {
+            return false;
+        }
+
+        List<TypeElement> controllers = new ArrayList<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(restController)) {
+            if (element.getKind() == ElementKind.CLASS) {
+                controllers.add((TypeElement) element);
+            }
+        }
+        if (controllers.isEmpty()) {
+            return false;
+        }
+        controllers.sort((a, b) -> a.getQualifiedName().toString().compareTo(b.getQualifiedName().toString()));
+
+        try {
+            writeIndex(controllers);
+            generated = true;
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "No se pudo generar el índice de controladores: " + e.getMessage());
+        }
+        return false;
+    }
+
+    private void writeIndex(List<TypeElement> controllers) throws IOException {
+        StringBuilder body = new StringBuilder();
+        int routes = 0;
+        for (TypeElement controller : controllers) {
+            String binaryName = processingEnv.getElementUtils().getBinaryName(controller).toString();
+            body.append("        registrar.controller(").append(literal(binaryName)).append(");\n");
+            for (Element member : controller.getEnclosedElements()) {
+                if (member.getKind() != ElementKind.METHOD) {
+                    continue;
+                }
+                ExecutableElement method = (ExecutableElement) member;
+                AnnotationMirror mapping = findAnnotation(method, GET_MAPPING);
+                if (mapping == null) {
+                    continue;
+                }
+                String path = stringValue(mapping, "value");
+                if (!method.getModifiers().contains(Modifier.STATIC)) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                            "@GetMapping en un método no estático no se registrará", method);
+                }
+                if (isDirect(controller, method)) {
+                    appendDirect(body, controller, method, path);
+                } else {
+                    body.append("        registrar.reflective(").append(literal(path)).append(", ")
+                            .append(literal(binaryName)).append(", ")
+                            .append(literal(method.getSimpleName().toString())).append(");\n");
+                }
+                routes++;
+            }
+        }
+
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(
+                INDEX_PACKAGE + "." + INDEX_CLASS, controllers.toArray(new Element[0]));
+        try (Writer out = file.openWriter()) {
+            out.write("package " + INDEX_PACKAGE + ";\n\n");
+            out.write("/**\n");
+            out.write(" * Índice de controladores generado por ControllerIndexProcessor (" + routes + " rutas).\n");
+            out.write(" * No editar: se regenera en cada compilación.\n");
+            out.write(" */\n");
+            out.write("@javax.annotation.processing.Generated(\"" + getClass().getName() + "\")\n");
+            out.write("final class " + INDEX_CLASS + " implements ControllerIndex {\n\n");
+            out.write("    @Override\n");
+            out.write("    public void register(Registrar registrar) {\n");
+            out.write(body.toString());
+            out.write("    }\n");
+            out.write("}\n");
+        }
+    }
+
+    /**
+     * Emite el registro de un método que el código generado puede llamar sin
+     * reflexión.
+     */
+    private void appendDirect(StringBuilder body, TypeElement controller, ExecutableElement method, String path) {
+        String type = controller.getQualifiedName().toString();
+        List<? extends VariableElement> parameters = method.getParameters();
+        StringBuilder types = new StringBuilder();
+        StringBuilder names = new StringBuilder();
+        StringBuilder args = new StringBuilder();
+        for (int i = 0; i < parameters.size(); i++) {
+            VariableElement parameter = parameters.get(i);
+            String name = stringValue(findAnnotation(parameter, REQUEST_PARAM), "value");
+            String separator = i > 0 ? ", " : "";
+            types.append(separator)
+                    .append(processingEnv.getTypeUtils().erasure(parameter.asType()).toString()).append(".class");
+            names.append(separator).append(literal(name));
+            args.append(separator).append("req.getQueryParam(").append(literal(name)).append(")");
+        }
+        String call = type + "." + method.getSimpleName() + "(" + args + ")";
+        String invoker = method.getReturnType().getKind() == TypeKind.VOID
+                ? "req -> {\n                    " + call + ";\n                    return null;\n                }"
+                : "req -> " + call;
+
+        body.append("        registrar.get(").append(literal(path)).append(", ControllerMethod.generated(\n")
+                .append("                ").append(type).append(".class, ")
+                .append(literal(method.getSimpleName().toString())).append(",\n")
+                .append("                new Class<?>[]{").append(types).append("},\n")
+                .append("                new String[]{").append(names).append("},\n")
+                .append("                ").append(invoker).append("));\n");
+    }
+
+    /**
+     * Un método se llama directamente si es público y estático, su clase es
+     * pública y todos sus parámetros tienen @RequestParam y aceptan String.
+     */
+    private boolean isDirect(TypeElement controller, ExecutableElement method) {
+        if (!method.getModifiers().contains(Modifier.STATIC) || !method.getModifiers().contains(Modifier.PUBLIC)) {
+            return false;
+        }
+        if (!isAccessible(controller)) {
+            return false;
+        }
+        TypeMirror string = processingEnv.getElementUtils().getTypeElement("java.lang.String").asType();
+        for (VariableElement parameter : method.getParameters()) {
+            if (findAnnotation(parameter, REQUEST_PARAM) == null
+                    || !processingEnv.getTypeUtils().isAssignable(string, parameter.asType())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAccessible(TypeElement type) {
+        Element current = type;
+        while (current instanceof TypeElement) {
+            TypeElement element = (TypeElement) current;
+            if (!element.getModifiers().contains(Modifier.PUBLIC)) {
+                return false;
+            }
+            if (element.getNestingKind() == NestingKind.TOP_LEVEL) {
+                return true;
+            }
+            if (!element.getModifiers().contains(Modifier.STATIC)) {
+                return false;
+            }
+            current = element.getEnclosingElement();
+        }
+        return false;
+    }
+
+    private static AnnotationMirror findAnnotation(Element element, String annotationType) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement type = (TypeElement) mirror.getAnnotationType().asElement();
+            if (type.getQualifiedName().contentEquals(annotationType)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Valor de un atributo String de la anotación, incluyendo su valor por
+     * defecto si no se escribió.
+     */
+    private String stringValue(AnnotationMirror mirror, String attribute) {
+        Map<? extends ExecutableElement, ? extends AnnotationValue> values
+                = processingEnv.getElementUtils().getElementValuesWithDefaults(mirror);
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(attribute)) {
+                return (String) entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Literal de String en código Java.
+     */
+    static String literal(String value) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' ->
+                    sb.append("\\\"");
+                case '\\' ->
+                    sb.append("\\\\");
+                case '\n' ->
+                    sb.append("\\n");
+                case '\r' ->
+                    sb.append("\\r");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
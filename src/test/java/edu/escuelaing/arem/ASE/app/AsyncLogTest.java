@@ -0,0 +1,149 @@
+package edu.escuelaing.arem.ASE.app;
+
+import edu.escuelaing.arem.ASE.app.http.AsyncLog;
+import edu.escuelaing.arem.ASE.app.http.Request;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del log asíncrono: niveles, descarte con el buffer lleno y rotación
+ * del access log.
+ */
+class AsyncLogTest {
+
+    @Test
+    void testMessagesAreWrittenInOrderAndFilteredByLevel() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        try (AsyncLog log = new AsyncLog.Builder()
+                .withLevel(AsyncLog.Level.INFO)
+                .withConsole(new PrintStream(out, true, StandardCharsets.UTF_8),
+                        new PrintStream(err, true, StandardCharsets.UTF_8))
+                .build()) {
+            assertTrue(log.isInfoEnabled());
+            assertFalse(log.isDebugEnabled());
+            for (int i = 0; i < 100; i++) {
+                log.info("Client-1", "mensaje " + i);
+            }
+            log.debug("Client-1", "no se escribe");
+            log.error(null, "falla");
+            assertTrue(log.flush(5, TimeUnit.SECONDS));
+
+            String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+            assertEquals(100, lines.length);
+            assertEquals("[" + Thread.currentThread().getName() + "][Client-1] INFO: mensaje 0", lines[0]);
+            assertTrue(lines[99].endsWith("INFO: mensaje 99"));
+            assertEquals("[" + Thread.currentThread().getName() + "] ERROR: falla\n",
+                    err.toString(StandardCharsets.UTF_8));
+            assertEquals(0, log.getDropped());
+        }
+        assertEquals(AsyncLog.Level.DEBUG, AsyncLog.Level.fromString(" debug "));
+        assertEquals(AsyncLog.Level.INFO, AsyncLog.Level.fromString("verbose"));
+    }
+
+    @Test
+    void testFullBufferDropsInsteadOfBlocking() throws Exception {
+        // El escritor se queda bloqueado escribiendo el primer mensaje
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        OutputStream blocking = new OutputStream() {
+            @Override
+            public void write(int b) {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                captured.write(b, off, len);
+            }
+        };
+        PrintStream out = new PrintStream(blocking, false, StandardCharsets.UTF_8);
+        try (AsyncLog log = new AsyncLog.Builder()
+                .withCapacity(4)
+                .withConsole(out, out)
+                .build()) {
+            log.info(null, "primero");
+            assertTrue(writing.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 7; i++) {
+                log.info(null, "m" + i);
+            }
+            // Caben 4; los otros 3 se descartan sin esperar al escritor
+            assertEquals(3, log.getDropped());
+            release.countDown();
+            assertTrue(log.flush(5, TimeUnit.SECONDS));
+            assertEquals(5, log.getWritten());
+        }
+        String text = captured.toString(StandardCharsets.UTF_8);
+        assertTrue(text.contains("primero") && text.contains("m3") && !text.contains("m4"));
+    }
+
+    @Test
+    void testConcurrentProducersAccountForEveryEvent() throws Exception {
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+        try (AsyncLog log = new AsyncLog.Builder().withCapacity(256).withConsole(discard, discard).build()) {
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                Thread thread = new Thread(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        log.info("t", "evento");
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertTrue(log.flush(5, TimeUnit.SECONDS));
+            assertEquals(160_000, log.getWritten() + log.getDropped());
+        }
+    }
+
+    @Test
+    void testAccessLogRotatesBySize(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("logs").resolve("access.log");
+        try (AsyncLog log = new AsyncLog.Builder().withAccessLog(file, 300, 2).build()) {
+            for (int i = 0; i < 30; i++) {
+                Request req = new Request.Builder()
+                        .withMethod(i % 2 == 0 ? "GET" : "POST")
+                        .withUri(URI.create("/app/items/" + i + (i == 29 ? "?full=true" : "")))
+                        .withRemoteAddress("10.0.0.7")
+                        .build();
+                log.access(req, 200, i == 29 ? -1 : 1024, 1_234_567);
+                // Un lote por petición para que la rotación ocurra entre líneas
+                assertTrue(log.flush(5, TimeUnit.SECONDS));
+            }
+        }
+        List<String> current = Files.readAllLines(file);
+        assertTrue(current.get(current.size() - 1)
+                .matches("\\d{4}-\\d\\d-\\d\\dT\\d\\d:\\d\\d:\\d\\d\\.\\d{3}Z 10\\.0\\.0\\.7 POST "
+                        + "/app/items/29\\?full=true 200 - 1\\.234"), current.get(current.size() - 1));
+        assertTrue(Files.size(file) <= 300);
+        assertTrue(Files.exists(dir.resolve("logs/access.log.1")));
+        assertTrue(Files.exists(dir.resolve("logs/access.log.2")));
+        assertFalse(Files.exists(dir.resolve("logs/access.log.3")));
+        assertTrue(Files.readAllLines(dir.resolve("logs/access.log.1")).get(0).contains(" GET /app/items/"));
+    }
+}
@@ -0,0 +1,72 @@
+package edu.escuelaing.arem.ASE.app;
+
+import edu.escuelaing.arem.ASE.app.http.Headers;
+import edu.escuelaing.arem.ASE.app.http.Request;
+import edu.escuelaing.arem.ASE.app.http.RequestParser;
+import org.junit.jupiter.api.*;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del contenedor de headers: nombres conocidos como constantes,
+ * búsqueda sin distinguir mayúsculas y vista de solo lectura.
+ */
+class HeadersTest {
+
+    @Test
+    void testParsedHeadersUseKnownTokens() {
+        RequestParser parser = new RequestParser();
+        parser.buffer().put(("GET /x HTTP/1.1\r\ncontent-TYPE: text/plain\r\nX-Trace: a\r\n"
+                + "Accept: */*\r\nx-trace: b\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        assertEquals(RequestParser.Status.COMPLETE, parser.parse());
+        Request req = new Request.Builder().withHead(parser).build();
+        Headers headers = req.getHttpHeaders();
+
+        // Los nombres conocidos se devuelven como la constante, sin copiar
+        assertSame(Headers.CONTENT_TYPE, headers.name(0));
+        assertSame(Headers.ACCEPT, headers.name(2));
+        assertEquals("X-Trace", headers.name(1));
+
+        assertEquals("text/plain", req.getHeader(Headers.CONTENT_TYPE));
+        assertEquals("text/plain", req.getHeader("Content-Type"));
+        assertEquals("a", req.getHeader("X-TRACE"));
+        assertEquals(List.of("a", "b"), headers.getAll("x-trace"));
+        assertTrue(req.hasHeader("accept"));
+        assertFalse(req.hasHeader("Host"));
+    }
+
+    @Test
+    void testMapViewIsReadOnlyAndCaseInsensitive() {
+        RequestParser parser = new RequestParser();
+        parser.buffer().put("GET / HTTP/1.1\r\nHost: a\r\nX-Dup: 1\r\nX-DUP: 2\r\n\r\n"
+                .getBytes(StandardCharsets.US_ASCII));
+        parser.parse();
+        Map<String, String> map = new Request.Builder().withHead(parser).build().getHeaders();
+
+        assertEquals(2, map.size());
+        assertEquals("1", map.get("x-dup"));
+        assertTrue(map.containsKey("HOST"));
+        assertEquals(Map.of("Host", "a", "X-Dup", "1"), Map.copyOf(map));
+        assertThrows(UnsupportedOperationException.class, () -> map.put("k", "v"));
+    }
+
+    @Test
+    void testBuilderReplacesHeadersIgnoringCase() throws Exception {
+        Request req = new Request.Builder()
+                .withUri(new URI("/x"))
+                .withHeader("content-type", "text/html")
+                .withHeader("Content-Type", "application/json")
+                .withHeader("X-Uno", "1")
+                .build();
+
+        assertEquals(2, req.getHttpHeaders().size());
+        assertSame(Headers.CONTENT_TYPE, req.getHttpHeaders().name(0));
+        assertTrue(req.isJson());
+        assertEquals("1", req.getHeaders().get("x-uno"));
+    }
+}
@@ -0,0 +1,101 @@
+package edu.escuelaing.arem.ASE.app;
+
+import edu.escuelaing.arem.ASE.app.http.HttpMetrics;
+import edu.escuelaing.arem.ASE.app.http.HttpServer;
+import edu.escuelaing.arem.ASE.app.http.LatencyHistogram;
+import edu.escuelaing.arem.ASE.app.http.Request;
+import edu.escuelaing.arem.ASE.app.http.Response;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del histograma de latencias y de las métricas por ruta.
+ */
+class HttpMetricsTest {
+
+    @Test
+    void testHistogramQuantilesWithinRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 1..100000 µs: el percentil q es q * 100000 µs
+        for (long micros = 1; micros <= 100_000; micros++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100_000, snapshot.getCount());
+        for (double q : new double[]{0.5, 0.9, 0.99, 0.999}) {
+            double expected = q * 100_000_000_000L / 1000;
+            double actual = snapshot.getValueAtQuantile(q);
+            assertTrue(actual >= expected && actual <= expected * 1.035,
+                    "p" + q + " = " + actual + ", esperado ~" + expected);
+        }
+        assertEquals(5_000_050_000_000L, snapshot.getSum());
+        assertTrue(snapshot.getMax() >= 100_000_000L);
+
+        // Valores pequeños se guardan exactos; los enormes caen en el último bucket
+        LatencyHistogram small = new LatencyHistogram();
+        small.record(7);
+        small.record(-3);
+        small.record(Long.MAX_VALUE);
+        LatencyHistogram.Snapshot edges = small.snapshot();
+        assertEquals(0, edges.getValueAtQuantile(0));
+        assertEquals(7, edges.getValueAtQuantile(0.5));
+        assertEquals(2, edges.getCountAtOrBelow(10));
+        assertTrue(edges.getMax() > TimeUnit.SECONDS.toNanos(100));
+    }
+
+    @Test
+    void testConcurrentRecordingLosesNothing() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    histogram.record(1_000 + i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(400_000, histogram.snapshot().getCount());
+    }
+
+    @Test
+    void testRequestsAreRecordedPerRouteAndStatus() throws Exception {
+        HttpServer.get("/metrics-test/items/{id}", (req, res) -> new Response.Builder()
+                .withStatus("0".equals(req.getPathParam("id")) ? 404 : 200)
+                .withBody("ok")
+                .build());
+        HttpServer.get("/metrics-test/fail", (req, res) -> {
+            throw new IllegalStateException("falla");
+        });
+
+        for (String id : new String[]{"1", "2", "0"}) {
+            HttpServer.handleRequest(new Request.Builder()
+                    .withMethod("GET").withUri(new URI("/metrics-test/items/" + id)).build());
+        }
+        assertThrows(IllegalStateException.class, () -> HttpServer.handleRequest(new Request.Builder()
+                .withMethod("GET").withUri(new URI("/metrics-test/fail")).build()));
+
+        HttpMetrics metrics = HttpServer.getMetrics();
+        assertEquals(2, metrics.getRequestCount("/metrics-test/items/{id}", "GET", 200));
+        assertEquals(1, metrics.getRequestCount("/metrics-test/items/{id}", "GET", 404));
+        assertEquals(1, metrics.getRequestCount("/metrics-test/fail", "GET", 500));
+        assertEquals(3, metrics.getLatency("/metrics-test/items/{id}", "GET").getCount());
+
+        String text = HttpServer.renderMetrics();
+        assertTrue(text.contains("http_requests_total{route=\"/metrics-test/items/{id}\",method=\"GET\",status=\"404\"} 1\n"));
+        assertTrue(text.contains("http_request_duration_seconds_count{route=\"/metrics-test/items/{id}\",method=\"GET\","
+                + "status=\"200\"} 2\n"));
+        assertTrue(text.contains("le=\"0.0001\""));
+        assertTrue(text.contains("# TYPE http_requests_in_flight gauge\n"));
+    }
+}
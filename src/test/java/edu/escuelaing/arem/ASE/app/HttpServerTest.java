@@ -160,6 +160,14 @@ class HttpServerTest {
         assertTrue(HttpServer.getUsers().containsValue("NewUser"));
     }
 
+    @Test
+    void testPostBodyIsReadByBytes() throws Exception {
+        // Content-Length cuenta bytes UTF-8, no caracteres
+        String resp = doPost("/api/users", "{\"name\":\"Ñandú\"}");
+        assertTrue(resp.contains("User created"));
+        assertTrue(HttpServer.getUsers().containsValue("Ñandú"));
+    }
+
     @Test
     void testStaticFileIndex() throws Exception {
         String resp = doGet("/");
@@ -183,4 +191,69 @@ class HttpServerTest {
         String resp = doGet("/%2E%2E%2Fetc%2Fpasswd");
         assertTrue(resp.contains("404") || resp.contains("Forbidden"));
     }
+
+    @Test
+    void testStaticFileConditionalGetWithEtag() throws Exception {
+        Response first = HttpServer.handleRequest(staticRequest("/data.json", null, null));
+        String etag = headerValue(first, "ETag");
+        assertEquals(200, first.getStatus());
+        assertNotNull(etag);
+        assertNotNull(headerValue(first, "Last-Modified"));
+
+        long hitsBefore = HttpServer.getStaticCache().getHits();
+        Response second = HttpServer.handleRequest(staticRequest("/data.json", "If-None-Match", "W/" + etag));
+        assertEquals(304, second.getStatus());
+        assertEquals(0, second.getBodyBytes().length);
+        assertNull(headerValue(second, "Content-Length"));
+        assertEquals(etag, headerValue(second, "ETag"));
+        assertTrue(HttpServer.getStaticCache().getHits() > hitsBefore);
+
+        Response changed = HttpServer.handleRequest(staticRequest("/data.json", "If-None-Match", "\"otro\""));
+        assertEquals(200, changed.getStatus());
+        assertTrue(new String(changed.toBytes(), StandardCharsets.UTF_8).contains("Hello World"));
+    }
+
+    @Test
+    void testStaticCacheMissesOnlyCountExistingResources() throws Exception {
+        long missesBefore = HttpServer.getStaticCache().getMisses();
+        assertEquals(404, HttpServer.handleRequest(staticRequest("/no-existe-cache.txt", null, null)).getStatus());
+        assertEquals(404, HttpServer.handleRequest(staticRequest("/no-existe-cache.txt", null, null)).getStatus());
+        assertEquals(missesBefore, HttpServer.getStaticCache().getMisses());
+
+        HttpServer.getStaticCache().invalidate("/subdir/nested.txt");
+        assertEquals(200, HttpServer.handleRequest(staticRequest("/subdir/nested.txt", null, null)).getStatus());
+        assertEquals(missesBefore + 1, HttpServer.getStaticCache().getMisses());
+    }
+
+    @Test
+    void testStaticFileConditionalGetWithIfModifiedSince() throws Exception {
+        Response first = HttpServer.handleRequest(staticRequest("/subdir/nested.txt", null, null));
+        String lastModified = headerValue(first, "Last-Modified");
+
+        Response notModified = HttpServer.handleRequest(
+                staticRequest("/subdir/nested.txt", "If-Modified-Since", lastModified));
+        assertEquals(304, notModified.getStatus());
+
+        Response stale = HttpServer.handleRequest(
+                staticRequest("/subdir/nested.txt", "If-Modified-Since", "Thu, 01 Jan 1970 00:00:00 GMT"));
+        assertEquals(200, stale.getStatus());
+    }
+
+    private static Request staticRequest(String path, String header, String value) throws Exception {
+        Request.Builder builder = new Request.Builder().withMethod("GET").withUri(new URI(path));
+        if (header != null) {
+            builder.withHeader(header, value);
+        }
+        return builder.build();
+    }
+
+    private static String headerValue(Response response, String name) {
+        String head = new String(response.getHeaderBytes(), StandardCharsets.UTF_8);
+        for (String line : head.split("\r\n")) {
+            if (line.regionMatches(true, 0, name + ":", 0, name.length() + 1)) {
+                return line.substring(name.length() + 1).trim();
+            }
+        }
+        return null;
+    }
 }
@@ -0,0 +1,180 @@
+package edu.escuelaing.arem.ASE.app;
+
+import edu.escuelaing.arem.ASE.app.http.HttpServer;
+import edu.escuelaing.arem.ASE.app.http.Json;
+import edu.escuelaing.arem.ASE.app.http.JsonException;
+import edu.escuelaing.arem.ASE.app.http.JsonStreamReader;
+import edu.escuelaing.arem.ASE.app.http.PayloadTooLargeException;
+import edu.escuelaing.arem.ASE.app.http.Request;
+import edu.escuelaing.arem.ASE.app.http.Response;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la lectura de documentos JSON en streaming y del registro masivo
+ * de usuarios.
+ */
+class JsonStreamReaderTest {
+
+    // Entrega un byte por lectura, para cortar los documentos en cualquier punto
+    private static InputStream trickle(String text) {
+        return new FilterInputStream(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 1));
+            }
+        };
+    }
+
+    private static List<String> readAll(JsonStreamReader reader) throws IOException {
+        List<String> values = new ArrayList<>();
+        Json record;
+        while ((record = reader.next()) != null) {
+            values.add(record.isObject() ? record.get("name").asString() : record.toString().trim());
+        }
+        return values;
+    }
+
+    @Test
+    void testNdjsonLines() throws IOException {
+        JsonStreamReader reader = new JsonStreamReader(trickle(
+                "{\"name\": \"Ana\"}\r\n\n  {\"name\": \"Luis\\nPérez\"}\n{\"name\" \"roto\"}\n{\"name\": \"Eva\"}"));
+        assertEquals("Ana", reader.next().get("name").asString());
+        assertEquals("Luis\nPérez", reader.next().get("name").asString());
+        Json broken = reader.next();
+        assertThrows(JsonException.class, () -> broken.get("name"));
+        // Una línea inválida no impide leer las siguientes
+        assertEquals("Eva", reader.next().get("name").asString());
+        assertNull(reader.next());
+        assertFalse(reader.isArray());
+        assertEquals(4, reader.getRecordCount());
+    }
+
+    @Test
+    void testArrayElements() throws IOException {
+        JsonStreamReader reader = new JsonStreamReader(trickle(
+                " [ {\"name\": \"a]b\", \"tags\": [\"}\", {\"x\": \"\\\"[\"}]}, \"Luis\" ,42,true,"
+                        + "{\"name\": \"Eva\"} ]  "));
+        assertEquals(List.of("a]b", "\"Luis\"", "42", "true", "Eva"), readAll(reader));
+        assertTrue(reader.isArray());
+        assertNull(reader.next());
+
+        assertEquals(List.of(), readAll(new JsonStreamReader(trickle("[ ]"))));
+        assertEquals(List.of(), readAll(new JsonStreamReader(trickle(""))));
+    }
+
+    @Test
+    void testMalformedArrays() {
+        assertThrows(JsonException.class, () -> readAll(new JsonStreamReader(trickle("[{\"a\": 1} {\"b\": 2}]"))));
+        assertThrows(JsonException.class, () -> readAll(new JsonStreamReader(trickle("[{\"a\": [1, 2}"))));
+        assertThrows(JsonException.class, () -> readAll(new JsonStreamReader(trickle("[1, 2] 3"))));
+        assertThrows(JsonException.class, () -> readAll(new JsonStreamReader(trickle("[1,,2]"))));
+        // Un documento mayor que el máximo no se acumula en memoria
+        JsonStreamReader limited = new JsonStreamReader(trickle("[\"" + "x".repeat(100) + "\"]"), 64);
+        assertThrows(JsonException.class, limited::next);
+    }
+
+    private static Request bulk(String contentType, String query, String body) throws Exception {
+        return new Request.Builder()
+                .withMethod("POST")
+                .withUri(new URI("/app/users/bulk" + query))
+                .withHeader("Content-Type", contentType)
+                .withBodyStream(trickle(body))
+                .build();
+    }
+
+    @Test
+    void testBulkRegistrationInBatches() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 25; i++) {
+            body.append(i == 7 ? "{\"nombre\": \"x\"}" : "{\"name\": \"bulk-test-" + i + "\"}").append('\n');
+        }
+        Response response = App.bulkRegister(bulk("application/x-ndjson", "?batch=10", body.toString()));
+        assertEquals(200, response.getStatus());
+        Json result = Json.parse(response.getBodyBytes());
+        assertEquals(24, result.get("accepted").asLong());
+        assertEquals(1, result.get("rejected").asLong());
+        assertEquals(3, result.get("batches").size());
+        assertEquals(9, result.path("batches.0.accepted").asInt());
+        assertEquals(8, result.path("batches.0.errors.0.record").asLong());
+        assertEquals(21, result.path("batches.2.firstRecord").asLong());
+        assertEquals(5, result.path("batches.2.accepted").asInt());
+        assertTrue(HttpServer.getUserRegistry().containsName("bulk-test-24"));
+        assertFalse(HttpServer.getUserRegistry().containsName("x"));
+    }
+
+    @Test
+    void testBulkRegistrationErrors() throws Exception {
+        assertEquals(415, App.bulkRegister(bulk("text/plain", "", "Ana")).getStatus());
+        assertEquals(400, App.bulkRegister(bulk("application/json", "?batch=0", "[]")).getStatus());
+
+        // Los lotes anteriores al error de formato quedan registrados
+        Response broken = App.bulkRegister(bulk("application/json", "?batch=2",
+                "[\"bulk-array-1\", \"bulk-array-2\", \"bulk-array-3\" \"bulk-array-4\"]"));
+        assertEquals(400, broken.getStatus());
+        Json result = Json.parse(broken.getBodyBytes());
+        assertEquals(3, result.get("accepted").asLong());
+        assertTrue(result.get("error").isString());
+        assertTrue(HttpServer.getUserRegistry().containsName("bulk-array-3"));
+        assertFalse(HttpServer.getUserRegistry().containsName("bulk-array-4"));
+    }
+
+    @Test
+    void testBulkRegistrationReportsBoundedBatches() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 250; i++) {
+            body.append("\"bulk-many-").append(i).append("\"\n");
+        }
+        Response response = App.bulkRegister(bulk("application/x-ndjson", "?batch=1", body.toString()));
+        assertEquals(200, response.getStatus());
+        Json result = Json.parse(response.getBodyBytes());
+        assertEquals(250, result.get("accepted").asLong());
+        assertEquals(250, result.get("batchCount").asLong());
+        assertEquals(App.MAX_REPORTED_BATCHES, result.get("batches").size());
+        assertTrue(HttpServer.getUserRegistry().containsName("bulk-many-249"));
+    }
+
+    @Test
+    void testBulkRegistrationReportsPartialResultWhenBodyFails() throws Exception {
+        // Cuatro documentos completos y luego la conexión se corta
+        String sent = "{\"name\": \"bulk-cut-1\"}\n{\"name\": \"bulk-cut-2\"}\n"
+                + "{\"name\": \"bulk-cut-3\"}\n{\"name\": \"bulk-cut-4\"}\n{\"name\": \"bulk-cu";
+        Response cut = App.bulkRegister(failing(sent, new IOException("conexión cerrada")));
+        assertEquals(400, cut.getStatus());
+        Json result = Json.parse(cut.getBodyBytes());
+        assertEquals(4, result.get("accepted").asLong());
+        assertEquals(2, result.get("batchCount").asLong());
+        assertTrue(result.get("error").asString().contains("conexión cerrada"));
+        assertTrue(HttpServer.getUserRegistry().containsName("bulk-cut-4"));
+
+        Response tooLarge = App.bulkRegister(failing("\"bulk-large-1\"\n", new PayloadTooLargeException(16)));
+        assertEquals(413, tooLarge.getStatus());
+        assertEquals(1, Json.parse(tooLarge.getBodyBytes()).get("accepted").asLong());
+    }
+
+    private static Request failing(String body, IOException error) throws Exception {
+        InputStream broken = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw error;
+            }
+        };
+        return new Request.Builder()
+                .withMethod("POST")
+                .withUri(new URI("/app/users/bulk?batch=3"))
+                .withHeader("Content-Type", "application/x-ndjson")
+                .withBodyStream(new SequenceInputStream(trickle(body), broken))
+                .build();
+    }
+}
@@ -0,0 +1,142 @@
+package edu.escuelaing.arem.ASE.app;
+
+import edu.escuelaing.arem.ASE.app.http.HttpServer;
+import edu.escuelaing.arem.ASE.app.http.Json;
+import edu.escuelaing.arem.ASE.app.http.JsonException;
+import edu.escuelaing.arem.ASE.app.http.JsonReader;
+import edu.escuelaing.arem.ASE.app.http.Request;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del tokenizador JSON y de la vista perezosa {@link Json}.
+ */
+class JsonTest {
+
+    private static final String ORDER = "{\"id\": 42, \"total\": 19.5, \"paid\": true, \"note\": null,"
+            + " \"user\": {\"name\": \"Ana \\\"la\\\" Pérez\", \"address\": {\"city\": \"Bogot\\u00e1\"}},"
+            + " \"items\": [{\"sku\": \"a-1\", \"qty\": 2}, {\"sku\": \"b-2\", \"qty\": -3}], \"tags\": []}";
+
+    @Test
+    void testLookupOfScalarValues() {
+        Json json = Json.parse(ORDER);
+        assertEquals(42, json.get("id").asInt());
+        assertEquals(19.5, json.get("total").asDouble());
+        assertTrue(json.get("paid").asBoolean());
+        assertTrue(json.get("note").isNull());
+        assertNull(json.get("note").asString());
+        assertEquals("42", json.get("id").asString());
+        assertTrue(json.get("missing").isMissing());
+        assertThrows(JsonException.class, () -> json.get("total").asLong());
+        assertThrows(JsonException.class, () -> json.get("paid").asInt());
+    }
+
+    @Test
+    void testNestedPathsAndArrays() {
+        Json json = Json.parse(ORDER);
+        assertEquals("Ana \"la\" Pérez", json.path("user.name").asString());
+        assertEquals("Bogotá", json.path("user.address.city").asString());
+        assertEquals("b-2", json.path("items.1.sku").asString());
+        assertEquals(-3, json.get("items").get(1).get("qty").asLong());
+        assertTrue(json.path("items.5.sku").isMissing());
+        assertTrue(json.path("user.address.city.zip").isMissing());
+
+        assertEquals(2, json.get("items").size());
+        assertEquals(0, json.get("tags").size());
+        assertEquals(List.of("id", "total", "paid", "note", "user", "items", "tags"), json.keys());
+        List<Json> items = json.get("items").elements();
+        assertEquals("{\"sku\": \"a-1\", \"qty\": 2}", items.get(0).toString());
+    }
+
+    @Test
+    void testParsesOnlyAsFarAsNeeded() {
+        // El error está después del campo buscado: no se detecta
+        Json json = Json.parse("{\"name\": \"ok\", \"rest\": [1, 2,, }");
+        assertEquals("ok", json.get("name").asString());
+
+        JsonException error = assertThrows(JsonException.class, () -> json.get("other"));
+        assertEquals(29, error.getPosition());
+        assertThrows(JsonException.class, () -> Json.parse("{\"a\": tru}").get("a"));
+        assertThrows(JsonException.class, () -> Json.parse("{\"a\": 01}").get("a"));
+        assertThrows(JsonException.class, () -> Json.parse("   "));
+    }
+
+    @Test
+    void testReaderTokens() {
+        byte[] bytes = "[1, \"dos\", {\"x\": [true, null]}, 3.5e2]".getBytes(StandardCharsets.UTF_8);
+        JsonReader reader = new JsonReader(bytes);
+        reader.beginArray();
+        assertEquals(1, reader.nextInt());
+        assertEquals("dos", reader.nextString());
+        assertEquals(JsonReader.Token.BEGIN_OBJECT, reader.peek());
+        reader.skipValue();
+        assertEquals(JsonReader.Token.NUMBER, reader.peek());
+        assertEquals(350.0, reader.nextDouble());
+        assertFalse(reader.hasNext());
+        reader.endArray();
+        assertEquals(JsonReader.Token.END_DOCUMENT, reader.peek());
+
+        JsonReader trailing = new JsonReader("{} {}".getBytes(StandardCharsets.UTF_8));
+        trailing.beginObject();
+        trailing.endObject();
+        assertThrows(JsonException.class, trailing::peek);
+    }
+
+    @Test
+    void testRequestJson() throws Exception {
+        Request request = new Request.Builder()
+                .withUri(new URI("/app/hello"))
+                .withHeader("Content-Type", "application/json")
+                .withBody("{\"user\": {\"name\": \"interno\"}, \"name\": \"Ñandú \\\"el\\\" ave\"}")
+                .build();
+        // Solo campos de primer nivel, con escapes
+        assertEquals("Ñandú \"el\" ave", request.getJsonValue("name"));
+        assertEquals("interno", request.getJson().path("user.name").asString());
+
+        byte[] raw = "xx{\"name\": \"slice\"}yy".getBytes(StandardCharsets.UTF_8);
+        Request slice = new Request.Builder()
+                .withUri(new URI("/app/hello"))
+                .withHeader("Content-Type", "application/json")
+                .withBodyBytes(raw, 2, raw.length - 4)
+                .build();
+        assertEquals("slice", slice.getJsonValue("name"));
+
+        Request broken = new Request.Builder()
+                .withUri(new URI("/app/hello"))
+                .withHeader("Content-Type", "application/json")
+                .withBody("{\"name\" \"x\"}")
+                .build();
+        assertNull(broken.getJsonValue("name"));
+        assertTrue(new Request.Builder().withUri(new URI("/")).build().getJson().isMissing());
+    }
+
+    @Test
+    void testHelloRejectsNonStringName() throws Exception {
+        for (String name : new String[]{"{\"x\": 1}", "123", "[\"a\"]", "true", "null"}) {
+            Request request = new Request.Builder()
+                    .withMethod("POST")
+                    .withUri(new URI("/app/hello"))
+                    .withHeader("Content-Type", "application/json")
+                    .withBody("{\"name\": " + name + "}")
+                    .build();
+            assertNull(request.getJsonValue("name"), name);
+            assertEquals(400, App.registerUser(request).getStatus(), name);
+        }
+        assertFalse(HttpServer.getUserRegistry().containsName("{\"x\":1}"));
+        assertFalse(HttpServer.getUserRegistry().containsName("123"));
+
+        Request valid = new Request.Builder()
+                .withMethod("POST")
+                .withUri(new URI("/app/hello"))
+                .withHeader("Content-Type", "application/json")
+                .withBody("{\"name\": \"hello-json-test\"}")
+                .build();
+        assertEquals(200, App.registerUser(valid).getStatus());
+        assertTrue(HttpServer.getUserRegistry().containsName("hello-json-test"));
+    }
+}
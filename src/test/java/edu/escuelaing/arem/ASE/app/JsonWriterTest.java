@@ -0,0 +1,96 @@
+package edu.escuelaing.arem.ASE.app;
+
+import edu.escuelaing.arem.ASE.app.http.Json;
+import edu.escuelaing.arem.ASE.app.http.JsonWriter;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del escritor JSON.
+ */
+class JsonWriterTest {
+
+    enum Role {
+        ADMIN, VIEWER
+    }
+
+    record Address(String city, Optional<String> zip) {
+
+    }
+
+    record User(String name, int age, double score, boolean active, Role role, Address address, List<String> tags) {
+
+    }
+
+    private static String json(Object value) {
+        return new String(JsonWriter.toJson(value), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testStringsAreEscaped() {
+        assertEquals("\"a\\\"b\\\\c\\n\\t\\u0001\"", json("a\"b\\c\n\t\u0001"));
+        assertEquals("\"Ñandú 😀\"", json("Ñandú 😀"));
+        // Surrogate suelto: no tiene UTF-8 válido
+        assertEquals("\"x\\ud800\"", json("x\ud800"));
+
+        // Un nombre con comillas ya no rompe el documento
+        String name = "Ana\", \"admin\": true, \"x\": \"";
+        Json parsed = Json.parse(JsonWriter.toJson(Map.of("message", "Hola " + name)));
+        assertEquals("Hola " + name, parsed.get("message").asString());
+        assertTrue(parsed.get("admin").isMissing());
+    }
+
+    @Test
+    void testRecordsMapsAndCollections() {
+        User user = new User("Ana", 31, 4.5, true, Role.ADMIN,
+                new Address("Bogotá", Optional.empty()), List.of("a", "b"));
+        assertEquals("{\"name\":\"Ana\",\"age\":31,\"score\":4.5,\"active\":true,\"role\":\"ADMIN\","
+                + "\"address\":{\"city\":\"Bogotá\",\"zip\":null},\"tags\":[\"a\",\"b\"]}", json(user));
+
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("ids", new int[]{1, -2, 3});
+        map.put("nested", List.of(Map.of("k", 1L), Arrays.asList(null, 2.0)));
+        map.put("empty", List.of());
+        assertEquals("{\"ids\":[1,-2,3],\"nested\":[{\"k\":1},[null,2]],\"empty\":[]}", json(map));
+    }
+
+    @Test
+    void testNumbers() {
+        assertEquals("-9223372036854775808", json(Long.MIN_VALUE));
+        assertEquals("0", json(0));
+        assertEquals("0.1", json(0.1));
+        assertEquals("1.0E20", json(1e20));
+        assertEquals("12345678901234567890", json(new java.math.BigInteger("12345678901234567890")));
+        assertThrows(IllegalArgumentException.class, () -> JsonWriter.toJson(Double.NaN));
+    }
+
+    @Test
+    void testStreamingApiAndReuse() {
+        JsonWriter writer = new JsonWriter(16);
+        writer.beginObject()
+                .name("items").beginArray();
+        for (int i = 0; i < 100; i++) {
+            writer.beginObject().name("i").value(i).endObject();
+        }
+        writer.endArray().endObject();
+        Json parsed = Json.parse(writer.toByteArray());
+        assertEquals(100, parsed.get("items").size());
+        assertEquals(99, parsed.path("items.99.i").asInt());
+
+        writer.reset();
+        writer.beginArray().value("x").nullValue().value(true).endArray();
+        assertEquals("[\"x\",null,true]", new String(writer.toByteArray(), StandardCharsets.UTF_8));
+
+        assertThrows(IllegalStateException.class, () -> new JsonWriter().beginObject().value(1));
+        assertThrows(IllegalStateException.class, () -> new JsonWriter().beginArray().endObject());
+        assertThrows(IllegalStateException.class, () -> new JsonWriter().value(1).value(2));
+    }
+}
@@ -1,11 +1,15 @@
 package edu.escuelaing.arem.ASE.app;
 
+import edu.escuelaing.arem.ASE.app.http.ExecutorStrategy;
 import edu.escuelaing.arem.ASE.app.http.HttpServer;
 import edu.escuelaing.arem.ASE.app.http.Response;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.*;
 import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -16,6 +20,7 @@ public class MultithreadedServerTest {
 
     private static final int TEST_PORT = 35003;
     private Thread serverThread;
+    private final CountDownLatch streamGate = new CountDownLatch(1);
 
     @BeforeAll
     void startServer() throws Exception {
@@ -31,6 +36,36 @@ public class MultithreadedServerTest {
                     .build();
         });
 
+        HttpServer.get("/api/large", (req, res) -> new Response.Builder()
+                .withContentType("text/plain")
+                .withBody("x".repeat(Integer.parseInt(req.getQueryParam("size"))))
+                .build());
+
+        HttpServer.get("/api/stream", (req, res) -> new Response.Builder()
+                .withContentType("text/plain")
+                .withBodyWriter(out -> {
+                    out.write("primero".getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                    try {
+                        streamGate.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    out.write("segundo".getBytes(StandardCharsets.UTF_8));
+                })
+                .build());
+
+        HttpServer.post("/api/upload", (req, res) -> {
+            try (InputStream body = req.getBodyStream()) {
+                return new Response.Builder()
+                        .withContentType("text/plain")
+                        .withBody(String.valueOf(body.transferTo(OutputStream.nullOutputStream())))
+                        .build();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
         // Iniciar servidor en hilo aparte
         serverThread = new Thread(() -> {
             try {
@@ -80,7 +115,281 @@ public class MultithreadedServerTest {
         assertEquals(clientCount, successCount.get(), "Todos los clientes deberían recibir la respuesta correcta");
     }
 
-    // ================== MÉTODO AUXILIAR ==================
+    @Test
+    void testKeepAliveServesSequentialRequestsOnOneConnection() throws IOException {
+        try (Socket socket = new Socket("localhost", TEST_PORT)) {
+            socket.setSoTimeout(5000);
+            OutputStream out = socket.getOutputStream();
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+
+            for (int i = 0; i < 3; i++) {
+                out.write(("GET /api/echo?msg=ka" + i + " HTTP/1.1\r\nHost: localhost\r\n\r\n")
+                        .getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+
+                String[] response = readResponse(in);
+                assertTrue(response[0].contains("Connection: keep-alive"));
+                assertEquals("{\"echo\":\"ka" + i + "\"}", response[1]);
+            }
+        }
+    }
+
+    @Test
+    void testPipelinedRequestsAreAnsweredInOrder() throws IOException {
+        try (Socket socket = new Socket("localhost", TEST_PORT)) {
+            socket.setSoTimeout(5000);
+            OutputStream out = socket.getOutputStream();
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+
+            // Tres peticiones enviadas de una vez; la última cierra la conexión
+            String pipeline = "GET /api/echo?msg=p1 HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                    + "GET /api/echo?msg=p2 HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                    + "GET /api/echo?msg=p3 HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n";
+            out.write(pipeline.getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            assertEquals("{\"echo\":\"p1\"}", readResponse(in)[1]);
+            assertEquals("{\"echo\":\"p2\"}", readResponse(in)[1]);
+            String[] last = readResponse(in);
+            assertEquals("{\"echo\":\"p3\"}", last[1]);
+            assertTrue(last[0].contains("Connection: close"));
+            assertEquals(-1, in.read(), "El servidor debería cerrar la conexión");
+        }
+    }
+
+    @Test
+    void testLargeBodyBetweenPipelinedResponses() throws IOException {
+        try (Socket socket = new Socket("localhost", TEST_PORT)) {
+            socket.setSoTimeout(5000);
+            OutputStream out = socket.getOutputStream();
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+
+            // La respuesta grande sale directo al canal; la anterior, que
+            // seguía en el buffer, debe enviarse antes
+            String pipeline = "GET /api/echo?msg=antes HTTP/1.1\r\n\r\n"
+                    + "GET /api/large?size=500000 HTTP/1.1\r\n\r\n"
+                    + "GET /api/echo?msg=despues HTTP/1.1\r\nConnection: close\r\n\r\n";
+            out.write(pipeline.getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            assertEquals("{\"echo\":\"antes\"}", readResponse(in)[1]);
+            assertEquals(500000, readResponse(in)[1].length());
+            assertEquals("{\"echo\":\"despues\"}", readResponse(in)[1]);
+        }
+    }
+
+    @Test
+    void testStreamingBodyIsFlushedIncrementally() throws IOException {
+        try (Socket socket = new Socket("localhost", TEST_PORT)) {
+            socket.setSoTimeout(5000);
+            OutputStream out = socket.getOutputStream();
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            out.write("GET /api/stream HTTP/1.1\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            // El primer bloque llega mientras el handler sigue en ejecución
+            String head = readHead(in);
+            assertTrue(head.contains("Transfer-Encoding: chunked"));
+            assertEquals("primero", new String(readChunk(in), StandardCharsets.UTF_8));
+            streamGate.countDown();
+            assertEquals("segundo", new String(readChunk(in), StandardCharsets.UTF_8));
+            assertEquals(0, readChunk(in).length);
+
+            // La conexión sigue disponible
+            out.write("GET /api/echo?msg=tras HTTP/1.1\r\nConnection: close\r\n\r\n"
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            assertEquals("{\"echo\":\"tras\"}", readResponse(in)[1]);
+        }
+    }
+
+    @Test
+    void testChunkedUploadWithExpectContinue() throws IOException {
+        try (Socket socket = new Socket("localhost", TEST_PORT)) {
+            socket.setSoTimeout(5000);
+            OutputStream out = socket.getOutputStream();
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+
+            out.write(("POST /api/upload HTTP/1.1\r\nExpect: 100-continue\r\n"
+                    + "Transfer-Encoding: chunked\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            assertTrue(readHead(in).startsWith("HTTP/1.1 100 Continue"));
+
+            // 100000 bytes en bloques de 10000, más una petición encadenada
+            StringBuilder body = new StringBuilder();
+            for (int i = 0; i < 10; i++) {
+                body.append("2710\r\n").append("z".repeat(10000)).append("\r\n");
+            }
+            body.append("0\r\n\r\nGET /api/echo?msg=tras HTTP/1.1\r\n\r\n");
+            out.write(body.toString().getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            assertEquals("100000", readResponse(in)[1]);
+            assertEquals("{\"echo\":\"tras\"}", readResponse(in)[1]);
+        }
+    }
+
+    @Test
+    void testLargeStaticFileIsSentFromDisk(@TempDir Path root) throws IOException {
+        StaticFilesRootTest.writeLargeFile(root.resolve("grande.bin"));
+        HttpServer.staticFilesRoot(root.toString());
+        try (Socket socket = new Socket("localhost", TEST_PORT)) {
+            socket.setSoTimeout(10000);
+            OutputStream out = socket.getOutputStream();
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            out.write("GET /grande.bin HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n"
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            String head = StaticFilesRootTest.readHead(in);
+            assertTrue(head.startsWith("HTTP/1.1 200 OK"));
+            assertTrue(head.contains("Content-Length: " + StaticFilesRootTest.LARGE_FILE_SIZE));
+            StaticFilesRootTest.assertLargeBody(in);
+            assertEquals(-1, in.read());
+        } finally {
+            HttpServer.staticFilesRoot(null);
+        }
+    }
+
+    @Test
+    void testVirtualExecutorHandlesThousandsOfBlockingTasks() throws InterruptedException {
+        int taskCount = 2000;
+        ExecutorService executor = ExecutorStrategy.VIRTUAL.create(50);
+        CountDownLatch latch = new CountDownLatch(taskCount);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < taskCount; i++) {
+            executor.submit(() -> {
+                try {
+                    Thread.sleep(200); // Simula una conexión bloqueada en E/S
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS), "Todas las tareas deberían terminar sin encolarse");
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        executor.shutdown();
+
+        // Con un pool fijo de 50 hilos tomaría 2000/50 * 200ms = 8 segundos
+        assertTrue(elapsedMs < 4000, "Las tareas deberían ejecutarse en paralelo: " + elapsedMs + "ms");
+    }
+
+    @Test
+    void testExecutorStrategyFromString() {
+        assertEquals(ExecutorStrategy.VIRTUAL, ExecutorStrategy.fromString("virtual"));
+        assertEquals(ExecutorStrategy.VIRTUAL, ExecutorStrategy.fromString(" VIRTUAL "));
+        assertEquals(ExecutorStrategy.FIXED, ExecutorStrategy.fromString("fixed"));
+        assertEquals(ExecutorStrategy.FIXED, ExecutorStrategy.fromString(null));
+    }
+
+    @Test
+    void testMetricsEndpoint() throws IOException {
+        sendHttpRequest("GET", "/api/echo?msg=metricas", "");
+        String metrics = sendHttpRequest("GET", "/metrics", "");
+
+        assertTrue(metrics.contains("# TYPE http_request_duration_seconds histogram"));
+        assertTrue(metrics.contains("http_requests_total{route=\"/api/echo\",method=\"GET\",status=\"200\"}"));
+        assertTrue(metrics.contains("http_request_duration_seconds_bucket{route=\"/api/echo\",method=\"GET\","
+                + "status=\"200\",le=\"+Inf\"}"));
+        assertTrue(metrics.contains("http_request_duration_quantile_seconds{route=\"/api/echo\",method=\"GET\","
+                + "quantile=\"0.99\"}"));
+        assertTrue(metrics.contains("http_executor_queue_depth"));
+        assertTrue(HttpServer.getMetrics().getBytesIn() > 0);
+        assertTrue(HttpServer.getMetrics().getBytesOut() > 0);
+    }
+
+    @Test
+    void testSentBytesMatchWhatTheClientReceived() throws Exception {
+        long before = HttpServer.getMetrics().getBytesOut();
+        int received = 0;
+        try (Socket socket = new Socket("localhost", TEST_PORT)) {
+            socket.setSoTimeout(5000);
+            socket.getOutputStream().write(("GET /api/echo?msg=bytes HTTP/1.1\r\nHost: localhost\r\n"
+                    + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            InputStream in = socket.getInputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                received += read;
+            }
+        }
+        assertTrue(received > 0);
+        // Se cuenta al terminar la escritura, que puede ser justo después de
+        // que el cliente lea el último byte
+        long deadline = System.currentTimeMillis() + 2000;
+        while (HttpServer.getMetrics().getBytesOut() - before < received && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(received, HttpServer.getMetrics().getBytesOut() - before);
+    }
+
+    // ================== MÉTODOS AUXILIARES ==================
+    /**
+     * Lee una respuesta delimitada por Content-Length o chunked.
+     *
+     * @return [headers, body]
+     */
+    static String[] readResponse(InputStream in) throws IOException {
+        String headers = readHead(in);
+        int length = 0;
+        boolean chunked = false;
+        for (String line : headers.split("\r\n")) {
+            if (line.toLowerCase().startsWith("content-length:")) {
+                length = Integer.parseInt(line.substring(15).trim());
+            } else if (line.equalsIgnoreCase("transfer-encoding: chunked")) {
+                chunked = true;
+            }
+        }
+        if (chunked) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] chunk;
+            while ((chunk = readChunk(in)).length > 0) {
+                body.write(chunk);
+            }
+            return new String[]{headers, body.toString(StandardCharsets.UTF_8)};
+        }
+        byte[] body = in.readNBytes(length);
+        return new String[]{headers, new String(body, StandardCharsets.UTF_8)};
+    }
+
+    static String readHead(InputStream in) throws IOException {
+        ByteArrayOutputStream head = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1) {
+            head.write(b);
+            byte[] h = head.toByteArray();
+            int n = h.length;
+            if (n >= 4 && h[n - 4] == '\r' && h[n - 3] == '\n' && h[n - 2] == '\r' && h[n - 1] == '\n') {
+                break;
+            }
+        }
+        return head.toString(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Lee un bloque de un cuerpo chunked (vacío al llegar al bloque final).
+     */
+    static byte[] readChunk(InputStream in) throws IOException {
+        StringBuilder size = new StringBuilder();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b == -1) {
+                throw new EOFException("Cuerpo chunked incompleto");
+            }
+            if (b != '\r') {
+                size.append((char) b);
+            }
+        }
+        int length = Integer.parseInt(size.toString(), 16);
+        byte[] chunk = in.readNBytes(length);
+        in.readNBytes(2); // CRLF
+        return chunk;
+    }
+
     private String sendHttpRequest(String method, String path, String body) throws IOException {
         try (Socket socket = new Socket("localhost", TEST_PORT);
              PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
@@ -89,6 +398,8 @@ public class MultithreadedServerTest {
             // Construir la solicitud HTTP
             out.println(method + " " + path + " HTTP/1.1");
             out.println("Host: localhost:" + TEST_PORT);
+            // La conexión es persistente por defecto; se pide cerrarla para leer hasta EOF
+            out.println("Connection: close");
             if (!body.isEmpty()) {
                 out.println("Content-Type: application/json");
                 out.println("Content-Length: " + body.getBytes().length);
@@ -0,0 +1,238 @@
+package edu.escuelaing.arem.ASE.app;
+
+import edu.escuelaing.arem.ASE.app.http.HttpServer;
+import edu.escuelaing.arem.ASE.app.http.NioServer;
+import edu.escuelaing.arem.ASE.app.http.Response;
+import org.junit.jupiter.api.*;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del motor NIO (reactor con Selector) usando el mismo despachador
+ * que el motor bloqueante.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class NioServerTest {
+
+    private static final int TEST_PORT = 35004;
+    private NioServer server;
+    private ExecutorService workers;
+    private final CountDownLatch streamGate = new CountDownLatch(1);
+
+    @BeforeAll
+    void startServer() throws Exception {
+        HttpServer.get("/nio/echo", (req, res) -> new Response.Builder()
+                .withStatus(200)
+                .withBody("{\"echo\":\"" + req.getQueryParam("msg") + "\"}")
+                .build());
+
+        HttpServer.post("/nio/users", (req, res) -> new Response.Builder()
+                .withStatus(201)
+                .withBody("{\"name\":\"" + req.getJsonValue("name") + "\"}")
+                .build());
+
+        HttpServer.get("/nio/large", (req, res) -> new Response.Builder()
+                .withContentType("text/plain")
+                .withBody("x".repeat(Integer.parseInt(req.getQueryParam("size"))))
+                .build());
+
+        HttpServer.get("/nio/stream", (req, res) -> new Response.Builder()
+                .withContentType("text/plain")
+                .withBodyWriter(out -> {
+                    out.write("inicio".getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                    try {
+                        streamGate.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    // Mucho más que la ventana de escritura: el worker debe
+                    // esperar a que el cliente lea
+                    byte[] line = "0123456789abcdef".repeat(64).getBytes(StandardCharsets.US_ASCII);
+                    for (int i = 0; i < 2048; i++) {
+                        out.write(line);
+                    }
+                })
+                .build());
+
+        workers = Executors.newFixedThreadPool(4);
+        server = new NioServer(TEST_PORT, 2, workers);
+        Thread acceptor = new Thread(server::run);
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @AfterAll
+    void stopServer() {
+        server.stop();
+        workers.shutdownNow();
+    }
+
+    @Test
+    void testGetRequest() throws Exception {
+        String response = send("GET /nio/echo?msg=hola HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n");
+        assertTrue(response.startsWith("HTTP/1.1 200 OK"));
+        assertTrue(response.contains("{\"echo\":\"hola\"}"));
+    }
+
+    @Test
+    void testPostRequestWithBody() throws Exception {
+        String body = "{\"name\":\"Ana\"}";
+        String response = send("POST /nio/users HTTP/1.1\r\n"
+                + "Content-Type: application/json\r\n"
+                + "Connection: close\r\n"
+                + "Content-Length: " + body.length() + "\r\n\r\n" + body);
+        assertTrue(response.startsWith("HTTP/1.1 201 Created"));
+        assertTrue(response.contains("{\"name\":\"Ana\"}"));
+    }
+
+    @Test
+    void testRequestSplitAcrossReads() throws Exception {
+        try (Socket socket = new Socket("localhost", TEST_PORT)) {
+            OutputStream out = socket.getOutputStream();
+            out.write("GET /nio/echo?msg=lento HT".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            Thread.sleep(100);
+            out.write("TP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            String response = new String(socket.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(response.contains("{\"echo\":\"lento\"}"));
+        }
+    }
+
+    @Test
+    void testKeepAliveAndPipelining() throws Exception {
+        try (Socket socket = new Socket("localhost", TEST_PORT)) {
+            socket.setSoTimeout(5000);
+            OutputStream out = socket.getOutputStream();
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+
+            out.write("GET /nio/echo?msg=a HTTP/1.1\r\n\r\nGET /nio/echo?msg=b HTTP/1.1\r\n\r\n"
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            String[] first = MultithreadedServerTest.readResponse(in);
+            assertTrue(first[0].contains("Connection: keep-alive"));
+            assertEquals("{\"echo\":\"a\"}", first[1]);
+            assertEquals("{\"echo\":\"b\"}", MultithreadedServerTest.readResponse(in)[1]);
+
+            // La misma conexión sigue disponible para una petición posterior
+            out.write("GET /nio/echo?msg=c HTTP/1.1\r\nConnection: close\r\n\r\n"
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            String[] last = MultithreadedServerTest.readResponse(in);
+            assertEquals("{\"echo\":\"c\"}", last[1]);
+            assertTrue(last[0].contains("Connection: close"));
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    void testLargeBodiesOnKeepAliveConnection() throws Exception {
+        try (Socket socket = new Socket("localhost", TEST_PORT)) {
+            socket.setSoTimeout(5000);
+            OutputStream out = socket.getOutputStream();
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+
+            // Cuerpos mayores que el buffer del socket: la escritura agrupada
+            // queda parcial y continúa con OP_WRITE
+            out.write(("GET /nio/large?size=2000000 HTTP/1.1\r\n\r\n"
+                    + "GET /nio/large?size=3 HTTP/1.1\r\nConnection: close\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            String[] first = MultithreadedServerTest.readResponse(in);
+            assertTrue(first[0].contains("Content-Length: 2000000"));
+            assertEquals(2000000, first[1].length());
+            assertEquals("xxx", MultithreadedServerTest.readResponse(in)[1]);
+        }
+    }
+
+    @Test
+    void testStreamingBodyWithBackpressure() throws Exception {
+        try (Socket socket = new Socket("localhost", TEST_PORT)) {
+            socket.setSoTimeout(5000);
+            OutputStream out = socket.getOutputStream();
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            out.write("GET /nio/stream HTTP/1.1\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            assertTrue(MultithreadedServerTest.readHead(in).contains("Transfer-Encoding: chunked"));
+            assertEquals("inicio", new String(MultithreadedServerTest.readChunk(in), StandardCharsets.UTF_8));
+            streamGate.countDown();
+
+            long total = 0;
+            byte[] chunk;
+            while ((chunk = MultithreadedServerTest.readChunk(in)).length > 0) {
+                total += chunk.length;
+            }
+            assertEquals(2048L * 1024, total);
+
+            out.write("GET /nio/echo?msg=tras HTTP/1.1\r\nConnection: close\r\n\r\n"
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            assertEquals("{\"echo\":\"tras\"}", MultithreadedServerTest.readResponse(in)[1]);
+        }
+    }
+
+    @Test
+    void testStreamingBodyForHttp10Client() throws Exception {
+        streamGate.countDown();
+        String response = send("GET /nio/stream HTTP/1.0\r\n\r\n");
+        String head = response.substring(0, response.indexOf("\r\n\r\n"));
+        assertFalse(head.contains("Transfer-Encoding"));
+        assertTrue(head.contains("Connection: close"));
+        // Sin framing: el cuerpo termina al cerrar la conexión
+        assertEquals(6 + 2048 * 1024, response.length() - head.length() - 4);
+    }
+
+    @Test
+    void testMalformedRequestLine() throws Exception {
+        String response = send("BASURA\r\n\r\n");
+        assertTrue(response.startsWith("HTTP/1.1 400"));
+    }
+
+    @Test
+    void testConcurrentClients() throws Exception {
+        int clientCount = 100;
+        ExecutorService clients = Executors.newFixedThreadPool(clientCount);
+        AtomicInteger successCount = new AtomicInteger(0);
+        CountDownLatch latch = new CountDownLatch(clientCount);
+
+        for (int i = 0; i < clientCount; i++) {
+            final int id = i;
+            clients.submit(() -> {
+                try {
+                    String response = send("GET /nio/echo?msg=m" + id + " HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n");
+                    if (response.contains("{\"echo\":\"m" + id + "\"}")) {
+                        successCount.incrementAndGet();
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        latch.await(10, TimeUnit.SECONDS);
+        clients.shutdownNow();
+        assertEquals(clientCount, successCount.get());
+    }
+
+    // ================== MÉTODO AUXILIAR ==================
+    private String send(String rawRequest) throws IOException {
+        try (Socket socket = new Socket("localhost", TEST_PORT)) {
+            socket.setSoTimeout(5000);
+            OutputStream out = socket.getOutputStream();
+            out.write(rawRequest.getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            return new String(socket.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package edu.escuelaing.arem.ASE.app;
+
+import edu.escuelaing.arem.ASE.app.http.Parameters;
+import edu.escuelaing.arem.ASE.app.http.Request;
+import org.junit.jupiter.api.*;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de los parámetros de query y formulario: claves repetidas,
+ * decodificación solo cuando hay escapes y parseo una sola vez por petición.
+ */
+class ParametersTest {
+
+    @Test
+    void testMultiValuedAndEmptyParameters() {
+        Parameters params = Parameters.parse("a=1&b=2&a=3&flag&&=sin-clave&c=");
+
+        assertEquals("1", params.get("a"));
+        assertEquals(List.of("1", "3"), params.getAll("a"));
+        assertEquals("", params.get("flag"));
+        assertEquals("", params.get("c"));
+        assertNull(params.get("d"));
+        assertTrue(params.getAll("d").isEmpty());
+        assertEquals(5, params.size());
+        assertEquals(Map.of("a", "1", "b", "2", "flag", "", "c", ""), params.asMap());
+        assertThrows(UnsupportedOperationException.class, () -> params.asMap().put("x", "y"));
+    }
+
+    @Test
+    void testDecodesOnlyEscapedKeysAndValues() {
+        Parameters params = Parameters.parse("name=Jos%C3%A9+Luis&%C3%B1=tilde&raw=100%&plain=abc");
+
+        assertEquals("José Luis", params.get("name"));
+        assertEquals("tilde", params.get("ñ"));
+        // Un '%' sin dígitos hexadecimales se conserva
+        assertEquals("100%", params.get("raw"));
+        assertEquals("abc", params.get("plain"));
+    }
+
+    @Test
+    void testRequestParsesQueryAndFormOnce() throws Exception {
+        Request req = new Request.Builder()
+                .withMethod("POST")
+                .withUri(new URI("/add?a=5&b=3&b=4"))
+                .withHeader("Content-Type", "application/x-www-form-urlencoded")
+                .withBody("user=ana+maria&rol=admin&rol=dev")
+                .build();
+
+        assertSame(req.getQueryParameters(), req.getQueryParameters());
+        assertEquals("5", req.getQueryParam("a"));
+        assertEquals("3", req.getQueryParam("b"));
+        assertEquals(List.of("3", "4"), req.getQueryParameters().getAll("b"));
+        assertSame(req.getQueryParams(), req.getQueryParams());
+
+        assertEquals("ana maria", req.getFormData().get("user"));
+        assertEquals(List.of("admin", "dev"), req.getFormParameters().getAll("rol"));
+
+        Request json = new Request.Builder().withMethod("POST").withUri(new URI("/x"))
+                .withHeader("Content-Type", "application/json").withBody("{\"a\":1}").build();
+        assertTrue(json.getFormData().isEmpty());
+    }
+}
@@ -0,0 +1,160 @@
+package edu.escuelaing.arem.ASE.app;
+
+import edu.escuelaing.arem.ASE.app.http.HttpServer;
+import edu.escuelaing.arem.ASE.app.http.NioServer;
+import edu.escuelaing.arem.ASE.app.http.Response;
+import org.junit.jupiter.api.*;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de los cuerpos de petición: streaming, chunked, 100-continue y
+ * límite de tamaño.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RequestBodyTest {
+
+    private static final int TEST_PORT = 35005;
+    private NioServer server;
+    private ExecutorService workers;
+
+    @BeforeAll
+    void startServer() throws Exception {
+        // Lee el cuerpo en bloques sin acumularlo y devuelve su tamaño y suma
+        HttpServer.post("/body-test/upload", (req, res) -> {
+            long bytes = 0;
+            long sum = 0;
+            try (InputStream in = req.getBodyStream()) {
+                byte[] buffer = new byte[4096];
+                int n;
+                while ((n = in.read(buffer)) >= 0) {
+                    bytes += n;
+                    for (int i = 0; i < n; i++) {
+                        sum += buffer[i] & 0xFF;
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return new Response.Builder().withBody("{\"bytes\":" + bytes + ",\"sum\":" + sum + "}").build();
+        });
+        HttpServer.post("/body-test/echo", (req, res) -> new Response.Builder()
+                .withContentType("text/plain; charset=utf-8")
+                .withBody(req.getBody())
+                .build());
+        HttpServer.post("/body-test/ignore", (req, res) -> new Response.Builder().withBody("{}").build());
+
+        workers = Executors.newFixedThreadPool(4);
+        server = new NioServer(TEST_PORT, 1, workers);
+        Thread acceptor = new Thread(server::run);
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @AfterAll
+    void stopServer() {
+        server.stop();
+        workers.shutdownNow();
+    }
+
+    @Test
+    void testChunkedUploadIsDecodedAcrossWrites() throws Exception {
+        try (Socket socket = connect()) {
+            OutputStream out = socket.getOutputStream();
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            write(out, "POST /body-test/echo HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n6;ext=1\r\nca");
+            Thread.sleep(50);
+            write(out, "ñó\r\n");
+            Thread.sleep(50);
+            write(out, "1\r\n!\r\n0\r\nX-Trailer: si\r\n\r\n"
+                    + "GET /nio-body-missing HTTP/1.1\r\nConnection: close\r\n\r\n");
+
+            String[] echo = MultithreadedServerTest.readResponse(in);
+            assertTrue(echo[0].startsWith("HTTP/1.1 200"));
+            assertEquals("cañó!", echo[1]);
+            // La petición encadenada tras el cuerpo chunked se atiende
+            assertTrue(MultithreadedServerTest.readResponse(in)[0].startsWith("HTTP/1.1 404"));
+        }
+    }
+
+    @Test
+    void testLargeUploadIsStreamed() throws Exception {
+        byte[] body = new byte[1_000_000];
+        long sum = 0;
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) i;
+            sum += body[i] & 0xFF;
+        }
+        try (Socket socket = connect()) {
+            OutputStream out = socket.getOutputStream();
+            write(out, "POST /body-test/upload HTTP/1.1\r\nConnection: close\r\nContent-Length: " + body.length + "\r\n\r\n");
+            out.write(body);
+            out.flush();
+            String[] response = MultithreadedServerTest.readResponse(new BufferedInputStream(socket.getInputStream()));
+            assertEquals("{\"bytes\":1000000,\"sum\":" + sum + "}", response[1]);
+        }
+    }
+
+    @Test
+    void testExpectContinue() throws Exception {
+        try (Socket socket = connect()) {
+            OutputStream out = socket.getOutputStream();
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+
+            // Cuerpo pequeño: el 100 se envía antes de leerlo
+            write(out, "POST /body-test/echo HTTP/1.1\r\nExpect: 100-continue\r\nContent-Length: 4\r\n\r\n");
+            assertTrue(MultithreadedServerTest.readHead(in).startsWith("HTTP/1.1 100 Continue"));
+            write(out, "hola");
+            assertEquals("hola", MultithreadedServerTest.readResponse(in)[1]);
+
+            // Cuerpo en streaming: el 100 se envía cuando el handler lo lee
+            write(out, "POST /body-test/upload HTTP/1.1\r\nExpect: 100-continue\r\nTransfer-Encoding: chunked\r\n\r\n");
+            assertTrue(MultithreadedServerTest.readHead(in).startsWith("HTTP/1.1 100 Continue"));
+            write(out, "3\r\nabc\r\n0\r\n\r\n");
+            assertEquals("{\"bytes\":3,\"sum\":294}", MultithreadedServerTest.readResponse(in)[1]);
+
+            // Si el handler no pide el cuerpo, no hay 100 y la conexión se cierra
+            write(out, "POST /body-test/ignore HTTP/1.1\r\nExpect: 100-continue\r\nTransfer-Encoding: chunked\r\n\r\n");
+            String[] ignored = MultithreadedServerTest.readResponse(in);
+            assertTrue(ignored[0].startsWith("HTTP/1.1 200"));
+            assertTrue(ignored[0].contains("Connection: close"));
+        }
+    }
+
+    @Test
+    void testBodyOverLimitIsRejected() throws Exception {
+        try (Socket socket = connect()) {
+            write(socket.getOutputStream(), "POST /body-test/upload HTTP/1.1\r\nContent-Length: 999999999999\r\n\r\n");
+            String response = new String(socket.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(response.startsWith("HTTP/1.1 413 Content Too Large"));
+            assertTrue(response.contains("Connection: close"));
+        }
+    }
+
+    @Test
+    void testAmbiguousLengthIsRejected() throws Exception {
+        try (Socket socket = connect()) {
+            write(socket.getOutputStream(), "POST /body-test/echo HTTP/1.1\r\nContent-Length: 3\r\n"
+                    + "Transfer-Encoding: chunked\r\n\r\n3\r\nabc\r\n0\r\n\r\n");
+            String response = new String(socket.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(response.startsWith("HTTP/1.1 400"));
+        }
+    }
+
+    private static Socket connect() throws IOException {
+        Socket socket = new Socket("localhost", TEST_PORT);
+        socket.setSoTimeout(5000);
+        return socket;
+    }
+
+    private static void write(OutputStream out, String data) throws IOException {
+        out.write(data.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+}
@@ -0,0 +1,124 @@
+package edu.escuelaing.arem.ASE.app;
+
+import edu.escuelaing.arem.ASE.app.http.Request;
+import edu.escuelaing.arem.ASE.app.http.RequestParser;
+import org.junit.jupiter.api.*;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del parser HTTP incremental sobre bytes.
+ */
+class RequestParserTest {
+
+    private static void feed(RequestParser parser, String raw) {
+        parser.buffer().put(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testParsesRequestLineAndHeaders() {
+        RequestParser parser = new RequestParser();
+        feed(parser, "GET /add?a=1&b=2 HTTP/1.1\r\nHost: localhost\r\nX-Custom:  valor  \r\n\r\n");
+
+        assertEquals(RequestParser.Status.COMPLETE, parser.parse());
+        assertSame("GET", parser.method());
+        assertEquals("/add", parser.path());
+        assertEquals("a=1&b=2", parser.query());
+        assertEquals("HTTP/1.1", parser.version());
+        assertEquals(2, parser.headerCount());
+        assertEquals("localhost", parser.header("HOST"));
+        assertEquals("valor", parser.header("x-custom"));
+        assertNull(parser.header("Content-Type"));
+    }
+
+    @Test
+    void testResumesAcrossPartialReads() {
+        String raw = "POST /app/hello HTTP/1.1\r\nContent-Length: 14\r\n\r\n{\"name\":\"Ana\"}";
+        RequestParser parser = new RequestParser(16);
+
+        // Un byte por lectura: el parser debe continuar donde se quedó
+        RequestParser.Status status = RequestParser.Status.INCOMPLETE;
+        byte[] bytes = raw.getBytes(StandardCharsets.UTF_8);
+        for (byte b : bytes) {
+            parser.buffer().put(b);
+            status = parser.parse();
+            if (status != RequestParser.Status.INCOMPLETE) {
+                break;
+            }
+        }
+        assertEquals(RequestParser.Status.COMPLETE, status);
+        assertEquals(14, parser.contentLength());
+
+        // El cuerpo también llega byte a byte
+        while (!parser.isBodyComplete()) {
+            parser.buffer().put(bytes, parser.buffer().position(), 1);
+        }
+        Request request = new Request.Builder()
+                .withHead(parser)
+                .withBodyBytes(parser.array(), parser.bodyOffset(), (int) parser.contentLength())
+                .build();
+        assertEquals("POST", request.getMethod());
+        assertEquals("{\"name\":\"Ana\"}", request.getBody());
+    }
+
+    @Test
+    void testPipelinedRequestsWithNext() {
+        RequestParser parser = new RequestParser();
+        feed(parser, "GET /uno HTTP/1.1\r\n\r\nGET /dos HTTP/1.0\r\nConnection: keep-alive\r\n\r\n");
+
+        assertEquals(RequestParser.Status.COMPLETE, parser.parse());
+        assertEquals("/uno", parser.path());
+        assertTrue(parser.pendingBytes() > 0);
+
+        parser.next();
+        assertEquals(RequestParser.Status.COMPLETE, parser.parse());
+        assertEquals("/dos", parser.path());
+        assertEquals("HTTP/1.0", parser.version());
+        assertTrue(parser.headerEquals("connection", "Keep-Alive"));
+        parser.next();
+        assertEquals(0, parser.pendingBytes());
+    }
+
+    @Test
+    void testAcceptsBareLineFeeds() {
+        RequestParser parser = new RequestParser();
+        feed(parser, "GET /pi HTTP/1.1\nHost: localhost\n\n");
+        assertEquals(RequestParser.Status.COMPLETE, parser.parse());
+        assertEquals("/pi", parser.path());
+        assertEquals("localhost", parser.header("host"));
+    }
+
+    @Test
+    void testDecodesPercentEscapesInPath() {
+        RequestParser parser = new RequestParser();
+        feed(parser, "GET /archivo%20con%20espacios.txt HTTP/1.1\r\n\r\n");
+        assertEquals(RequestParser.Status.COMPLETE, parser.parse());
+        assertEquals("/archivo con espacios.txt", parser.path());
+        assertEquals("/archivo%20con%20espacios.txt", parser.target());
+    }
+
+    @Test
+    void testRejectsMalformedRequests() {
+        assertEquals(RequestParser.Status.INVALID, parseAll("BASURA\r\n\r\n"));
+        assertEquals(RequestParser.Status.INVALID, parseAll("GET /x HTTP/1.1\r\nSin dos puntos\r\n\r\n"));
+        assertEquals(RequestParser.Status.INVALID, parseAll("GET /x HTTP/1.1\r\nContent-Length: abc\r\n\r\n"));
+        assertEquals(RequestParser.Status.INVALID, parseAll("GET /x FTP/1.1\r\n\r\n"));
+    }
+
+    @Test
+    void testRejectsOversizedHeaders() {
+        StringBuilder raw = new StringBuilder("GET / HTTP/1.1\r\nX-Grande: ");
+        raw.append("a".repeat(70 * 1024));
+        assertEquals(RequestParser.Status.TOO_LARGE, parseAll(raw.toString()));
+    }
+
+    private static RequestParser.Status parseAll(String raw) {
+        RequestParser parser = new RequestParser();
+        byte[] bytes = raw.getBytes(StandardCharsets.UTF_8);
+        parser.ensureCapacity(bytes.length);
+        parser.buffer().put(bytes);
+        return parser.parse();
+    }
+}
@@ -0,0 +1,64 @@
+package edu.escuelaing.arem.ASE.app;
+
+import edu.escuelaing.arem.ASE.app.http.Response;
+import org.junit.jupiter.api.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la serialización de respuestas: líneas de estado, header Date y
+ * separación entre cabecera y cuerpo.
+ */
+class ResponseSerializationTest {
+
+    private static String head(Response response) {
+        return new String(response.getHeaderBytes(), StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void testStatusLinesCoverRegisteredCodes() {
+        assertTrue(head(new Response.Builder().withStatus(503).build()).startsWith("HTTP/1.1 503 Service Unavailable\r\n"));
+        assertTrue(head(new Response.Builder().withStatus(422).build()).startsWith("HTTP/1.1 422 Unprocessable Content\r\n"));
+        assertTrue(head(new Response.Builder().withStatus(413).build()).startsWith("HTTP/1.1 413 Content Too Large\r\n"));
+        assertEquals("Unknown", new Response.Builder().withStatus(299).build().getStatusText());
+        assertTrue(head(new Response.Builder().withStatus(299).build()).startsWith("HTTP/1.1 299 Unknown\r\n"));
+    }
+
+    @Test
+    void testDateHeaderIsAddedUnlessPresent() {
+        String head = head(new Response.Builder().withBody("{}").build());
+        int start = head.indexOf("Date: ");
+        assertTrue(start > 0);
+        String date = head.substring(start + 6, head.indexOf("\r\n", start));
+        ZonedDateTime parsed = ZonedDateTime.parse(date, DateTimeFormatter.RFC_1123_DATE_TIME);
+        assertTrue(Math.abs(parsed.toEpochSecond() - System.currentTimeMillis() / 1000) <= 2);
+
+        String fixed = head(new Response.Builder().addHeader("Date", "Thu, 01 Jan 1970 00:00:00 GMT").build());
+        assertEquals(fixed.indexOf("Date: "), fixed.lastIndexOf("Date: "));
+        assertTrue(fixed.contains("Date: Thu, 01 Jan 1970 00:00:00 GMT\r\n"));
+    }
+
+    @Test
+    void testHeadAndBodyLayout() {
+        Response response = new Response.Builder()
+                .withContentType("text/plain")
+                .withBody("año")
+                .addHeader("X-Trace", "abc")
+                .build();
+        String head = head(response);
+        assertTrue(head.startsWith("HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\nContent-Length: 4\r\n"));
+        assertTrue(head.contains("X-Trace: abc\r\n"));
+        assertTrue(head.endsWith("\r\n\r\n"));
+
+        byte[] full = response.toBytes();
+        assertEquals(head.length() + 4, full.length);
+        assertEquals("año", new String(full, head.length(), 4, StandardCharsets.UTF_8));
+
+        response.setOmitBody(true);
+        assertEquals(head.length(), response.toBytes().length);
+    }
+}
@@ -0,0 +1,127 @@
+package edu.escuelaing.arem.ASE.app;
+
+import edu.escuelaing.arem.ASE.app.http.HttpServer;
+import edu.escuelaing.arem.ASE.app.http.Request;
+import edu.escuelaing.arem.ASE.app.http.Response;
+import edu.escuelaing.arem.ASE.app.http.Router;
+import org.junit.jupiter.api.*;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del router: variables de ruta, comodines, prioridad entre ramas y
+ * despacho por método con HEAD, OPTIONS y 405 derivados de las rutas.
+ */
+class RouterTest {
+
+    @Test
+    void testStaticParamAndWildcardRoutes() {
+        Router router = new Router();
+        router.add("GET", "/users", text("lista"));
+        router.add("GET", "/users/{id}", text("uno"));
+        router.add("GET", "/users/{id}/posts/{postId}", text("post"));
+        router.add("GET", "/static/*", text("archivo"));
+
+        assertEquals("/users", router.match("/users").route().pattern());
+        assertNull(router.match("/users/"));
+        assertNull(router.match("/usuarios"));
+
+        Router.Match one = router.match("/users/42");
+        assertEquals("/users/{id}", one.route().pattern());
+        assertEquals("42", one.param("id"));
+        assertNull(one.param("otro"));
+
+        Router.Match post = router.match("/users/7/posts/abc");
+        assertEquals("7", post.param("id"));
+        assertEquals("abc", post.param("postId"));
+
+        assertEquals("css/app.css", router.match("/static/css/app.css").param("*"));
+        assertEquals("", router.match("/static/").param("*"));
+    }
+
+    @Test
+    void testStaticSegmentWinsAndBacktracks() {
+        Router router = new Router();
+        router.add("GET", "/users/me", text("yo"));
+        router.add("GET", "/users/{id}", text("uno"));
+        router.add("GET", "/users/{id}/edit", text("editar"));
+        router.add("GET", "/users/*", text("resto"));
+
+        assertEquals("/users/me", router.match("/users/me").route().pattern());
+        assertEquals("/users/{id}", router.match("/users/mexico").route().pattern());
+        // "me" no tiene "/edit": se retrocede a la variable
+        assertEquals("me", router.match("/users/me/edit").param("id"));
+        // Ninguna rama con variable llega al final: queda el comodín
+        assertEquals("a/b/c", router.match("/users/a/b/c").param("*"));
+    }
+
+    @Test
+    void testRejectsInvalidOrConflictingPatterns() {
+        Router router = new Router();
+        router.add("GET", "/items/{id}", text("item"));
+
+        assertThrows(IllegalArgumentException.class, () -> router.add("GET", "/items/{name}/x", text("x")));
+        assertThrows(IllegalArgumentException.class, () -> router.add("GET", "/files/*/x", text("x")));
+        assertThrows(IllegalArgumentException.class, () -> router.add("GET", "/a{id}", text("x")));
+        assertThrows(IllegalArgumentException.class, () -> router.add("GET", "sin-barra", text("x")));
+        assertThrows(IllegalArgumentException.class, () -> router.add("TRACE", "/items", text("x")));
+
+        // Un registro rechazado no altera la tabla publicada
+        assertEquals("1", router.match("/items/1").param("id"));
+        assertEquals(1, router.patterns().size());
+    }
+
+    @Test
+    void testMethodDispatchThroughServer() throws Exception {
+        HttpServer.get("/router-test/orders/{id}", (req, res) -> new Response.Builder()
+                .withBody("order " + req.getPathParam("id") + " " + req.getRoutePattern())
+                .build());
+        HttpServer.route("DELETE", "/router-test/orders/{id}", (req, res) -> new Response.Builder()
+                .withStatus(204).build());
+
+        Response get = HttpServer.handleRequest(request("GET", "/router-test/orders/15"));
+        assertEquals(200, get.getStatus());
+        assertEquals("order 15 /router-test/orders/{id}", new String(get.getBodyBytes(), StandardCharsets.UTF_8));
+
+        Response head = HttpServer.handleRequest(request("HEAD", "/router-test/orders/15"));
+        assertEquals(200, head.getStatus());
+        assertFalse(new String(head.toBytes(), StandardCharsets.UTF_8).contains("order 15"));
+
+        assertEquals(204, HttpServer.handleRequest(request("DELETE", "/router-test/orders/15")).getStatus());
+
+        Response options = HttpServer.handleRequest(request("OPTIONS", "/router-test/orders/15"));
+        assertEquals(200, options.getStatus());
+        assertEquals("GET, HEAD, DELETE, OPTIONS", options.getHeader("Allow"));
+
+        Response post = HttpServer.handleRequest(request("POST", "/router-test/orders/15"));
+        assertEquals(405, post.getStatus());
+        assertEquals("GET, HEAD, DELETE, OPTIONS", post.getHeader("Allow"));
+    }
+
+    @Test
+    @SuppressWarnings("removal")
+    void testDeprecatedServiceMapsAreSnapshotsOfTheRouter() {
+        BiFunction<Request, Response, Response> legacy = text("legacy");
+        HttpServer.get("/router-test/legacy", legacy);
+        HttpServer server = new HttpServer();
+        assertSame(legacy, server.getGetServices().get("/router-test/legacy"));
+        assertNull(server.getPostServices().get("/router-test/legacy"));
+
+        // Es una copia: quitar la entrada no elimina la ruta
+        server.getGetServices().remove("/router-test/legacy");
+        assertNotNull(HttpServer.getRouter().match("/router-test/legacy"));
+    }
+
+    // ================== MÉTODOS AUXILIARES ==================
+    private static BiFunction<Request, Response, Response> text(String body) {
+        return (req, res) -> new Response.Builder().withBody(body).build();
+    }
+
+    private static Request request(String method, String path) {
+        return new Request.Builder().withMethod(method).withUri(URI.create(path)).build();
+    }
+}
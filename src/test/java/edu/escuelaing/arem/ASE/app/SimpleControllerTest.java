@@ -1,7 +1,14 @@
 package edu.escuelaing.arem.ASE.app;
 
+import edu.escuelaing.arem.ASE.app.Controller.MathController;
+import edu.escuelaing.arem.ASE.app.annotation.GetMapping;
+import edu.escuelaing.arem.ASE.app.annotation.RequestParam;
+import edu.escuelaing.arem.ASE.app.http.ControllerMethod;
 import edu.escuelaing.arem.ASE.app.http.HttpServer;
+import edu.escuelaing.arem.ASE.app.http.Request;
+import edu.escuelaing.arem.ASE.app.http.Response;
 import org.junit.jupiter.api.*;
+import java.lang.reflect.Method;
 import java.net.URI;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -112,4 +119,85 @@ class SimpleControllerTest {
     "Endpoints no registrados deben retornar 404");
     }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("Test endpoint /divide que devuelve un record")
+    void testObjectResultIsSerializedAsJson() throws Exception {
+    String responseStr = new String(HttpServer.handleGetRequest(new URI("/divide?a=7&b=2")), "UTF-8");
+    assertTrue(responseStr.contains("200 OK"));
+    assertTrue(responseStr.contains("Content-Type: application/json"));
+    assertTrue(responseStr.endsWith("{\"dividend\":7,\"divisor\":2,\"quotient\":3,\"remainder\":1}"));
+
+    // El controlador puede devolver una Response propia
+    String error = new String(HttpServer.handleGetRequest(new URI("/divide?a=7&b=0")), "UTF-8");
+    assertTrue(error.contains("400 Bad Request"));
+    assertTrue(error.endsWith("{\"error\":\"Division by zero\"}"));
+    }
+
+    @Test
+    @DisplayName("Test ControllerMethod - llamada directa y MethodHandle genérico")
+    void testControllerMethodBinding() throws Throwable {
+    Request req = new Request.Builder().withMethod("GET").withUri(new URI("/x?a=1&b=2&c=3&d=4")).build();
+
+    // Hasta tres parámetros String: llamada generada con LambdaMetafactory
+    ControllerMethod add = ControllerMethod.bind(MathController.class.getMethod("add", String.class, String.class));
+    assertEquals("Result: 3", add.invoke(req));
+
+    // Cuatro parámetros: MethodHandle con los argumentos en un arreglo
+    Method join = SimpleControllerTest.class.getDeclaredMethod("join", String.class, String.class, String.class, String.class);
+    join.setAccessible(true);
+    assertEquals("1234", ControllerMethod.bind(join).invoke(req));
+
+    // Parámetro sin @RequestParam: 400 en cada petición, como antes
+    Method unannotated = SimpleControllerTest.class.getDeclaredMethod("unannotated", String.class);
+    unannotated.setAccessible(true);
+    Response res = ControllerMethod.bind(unannotated).apply(req, null);
+    assertEquals(400, res.getStatus());
+
+    // Las excepciones del controlador son un 500; los Error se propagan
+    Method failing = SimpleControllerTest.class.getDeclaredMethod("failing", String.class);
+    failing.setAccessible(true);
+    assertEquals(500, ControllerMethod.bind(failing).apply(req, null).getStatus());
+    Method overflow = SimpleControllerTest.class.getDeclaredMethod("overflow", String.class);
+    overflow.setAccessible(true);
+    ControllerMethod overflowing = ControllerMethod.bind(overflow);
+    assertThrows(StackOverflowError.class, () -> overflowing.apply(req, null));
+    }
+
+    @Test
+    @DisplayName("Test índice de controladores generado en compilación")
+    void testGeneratedControllerIndexMatchesScan() throws Exception {
+    // El procesador de anotaciones generó el índice durante el build
+    assertDoesNotThrow(() -> Class.forName("edu.escuelaing.arem.ASE.app.http.GeneratedControllerIndex"));
+
+    // Cada ruta que encuentra el escaneo quedó registrada desde el índice
+    for (Class<?> c : HttpServer.findRestControllers("edu.escuelaing.arem.ASE.app")) {
+    for (Method m : c.getDeclaredMethods()) {
+    GetMapping mapping = m.getAnnotation(GetMapping.class);
+    if (mapping != null) {
+    Object handler = HttpServer.getRouter().match(mapping.value()).route().handler("GET");
+    assertTrue(handler instanceof ControllerMethod, mapping.value());
+    assertEquals(m, ((ControllerMethod) handler).getMethod());
+    }
+    }
+    }
+    ControllerMethod add = (ControllerMethod) HttpServer.getRouter().match("/add").route().handler("GET");
+    assertArrayEquals(new String[]{"a", "b"}, add.getParameterNames());
+    }
+
+    static String join(@RequestParam("a") String a, @RequestParam("b") String b,
+    @RequestParam("c") String c, @RequestParam("d") String d) {
+    return a + b + c + d;
+    }
+
+    static String unannotated(String value) {
+    return value;
+    }
+
+    static String failing(@RequestParam("a") String a) {
+    throw new IllegalStateException("falla " + a);
+    }
+
+    static String overflow(@RequestParam("a") String a) {
+    throw new StackOverflowError(a);
+    }
+}
@@ -0,0 +1,164 @@
+package edu.escuelaing.arem.ASE.app;
+
+import edu.escuelaing.arem.ASE.app.http.Request;
+import edu.escuelaing.arem.ASE.app.http.Response;
+import edu.escuelaing.arem.ASE.app.http.StaticFileCache;
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la caché de respuestas estáticas: expulsión LRU por tamaño,
+ * contadores de aciertos, fallos y expulsiones, variantes comprimidas y
+ * peticiones por rangos.
+ */
+class StaticFileCacheTest {
+
+    private static final String TYPE = "application/octet-stream";
+    private static final String TEXT = "text/plain; charset=utf-8";
+
+    @Test
+    void testEvictsLeastRecentlyUsedWhenOverBudget() {
+        StaticFileCache cache = new StaticFileCache(100);
+        for (String path : new String[]{"/a", "/b", "/c", "/d", "/e"}) {
+            cache.put(path, TYPE, new byte[20], 0);
+        }
+        assertEquals(100, cache.getSizeBytes());
+
+        // "/a" se usa de nuevo, así que el menos reciente pasa a ser "/b"
+        assertNotNull(cache.get("/a"));
+        cache.put("/f", TYPE, new byte[20], 0);
+
+        assertNull(cache.get("/b"));
+        assertNotNull(cache.get("/a"));
+        assertNotNull(cache.get("/f"));
+        assertEquals(1, cache.getEvictions());
+        assertEquals(100, cache.getSizeBytes());
+        assertEquals(3, cache.getHits());
+        // get() no cuenta fallos: los registra quien encuentra el recurso
+        assertEquals(0, cache.getMisses());
+        cache.recordMiss();
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void testDoesNotStoreEntriesLargerThanQuarterOfBudget() {
+        StaticFileCache cache = new StaticFileCache(100);
+        StaticFileCache.Entry entry = cache.put("/grande", TYPE, new byte[60], 0);
+
+        assertNotNull(entry);
+        assertEquals(0, cache.getEntryCount());
+        assertNull(cache.get("/grande"));
+    }
+
+    @Test
+    void testEtagDependsOnContent() {
+        StaticFileCache cache = new StaticFileCache(1024);
+        String first = cache.put("/x", TYPE, "uno".getBytes(), 0).getEtag();
+        String same = cache.put("/y", TYPE, "uno".getBytes(), 0).getEtag();
+        String other = cache.put("/z", TYPE, "dos".getBytes(), 0).getEtag();
+
+        assertEquals(first, same);
+        assertNotEquals(first, other);
+        assertTrue(first.startsWith("\"") && first.endsWith("\""));
+    }
+
+    @Test
+    void testNegotiatesCompressedVariants() throws IOException {
+        byte[] text = "contenido comprimible ".repeat(100).getBytes(StandardCharsets.UTF_8);
+        StaticFileCache.Entry entry = new StaticFileCache(1 << 20).put("/t.txt", TEXT, text, 0);
+        assertArrayEquals(new String[]{"gzip", "deflate"}, entry.getEncodings());
+
+        Response gzip = entry.toResponse(withAcceptEncoding("gzip, deflate, br"));
+        String head = new String(gzip.getHeaderBytes(), StandardCharsets.US_ASCII);
+        assertTrue(head.contains("Content-Encoding: gzip\r\n"));
+        assertTrue(head.contains("Vary: Accept-Encoding\r\n"));
+        assertTrue(gzip.getBodyBytes().length < text.length);
+        assertArrayEquals(text, new GZIPInputStream(new ByteArrayInputStream(gzip.getBodyBytes())).readAllBytes());
+
+        Response deflate = entry.toResponse(withAcceptEncoding("gzip;q=0.5, deflate"));
+        assertTrue(new String(deflate.getHeaderBytes(), StandardCharsets.US_ASCII).contains("Content-Encoding: deflate"));
+        InputStream inflated = new InflaterInputStream(new ByteArrayInputStream(deflate.getBodyBytes()));
+        assertArrayEquals(text, inflated.readAllBytes());
+
+        // Sin Accept-Encoding, o con q=0, se envía el original pero con Vary
+        for (String accept : new String[]{null, "gzip;q=0, deflate;q=0", "br"}) {
+            Response identity = entry.toResponse(withAcceptEncoding(accept));
+            String identityHead = new String(identity.getHeaderBytes(), StandardCharsets.US_ASCII);
+            assertFalse(identityHead.contains("Content-Encoding"));
+            assertTrue(identityHead.contains("Vary: Accept-Encoding"));
+            assertArrayEquals(text, identity.getBodyBytes());
+        }
+    }
+
+    @Test
+    void testBinaryContentIsNotCompressed() {
+        StaticFileCache.Entry entry = new StaticFileCache(1 << 20).put("/img.png", "image/png", new byte[4096], 0);
+        assertEquals(0, entry.getEncodings().length);
+        String head = new String(entry.toResponse(withAcceptEncoding("gzip")).getHeaderBytes(), StandardCharsets.US_ASCII);
+        assertFalse(head.contains("Content-Encoding"));
+        assertFalse(head.contains("Vary"));
+    }
+
+    @Test
+    void testRangeRequestsOnCachedEntry() {
+        byte[] digits = "0123456789".repeat(10).getBytes(StandardCharsets.US_ASCII);
+        StaticFileCache.Entry entry = new StaticFileCache(1 << 20).put("/d.bin", TYPE, digits, 0);
+        assertTrue(head(entry.toResponse(withHeaders())).contains("Accept-Ranges: bytes"));
+
+        Response single = entry.toResponse(withHeaders("Range", "bytes=10-14"));
+        assertEquals(206, single.getStatus());
+        assertTrue(head(single).contains("Content-Range: bytes 10-14/100\r\n"));
+        assertEquals("01234", new String(single.getBodyBytes(), StandardCharsets.US_ASCII));
+
+        Response suffix = entry.toResponse(withHeaders("Range", "bytes=-3"));
+        assertEquals("789", new String(suffix.getBodyBytes(), StandardCharsets.US_ASCII));
+        assertTrue(head(suffix).contains("Content-Range: bytes 97-99/100"));
+
+        Response multi = entry.toResponse(withHeaders("Range", "bytes=0-1, 95-"));
+        assertEquals(206, multi.getStatus());
+        assertTrue(head(multi).contains("Content-Type: multipart/byteranges; boundary="));
+        String parts = new String(multi.getBodyBytes(), StandardCharsets.US_ASCII);
+        assertTrue(parts.contains("Content-Range: bytes 0-1/100\r\n\r\n01\r\n"));
+        assertTrue(parts.contains("Content-Range: bytes 95-99/100\r\n\r\n56789\r\n"));
+
+        Response unsatisfiable = entry.toResponse(withHeaders("Range", "bytes=200-300"));
+        assertEquals(416, unsatisfiable.getStatus());
+        assertTrue(head(unsatisfiable).contains("Content-Range: bytes */100"));
+
+        // Rango inválido o If-Range que no coincide: recurso completo
+        assertEquals(200, entry.toResponse(withHeaders("Range", "bytes=5-2")).getStatus());
+        assertEquals(200, entry.toResponse(withHeaders("Range", "bytes=0-1", "If-Range", "\"viejo\"")).getStatus());
+        assertEquals(206, entry.toResponse(withHeaders("Range", "bytes=0-1", "If-Range", entry.getEtag())).getStatus());
+        // Rangos solapados que suman más que el recurso se ignoran
+        assertEquals(200, entry.toResponse(withHeaders("Range", "bytes=0-,0-")).getStatus());
+    }
+
+    private static String head(Response response) {
+        return new String(response.getHeaderBytes(), StandardCharsets.US_ASCII);
+    }
+
+    private static Request withHeaders(String... nameValues) {
+        Request.Builder builder = new Request.Builder().withMethod("GET").withUri(URI.create("/d.bin"));
+        for (int i = 0; i < nameValues.length; i += 2) {
+            builder.withHeader(nameValues[i], nameValues[i + 1]);
+        }
+        return builder.build();
+    }
+
+    private static Request withAcceptEncoding(String value) {
+        Request.Builder builder = new Request.Builder().withMethod("GET").withUri(URI.create("/t.txt"));
+        if (value != null) {
+            builder.withHeader("Accept-Encoding", value);
+        }
+        return builder.build();
+    }
+}
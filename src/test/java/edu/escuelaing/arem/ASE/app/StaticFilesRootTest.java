@@ -0,0 +1,226 @@
+package edu.escuelaing.arem.ASE.app;
+
+import edu.escuelaing.arem.ASE.app.http.HttpServer;
+import edu.escuelaing.arem.ASE.app.http.NioServer;
+import edu.escuelaing.arem.ASE.app.http.Request;
+import edu.escuelaing.arem.ASE.app.http.Response;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de los archivos estáticos servidos desde un directorio en disco:
+ * validación de rutas normalizadas, invalidación de la caché y envío de
+ * archivos grandes con transferTo.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class StaticFilesRootTest {
+
+    private static final int TEST_PORT = 35005;
+    // Mayor que la cuarta parte de la caché por defecto (32 MB): no se guarda
+    static final int LARGE_FILE_SIZE = 9 * 1024 * 1024;
+
+    @TempDir
+    static Path tempDir;
+    private Path root;
+    private NioServer server;
+    private ExecutorService workers;
+
+    @BeforeAll
+    void setup() throws Exception {
+        root = Files.createDirectories(tempDir.resolve("public"));
+        Files.writeString(root.resolve("index.html"), "<html>raiz en disco</html>");
+        Files.writeString(tempDir.resolve("secreto.txt"), "no debe servirse");
+        writeLargeFile(root.resolve("grande.bin"));
+        HttpServer.staticFilesRoot(root.toString());
+
+        workers = Executors.newFixedThreadPool(2);
+        server = new NioServer(TEST_PORT, 1, workers);
+        Thread acceptor = new Thread(server::run);
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @AfterAll
+    void tearDown() {
+        HttpServer.staticFilesRoot(null);
+        server.stop();
+        workers.shutdownNow();
+    }
+
+    static void writeLargeFile(Path file) throws IOException {
+        byte[] data = new byte[LARGE_FILE_SIZE];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i % 251);
+        }
+        Files.write(file, data);
+    }
+
+    @Test
+    void testServesIndexFromDirectory() throws Exception {
+        Response response = HttpServer.handleRequest(get("/"));
+        assertEquals(200, response.getStatus());
+        assertTrue(new String(response.toBytes(), StandardCharsets.UTF_8).contains("raiz en disco"));
+    }
+
+    @Test
+    void testRejectsTraversalOutsideRoot() throws Exception {
+        assertEquals(403, HttpServer.handleRequest(get("/../secreto.txt")).getStatus());
+        assertEquals(403, HttpServer.handleRequest(get("/a/../../secreto.txt")).getStatus());
+        assertEquals(403, HttpServer.handleRequest(get("/%2E%2E/secreto.txt")).getStatus());
+        // ".." que no sale de la raíz es válido
+        assertEquals(200, HttpServer.handleRequest(get("/sub/../index.html")).getStatus());
+    }
+
+    @Test
+    void testRejectsSymlinkOutsideRoot() throws Exception {
+        Path link = root.resolve("enlace.txt");
+        try {
+            Files.createSymbolicLink(link, tempDir.resolve("secreto.txt"));
+        } catch (UnsupportedOperationException | IOException e) {
+            Assumptions.abort("El sistema de archivos no soporta enlaces simbólicos");
+        }
+        assertEquals(403, HttpServer.handleRequest(get("/enlace.txt")).getStatus());
+    }
+
+    @Test
+    void testCachedFileIsRefreshedWhenModified() throws Exception {
+        Path file = root.resolve("cambia.txt");
+        Files.writeString(file, "version uno");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1_000_000_000_000L));
+        assertTrue(new String(HttpServer.handleRequest(get("/cambia.txt")).toBytes()).contains("version uno"));
+
+        Files.writeString(file, "version dos");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1_000_000_500_000L));
+        assertTrue(new String(HttpServer.handleRequest(get("/cambia.txt")).toBytes()).contains("version dos"));
+    }
+
+    @Test
+    void testLargeFileIsSentWithTransferTo() throws Exception {
+        try (Socket socket = new Socket("localhost", TEST_PORT)) {
+            socket.setSoTimeout(10000);
+            OutputStream out = socket.getOutputStream();
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            out.write(("GET /grande.bin HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                    + "HEAD /grande.bin HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            String head = readHead(in);
+            assertTrue(head.startsWith("HTTP/1.1 200 OK"));
+            assertTrue(head.contains("Content-Length: " + LARGE_FILE_SIZE));
+            assertTrue(head.contains("Content-Type: application/octet-stream"));
+            assertTrue(head.contains("ETag: "));
+            assertLargeBody(in);
+
+            // HEAD en la misma conexión: solo headers, sin cuerpo
+            String headOnly = readHead(in);
+            assertTrue(headOnly.contains("Content-Length: " + LARGE_FILE_SIZE));
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    void testRangeOfLargeFileIsSentFromDisk() throws Exception {
+        try (Socket socket = new Socket("localhost", TEST_PORT)) {
+            socket.setSoTimeout(10000);
+            OutputStream out = socket.getOutputStream();
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            out.write("GET /grande.bin HTTP/1.1\r\nRange: bytes=1000-1009\r\nConnection: close\r\n\r\n"
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            String head = readHead(in);
+            assertTrue(head.startsWith("HTTP/1.1 206 Partial Content"));
+            assertTrue(head.contains("Content-Range: bytes 1000-1009/" + LARGE_FILE_SIZE));
+            assertTrue(head.contains("Content-Length: 10\r\n"));
+            byte[] body = in.readNBytes(10);
+            for (int i = 0; i < body.length; i++) {
+                assertEquals((byte) ((1000 + i) % 251), body[i]);
+            }
+            assertEquals(-1, in.read());
+        }
+
+        Response multi = HttpServer.handleRequest(new Request.Builder().withMethod("GET")
+                .withUri(URI.create("/grande.bin")).withHeader("Range", "bytes=0-0,-1").build());
+        assertEquals(206, multi.getStatus());
+        String parts = new String(multi.toBytes(), StandardCharsets.ISO_8859_1);
+        assertTrue(parts.contains("Content-Range: bytes 0-0/" + LARGE_FILE_SIZE));
+        assertTrue(parts.contains("Content-Range: bytes " + (LARGE_FILE_SIZE - 1) + "-" + (LARGE_FILE_SIZE - 1)));
+        assertTrue(multi.getBodyBytes().length < 1024);
+    }
+
+    @Test
+    void testMultipleRangesOfLargeFileAreStreamed() throws Exception {
+        // El archivo supera el tamaño máximo de entrada de la caché; los dos
+        // tramos suman 8 MB y se envían desde el archivo, sin copiarlos
+        long half = LARGE_FILE_SIZE / 2;
+        try (Socket socket = new Socket("localhost", TEST_PORT)) {
+            socket.setSoTimeout(10000);
+            OutputStream out = socket.getOutputStream();
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            out.write(("GET /grande.bin HTTP/1.1\r\nRange: bytes=0-" + (half - 1) + "," + half + "-"
+                    + (LARGE_FILE_SIZE - 2) + "\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            String head = readHead(in);
+            assertTrue(head.startsWith("HTTP/1.1 206 Partial Content"));
+            assertTrue(head.contains("Content-Type: multipart/byteranges; boundary="));
+            assertTrue(head.contains("ETag: "));
+            int lengthStart = head.indexOf("Content-Length: ") + 16;
+            long contentLength = Long.parseLong(head.substring(lengthStart, head.indexOf("\r\n", lengthStart)));
+
+            String firstPart = readHead(in);
+            assertTrue(firstPart.contains("Content-Range: bytes 0-" + (half - 1) + "/" + LARGE_FILE_SIZE));
+            byte[] first = in.readNBytes((int) half);
+            assertEquals((byte) ((half - 1) % 251), first[first.length - 1]);
+            assertEquals("\r\n", new String(in.readNBytes(2), StandardCharsets.US_ASCII));
+
+            String secondPart = readHead(in);
+            assertTrue(secondPart.contains("Content-Range: bytes " + half + "-" + (LARGE_FILE_SIZE - 2)));
+            byte[] second = in.readNBytes((int) (LARGE_FILE_SIZE - 1 - half));
+            assertEquals((byte) (half % 251), second[0]);
+            assertEquals((byte) ((LARGE_FILE_SIZE - 2) % 251), second[second.length - 1]);
+            byte[] rest = in.readAllBytes();
+            assertTrue(new String(rest, StandardCharsets.US_ASCII).endsWith("--\r\n"));
+            assertEquals(contentLength, firstPart.length() + half + 2 + secondPart.length() + second.length
+                    + rest.length);
+        }
+    }
+
+    // ================== MÉTODOS AUXILIARES ==================
+    private static Request get(String path) {
+        return new Request.Builder().withMethod("GET").withUri(URI.create(path)).build();
+    }
+
+    static String readHead(InputStream in) throws IOException {
+        StringBuilder head = new StringBuilder();
+        while (!head.toString().endsWith("\r\n\r\n")) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Conexión cerrada leyendo headers");
+            }
+            head.append((char) b);
+        }
+        return head.toString();
+    }
+
+    static void assertLargeBody(InputStream in) throws IOException {
+        byte[] body = in.readNBytes(LARGE_FILE_SIZE);
+        assertEquals(LARGE_FILE_SIZE, body.length);
+        for (int i = 0; i < body.length; i += 4093) {
+            assertEquals((byte) (i % 251), body[i], "byte " + i);
+        }
+        assertEquals((byte) ((LARGE_FILE_SIZE - 1) % 251), body[body.length - 1]);
+    }
+}
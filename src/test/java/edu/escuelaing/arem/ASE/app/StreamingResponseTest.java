@@ -0,0 +1,91 @@
+package edu.escuelaing.arem.ASE.app;
+
+import edu.escuelaing.arem.ASE.app.http.HttpServer;
+import edu.escuelaing.arem.ASE.app.http.Response;
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de los cuerpos de respuesta en streaming y su framing.
+ */
+class StreamingResponseTest {
+
+    @Test
+    void testUnknownLengthIsSentChunked() {
+        Response response = new Response.Builder()
+                .withContentType("text/plain")
+                .withBodyWriter(out -> {
+                    out.write("hola".getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                    out.write(" mundo".getBytes(StandardCharsets.UTF_8));
+                })
+                .build();
+        String raw = new String(response.toBytes(), StandardCharsets.UTF_8);
+
+        assertTrue(raw.contains("Transfer-Encoding: chunked\r\n"));
+        assertFalse(raw.contains("Content-Length"));
+        assertTrue(raw.endsWith("\r\n\r\n4\r\nhola\r\n6\r\n mundo\r\n0\r\n\r\n"));
+    }
+
+    @Test
+    void testLargeWritesBecomeSingleChunks() {
+        byte[] data = "x".repeat(20000).getBytes(StandardCharsets.US_ASCII);
+        Response response = new Response.Builder()
+                .withBodyWriter(out -> {
+                    out.write('a');
+                    out.write(data);
+                })
+                .build();
+        String raw = new String(response.toBytes(), StandardCharsets.US_ASCII);
+        String body = raw.substring(raw.indexOf("\r\n\r\n") + 4);
+
+        assertEquals("1\r\na\r\n4e20\r\n" + "x".repeat(20000) + "\r\n0\r\n\r\n", body);
+    }
+
+    @Test
+    void testKnownLengthIsEnforced() {
+        Response exact = new Response.Builder()
+                .withBodyWriter(out -> out.write("12345".getBytes(StandardCharsets.US_ASCII)), 5)
+                .build();
+        String raw = new String(exact.toBytes(), StandardCharsets.US_ASCII);
+        assertTrue(raw.contains("Content-Length: 5\r\n"));
+        assertFalse(raw.contains("Transfer-Encoding"));
+        assertTrue(raw.endsWith("\r\n\r\n12345"));
+
+        Response tooLong = new Response.Builder()
+                .withBodyWriter(out -> out.write("123456".getBytes(StandardCharsets.US_ASCII)), 5)
+                .build();
+        assertThrows(UncheckedIOException.class, tooLong::toBytes);
+
+        Response tooShort = new Response.Builder()
+                .withBodyWriter(out -> out.write("1234".getBytes(StandardCharsets.US_ASCII)), 5)
+                .build();
+        assertThrows(UncheckedIOException.class, tooShort::toBytes);
+    }
+
+    @Test
+    void testStreamingHandlerContract() throws Exception {
+        HttpServer.get("/streaming-test/lines", (req, res) -> new Response.Builder()
+                .withContentType("text/plain")
+                .withBodyWriter(out -> {
+                    for (int i = 0; i < 3; i++) {
+                        out.write(("linea " + i + "\n").getBytes(StandardCharsets.UTF_8));
+                        out.flush();
+                    }
+                })
+                .build());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        HttpServer.handleGetRequest(new URI("/streaming-test/lines"), out);
+        String raw = out.toString(StandardCharsets.UTF_8);
+
+        assertTrue(raw.startsWith("HTTP/1.1 200 OK\r\n"));
+        assertTrue(raw.endsWith("8\r\nlinea 0\n\r\n8\r\nlinea 1\n\r\n8\r\nlinea 2\n\r\n0\r\n\r\n"));
+    }
+}
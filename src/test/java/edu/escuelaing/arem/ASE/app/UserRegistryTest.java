@@ -0,0 +1,128 @@
+package edu.escuelaing.arem.ASE.app;
+
+import edu.escuelaing.arem.ASE.app.http.UserRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del registro de usuarios y su índice por nombre.
+ */
+class UserRegistryTest {
+
+    @Test
+    void testLookupsByIdAndName() {
+        UserRegistry registry = new UserRegistry();
+        String first = registry.add("Ana");
+        String second = registry.add("Ana");
+        String other = registry.add("Luis");
+
+        assertEquals(3, registry.size());
+        assertEquals("Ana", registry.getName(first));
+        assertTrue(registry.containsName("Ana"));
+        assertFalse(registry.containsName("Pedro"));
+        assertEquals(Set.of(first, second), registry.getIdsByName("Ana"));
+        assertThrows(UnsupportedOperationException.class, () -> registry.getIdsByName("Ana").clear());
+
+        // Cambiar el nombre de un ID mueve su entrada del índice
+        assertEquals("Luis", registry.put(other, "Lucho"));
+        assertFalse(registry.containsName("Luis"));
+        assertEquals(Set.of(other), registry.getIdsByName("Lucho"));
+
+        assertEquals("Ana", registry.remove(first));
+        assertEquals(Set.of(second), registry.getIdsByName("Ana"));
+        registry.remove(second);
+        assertFalse(registry.containsName("Ana"));
+        assertNull(registry.remove(second));
+        assertEquals(Set.of(), registry.getIdsByName("Ana"));
+    }
+
+    @Test
+    void testMapViewKeepsIndexConsistent() {
+        UserRegistry registry = new UserRegistry();
+        Map<String, String> users = registry.asMap();
+        users.put("id-1", "Ana");
+        registry.add("Luis");
+        assertTrue(users.containsValue("Ana"));
+        assertEquals("Ana", users.get("id-1"));
+
+        Iterator<Map.Entry<String, String>> it = users.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, String> entry = it.next();
+            assertThrows(UnsupportedOperationException.class, () -> entry.setValue("x"));
+            if (entry.getValue().equals("Luis")) {
+                it.remove();
+            }
+        }
+        assertFalse(registry.containsName("Luis"));
+        assertEquals(1, users.size());
+
+        users.clear();
+        assertEquals(0, registry.size());
+        assertFalse(users.containsValue("Ana"));
+    }
+
+    @Test
+    void testConcurrentWritesKeepIndexConsistent() throws InterruptedException {
+        UserRegistry registry = new UserRegistry();
+        int threads = 8;
+        int perThread = 2000;
+        ConcurrentLinkedQueue<String> removed = new ConcurrentLinkedQueue<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            executor.submit(() -> {
+                start.await();
+                List<String> mine = new ArrayList<>();
+                for (int i = 0; i < perThread; i++) {
+                    // Pocos nombres compartidos entre hilos para forzar contención
+                    mine.add(registry.add("user" + (i % 50)));
+                    if (i % 7 == 0) {
+                        registry.put(mine.get(i), "renamed" + thread);
+                    }
+                    if (i % 3 == 0) {
+                        String id = mine.get(i / 2);
+                        if (registry.remove(id) != null) {
+                            removed.add(id);
+                        }
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(threads * perThread - removed.size(), registry.size());
+        int indexed = 0;
+        for (int n = 0; n < 50; n++) {
+            for (String id : registry.getIdsByName("user" + n)) {
+                assertEquals("user" + n, registry.getName(id));
+                indexed++;
+            }
+        }
+        for (int t = 0; t < threads; t++) {
+            for (String id : registry.getIdsByName("renamed" + t)) {
+                assertEquals("renamed" + t, registry.getName(id));
+                indexed++;
+            }
+        }
+        assertEquals(registry.size(), indexed);
+        for (String id : removed) {
+            assertNull(registry.getName(id));
+        }
+    }
+}
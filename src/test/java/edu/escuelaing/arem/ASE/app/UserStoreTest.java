@@ -0,0 +1,152 @@
+package edu.escuelaing.arem.ASE.app;
+
+import edu.escuelaing.arem.ASE.app.http.UserRegistry;
+import edu.escuelaing.arem.ASE.app.http.UserStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del almacén persistente de usuarios: log, snapshots y recuperación.
+ */
+class UserStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private UserStore open() throws IOException {
+        return UserStore.builder().withDirectory(dir).withSnapshotEvery(0).build();
+    }
+
+    private List<String> files(String prefix) throws IOException {
+        try (Stream<Path> list = Files.list(dir)) {
+            return list.map(p -> p.getFileName().toString()).filter(n -> n.startsWith(prefix)).sorted().toList();
+        }
+    }
+
+    @Test
+    void testChangesSurviveReopen() throws IOException {
+        String ana;
+        String luis;
+        try (UserStore store = open()) {
+            ana = store.add("Ana");
+            luis = store.add("Luis");
+            String pedro = store.add("Pedro");
+            assertEquals("Luis", store.put(luis, "Lucho"));
+            assertEquals("Pedro", store.remove(pedro));
+            assertNull(store.remove(pedro));
+        }
+
+        try (UserStore store = open()) {
+            UserRegistry registry = store.getRegistry();
+            assertEquals(2, registry.size());
+            assertEquals("Ana", registry.getName(ana));
+            assertEquals("Lucho", registry.getName(luis));
+            assertFalse(registry.containsName("Pedro"));
+            assertEquals(5, store.getRecoveredRecords());
+        }
+    }
+
+    @Test
+    void testSnapshotCompactsLogAndKeepsTail() throws IOException {
+        String first;
+        String last;
+        try (UserStore store = open()) {
+            first = store.add("Ana");
+            for (int i = 0; i < 100; i++) {
+                store.put(first, "Ana " + i);
+            }
+            store.snapshot();
+            last = store.add("Luis");
+        }
+        assertEquals(1, files("snapshot-").size());
+        assertEquals(1, files("wal-").size(), "Los segmentos cubiertos por el snapshot se borran");
+
+        try (UserStore store = open()) {
+            assertEquals(2, store.getRegistry().size());
+            assertEquals("Ana 99", store.getRegistry().getName(first));
+            assertEquals("Luis", store.getRegistry().getName(last));
+            // Solo se reaplica lo escrito después del snapshot
+            assertEquals(1, store.getRecoveredRecords());
+        }
+    }
+
+    @Test
+    void testTornTailIsDiscarded() throws IOException {
+        String ana;
+        try (UserStore store = open()) {
+            ana = store.add("Ana");
+            store.add("Luis");
+        }
+        Path segment = dir.resolve(files("wal-").get(0));
+        long size = Files.size(segment);
+        // Simula una caída a mitad de la escritura del último registro
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 5);
+        }
+
+        try (UserStore store = open()) {
+            assertEquals(1, store.getRegistry().size());
+            assertEquals("Ana", store.getRegistry().getName(ana));
+            store.add("Carlos");
+        }
+        try (UserStore store = open()) {
+            assertEquals(2, store.getRegistry().size());
+            assertTrue(store.getRegistry().containsName("Carlos"));
+        }
+    }
+
+    @Test
+    void testConcurrentWritesShareCommits() throws Exception {
+        int threads = 16;
+        int perThread = 100;
+        try (UserStore store = open()) {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<?>> futures = Stream.<Future<?>>generate(() -> pool.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        store.add("user");
+                    }
+                })).limit(threads).toList();
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                pool.shutdown();
+            }
+            assertEquals(threads * perThread, store.getLoggedRecords());
+            assertTrue(store.getCommitCount() < store.getLoggedRecords(),
+                    "Las escrituras concurrentes deberían agruparse: " + store.getCommitCount() + " commits");
+        }
+
+        try (UserStore store = open()) {
+            assertEquals(threads * perThread, store.getRegistry().size());
+        }
+    }
+
+    @Test
+    void testAutomaticSnapshots() throws Exception {
+        try (UserStore store = UserStore.builder().withDirectory(dir).withSnapshotEvery(50).build()) {
+            for (int i = 0; i < 500; i++) {
+                store.add("user" + i);
+            }
+        }
+        assertFalse(files("snapshot-").isEmpty());
+        try (UserStore store = open()) {
+            assertEquals(500, store.getRegistry().size());
+            assertTrue(store.getRecoveredRecords() < 500);
+        }
+    }
+}